@@ -68,6 +68,14 @@ public class PropertyKeyConst {
     public static final String NAMING_REQUEST_DOMAIN_RETRY_COUNT = "namingRequestDomainMaxRetryCount";
     
     public static final String NAMING_PUSH_EMPTY_PROTECTION = "namingPushEmptyProtection";
+    
+    public static final String NAMING_BATCH_BEAT_ENABLED = "namingBatchBeatEnabled";
+    
+    public static final String NAMING_ADAPTIVE_POLLING_ENABLED = "namingAdaptivePollingEnabled";
+    
+    public static final String NAMING_PUSH_RECEIVE_BUFFER_SIZE = "namingPushReceiveBufferSize";
+    
+    public static final String NAMING_COMPACT_CACHE_ENABLED = "namingCompactCacheEnabled";
 
     /**
      * Get the key value of some variable value from the system property.
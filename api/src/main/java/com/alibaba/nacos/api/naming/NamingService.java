@@ -469,6 +469,17 @@ public interface NamingService {
     void subscribe(String serviceName, String groupName, List<String> clusters, EventListener listener)
             throws NacosException;
     
+    /**
+     * Subscribe several services of a group at once, their instances are queried in batch requests and refreshed by
+     * polling tasks shared between the services.
+     *
+     * @param serviceNames names of services
+     * @param groupName    group of services
+     * @param listener     event listener
+     * @throws NacosException nacos exception
+     */
+    void batchSubscribe(List<String> serviceNames, String groupName, EventListener listener) throws NacosException;
+    
     /**
      * Unsubscribe event listener of service.
      *
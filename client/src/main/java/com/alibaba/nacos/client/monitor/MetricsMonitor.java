@@ -33,6 +33,9 @@ public class MetricsMonitor {
             .labelNames("module", "method", "url", "code").name("nacos_client_request").help("nacos_client_request")
             .register();
     
+    private static final Gauge NACOS_CLIENT_PUSH_POLL_RATIO = Gauge.build().name("nacos_client_push_poll_ratio")
+            .labelNames("service").help("nacos_client_push_poll_ratio").register();
+    
     public static Gauge.Child getServiceInfoMapSizeMonitor() {
         return NACOS_MONITOR.labels("naming", "serviceInfoMapSize");
     }
@@ -41,6 +44,14 @@ public class MetricsMonitor {
         return NACOS_MONITOR.labels("naming", "dom2BeatSize");
     }
     
+    public static Gauge.Child getPushDroppedMonitor() {
+        return NACOS_MONITOR.labels("naming", "pushDropped");
+    }
+    
+    public static Gauge.Child getPushCoalescedMonitor() {
+        return NACOS_MONITOR.labels("naming", "pushCoalesced");
+    }
+    
     public static Gauge.Child getListenConfigCountMonitor() {
         return NACOS_MONITOR.labels("naming", "listenConfigCount");
     }
@@ -49,6 +60,14 @@ public class MetricsMonitor {
         return NACOS_CLIENT_REQUEST_HISTOGRAM.labels("config", method, url, code).startTimer();
     }
     
+    public static Gauge.Child getPushPollRatioMonitor(String serviceKey) {
+        return NACOS_CLIENT_PUSH_POLL_RATIO.labels(serviceKey);
+    }
+    
+    public static void removePushPollRatioMonitor(String serviceKey) {
+        NACOS_CLIENT_PUSH_POLL_RATIO.remove(serviceKey);
+    }
+    
     public static Histogram.Child getNamingRequestMonitor(String method, String url, String code) {
         return NACOS_CLIENT_REQUEST_HISTOGRAM.labels("naming", method, url, code);
     }
@@ -91,9 +91,12 @@ public class NacosNamingService implements NamingService {
         initLogName(properties);
         
         this.serverProxy = new NamingProxy(this.namespace, this.endpoint, this.serverList, properties);
-        this.beatReactor = new BeatReactor(this.serverProxy, initClientBeatThreadCount(properties));
+        this.beatReactor = new BeatReactor(this.serverProxy, initClientBeatThreadCount(properties),
+                isBatchBeatEnabled(properties));
         this.hostReactor = new HostReactor(this.serverProxy, beatReactor, this.cacheDir, isLoadCacheAtStart(properties),
-                isPushEmptyProtect(properties), initPollingThreadCount(properties));
+                isPushEmptyProtect(properties), initPollingThreadCount(properties),
+                isAdaptivePollingEnabled(properties), initPushReceiveBufferSize(properties),
+                isCompactCacheEnabled(properties));
     }
     
     private int initClientBeatThreadCount(Properties properties) {
@@ -115,6 +118,13 @@ public class NacosNamingService implements NamingService {
                 UtilAndComs.DEFAULT_POLLING_THREAD_COUNT);
     }
     
+    private int initPushReceiveBufferSize(Properties properties) {
+        if (properties == null) {
+            return 0;
+        }
+        return ConvertUtils.toInt(properties.getProperty(PropertyKeyConst.NAMING_PUSH_RECEIVE_BUFFER_SIZE), 0);
+    }
+    
     private boolean isLoadCacheAtStart(Properties properties) {
         boolean loadCacheAtStart = false;
         if (properties != null && StringUtils
@@ -136,6 +146,36 @@ public class NacosNamingService implements NamingService {
         return pushEmptyProtection;
     }
     
+    private boolean isBatchBeatEnabled(Properties properties) {
+        boolean batchBeatEnabled = false;
+        if (properties != null && StringUtils
+                .isNotEmpty(properties.getProperty(PropertyKeyConst.NAMING_BATCH_BEAT_ENABLED))) {
+            batchBeatEnabled = ConvertUtils
+                    .toBoolean(properties.getProperty(PropertyKeyConst.NAMING_BATCH_BEAT_ENABLED));
+        }
+        return batchBeatEnabled;
+    }
+    
+    private boolean isAdaptivePollingEnabled(Properties properties) {
+        boolean adaptivePollingEnabled = false;
+        if (properties != null && StringUtils
+                .isNotEmpty(properties.getProperty(PropertyKeyConst.NAMING_ADAPTIVE_POLLING_ENABLED))) {
+            adaptivePollingEnabled = ConvertUtils
+                    .toBoolean(properties.getProperty(PropertyKeyConst.NAMING_ADAPTIVE_POLLING_ENABLED));
+        }
+        return adaptivePollingEnabled;
+    }
+    
+    private boolean isCompactCacheEnabled(Properties properties) {
+        boolean compactCacheEnabled = false;
+        if (properties != null && StringUtils
+                .isNotEmpty(properties.getProperty(PropertyKeyConst.NAMING_COMPACT_CACHE_ENABLED))) {
+            compactCacheEnabled = ConvertUtils
+                    .toBoolean(properties.getProperty(PropertyKeyConst.NAMING_COMPACT_CACHE_ENABLED));
+        }
+        return compactCacheEnabled;
+    }
+    
     private void initServerAddr(Properties properties) {
         serverList = properties.getProperty(PropertyKeyConst.SERVER_ADDR);
         endpoint = InitUtils.initEndpoint(properties);
@@ -428,7 +468,7 @@ public class NacosNamingService implements NamingService {
         if (subscribe) {
             return Balancer.RandomByWeight.selectHost(hostReactor
                     .getServiceInfo(NamingUtils.getGroupedName(serviceName, groupName),
-                            StringUtils.join(clusters, ",")));
+                            StringUtils.join(clusters, ",")), hostReactor.getSelectorCache());
         } else {
             return Balancer.RandomByWeight.selectHost(hostReactor
                     .getServiceInfoDirectlyFromServer(NamingUtils.getGroupedName(serviceName, groupName),
@@ -458,6 +498,16 @@ public class NacosNamingService implements NamingService {
                 listener);
     }
     
+    @Override
+    public void batchSubscribe(List<String> serviceNames, String groupName, EventListener listener)
+            throws NacosException {
+        List<String> groupedNames = new ArrayList<String>(serviceNames.size());
+        for (String serviceName : serviceNames) {
+            groupedNames.add(NamingUtils.getGroupedName(serviceName, groupName));
+        }
+        hostReactor.subscribe(groupedNames, StringUtils.EMPTY, listener);
+    }
+    
     @Override
     public void unsubscribe(String serviceName, EventListener listener) throws NacosException {
         unsubscribe(serviceName, new ArrayList<String>(), listener);
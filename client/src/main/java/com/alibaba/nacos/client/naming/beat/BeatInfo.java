@@ -16,6 +16,8 @@
 
 package com.alibaba.nacos.client.naming.beat;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
 import java.util.Map;
 
 /**
@@ -43,6 +45,9 @@ public class BeatInfo {
     
     private volatile boolean stopped;
     
+    @JsonIgnore
+    private volatile long nextBeatTime;
+    
     @Override
     public String toString() {
         return "BeatInfo{" + "port=" + port + ", ip='" + ip + '\'' + ", weight=" + weight + ", serviceName='"
@@ -114,6 +119,16 @@ public class BeatInfo {
         this.period = period;
     }
     
+    @JsonIgnore
+    public long getNextBeatTime() {
+        return nextBeatTime;
+    }
+    
+    @JsonIgnore
+    public void setNextBeatTime(long nextBeatTime) {
+        this.nextBeatTime = nextBeatTime;
+    }
+    
     public boolean isStopped() {
         return stopped;
     }
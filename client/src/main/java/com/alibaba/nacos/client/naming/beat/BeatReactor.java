@@ -20,6 +20,7 @@ import com.alibaba.nacos.api.common.Constants;
 import com.alibaba.nacos.api.exception.NacosException;
 import com.alibaba.nacos.api.naming.CommonParams;
 import com.alibaba.nacos.api.naming.NamingResponseCode;
+import com.alibaba.nacos.api.naming.PreservedMetadataKeys;
 import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.alibaba.nacos.api.naming.utils.NamingUtils;
 import com.alibaba.nacos.client.monitor.MetricsMonitor;
@@ -30,6 +31,8 @@ import com.alibaba.nacos.common.utils.JacksonUtils;
 import com.alibaba.nacos.common.utils.ThreadUtils;
 import com.fasterxml.jackson.databind.JsonNode;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
@@ -46,8 +49,18 @@ import static com.alibaba.nacos.client.utils.LogUtils.NAMING_LOGGER;
  */
 public class BeatReactor implements Closeable {
     
+    private static final long BATCH_BEAT_TICK_MS = 1000L;
+    
+    private static final int MAX_BATCH_BEAT_SIZE = 500;
+    
+    private static final String BEATS_NOT_FOUND = "notFound";
+    
+    private static final String CLIENT_BEAT_INTERVAL = "clientBeatInterval";
+    
     private final ScheduledExecutorService executorService;
     
+    private final boolean batchBeatEnabled;
+    
     private final NamingProxy serverProxy;
     
     private boolean lightBeatEnabled = false;
@@ -59,7 +72,23 @@ public class BeatReactor implements Closeable {
     }
     
     public BeatReactor(NamingProxy serverProxy, int threadCount) {
+        this(serverProxy, threadCount, false);
+    }
+    
+    /**
+     * Create beat reactor.
+     *
+     * <p>With batch beat enabled, the beats of all instances are sent by one shared task which wakes up every second
+     * and packs the due beats into a few requests, instead of one task and one request per instance. The batch beat
+     * api is only served by servers of this version or later, so it should not be enabled against older servers.
+     *
+     * @param serverProxy      naming proxy
+     * @param threadCount      count of beat sender threads
+     * @param batchBeatEnabled whether to send beats in batches
+     */
+    public BeatReactor(NamingProxy serverProxy, int threadCount, boolean batchBeatEnabled) {
         this.serverProxy = serverProxy;
+        this.batchBeatEnabled = batchBeatEnabled;
         this.executorService = new ScheduledThreadPoolExecutor(threadCount, new ThreadFactory() {
             @Override
             public Thread newThread(Runnable r) {
@@ -69,6 +98,10 @@ public class BeatReactor implements Closeable {
                 return thread;
             }
         });
+        if (batchBeatEnabled) {
+            this.executorService.scheduleWithFixedDelay(new BatchBeatTask(), BATCH_BEAT_TICK_MS, BATCH_BEAT_TICK_MS,
+                    TimeUnit.MILLISECONDS);
+        }
     }
     
     /**
@@ -86,7 +119,11 @@ public class BeatReactor implements Closeable {
             existBeat.setStopped(true);
         }
         dom2Beat.put(key, beatInfo);
-        executorService.schedule(new BeatTask(beatInfo), beatInfo.getPeriod(), TimeUnit.MILLISECONDS);
+        if (batchBeatEnabled) {
+            beatInfo.setNextBeatTime(System.currentTimeMillis() + beatInfo.getPeriod());
+        } else {
+            executorService.schedule(new BeatTask(beatInfo), beatInfo.getPeriod(), TimeUnit.MILLISECONDS);
+        }
         MetricsMonitor.getDom2BeatSizeMonitor().set(dom2Beat.size());
     }
     
@@ -141,6 +178,23 @@ public class BeatReactor implements Closeable {
         return serviceName + Constants.NAMING_INSTANCE_ID_SPLITTER + ip + Constants.NAMING_INSTANCE_ID_SPLITTER + port;
     }
     
+    private void reRegister(BeatInfo beatInfo) {
+        Instance instance = new Instance();
+        instance.setPort(beatInfo.getPort());
+        instance.setIp(beatInfo.getIp());
+        instance.setWeight(beatInfo.getWeight());
+        instance.setMetadata(beatInfo.getMetadata());
+        instance.setClusterName(beatInfo.getCluster());
+        instance.setServiceName(beatInfo.getServiceName());
+        instance.setInstanceId(instance.getInstanceId());
+        instance.setEphemeral(true);
+        try {
+            serverProxy.registerService(beatInfo.getServiceName(), NamingUtils.getGroupName(beatInfo.getServiceName()),
+                    instance);
+        } catch (Exception ignore) {
+        }
+    }
+    
     @Override
     public void shutdown() throws NacosException {
         String className = this.getClass().getName();
@@ -179,20 +233,7 @@ public class BeatReactor implements Closeable {
                     code = result.get(CommonParams.CODE).asInt();
                 }
                 if (code == NamingResponseCode.RESOURCE_NOT_FOUND) {
-                    Instance instance = new Instance();
-                    instance.setPort(beatInfo.getPort());
-                    instance.setIp(beatInfo.getIp());
-                    instance.setWeight(beatInfo.getWeight());
-                    instance.setMetadata(beatInfo.getMetadata());
-                    instance.setClusterName(beatInfo.getCluster());
-                    instance.setServiceName(beatInfo.getServiceName());
-                    instance.setInstanceId(instance.getInstanceId());
-                    instance.setEphemeral(true);
-                    try {
-                        serverProxy.registerService(beatInfo.getServiceName(),
-                                NamingUtils.getGroupName(beatInfo.getServiceName()), instance);
-                    } catch (Exception ignore) {
-                    }
+                    reRegister(beatInfo);
                 }
             } catch (NacosException ex) {
                 NAMING_LOGGER.error("[CLIENT-BEAT] failed to send beat: {}, code: {}, msg: {}",
@@ -202,4 +243,55 @@ public class BeatReactor implements Closeable {
             executorService.schedule(new BeatTask(beatInfo), nextTime, TimeUnit.MILLISECONDS);
         }
     }
+    
+    class BatchBeatTask implements Runnable {
+        
+        @Override
+        public void run() {
+            // an exception escaping here would cancel the fixed delay task and stop all beats for good
+            try {
+                long now = System.currentTimeMillis();
+                List<BeatInfo> dueBeats = new ArrayList<BeatInfo>();
+                for (BeatInfo beatInfo : dom2Beat.values()) {
+                    if (!beatInfo.isStopped() && beatInfo.getNextBeatTime() <= now) {
+                        dueBeats.add(beatInfo);
+                    }
+                }
+                for (int i = 0; i < dueBeats.size(); i += MAX_BATCH_BEAT_SIZE) {
+                    sendBeats(dueBeats.subList(i, Math.min(i + MAX_BATCH_BEAT_SIZE, dueBeats.size())), now);
+                }
+            } catch (Throwable t) {
+                NAMING_LOGGER.error("[CLIENT-BEAT] failed to send batch beats", t);
+            }
+        }
+        
+        private void sendBeats(List<BeatInfo> beatInfos, long now) {
+            long interval = 0L;
+            try {
+                JsonNode result = serverProxy.sendBatchBeat(beatInfos);
+                interval = result.path(CLIENT_BEAT_INTERVAL).asLong();
+                for (JsonNode each : result.path(BEATS_NOT_FOUND)) {
+                    int index = each.asInt(-1);
+                    if (index >= 0 && index < beatInfos.size()) {
+                        reRegister(beatInfos.get(index));
+                    }
+                }
+            } catch (NacosException ex) {
+                NAMING_LOGGER.error("[CLIENT-BEAT] failed to send {} beats, code: {}, msg: {}", beatInfos.size(),
+                        ex.getErrCode(), ex.getErrMsg());
+            } catch (Exception ex) {
+                NAMING_LOGGER.error("[CLIENT-BEAT] failed to handle response of {} beats", beatInfos.size(), ex);
+            }
+            for (BeatInfo beatInfo : beatInfos) {
+                long nextTime = beatInfo.getPeriod();
+                // the server only returns its default interval, instances with their own interval keep it
+                boolean customInterval = beatInfo.getMetadata() != null && beatInfo.getMetadata()
+                        .containsKey(PreservedMetadataKeys.HEART_BEAT_INTERVAL);
+                if (interval > 0 && !customInterval) {
+                    nextTime = interval;
+                }
+                beatInfo.setNextBeatTime(now + nextTime);
+            }
+        }
+    }
 }
@@ -100,7 +100,7 @@ public class DiskCache {
             }
             
             for (File file : files) {
-                if (!file.isFile()) {
+                if (!file.isFile() || file.getName().startsWith(ServiceInfoLog.LOG_FILE_NAME)) {
                     continue;
                 }
                 
@@ -0,0 +1,517 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.client.naming.cache;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.alibaba.nacos.api.naming.pojo.ServiceInfo;
+import com.alibaba.nacos.client.naming.utils.CollectionUtils;
+import com.alibaba.nacos.common.lifecycle.Closeable;
+import com.alibaba.nacos.common.utils.ThreadUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+import static com.alibaba.nacos.client.utils.LogUtils.NAMING_LOGGER;
+
+/**
+ * Append log store of service infos, an alternative to the one json file per service of {@link DiskCache}.
+ *
+ * <p>All services are kept in a single file of checksummed binary records, the latest record of a service wins.
+ * Updates are collected in memory and appended in one write every flush interval, an update superseded before the
+ * flush is never written. When most of the records are stale the log is compacted into a temporary file which then
+ * replaces the log, so a crash leaves either the old or the new log. A torn record at the tail is cut off at load.
+ *
+ * <p>The log is locked while open, a second process using the same cache dir falls back to {@link DiskCache}. When
+ * the log is created, the services in the json files of {@link DiskCache} in the same dir are migrated into it.
+ *
+ * @author nacos
+ */
+public class ServiceInfoLog implements Closeable {
+    
+    public static final String LOG_FILE_NAME = "services.log";
+    
+    private static final String COMPACT_FILE_NAME = LOG_FILE_NAME + ".compact";
+    
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    
+    private static final int MAGIC = 0x4e53494c;
+    
+    private static final int VERSION = 1;
+    
+    private static final int FILE_HEADER_LENGTH = 8;
+    
+    private static final int RECORD_HEADER_LENGTH = 8;
+    
+    private static final int MIN_COMPACT_RECORDS = 64;
+    
+    /**
+     * The log is compacted when it holds more records than this times the count of services.
+     */
+    private static final int COMPACT_RATIO = 2;
+    
+    private static final long FLUSH_INTERVAL_MILLIS = 1000L;
+    
+    private final File dir;
+    
+    private final ConcurrentMap<String, ServiceInfo> pending = new ConcurrentHashMap<String, ServiceInfo>();
+    
+    /**
+     * Latest encoded record of every service in the log, used for compaction.
+     */
+    private final Map<String, byte[]> records = new HashMap<String, byte[]>(16);
+    
+    private int recordCount;
+    
+    private RandomAccessFile file;
+    
+    private FileLock lock;
+    
+    private ScheduledExecutorService executorService;
+    
+    private Map<String, ServiceInfo> loadedServices;
+    
+    public ServiceInfoLog(String dir) {
+        this.dir = new File(dir);
+    }
+    
+    /**
+     * Open and load the log, and start the write behind flusher.
+     *
+     * @return false if the log could not be opened or is used by another process
+     */
+    public synchronized boolean open() {
+        boolean created;
+        try {
+            if (!dir.exists() && !dir.mkdirs() && !dir.exists()) {
+                throw new IllegalStateException("failed to create cache dir: " + dir);
+            }
+            File logFile = new File(dir, LOG_FILE_NAME);
+            created = !logFile.exists();
+            file = new RandomAccessFile(logFile, "rw");
+            try {
+                lock = file.getChannel().tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                NAMING_LOGGER.warn("[NA] cache log in {} is used by another client", dir);
+                closeFile();
+                return false;
+            }
+        } catch (Exception e) {
+            NAMING_LOGGER.error("[NA] failed to open cache log in " + dir, e);
+            closeFile();
+            return false;
+        }
+        
+        loadedServices = load();
+        if (created) {
+            migrate();
+        }
+        
+        executorService = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName("com.alibaba.nacos.client.naming.cache.writer");
+                return thread;
+            }
+        });
+        executorService.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        return true;
+    }
+    
+    /**
+     * Take the services loaded when the log was opened, they are not kept after this call.
+     *
+     * @return services with hosts, keyed by service key
+     */
+    public synchronized Map<String, ServiceInfo> takeLoadedServices() {
+        Map<String, ServiceInfo> services = loadedServices;
+        loadedServices = null;
+        return services == null ? new HashMap<String, ServiceInfo>(16) : services;
+    }
+    
+    private void migrate() {
+        Map<String, ServiceInfo> services = DiskCache.read(dir.getPath());
+        if (services.isEmpty()) {
+            return;
+        }
+        NAMING_LOGGER.info("[NA] migrate {} services from cache files to cache log in {}", services.size(), dir);
+        for (ServiceInfo serviceInfo : services.values()) {
+            loadedServices.put(serviceInfo.getKey(), serviceInfo);
+            write(serviceInfo);
+        }
+        flush();
+    }
+    
+    private Map<String, ServiceInfo> load() {
+        Map<String, ServiceInfo> services = new HashMap<String, ServiceInfo>(16);
+        try {
+            new File(dir, COMPACT_FILE_NAME).delete();
+            
+            long length = file.length();
+            if (length < FILE_HEADER_LENGTH || length > Integer.MAX_VALUE) {
+                reset();
+                return services;
+            }
+            byte[] data = new byte[(int) length];
+            file.seek(0);
+            file.readFully(data);
+            
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+            if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                NAMING_LOGGER.warn("[NA] unknown cache log format in {}, discard it", dir);
+                reset();
+                return services;
+            }
+            
+            int offset = FILE_HEADER_LENGTH;
+            CRC32 crc32 = new CRC32();
+            while (data.length - offset >= RECORD_HEADER_LENGTH) {
+                int recordLength = in.readInt();
+                final int checksum = in.readInt();
+                if (recordLength <= 0 || data.length - offset - RECORD_HEADER_LENGTH < recordLength) {
+                    break;
+                }
+                crc32.reset();
+                crc32.update(data, offset + RECORD_HEADER_LENGTH, recordLength);
+                if ((int) crc32.getValue() != checksum) {
+                    break;
+                }
+                byte[] record = new byte[recordLength];
+                in.readFully(record);
+                ServiceInfo serviceInfo = decode(record);
+                records.put(serviceInfo.getKey(), record);
+                services.put(serviceInfo.getKey(), serviceInfo);
+                recordCount++;
+                offset += RECORD_HEADER_LENGTH + recordLength;
+            }
+            
+            if (offset < data.length) {
+                NAMING_LOGGER.warn("[NA] cut off {} bytes of torn cache log in {}", data.length - offset, dir);
+                file.setLength(offset);
+            }
+        } catch (Exception e) {
+            NAMING_LOGGER.error("[NA] failed to load cache log in " + dir, e);
+            services.clear();
+            records.clear();
+            recordCount = 0;
+            try {
+                reset();
+            } catch (IOException ex) {
+                NAMING_LOGGER.error("[NA] failed to reset cache log in " + dir, ex);
+            }
+        }
+        
+        List<String> emptyServices = new ArrayList<String>();
+        for (Map.Entry<String, ServiceInfo> entry : services.entrySet()) {
+            if (CollectionUtils.isEmpty(entry.getValue().getHosts())) {
+                emptyServices.add(entry.getKey());
+            }
+        }
+        for (String key : emptyServices) {
+            services.remove(key);
+        }
+        return services;
+    }
+    
+    /**
+     * Queue the service info to be appended by the next flush.
+     *
+     * @param serviceInfo service info
+     */
+    public void write(ServiceInfo serviceInfo) {
+        pending.put(serviceInfo.getKey(), serviceInfo);
+    }
+    
+    /**
+     * Append the queued service infos to the log and sync it to disk.
+     */
+    public synchronized void flush() {
+        if (file == null || pending.isEmpty()) {
+            return;
+        }
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            int count = 0;
+            for (Map.Entry<String, ServiceInfo> entry : pending.entrySet()) {
+                byte[] record = encode(entry.getValue());
+                writeRecord(out, record);
+                records.put(entry.getKey(), record);
+                // keep an update which came in meanwhile for the next flush
+                pending.remove(entry.getKey(), entry.getValue());
+                count++;
+            }
+            out.flush();
+            
+            file.seek(file.length());
+            file.write(buffer.toByteArray());
+            file.getChannel().force(false);
+            recordCount += count;
+            
+            if (recordCount >= MIN_COMPACT_RECORDS && recordCount > records.size() * COMPACT_RATIO) {
+                compact();
+            }
+        } catch (Exception e) {
+            NAMING_LOGGER.error("[NA] failed to flush cache log in " + dir, e);
+        }
+    }
+    
+    /**
+     * Rewrite the log with only the latest record of each service.
+     *
+     * @throws IOException io exception
+     */
+    synchronized void compact() throws IOException {
+        File compactFile = new File(dir, COMPACT_FILE_NAME);
+        RandomAccessFile compacted = new RandomAccessFile(compactFile, "rw");
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            for (byte[] record : records.values()) {
+                writeRecord(out, record);
+            }
+            out.flush();
+            compacted.setLength(0);
+            compacted.write(buffer.toByteArray());
+            compacted.getChannel().force(true);
+        } finally {
+            compacted.close();
+        }
+        
+        File logFile = new File(dir, LOG_FILE_NAME);
+        boolean replaced = false;
+        try {
+            replaced = compactFile.renameTo(logFile);
+            if (!replaced) {
+                // rename does not replace an existing or open file on some platforms
+                closeFile();
+                replaced = logFile.delete() && compactFile.renameTo(logFile);
+            }
+        } finally {
+            reopen(logFile, replaced);
+        }
+        if (!replaced) {
+            throw new IOException("failed to replace cache log with " + compactFile);
+        }
+    }
+    
+    /**
+     * Reopen the log after compaction, which is the compacted log if replaced or else the old log. A log deleted
+     * without the compacted one moved in is rewritten from the latest records.
+     */
+    private void reopen(File logFile, boolean replaced) throws IOException {
+        closeFile();
+        file = new RandomAccessFile(logFile, "rw");
+        try {
+            lock = file.getChannel().tryLock();
+        } catch (OverlappingFileLockException e) {
+            lock = null;
+        }
+        if (lock == null) {
+            NAMING_LOGGER.warn("[NA] cache log in {} is taken by another client, stop writing it", dir);
+            closeFile();
+            return;
+        }
+        if (replaced) {
+            recordCount = records.size();
+        } else if (file.length() < FILE_HEADER_LENGTH) {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(buffer);
+            for (byte[] record : records.values()) {
+                writeRecord(out, record);
+            }
+            out.flush();
+            reset();
+            file.write(buffer.toByteArray());
+            file.getChannel().force(false);
+            recordCount = records.size();
+        }
+    }
+    
+    int getRecordCount() {
+        return recordCount;
+    }
+    
+    @Override
+    public void shutdown() {
+        String className = this.getClass().getName();
+        NAMING_LOGGER.info("{} do shutdown begin", className);
+        if (executorService != null) {
+            ThreadUtils.shutdownThreadPool(executorService, NAMING_LOGGER);
+        }
+        flush();
+        synchronized (this) {
+            closeFile();
+        }
+        NAMING_LOGGER.info("{} do shutdown stop", className);
+    }
+    
+    private void reset() throws IOException {
+        file.setLength(0);
+        file.seek(0);
+        file.writeInt(MAGIC);
+        file.writeInt(VERSION);
+        file.getChannel().force(true);
+    }
+    
+    private void closeFile() {
+        try {
+            if (lock != null) {
+                lock.release();
+            }
+        } catch (IOException e) {
+            // ignore
+        }
+        lock = null;
+        try {
+            if (file != null) {
+                file.close();
+            }
+        } catch (IOException e) {
+            // ignore
+        }
+        file = null;
+    }
+    
+    private static void writeRecord(DataOutputStream out, byte[] record) throws IOException {
+        CRC32 crc32 = new CRC32();
+        crc32.update(record);
+        out.writeInt(record.length);
+        out.writeInt((int) crc32.getValue());
+        out.write(record);
+    }
+    
+    static byte[] encode(ServiceInfo serviceInfo) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(buffer);
+        writeString(out, serviceInfo.getName());
+        writeString(out, serviceInfo.getGroupName());
+        writeString(out, serviceInfo.getClusters());
+        out.writeLong(serviceInfo.getCacheMillis());
+        out.writeLong(serviceInfo.getLastRefTime());
+        writeString(out, serviceInfo.getChecksum());
+        out.writeBoolean(serviceInfo.isAllIPs());
+        List<Instance> hosts = serviceInfo.getHosts();
+        out.writeInt(hosts.size());
+        for (Instance host : hosts) {
+            writeString(out, host.getInstanceId());
+            writeString(out, host.getIp());
+            out.writeInt(host.getPort());
+            out.writeDouble(host.getWeight());
+            out.writeBoolean(host.isHealthy());
+            out.writeBoolean(host.isEnabled());
+            out.writeBoolean(host.isEphemeral());
+            writeString(out, host.getClusterName());
+            writeString(out, host.getServiceName());
+            Map<String, String> metadata = host.getMetadata();
+            out.writeInt(metadata == null ? 0 : metadata.size());
+            if (metadata != null) {
+                for (Map.Entry<String, String> entry : metadata.entrySet()) {
+                    writeString(out, entry.getKey());
+                    writeString(out, entry.getValue());
+                }
+            }
+        }
+        out.flush();
+        return buffer.toByteArray();
+    }
+    
+    static ServiceInfo decode(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        ServiceInfo serviceInfo = new ServiceInfo();
+        serviceInfo.setName(readString(in));
+        serviceInfo.setGroupName(readString(in));
+        serviceInfo.setClusters(readString(in));
+        serviceInfo.setCacheMillis(in.readLong());
+        serviceInfo.setLastRefTime(in.readLong());
+        serviceInfo.setChecksum(readString(in));
+        serviceInfo.setAllIPs(in.readBoolean());
+        int hostCount = in.readInt();
+        List<Instance> hosts = new ArrayList<Instance>(hostCount);
+        for (int i = 0; i < hostCount; i++) {
+            Instance host = new Instance();
+            host.setInstanceId(readString(in));
+            host.setIp(readString(in));
+            host.setPort(in.readInt());
+            host.setWeight(in.readDouble());
+            host.setHealthy(in.readBoolean());
+            host.setEnabled(in.readBoolean());
+            host.setEphemeral(in.readBoolean());
+            host.setClusterName(readString(in));
+            host.setServiceName(readString(in));
+            int metadataSize = in.readInt();
+            Map<String, String> metadata = new HashMap<String, String>(Math.max(metadataSize * 2, 2));
+            for (int j = 0; j < metadataSize; j++) {
+                metadata.put(readString(in), readString(in));
+            }
+            host.setMetadata(metadata);
+            hosts.add(host);
+        }
+        serviceInfo.setHosts(hosts);
+        return serviceInfo;
+    }
+    
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+    
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, UTF_8);
+    }
+}
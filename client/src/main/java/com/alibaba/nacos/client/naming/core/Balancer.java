@@ -18,12 +18,15 @@ package com.alibaba.nacos.client.naming.core;
 
 import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.alibaba.nacos.api.naming.pojo.ServiceInfo;
+import com.alibaba.nacos.client.naming.utils.AliasTable;
 import com.alibaba.nacos.client.naming.utils.Chooser;
 import com.alibaba.nacos.client.naming.utils.CollectionUtils;
 import com.alibaba.nacos.client.naming.utils.Pair;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static com.alibaba.nacos.client.utils.LogUtils.NAMING_LOGGER;
 
@@ -59,6 +62,17 @@ public class Balancer {
          * @return random instance
          */
         public static Instance selectHost(ServiceInfo dom) {
+            return selectHost(dom, null);
+        }
+    
+        /**
+         * Random select one instance from service, reusing the weighted selector of the same host list.
+         *
+         * @param dom       service
+         * @param selectors selectors of the services, or null to build a selector for this selection only
+         * @return random instance
+         */
+        public static Instance selectHost(ServiceInfo dom, SelectorCache selectors) {
             
             List<Instance> hosts = selectAll(dom);
             
@@ -66,7 +80,87 @@ public class Balancer {
                 throw new IllegalStateException("no host to srv for service: " + dom.getName());
             }
             
-            return getHostByRandomWeight(hosts);
+            AliasTable<Instance> selector =
+                    selectors == null ? buildSelector(hosts) : selectors.getSelector(dom, hosts);
+            Instance host = selector.select();
+            if (host == null) {
+                throw new IllegalStateException("no healthy host to srv for service: " + dom.getName());
+            }
+            return host;
+        }
+    }
+    
+    private static AliasTable<Instance> buildSelector(List<Instance> hosts) {
+        List<Pair<Instance>> hostsWithWeight = new ArrayList<Pair<Instance>>(hosts.size());
+        for (Instance host : hosts) {
+            if (host.isHealthy()) {
+                hostsWithWeight.add(new Pair<Instance>(host, host.getWeight()));
+            }
+        }
+        return new AliasTable<Instance>(hostsWithWeight);
+    }
+    
+    /**
+     * Weighted selectors of the services of one {@link HostReactor}, keyed by the key of service info.
+     *
+     * <p>Every service info received from the server carries its refresh time and checksum, which identify the version
+     * of the hosts, so the selector is built once for each version of the service. The host list can not identify the
+     * version, {@link ServiceInfo#getHosts()} returns a copy on every call.
+     */
+    public static class SelectorCache {
+        
+        private final ConcurrentMap<String, CachedSelector> selectors = new ConcurrentHashMap<String, CachedSelector>();
+        
+        /**
+         * Get the weighted selector of the hosts.
+         *
+         * @param serviceInfo service info
+         * @param hosts       hosts of the service info
+         * @return weighted selector of healthy hosts
+         */
+        AliasTable<Instance> getSelector(ServiceInfo serviceInfo, List<Instance> hosts) {
+            CachedSelector cached = selectors.get(serviceInfo.getKey());
+            if (cached != null && cached.isVersionOf(serviceInfo, hosts)) {
+                return cached.table;
+            }
+            cached = new CachedSelector(serviceInfo, hosts.size(), buildSelector(hosts));
+            selectors.put(serviceInfo.getKey(), cached);
+            return cached.table;
+        }
+        
+        public void remove(String key) {
+            selectors.remove(key);
+        }
+        
+        public void clear() {
+            selectors.clear();
+        }
+        
+        int size() {
+            return selectors.size();
+        }
+    }
+    
+    private static class CachedSelector {
+        
+        private final long lastRefTime;
+        
+        private final String checksum;
+        
+        private final int hostCount;
+        
+        private final AliasTable<Instance> table;
+        
+        CachedSelector(ServiceInfo serviceInfo, int hostCount, AliasTable<Instance> table) {
+            this.lastRefTime = serviceInfo.getLastRefTime();
+            this.checksum = serviceInfo.getChecksum();
+            this.hostCount = hostCount;
+            this.table = table;
+        }
+        
+        boolean isVersionOf(ServiceInfo serviceInfo, List<Instance> hosts) {
+            return lastRefTime == serviceInfo.getLastRefTime() && hostCount == hosts.size() && (checksum == null
+                    ? serviceInfo.getChecksum() == null : checksum.equals(serviceInfo.getChecksum()));
         }
     }
     
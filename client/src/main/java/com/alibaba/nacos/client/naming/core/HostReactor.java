@@ -25,6 +25,7 @@ import com.alibaba.nacos.client.naming.backups.FailoverReactor;
 import com.alibaba.nacos.client.naming.beat.BeatInfo;
 import com.alibaba.nacos.client.naming.beat.BeatReactor;
 import com.alibaba.nacos.client.naming.cache.DiskCache;
+import com.alibaba.nacos.client.naming.cache.ServiceInfoLog;
 import com.alibaba.nacos.client.naming.event.InstancesChangeEvent;
 import com.alibaba.nacos.client.naming.event.InstancesChangeNotifier;
 import com.alibaba.nacos.client.naming.net.NamingProxy;
@@ -35,10 +36,11 @@ import com.alibaba.nacos.common.notify.NotifyCenter;
 import com.alibaba.nacos.common.utils.JacksonUtils;
 import com.alibaba.nacos.common.utils.StringUtils;
 import com.alibaba.nacos.common.utils.ThreadUtils;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -62,12 +64,37 @@ public class HostReactor implements Closeable {
     
     private static final long UPDATE_HOLD_INTERVAL = 5000L;
     
+    private static final long MAX_POLL_DELAY = DEFAULT_DELAY * 60;
+    
+    private static final int MAX_POLL_BACKOFF = 6;
+    
+    private static final int MAX_BATCH_QUERY_SIZE = 100;
+    
+    private static final String BATCH_QUERY_SERVICES = "services";
+    
+    /**
+     * Lease asked from the server for pushing while polling is backed off, longer than the max poll delay.
+     */
+    private static final long PUSH_LEASE_MILLIS = MAX_POLL_DELAY + MAX_POLL_DELAY / 2;
+    
+    /**
+     * Lease granted by the server in the service json, servers which do not know leases leave it out.
+     */
+    private static final String PUSH_LEASE = "pushLeaseMillis";
+    
     private final Map<String, ScheduledFuture<?>> futureMap = new HashMap<String, ScheduledFuture<?>>();
     
+    /**
+     * Polling tasks shared by the services subscribed in batch, keyed by their polling interval.
+     */
+    private final Map<Long, BatchUpdateTask> batchTaskMap = new HashMap<Long, BatchUpdateTask>();
+    
     private final Map<String, ServiceInfo> serviceInfoMap;
     
     private final Map<String, Object> updatingMap;
     
+    private final Balancer.SelectorCache selectorCache = new Balancer.SelectorCache();
+    
     private final PushReceiver pushReceiver;
     
     private final BeatReactor beatReactor;
@@ -84,12 +111,26 @@ public class HostReactor implements Closeable {
     
     private final InstancesChangeNotifier notifier;
     
+    private final boolean adaptivePollingEnabled;
+    
+    /**
+     * Compact cache store used instead of {@link DiskCache} when enabled and opened, otherwise null.
+     */
+    private final ServiceInfoLog serviceInfoLog;
+    
     public HostReactor(NamingProxy serverProxy, BeatReactor beatReactor, String cacheDir) {
         this(serverProxy, beatReactor, cacheDir, false, false, UtilAndComs.DEFAULT_POLLING_THREAD_COUNT);
     }
     
     public HostReactor(NamingProxy serverProxy, BeatReactor beatReactor, String cacheDir, boolean loadCacheAtStart,
             boolean pushEmptyProtection, int pollingThreadCount) {
+        this(serverProxy, beatReactor, cacheDir, loadCacheAtStart, pushEmptyProtection, pollingThreadCount, false, 0,
+                false);
+    }
+    
+    public HostReactor(NamingProxy serverProxy, BeatReactor beatReactor, String cacheDir, boolean loadCacheAtStart,
+            boolean pushEmptyProtection, int pollingThreadCount, boolean adaptivePollingEnabled,
+            int pushReceiveBufferSize, boolean compactCacheEnabled) {
         // init executorService
         this.executor = new ScheduledThreadPoolExecutor(pollingThreadCount, new ThreadFactory() {
             @Override
@@ -104,25 +145,37 @@ public class HostReactor implements Closeable {
         this.beatReactor = beatReactor;
         this.serverProxy = serverProxy;
         this.cacheDir = cacheDir;
+        this.serviceInfoLog = compactCacheEnabled ? openServiceInfoLog(cacheDir) : null;
         if (loadCacheAtStart) {
-            this.serviceInfoMap = new ConcurrentHashMap<String, ServiceInfo>(DiskCache.read(this.cacheDir));
+            this.serviceInfoMap = new ConcurrentHashMap<String, ServiceInfo>(
+                    serviceInfoLog != null ? serviceInfoLog.takeLoadedServices() : DiskCache.read(this.cacheDir));
         } else {
             this.serviceInfoMap = new ConcurrentHashMap<String, ServiceInfo>(16);
         }
         this.pushEmptyProtection = pushEmptyProtection;
+        this.adaptivePollingEnabled = adaptivePollingEnabled;
         this.updatingMap = new ConcurrentHashMap<String, Object>();
         this.failoverReactor = new FailoverReactor(this, cacheDir);
-        this.pushReceiver = new PushReceiver(this);
+        this.pushReceiver = new PushReceiver(this, pushReceiveBufferSize);
         this.notifier = new InstancesChangeNotifier();
         
         NotifyCenter.registerToPublisher(InstancesChangeEvent.class, 16384);
         NotifyCenter.registerSubscriber(notifier);
     }
     
+    private static ServiceInfoLog openServiceInfoLog(String cacheDir) {
+        ServiceInfoLog serviceInfoLog = new ServiceInfoLog(cacheDir);
+        return serviceInfoLog.open() ? serviceInfoLog : null;
+    }
+    
     public Map<String, ServiceInfo> getServiceInfoMap() {
         return serviceInfoMap;
     }
     
+    public Balancer.SelectorCache getSelectorCache() {
+        return selectorCache;
+    }
+    
     public synchronized ScheduledFuture<?> addTask(UpdateTask task) {
         return executor.schedule(task, DEFAULT_DELAY, TimeUnit.MILLISECONDS);
     }
@@ -139,6 +192,21 @@ public class HostReactor implements Closeable {
         getServiceInfo(serviceName, clusters);
     }
     
+    /**
+     * subscribe instancesChangeEvent of several services, which are queried in one request and polled by shared
+     * tasks.
+     *
+     * @param serviceNames  combineServiceNames, such as 'xxx@@xxx'
+     * @param clusters      clusters, concat by ','. such as 'xxx,yyy'
+     * @param eventListener custom listener
+     */
+    public void subscribe(List<String> serviceNames, String clusters, EventListener eventListener) {
+        for (String serviceName : serviceNames) {
+            notifier.registerListener(serviceName, clusters, eventListener);
+        }
+        getServiceInfos(serviceNames, clusters);
+    }
+    
     /**
      * unsubscribe instancesChangeEvent.
      *
@@ -161,7 +229,17 @@ public class HostReactor implements Closeable {
      * @return service info
      */
     public ServiceInfo processServiceJson(String json) {
-        ServiceInfo serviceInfo = JacksonUtils.toObj(json, ServiceInfo.class);
+        return processServiceInfo(JacksonUtils.toObj(json, ServiceInfo.class), json);
+    }
+    
+    /**
+     * Process service info which has already been parsed from the json.
+     *
+     * @param serviceInfo service info parsed from json
+     * @param json        service json
+     * @return service info
+     */
+    ServiceInfo processServiceInfo(ServiceInfo serviceInfo, String json) {
         ServiceInfo oldService = serviceInfoMap.get(serviceInfo.getKey());
         
         if (pushEmptyProtection && !serviceInfo.validate()) {
@@ -180,74 +258,16 @@ public class HostReactor implements Closeable {
             
             serviceInfoMap.put(serviceInfo.getKey(), serviceInfo);
             
-            Map<String, Instance> oldHostMap = new HashMap<String, Instance>(oldService.getHosts().size());
-            for (Instance host : oldService.getHosts()) {
-                oldHostMap.put(host.toInetAddr(), host);
-            }
-            
-            Map<String, Instance> newHostMap = new HashMap<String, Instance>(serviceInfo.getHosts().size());
-            for (Instance host : serviceInfo.getHosts()) {
-                newHostMap.put(host.toInetAddr(), host);
-            }
-            
-            Set<Instance> modHosts = new HashSet<Instance>();
-            Set<Instance> newHosts = new HashSet<Instance>();
-            Set<Instance> remvHosts = new HashSet<Instance>();
-            
-            List<Map.Entry<String, Instance>> newServiceHosts = new ArrayList<Map.Entry<String, Instance>>(
-                    newHostMap.entrySet());
-            for (Map.Entry<String, Instance> entry : newServiceHosts) {
-                Instance host = entry.getValue();
-                String key = entry.getKey();
-                if (oldHostMap.containsKey(key) && !StringUtils
-                        .equals(host.toString(), oldHostMap.get(key).toString())) {
-                    modHosts.add(host);
-                    continue;
-                }
-                
-                if (!oldHostMap.containsKey(key)) {
-                    newHosts.add(host);
-                }
-            }
-            
-            for (Map.Entry<String, Instance> entry : oldHostMap.entrySet()) {
-                Instance host = entry.getValue();
-                String key = entry.getKey();
-                if (newHostMap.containsKey(key)) {
-                    continue;
-                }
-                
-                if (!newHostMap.containsKey(key)) {
-                    remvHosts.add(host);
-                }
-                
-            }
-            
-            if (newHosts.size() > 0) {
-                changed = true;
-                NAMING_LOGGER.info("new ips(" + newHosts.size() + ") service: " + serviceInfo.getKey() + " -> "
-                        + JacksonUtils.toJson(newHosts));
-            }
-            
-            if (remvHosts.size() > 0) {
-                changed = true;
-                NAMING_LOGGER.info("removed ips(" + remvHosts.size() + ") service: " + serviceInfo.getKey() + " -> "
-                        + JacksonUtils.toJson(remvHosts));
-            }
-            
-            if (modHosts.size() > 0) {
-                changed = true;
-                updateBeatInfo(modHosts);
-                NAMING_LOGGER.info("modified ips(" + modHosts.size() + ") service: " + serviceInfo.getKey() + " -> "
-                        + JacksonUtils.toJson(modHosts));
-            }
+            changed = !isSameHosts(oldService.getHosts(), serviceInfo.getHosts()) && diffHosts(oldService,
+                    serviceInfo);
             
             serviceInfo.setJsonFromServer(json);
             
-            if (newHosts.size() > 0 || remvHosts.size() > 0 || modHosts.size() > 0) {
+            if (changed) {
+                selectorCache.remove(serviceInfo.getKey());
                 NotifyCenter.publishEvent(new InstancesChangeEvent(serviceInfo.getName(), serviceInfo.getGroupName(),
                         serviceInfo.getClusters(), serviceInfo.getHosts()));
-                DiskCache.write(serviceInfo, cacheDir);
+                writeCache(serviceInfo);
             }
             
         } else {
@@ -258,7 +278,7 @@ public class HostReactor implements Closeable {
             NotifyCenter.publishEvent(new InstancesChangeEvent(serviceInfo.getName(), serviceInfo.getGroupName(),
                     serviceInfo.getClusters(), serviceInfo.getHosts()));
             serviceInfo.setJsonFromServer(json);
-            DiskCache.write(serviceInfo, cacheDir);
+            writeCache(serviceInfo);
         }
         
         MetricsMonitor.getServiceInfoMapSizeMonitor().set(serviceInfoMap.size());
@@ -271,7 +291,94 @@ public class HostReactor implements Closeable {
         return serviceInfo;
     }
     
-    private void updateBeatInfo(Set<Instance> modHosts) {
+    /**
+     * Diff the hosts of the new service info with the old one by address, and log the new, removed and modified hosts.
+     *
+     * @param oldService  old service info
+     * @param serviceInfo new service info
+     * @return true if any host is new, removed or modified
+     */
+    private boolean diffHosts(ServiceInfo oldService, ServiceInfo serviceInfo) {
+        Map<String, Instance> oldHostMap = new HashMap<String, Instance>(oldService.getHosts().size());
+        for (Instance host : oldService.getHosts()) {
+            oldHostMap.put(host.toInetAddr(), host);
+        }
+        
+        Map<String, Instance> newHostMap = new HashMap<String, Instance>(serviceInfo.getHosts().size());
+        for (Instance host : serviceInfo.getHosts()) {
+            newHostMap.put(host.toInetAddr(), host);
+        }
+        
+        List<Instance> modHosts = new ArrayList<Instance>();
+        List<Instance> newHosts = new ArrayList<Instance>();
+        List<Instance> remvHosts = new ArrayList<Instance>();
+        
+        for (Map.Entry<String, Instance> entry : newHostMap.entrySet()) {
+            Instance oldHost = oldHostMap.get(entry.getKey());
+            if (oldHost == null) {
+                newHosts.add(entry.getValue());
+            } else if (!isSameInstance(entry.getValue(), oldHost)) {
+                modHosts.add(entry.getValue());
+            }
+        }
+        
+        for (Map.Entry<String, Instance> entry : oldHostMap.entrySet()) {
+            if (!newHostMap.containsKey(entry.getKey())) {
+                remvHosts.add(entry.getValue());
+            }
+        }
+        
+        if (newHosts.size() > 0) {
+            NAMING_LOGGER.info("new ips(" + newHosts.size() + ") service: " + serviceInfo.getKey() + " -> "
+                    + JacksonUtils.toJson(newHosts));
+        }
+        
+        if (remvHosts.size() > 0) {
+            NAMING_LOGGER.info("removed ips(" + remvHosts.size() + ") service: " + serviceInfo.getKey() + " -> "
+                    + JacksonUtils.toJson(remvHosts));
+        }
+        
+        if (modHosts.size() > 0) {
+            updateBeatInfo(modHosts);
+            NAMING_LOGGER.info("modified ips(" + modHosts.size() + ") service: " + serviceInfo.getKey() + " -> "
+                    + JacksonUtils.toJson(modHosts));
+        }
+        
+        return newHosts.size() > 0 || remvHosts.size() > 0 || modHosts.size() > 0;
+    }
+    
+    /**
+     * Whether two host lists hold the same hosts in the same order.
+     *
+     * <p>The server returns the hosts of an unchanged service in a stable order, so most results are confirmed
+     * unchanged here without building any map or string.
+     */
+    static boolean isSameHosts(List<Instance> oldHosts, List<Instance> newHosts) {
+        if (oldHosts.size() != newHosts.size()) {
+            return false;
+        }
+        for (int i = 0; i < newHosts.size(); i++) {
+            if (!isSameInstance(newHosts.get(i), oldHosts.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Compare all the fields which {@link Instance#toString()} prints, field by field.
+     */
+    static boolean isSameInstance(Instance host, Instance oldHost) {
+        return host.getPort() == oldHost.getPort() && Double.compare(host.getWeight(), oldHost.getWeight()) == 0
+                && host.isHealthy() == oldHost.isHealthy() && host.isEnabled() == oldHost.isEnabled()
+                && host.isEphemeral() == oldHost.isEphemeral() && StringUtils.equals(host.getIp(), oldHost.getIp())
+                && StringUtils.equals(host.getInstanceId(), oldHost.getInstanceId()) && StringUtils
+                .equals(host.getClusterName(), oldHost.getClusterName()) && StringUtils
+                .equals(host.getServiceName(), oldHost.getServiceName()) && (host.getMetadata() == null
+                ? oldHost.getMetadata() == null : host.getMetadata().equals(oldHost.getMetadata()));
+    }
+    
+    private void updateBeatInfo(List<Instance> modHosts) {
         for (Instance instance : modHosts) {
             String key = beatReactor.buildKey(instance.getServiceName(), instance.getIp(), instance.getPort());
             if (beatReactor.dom2Beat.containsKey(key) && instance.isEphemeral()) {
@@ -336,6 +443,47 @@ public class HostReactor implements Closeable {
         return serviceInfoMap.get(serviceObj.getKey());
     }
     
+    /**
+     * Get service infos of several services, the services not known yet are queried in one request.
+     *
+     * @param serviceNames combineServiceNames, such as 'xxx@@xxx'
+     * @param clusters     clusters, concat by ','. such as 'xxx,yyy'
+     * @return service infos in the order of service names
+     */
+    public List<ServiceInfo> getServiceInfos(List<String> serviceNames, String clusters) {
+        List<ServiceInfo> serviceInfos = new ArrayList<ServiceInfo>(serviceNames.size());
+        if (failoverReactor.isFailoverSwitch()) {
+            for (String serviceName : serviceNames) {
+                serviceInfos.add(failoverReactor.getService(ServiceInfo.getKey(serviceName, clusters)));
+            }
+            return serviceInfos;
+        }
+        
+        List<ServiceInfo> absentServices = new ArrayList<ServiceInfo>();
+        for (String serviceName : serviceNames) {
+            if (getServiceInfo0(serviceName, clusters) == null) {
+                ServiceInfo serviceObj = new ServiceInfo(serviceName, clusters);
+                serviceInfoMap.put(serviceObj.getKey(), serviceObj);
+                absentServices.add(serviceObj);
+            }
+        }
+        if (!absentServices.isEmpty()) {
+            try {
+                updateServices(absentServices);
+            } catch (NacosException e) {
+                NAMING_LOGGER.error("[NA] failed to update services: " + serviceNames, e);
+            }
+        }
+        
+        for (String serviceName : serviceNames) {
+            String key = ServiceInfo.getKey(serviceName, clusters);
+            ServiceInfo serviceObj = serviceInfoMap.get(key);
+            scheduleBatchUpdateIfAbsent(serviceObj);
+            serviceInfos.add(serviceObj);
+        }
+        return serviceInfos;
+    }
+    
     private void updateServiceNow(String serviceName, String clusters) {
         try {
             updateService(serviceName, clusters);
@@ -365,6 +513,59 @@ public class HostReactor implements Closeable {
         }
     }
     
+    /**
+     * Schedule update of the service with the batch task of its polling interval if absent.
+     *
+     * @param serviceObj service info
+     */
+    private void scheduleBatchUpdateIfAbsent(ServiceInfo serviceObj) {
+        String key = serviceObj.getKey();
+        if (futureMap.get(key) != null) {
+            return;
+        }
+        
+        synchronized (futureMap) {
+            if (futureMap.get(key) != null) {
+                return;
+            }
+            
+            futureMap.put(key, addToBatchTask(serviceObj.getCacheMillis(), key));
+        }
+    }
+    
+    private ScheduledFuture<?> addToBatchTask(long interval, String key) {
+        synchronized (batchTaskMap) {
+            BatchUpdateTask task = batchTaskMap.get(interval);
+            if (task == null) {
+                task = new BatchUpdateTask(interval);
+                batchTaskMap.put(interval, task);
+                task.future = executor.schedule(task, interval, TimeUnit.MILLISECONDS);
+            }
+            task.serviceKeys.add(key);
+            return task.future;
+        }
+    }
+    
+    /**
+     * Update several services now in batch requests.
+     *
+     * @param services services to update, only name and clusters are used
+     * @throws NacosException nacos exception
+     */
+    public void updateServices(List<ServiceInfo> services) throws NacosException {
+        for (int from = 0; from < services.size(); from += MAX_BATCH_QUERY_SIZE) {
+            List<ServiceInfo> batch = services.subList(from, Math.min(from + MAX_BATCH_QUERY_SIZE, services.size()));
+            String result = serverProxy
+                    .queryLists(batch, pushReceiver.getUdpPort(), false, getPushLeaseMillis());
+            if (StringUtils.isEmpty(result)) {
+                continue;
+            }
+            for (JsonNode service : JacksonUtils.toObj(result).path(BATCH_QUERY_SERVICES)) {
+                processServiceJson(service.toString());
+            }
+        }
+    }
+    
     /**
      * Update service now.
      *
@@ -372,14 +573,28 @@ public class HostReactor implements Closeable {
      * @param clusters    clusters
      */
     public void updateService(String serviceName, String clusters) throws NacosException {
+        pollService(serviceName, clusters);
+    }
+    
+    /**
+     * Update service now and return the json received from the server.
+     *
+     * @param serviceName service name
+     * @param clusters    clusters
+     * @return service json, empty if the server returned nothing
+     * @throws NacosException nacos exception
+     */
+    private String pollService(String serviceName, String clusters) throws NacosException {
         ServiceInfo oldService = getServiceInfo0(serviceName, clusters);
         try {
             
-            String result = serverProxy.queryList(serviceName, clusters, pushReceiver.getUdpPort(), false);
+            String result = serverProxy
+                    .queryList(serviceName, clusters, pushReceiver.getUdpPort(), false, getPushLeaseMillis());
             
             if (StringUtils.isNotEmpty(result)) {
                 processServiceJson(result);
             }
+            return result;
         } finally {
             if (oldService != null) {
                 synchronized (oldService) {
@@ -397,12 +612,24 @@ public class HostReactor implements Closeable {
      */
     public void refreshOnly(String serviceName, String clusters) {
         try {
-            serverProxy.queryList(serviceName, clusters, pushReceiver.getUdpPort(), false);
+            serverProxy.queryList(serviceName, clusters, pushReceiver.getUdpPort(), false, getPushLeaseMillis());
         } catch (Exception e) {
             NAMING_LOGGER.error("[NA] failed to update serviceName: " + serviceName, e);
         }
     }
     
+    private void writeCache(ServiceInfo serviceInfo) {
+        if (serviceInfoLog != null) {
+            serviceInfoLog.write(serviceInfo);
+        } else {
+            DiskCache.write(serviceInfo, cacheDir);
+        }
+    }
+    
+    private long getPushLeaseMillis() {
+        return adaptivePollingEnabled ? PUSH_LEASE_MILLIS : 0L;
+    }
+    
     @Override
     public void shutdown() throws NacosException {
         String className = this.getClass().getName();
@@ -410,10 +637,72 @@ public class HostReactor implements Closeable {
         ThreadUtils.shutdownThreadPool(executor, NAMING_LOGGER);
         pushReceiver.shutdown();
         failoverReactor.shutdown();
+        if (serviceInfoLog != null) {
+            serviceInfoLog.shutdown();
+        }
+        selectorCache.clear();
+        synchronized (futureMap) {
+            for (String key : futureMap.keySet()) {
+                MetricsMonitor.removePushPollRatioMonitor(key);
+            }
+        }
         NotifyCenter.deregisterSubscriber(notifier);
         NAMING_LOGGER.info("{} do shutdown stop", className);
     }
     
+    /**
+     * Polling task shared by the services of the same polling interval, which queries them in batch requests.
+     */
+    public class BatchUpdateTask implements Runnable {
+        
+        private final long interval;
+        
+        private final Set<String> serviceKeys = Collections
+                .newSetFromMap(new ConcurrentHashMap<String, Boolean>(16));
+        
+        private volatile ScheduledFuture<?> future;
+        
+        public BatchUpdateTask(long interval) {
+            this.interval = interval;
+        }
+        
+        public Set<String> getServiceKeys() {
+            return serviceKeys;
+        }
+        
+        @Override
+        public void run() {
+            List<ServiceInfo> services = new ArrayList<ServiceInfo>(serviceKeys.size());
+            try {
+                for (String key : serviceKeys) {
+                    ServiceInfo serviceObj = serviceInfoMap.get(key);
+                    if (serviceObj != null) {
+                        services.add(serviceObj);
+                    }
+                }
+                updateServices(services);
+            } catch (Throwable e) {
+                NAMING_LOGGER.warn("[NA] failed to update services of interval: " + interval, e);
+            } finally {
+                // move the services whose cache millis has been changed by the server to the task of the new interval
+                for (ServiceInfo service : services) {
+                    ServiceInfo serviceObj = serviceInfoMap.get(service.getKey());
+                    if (serviceObj != null && serviceObj.getCacheMillis() != interval) {
+                        serviceKeys.remove(service.getKey());
+                        addToBatchTask(serviceObj.getCacheMillis(), service.getKey());
+                    }
+                }
+                synchronized (batchTaskMap) {
+                    if (serviceKeys.isEmpty()) {
+                        batchTaskMap.remove(interval);
+                    } else {
+                        future = executor.schedule(this, interval, TimeUnit.MILLISECONDS);
+                    }
+                }
+            }
+        }
+    }
+    
     public class UpdateTask implements Runnable {
         
         long lastRefTime = Long.MAX_VALUE;
@@ -427,11 +716,77 @@ public class HostReactor implements Closeable {
          */
         private int failCount = 0;
         
+        /**
+         * the exponent the poll interval is raised with in adaptive mode, reset when a poll finds a missed push.
+         */
+        private int pollBackoff = 0;
+        
+        /**
+         * the push lease confirmed by the server with the last poll, the poll interval stays well within it. Servers
+         * which do not know leases confirm none, their clients keep polling at the cache millis.
+         */
+        private long pushLease = 0L;
+        
+        private long pushCount = 0;
+        
+        private long pollCount = 0;
+        
         public UpdateTask(String serviceName, String clusters) {
             this.serviceName = serviceName;
             this.clusters = clusters;
         }
         
+        public int getPollBackoff() {
+            return pollBackoff;
+        }
+        
+        public long getPushCount() {
+            return pushCount;
+        }
+        
+        public long getPollCount() {
+            return pollCount;
+        }
+        
+        /**
+         * Get ratio of the updates which came by push to the full polls of the service.
+         *
+         * @return push/poll ratio
+         */
+        public double getPushPollRatio() {
+            return pollCount == 0 ? pushCount : (double) pushCount / pollCount;
+        }
+        
+        private void onPolled(ServiceInfo oldService, ServiceInfo serviceObj, String json) {
+            pollCount++;
+            if (!adaptivePollingEnabled) {
+                return;
+            }
+            if (serviceObj == oldService || StringUtils.isEmpty(json)) {
+                // nothing has been received, which tells nothing about the pushes
+                pollBackoff = 0;
+                return;
+            }
+            pushLease = JacksonUtils.toObj(json).path(PUSH_LEASE).asLong(0L);
+            if (isSameHosts(oldService.getHosts(), serviceObj.getHosts())) {
+                // nothing missed, the pushes are healthy
+                pollBackoff = Math.min(pollBackoff + 1, MAX_POLL_BACKOFF);
+            } else {
+                if (pollBackoff > 0) {
+                    NAMING_LOGGER.warn("[NA] push lost for service: {}, clusters: {}, back to fast polling",
+                            serviceName, clusters);
+                }
+                pollBackoff = 0;
+            }
+        }
+        
+        private void onPushed() {
+            pushCount++;
+            if (adaptivePollingEnabled) {
+                pollBackoff = Math.min(pollBackoff + 1, MAX_POLL_BACKOFF);
+            }
+        }
+        
         private void incFailCount() {
             int limit = 6;
             if (failCount == limit) {
@@ -444,9 +799,15 @@ public class HostReactor implements Closeable {
             failCount = 0;
         }
         
+        long nextDelay(long cacheMillis) {
+            // renew the lease before it runs out, no lease means no back off
+            return Math.min(cacheMillis << pollBackoff, Math.max(cacheMillis, pushLease >> 1));
+        }
+        
         @Override
         public void run() {
             long delayTime = DEFAULT_DELAY;
+            boolean stopped = false;
             
             try {
                 ServiceInfo serviceObj = serviceInfoMap.get(ServiceInfo.getKey(serviceName, clusters));
@@ -457,13 +818,17 @@ public class HostReactor implements Closeable {
                 }
                 
                 if (serviceObj.getLastRefTime() <= lastRefTime) {
-                    updateService(serviceName, clusters);
+                    ServiceInfo oldService = serviceObj;
+                    String json = pollService(serviceName, clusters);
                     serviceObj = serviceInfoMap.get(ServiceInfo.getKey(serviceName, clusters));
+                    onPolled(oldService, serviceObj, json);
                 } else {
                     // if serviceName already updated by push, we should not override it
                     // since the push data may be different from pull through force push
                     refreshOnly(serviceName, clusters);
+                    onPushed();
                 }
+                MetricsMonitor.getPushPollRatioMonitor(serviceObj.getKey()).set(getPushPollRatio());
                 
                 lastRefTime = serviceObj.getLastRefTime();
                 
@@ -471,19 +836,24 @@ public class HostReactor implements Closeable {
                         .containsKey(ServiceInfo.getKey(serviceName, clusters))) {
                     // abort the update task
                     NAMING_LOGGER.info("update task is stopped, service:" + serviceName + ", clusters:" + clusters);
+                    MetricsMonitor.removePushPollRatioMonitor(serviceObj.getKey());
+                    stopped = true;
                     return;
                 }
                 if (CollectionUtils.isEmpty(serviceObj.getHosts())) {
                     incFailCount();
                     return;
                 }
-                delayTime = serviceObj.getCacheMillis();
+                delayTime = nextDelay(serviceObj.getCacheMillis());
                 resetFailCount();
             } catch (Throwable e) {
                 incFailCount();
+                pollBackoff = 0;
                 NAMING_LOGGER.warn("[NA] failed to update serviceName: " + serviceName, e);
             } finally {
-                executor.schedule(this, Math.min(delayTime << failCount, DEFAULT_DELAY * 60), TimeUnit.MILLISECONDS);
+                if (!stopped) {
+                    executor.schedule(this, Math.min(delayTime << failCount, MAX_POLL_DELAY), TimeUnit.MILLISECONDS);
+                }
             }
         }
     }
@@ -17,6 +17,8 @@
 package com.alibaba.nacos.client.naming.core;
 
 import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.api.naming.pojo.ServiceInfo;
+import com.alibaba.nacos.client.monitor.MetricsMonitor;
 import com.alibaba.nacos.common.lifecycle.Closeable;
 import com.alibaba.nacos.common.utils.IoUtils;
 import com.alibaba.nacos.common.utils.JacksonUtils;
@@ -25,16 +27,31 @@ import com.alibaba.nacos.common.utils.ThreadUtils;
 
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.SocketAddress;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.alibaba.nacos.client.utils.LogUtils.NAMING_LOGGER;
 
 /**
  * Push receiver.
  *
+ * <p>The receive thread only drains the udp socket into a bounded ring buffer, so the kernel buffer is not left to
+ * overflow while a push is parsed. The worker thread takes the packets in batches, decompresses and parses them, and
+ * applies only the latest push of each service in a batch. Every packet is still acked, so the server stops
+ * retransmitting the superseded ones too.
+ *
  * @author xuanyin
  */
 public class PushReceiver implements Runnable, Closeable {
@@ -43,6 +60,24 @@ public class PushReceiver implements Runnable, Closeable {
     
     private static final int UDP_MSS = 64 * 1024;
     
+    private static final int RING_BUFFER_SIZE = 1024;
+    
+    private static final int MAX_BATCH_SIZE = 128;
+    
+    private static final long POLL_TIMEOUT_MILLIS = 1000L;
+    
+    private static final String PUSH_TYPE_DOM = "dom";
+    
+    private static final String PUSH_TYPE_SERVICE = "service";
+    
+    private static final String PUSH_TYPE_DUMP = "dump";
+    
+    private final BlockingQueue<Frame> ringBuffer = new ArrayBlockingQueue<Frame>(RING_BUFFER_SIZE);
+    
+    private final AtomicLong droppedCount = new AtomicLong();
+    
+    private final AtomicLong coalescedCount = new AtomicLong();
+    
     private ScheduledExecutorService executorService;
     
     private DatagramSocket udpSocket;
@@ -52,10 +87,23 @@ public class PushReceiver implements Runnable, Closeable {
     private volatile boolean closed = false;
     
     public PushReceiver(HostReactor hostReactor) {
+        this(hostReactor, 0);
+    }
+    
+    /**
+     * Create push receiver.
+     *
+     * @param hostReactor       host reactor to apply the pushes
+     * @param receiveBufferSize size of the udp socket receive buffer, 0 for the system default
+     */
+    public PushReceiver(HostReactor hostReactor, int receiveBufferSize) {
         try {
             this.hostReactor = hostReactor;
             this.udpSocket = new DatagramSocket();
-            this.executorService = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            if (receiveBufferSize > 0) {
+                this.udpSocket.setReceiveBufferSize(receiveBufferSize);
+            }
+            this.executorService = new ScheduledThreadPoolExecutor(2, new ThreadFactory() {
                 @Override
                 public Thread newThread(Runnable r) {
                     Thread thread = new Thread(r);
@@ -66,6 +114,7 @@ public class PushReceiver implements Runnable, Closeable {
             });
             
             this.executorService.execute(this);
+            this.executorService.execute(new Worker());
         } catch (Exception e) {
             NAMING_LOGGER.error("[NA] init udp socket failed", e);
         }
@@ -73,39 +122,20 @@ public class PushReceiver implements Runnable, Closeable {
     
     @Override
     public void run() {
+        // the packet data is copied out, so one buffer can be reused for every receive
+        byte[] buffer = new byte[UDP_MSS];
         while (!closed) {
             try {
-                
-                // byte[] is initialized with 0 full filled by default
-                byte[] buffer = new byte[UDP_MSS];
                 DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
                 
                 udpSocket.receive(packet);
                 
-                String json = new String(IoUtils.tryDecompress(packet.getData()), UTF_8).trim();
-                NAMING_LOGGER.info("received push data: " + json + " from " + packet.getAddress().toString());
-                
-                PushPacket pushPacket = JacksonUtils.toObj(json, PushPacket.class);
-                String ack;
-                if ("dom".equals(pushPacket.type) || "service".equals(pushPacket.type)) {
-                    hostReactor.processServiceJson(pushPacket.data);
-                    
-                    // send ack to server
-                    ack = "{\"type\": \"push-ack\"" + ", \"lastRefTime\":\"" + pushPacket.lastRefTime + "\", \"data\":"
-                            + "\"\"}";
-                } else if ("dump".equals(pushPacket.type)) {
-                    // dump data to server
-                    ack = "{\"type\": \"dump-ack\"" + ", \"lastRefTime\": \"" + pushPacket.lastRefTime + "\", \"data\":"
-                            + "\"" + StringUtils.escapeJavaScript(JacksonUtils.toJson(hostReactor.getServiceInfoMap()))
-                            + "\"}";
-                } else {
-                    // do nothing send ack only
-                    ack = "{\"type\": \"unknown-ack\"" + ", \"lastRefTime\":\"" + pushPacket.lastRefTime
-                            + "\", \"data\":" + "\"\"}";
+                Frame frame = new Frame(Arrays.copyOf(packet.getData(), packet.getLength()),
+                        packet.getSocketAddress());
+                if (!ringBuffer.offer(frame)) {
+                    // not acked, the server will retransmit it
+                    MetricsMonitor.getPushDroppedMonitor().set(droppedCount.incrementAndGet());
                 }
-                
-                udpSocket.send(new DatagramPacket(ack.getBytes(UTF_8), ack.getBytes(UTF_8).length,
-                        packet.getSocketAddress()));
             } catch (Exception e) {
                 if (closed) {
                     return;
@@ -115,6 +145,82 @@ public class PushReceiver implements Runnable, Closeable {
         }
     }
     
+    /**
+     * Process a batch of frames, the pushes of the same service are coalesced into the one with latest ref time.
+     *
+     * @param frames frames taken from the ring buffer
+     */
+    void process(List<Frame> frames) {
+        Map<String, ServicePush> latestPushes = new LinkedHashMap<String, ServicePush>();
+        List<Frame> serviceFrames = new ArrayList<Frame>(frames.size());
+        for (Frame frame : frames) {
+            try {
+                String json = new String(IoUtils.tryDecompress(frame.data), UTF_8).trim();
+                NAMING_LOGGER.info("received push data: " + json + " from " + frame.address.toString());
+                
+                PushPacket pushPacket = JacksonUtils.toObj(json, PushPacket.class);
+                frame.pushPacket = pushPacket;
+                if (PUSH_TYPE_DOM.equals(pushPacket.type) || PUSH_TYPE_SERVICE.equals(pushPacket.type)) {
+                    ServiceInfo serviceInfo = JacksonUtils.toObj(pushPacket.data, ServiceInfo.class);
+                    ServicePush previous = latestPushes.get(serviceInfo.getKey());
+                    if (previous != null) {
+                        MetricsMonitor.getPushCoalescedMonitor().set(coalescedCount.incrementAndGet());
+                        if (previous.serviceInfo.getLastRefTime() > serviceInfo.getLastRefTime()) {
+                            serviceFrames.add(frame);
+                            continue;
+                        }
+                    }
+                    latestPushes.put(serviceInfo.getKey(), new ServicePush(serviceInfo, pushPacket.data));
+                    serviceFrames.add(frame);
+                } else {
+                    // dump and unknown packets are acked in place
+                    ack(frame);
+                }
+            } catch (Exception e) {
+                NAMING_LOGGER.error("[NA] error while processing push data", e);
+            }
+        }
+        
+        for (ServicePush push : latestPushes.values()) {
+            try {
+                hostReactor.processServiceInfo(push.serviceInfo, push.json);
+            } catch (Exception e) {
+                NAMING_LOGGER.error("[NA] error while processing push data", e);
+            }
+        }
+        
+        for (Frame frame : serviceFrames) {
+            ack(frame);
+        }
+    }
+    
+    private void ack(Frame frame) {
+        PushPacket pushPacket = frame.pushPacket;
+        String ack;
+        if (PUSH_TYPE_DOM.equals(pushPacket.type) || PUSH_TYPE_SERVICE.equals(pushPacket.type)) {
+            // send ack to server
+            ack = "{\"type\": \"push-ack\"" + ", \"lastRefTime\":\"" + pushPacket.lastRefTime + "\", \"data\":"
+                    + "\"\"}";
+        } else if (PUSH_TYPE_DUMP.equals(pushPacket.type)) {
+            // dump data to server
+            ack = "{\"type\": \"dump-ack\"" + ", \"lastRefTime\": \"" + pushPacket.lastRefTime + "\", \"data\":"
+                    + "\"" + StringUtils.escapeJavaScript(JacksonUtils.toJson(hostReactor.getServiceInfoMap()))
+                    + "\"}";
+        } else {
+            // do nothing send ack only
+            ack = "{\"type\": \"unknown-ack\"" + ", \"lastRefTime\":\"" + pushPacket.lastRefTime
+                    + "\", \"data\":" + "\"\"}";
+        }
+        
+        try {
+            udpSocket.send(new DatagramPacket(ack.getBytes(UTF_8), ack.getBytes(UTF_8).length, frame.address));
+        } catch (Exception e) {
+            if (!closed) {
+                NAMING_LOGGER.error("[NA] error while sending push ack", e);
+            }
+        }
+    }
+    
     @Override
     public void shutdown() throws NacosException {
         String className = this.getClass().getName();
@@ -125,6 +231,14 @@ public class PushReceiver implements Runnable, Closeable {
         NAMING_LOGGER.info("{} do shutdown stop", className);
     }
     
+    public long getDroppedCount() {
+        return droppedCount.get();
+    }
+    
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+    
     public static class PushPacket {
         
         public String type;
@@ -137,4 +251,58 @@ public class PushReceiver implements Runnable, Closeable {
     public int getUdpPort() {
         return this.udpSocket.getLocalPort();
     }
+    
+    /**
+     * Raw packet taken from the socket.
+     */
+    static class Frame {
+        
+        final byte[] data;
+        
+        final SocketAddress address;
+        
+        PushPacket pushPacket;
+        
+        Frame(byte[] data, SocketAddress address) {
+            this.data = data;
+            this.address = address;
+        }
+    }
+    
+    private static class ServicePush {
+        
+        final ServiceInfo serviceInfo;
+        
+        final String json;
+        
+        ServicePush(ServiceInfo serviceInfo, String json) {
+            this.serviceInfo = serviceInfo;
+            this.json = json;
+        }
+    }
+    
+    private class Worker implements Runnable {
+        
+        @Override
+        public void run() {
+            List<Frame> frames = new ArrayList<Frame>(MAX_BATCH_SIZE);
+            while (!closed) {
+                try {
+                    Frame first = ringBuffer.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                    if (first == null) {
+                        continue;
+                    }
+                    frames.add(first);
+                    ringBuffer.drainTo(frames, MAX_BATCH_SIZE - 1);
+                    process(frames);
+                } catch (InterruptedException e) {
+                    return;
+                } catch (Exception e) {
+                    NAMING_LOGGER.error("[NA] error while processing push data", e);
+                } finally {
+                    frames.clear();
+                }
+            }
+        }
+    }
 }
@@ -24,6 +24,7 @@ import com.alibaba.nacos.api.naming.CommonParams;
 import com.alibaba.nacos.api.naming.pojo.Instance;
 import com.alibaba.nacos.api.naming.pojo.ListView;
 import com.alibaba.nacos.api.naming.pojo.Service;
+import com.alibaba.nacos.api.naming.pojo.ServiceInfo;
 import com.alibaba.nacos.api.selector.AbstractSelector;
 import com.alibaba.nacos.api.selector.ExpressionSelector;
 import com.alibaba.nacos.api.selector.SelectorType;
@@ -395,6 +396,22 @@ public class NamingProxy implements Closeable {
      */
     public String queryList(String serviceName, String clusters, int udpPort, boolean healthyOnly)
             throws NacosException {
+        return queryList(serviceName, clusters, udpPort, healthyOnly, 0L);
+    }
+    
+    /**
+     * Query instance list and ask the server to keep pushing to the udp port for the lease.
+     *
+     * @param serviceName     service name
+     * @param clusters        clusters
+     * @param udpPort         udp port
+     * @param healthyOnly     healthy only
+     * @param pushLeaseMillis time the server keeps pushing without another query, 0 for the server default
+     * @return instance list
+     * @throws NacosException nacos exception
+     */
+    public String queryList(String serviceName, String clusters, int udpPort, boolean healthyOnly,
+            long pushLeaseMillis) throws NacosException {
         
         final Map<String, String> params = new HashMap<String, String>(8);
         params.put(CommonParams.NAMESPACE_ID, namespaceId);
@@ -403,10 +420,47 @@ public class NamingProxy implements Closeable {
         params.put("udpPort", String.valueOf(udpPort));
         params.put("clientIP", NetUtils.localIP());
         params.put("healthyOnly", String.valueOf(healthyOnly));
+        if (pushLeaseMillis > 0) {
+            params.put("pushLeaseMillis", String.valueOf(pushLeaseMillis));
+        }
         
         return reqApi(UtilAndComs.nacosUrlBase + "/instance/list", params, HttpMethod.GET);
     }
     
+    /**
+     * Query instance lists of several services in one request.
+     *
+     * @param services        services to query, only name and clusters are used
+     * @param udpPort         udp port
+     * @param healthyOnly     healthy only
+     * @param pushLeaseMillis time the server keeps pushing without another query, 0 for the server default
+     * @return instance lists under "services", in the order of the query
+     * @throws NacosException nacos exception
+     */
+    public String queryLists(List<ServiceInfo> services, int udpPort, boolean healthyOnly, long pushLeaseMillis)
+            throws NacosException {
+        
+        List<Map<String, String>> queries = new ArrayList<Map<String, String>>(services.size());
+        for (ServiceInfo service : services) {
+            Map<String, String> query = new HashMap<String, String>(4);
+            query.put(CommonParams.SERVICE_NAME, service.getName());
+            query.put("clusters", service.getClusters());
+            queries.add(query);
+        }
+        final Map<String, String> params = new HashMap<String, String>(8);
+        params.put(CommonParams.NAMESPACE_ID, namespaceId);
+        params.put("udpPort", String.valueOf(udpPort));
+        params.put("clientIP", NetUtils.localIP());
+        params.put("healthyOnly", String.valueOf(healthyOnly));
+        if (pushLeaseMillis > 0) {
+            params.put("pushLeaseMillis", String.valueOf(pushLeaseMillis));
+        }
+        Map<String, String> bodyMap = new HashMap<String, String>(2);
+        bodyMap.put("services", JacksonUtils.toJson(queries));
+        
+        return reqApi(UtilAndComs.nacosUrlBase + "/instance/list/batch", params, bodyMap, HttpMethod.POST);
+    }
+    
     /**
      * Send beat.
      *
@@ -434,6 +488,35 @@ public class NamingProxy implements Closeable {
         return JacksonUtils.toObj(result);
     }
     
+    /**
+     * Send light beats of several instances in one request.
+     *
+     * @param beatInfos beat info of the instances
+     * @return beat result, positions of the instances not found on server are listed in {@code notFound}
+     * @throws NacosException nacos exception
+     */
+    public JsonNode sendBatchBeat(List<BeatInfo> beatInfos) throws NacosException {
+        
+        if (NAMING_LOGGER.isDebugEnabled()) {
+            NAMING_LOGGER.debug("[BEAT] {} sending {} beats to server", namespaceId, beatInfos.size());
+        }
+        List<Map<String, Object>> beats = new ArrayList<Map<String, Object>>(beatInfos.size());
+        for (BeatInfo beatInfo : beatInfos) {
+            Map<String, Object> beat = new HashMap<String, Object>(8);
+            beat.put("serviceName", beatInfo.getServiceName());
+            beat.put("cluster", beatInfo.getCluster());
+            beat.put("ip", beatInfo.getIp());
+            beat.put("port", beatInfo.getPort());
+            beats.add(beat);
+        }
+        Map<String, String> params = new HashMap<String, String>(2);
+        Map<String, String> bodyMap = new HashMap<String, String>(2);
+        params.put(CommonParams.NAMESPACE_ID, namespaceId);
+        bodyMap.put("beats", JacksonUtils.toJson(beats));
+        String result = reqApi(UtilAndComs.nacosUrlBase + "/instance/beat/batch", params, bodyMap, HttpMethod.PUT);
+        return JacksonUtils.toObj(result);
+    }
+    
     /**
      * Check Server healthy.
      *
@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.client.naming.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Weighted random selection by Vose's alias method.
+ *
+ * <p>The table is immutable once built, selecting an item costs two random numbers and no allocation, so one table
+ * can be shared by any number of threads. Weights are treated the same way as {@link Chooser}: items with weight of
+ * zero or less are ignored, infinite weight counts as 10000 and NaN as 1.
+ *
+ * @author nacos
+ */
+public class AliasTable<T> {
+    
+    private static final double INFINITE_WEIGHT = 10000.0D;
+    
+    private final Object[] items;
+    
+    private final double[] probabilities;
+    
+    private final int[] aliases;
+    
+    public AliasTable(List<Pair<T>> itemsWithWeight) {
+        List<T> validItems = new ArrayList<T>(itemsWithWeight.size());
+        double[] weights = new double[itemsWithWeight.size()];
+        double weightSum = 0D;
+        for (Pair<T> item : itemsWithWeight) {
+            double weight = item.weight();
+            if (Double.isNaN(weight)) {
+                weight = 1.0D;
+            }
+            if (weight <= 0) {
+                continue;
+            }
+            if (Double.isInfinite(weight)) {
+                weight = INFINITE_WEIGHT;
+            }
+            weights[validItems.size()] = weight;
+            validItems.add(item.item());
+            weightSum += weight;
+        }
+        
+        int size = validItems.size();
+        this.items = validItems.toArray();
+        this.probabilities = new double[size];
+        this.aliases = new int[size];
+        
+        // scale the weights so that the average column is exactly full
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights[i] * size / weightSum;
+            if (scaled[i] < 1.0D) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        
+        // fill each under-full column with the rest from an over-full one
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = (scaled[more] + scaled[less]) - 1.0D;
+            if (scaled[more] < 1.0D) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        
+        // what is left is full up to floating point error
+        while (largeCount > 0) {
+            probabilities[large[--largeCount]] = 1.0D;
+        }
+        while (smallCount > 0) {
+            probabilities[small[--smallCount]] = 1.0D;
+        }
+    }
+    
+    /**
+     * Random get one item with weight.
+     *
+     * @return item, or null if there is no item with positive weight
+     */
+    @SuppressWarnings("unchecked")
+    public T select() {
+        if (items.length == 0) {
+            return null;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int column = random.nextInt(items.length);
+        return (T) (random.nextDouble() < probabilities[column] ? items[column] : items[aliases[column]]);
+    }
+    
+    public int size() {
+        return items.length;
+    }
+}
@@ -20,10 +20,12 @@ import com.alibaba.nacos.api.exception.NacosException;
 import com.alibaba.nacos.client.naming.beat.BeatInfo;
 import com.alibaba.nacos.client.naming.beat.BeatReactor;
 import com.alibaba.nacos.client.naming.net.NamingProxy;
+import com.alibaba.nacos.common.utils.JacksonUtils;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
 import java.lang.reflect.Field;
@@ -58,6 +60,29 @@ public class BeatReactorTest {
         Assert.assertEquals(0, getActiveThread(beatReactor));
     }
     
+    @Test
+    public void testBatchBeatSurvivesBadResponses() throws Exception {
+        BeatInfo beatInfo = new BeatInfo();
+        beatInfo.setServiceName("test");
+        beatInfo.setIp("11.11.11.11");
+        beatInfo.setPort(1234);
+        beatInfo.setCluster("clusterName");
+        beatInfo.setWeight(1);
+        beatInfo.setMetadata(new HashMap<String, String>());
+        beatInfo.setPeriod(100L);
+        Mockito.when(namingProxy.sendBatchBeat(Mockito.<BeatInfo>anyList()))
+                .thenThrow(new IllegalStateException("broken response"))
+                .thenReturn(JacksonUtils.createEmptyJsonNode());
+        
+        BeatReactor beatReactor = new BeatReactor(namingProxy, 1, true);
+        beatReactor.addBeatInfo("testService", beatInfo);
+        Thread.sleep(3500L);
+        beatReactor.shutdown();
+        
+        // neither the exception nor the response without an interval may stop the task
+        Mockito.verify(namingProxy, Mockito.atLeast(3)).sendBatchBeat(Mockito.<BeatInfo>anyList());
+    }
+    
     private int getActiveThread(BeatReactor beatReactor) throws NoSuchFieldException, IllegalAccessException {
         Field field = BeatReactor.class.getDeclaredField("executorService");
         field.setAccessible(true);
@@ -0,0 +1,156 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.client.naming.cache;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.alibaba.nacos.api.naming.pojo.ServiceInfo;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Collections;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ServiceInfoLogTest {
+    
+    private static final String CACHE_DIR = ServiceInfoLogTest.class.getResource("/").getPath() + "log-cache/";
+    
+    private ServiceInfoLog serviceInfoLog;
+    
+    @Before
+    public void setUp() throws Exception {
+        serviceInfoLog = new ServiceInfoLog(CACHE_DIR);
+        assertTrue(serviceInfoLog.open());
+    }
+    
+    @After
+    public void tearDown() {
+        serviceInfoLog.shutdown();
+        File file = new File(CACHE_DIR);
+        if (file.exists() && file.list().length > 0) {
+            for (File each : file.listFiles()) {
+                each.delete();
+            }
+        }
+    }
+    
+    @Test
+    public void testWriteAndLoad() {
+        ServiceInfo serviceInfo = buildServiceInfo("testName", 1L);
+        serviceInfoLog.write(serviceInfo);
+        serviceInfoLog.write(buildServiceInfo("testName", 2L));
+        serviceInfoLog.flush();
+        // only the latest update before the flush is appended
+        assertEquals(1, serviceInfoLog.getRecordCount());
+        serviceInfoLog.shutdown();
+        
+        serviceInfoLog = new ServiceInfoLog(CACHE_DIR);
+        assertTrue(serviceInfoLog.open());
+        Map<String, ServiceInfo> services = serviceInfoLog.takeLoadedServices();
+        assertEquals(1, services.size());
+        ServiceInfo actual = services.get(serviceInfo.getKey());
+        assertEquals(2L, actual.getLastRefTime());
+        Instance host = actual.getHosts().get(0);
+        assertEquals("1.1.1.1", host.getIp());
+        assertEquals(1234, host.getPort());
+        assertEquals("中文", host.getMetadata().get("chinese"));
+    }
+    
+    @Test
+    public void testLockedByAnotherClient() {
+        assertFalse(new ServiceInfoLog(CACHE_DIR).open());
+    }
+    
+    @Test
+    public void testCutOffTornRecord() throws Exception {
+        serviceInfoLog.write(buildServiceInfo("testName", 1L));
+        serviceInfoLog.flush();
+        serviceInfoLog.write(buildServiceInfo("otherName", 1L));
+        serviceInfoLog.flush();
+        serviceInfoLog.shutdown();
+        
+        File logFile = new File(CACHE_DIR, ServiceInfoLog.LOG_FILE_NAME);
+        RandomAccessFile file = new RandomAccessFile(logFile, "rw");
+        try {
+            file.setLength(file.length() - 3);
+        } finally {
+            file.close();
+        }
+        
+        serviceInfoLog = new ServiceInfoLog(CACHE_DIR);
+        assertTrue(serviceInfoLog.open());
+        Map<String, ServiceInfo> services = serviceInfoLog.takeLoadedServices();
+        assertEquals(1, services.size());
+        assertTrue(services.containsKey(ServiceInfo.getKey("testName", "testClusters")));
+        assertEquals(1, serviceInfoLog.getRecordCount());
+    }
+    
+    @Test
+    public void testCompact() {
+        for (int i = 0; i < 100; i++) {
+            serviceInfoLog.write(buildServiceInfo("testName", i));
+            serviceInfoLog.flush();
+        }
+        assertTrue(serviceInfoLog.getRecordCount() < 100);
+        serviceInfoLog.shutdown();
+        
+        serviceInfoLog = new ServiceInfoLog(CACHE_DIR);
+        assertTrue(serviceInfoLog.open());
+        Map<String, ServiceInfo> services = serviceInfoLog.takeLoadedServices();
+        assertEquals(99L, services.get(ServiceInfo.getKey("testName", "testClusters")).getLastRefTime());
+    }
+    
+    @Test
+    public void testMigrateCacheFiles() {
+        serviceInfoLog.shutdown();
+        assertTrue(new File(CACHE_DIR, ServiceInfoLog.LOG_FILE_NAME).delete());
+        DiskCache.write(buildServiceInfo("testName", 1L), CACHE_DIR);
+        
+        serviceInfoLog = new ServiceInfoLog(CACHE_DIR);
+        assertTrue(serviceInfoLog.open());
+        assertEquals(1, serviceInfoLog.takeLoadedServices().size());
+        assertTrue(serviceInfoLog.takeLoadedServices().isEmpty());
+        assertEquals(1, serviceInfoLog.getRecordCount());
+        serviceInfoLog.shutdown();
+        
+        // the services are migrated once, and loaded from the log from now on
+        serviceInfoLog = new ServiceInfoLog(CACHE_DIR);
+        assertTrue(serviceInfoLog.open());
+        assertEquals(1, serviceInfoLog.getRecordCount());
+        assertEquals(1L, serviceInfoLog.takeLoadedServices().get(ServiceInfo.getKey("testName", "testClusters"))
+                .getLastRefTime());
+    }
+    
+    private ServiceInfo buildServiceInfo(String serviceName, long lastRefTime) {
+        ServiceInfo serviceInfo = new ServiceInfo(serviceName, "testClusters");
+        serviceInfo.setLastRefTime(lastRefTime);
+        Instance instance = new Instance();
+        instance.setClusterName("testClusters");
+        instance.setIp("1.1.1.1");
+        instance.setPort(1234);
+        instance.setServiceName(serviceName);
+        instance.addMetadata("chinese", "中文");
+        serviceInfo.setHosts(Collections.singletonList(instance));
+        return serviceInfo;
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.client.naming.core;
+
+import com.alibaba.nacos.api.naming.pojo.Instance;
+import com.alibaba.nacos.common.utils.StringUtils;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of confirming that a service result from the server has unchanged hosts, with the field by field comparison of
+ * {@link HostReactor} and with the address keyed toString diff it replaced, run with {@code main}.
+ *
+ * @author nacos
+ */
+public class HostReactorDiffBenchmark {
+    
+    private static final int[] HOST_COUNTS = {10, 100, 1000};
+    
+    private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(2);
+    
+    /**
+     * Run the benchmark.
+     *
+     * @param args no arguments
+     */
+    public static void main(String[] args) {
+        for (int count : HOST_COUNTS) {
+            List<Instance> oldHosts = buildHosts(count);
+            List<Instance> newHosts = buildHosts(count);
+            // warm up both paths before measuring
+            run(oldHosts, newHosts, true);
+            run(oldHosts, newHosts, false);
+            System.out.printf("%5d hosts, field compare: %10.1f ns/diff, toString diff: %10.1f ns/diff%n", count,
+                    run(oldHosts, newHosts, true), run(oldHosts, newHosts, false));
+        }
+    }
+    
+    private static List<Instance> buildHosts(int count) {
+        List<Instance> hosts = new ArrayList<Instance>(count);
+        for (int i = 0; i < count; i++) {
+            Instance host = new Instance();
+            host.setInstanceId("10.0." + (i / 250) + "." + (i % 250) + "#8080#DEFAULT#DEFAULT_GROUP@@benchmark");
+            host.setIp("10.0." + (i / 250) + "." + (i % 250));
+            host.setPort(8080);
+            host.setClusterName("DEFAULT");
+            host.setServiceName("DEFAULT_GROUP@@benchmark");
+            Map<String, String> metadata = new HashMap<String, String>();
+            metadata.put("version", "1.0." + (i % 3));
+            metadata.put("zone", "zone-" + (i % 5));
+            host.setMetadata(metadata);
+            hosts.add(host);
+        }
+        return hosts;
+    }
+    
+    private static double run(List<Instance> oldHosts, List<Instance> newHosts, boolean fieldCompare) {
+        long diffs = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            boolean changed = fieldCompare ? !HostReactor.isSameHosts(oldHosts, newHosts)
+                    : legacyDiff(oldHosts, newHosts);
+            if (changed) {
+                throw new IllegalStateException("hosts are unchanged");
+            }
+            diffs++;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < DURATION_NANOS);
+        return (double) elapsed / diffs;
+    }
+    
+    /**
+     * The diff done by {@code HostReactor.processServiceJson} before, for every result.
+     */
+    private static boolean legacyDiff(List<Instance> oldHosts, List<Instance> newHosts) {
+        Map<String, Instance> oldHostMap = new HashMap<String, Instance>(oldHosts.size());
+        for (Instance host : oldHosts) {
+            oldHostMap.put(host.toInetAddr(), host);
+        }
+        Map<String, Instance> newHostMap = new HashMap<String, Instance>(newHosts.size());
+        for (Instance host : newHosts) {
+            newHostMap.put(host.toInetAddr(), host);
+        }
+        Set<Instance> modHosts = new HashSet<Instance>();
+        Set<Instance> addedHosts = new HashSet<Instance>();
+        Set<Instance> remvHosts = new HashSet<Instance>();
+        for (Map.Entry<String, Instance> entry : newHostMap.entrySet()) {
+            Instance oldHost = oldHostMap.get(entry.getKey());
+            if (oldHost != null && !StringUtils.equals(entry.getValue().toString(), oldHost.toString())) {
+                modHosts.add(entry.getValue());
+            } else if (oldHost == null) {
+                addedHosts.add(entry.getValue());
+            }
+        }
+        for (Map.Entry<String, Instance> entry : oldHostMap.entrySet()) {
+            if (!newHostMap.containsKey(entry.getKey())) {
+                remvHosts.add(entry.getValue());
+            }
+        }
+        return !modHosts.isEmpty() || !addedHosts.isEmpty() || !remvHosts.isEmpty();
+    }
+}
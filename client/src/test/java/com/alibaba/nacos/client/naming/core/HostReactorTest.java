@@ -32,9 +32,12 @@ import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
 import org.mockito.Mock;
+import org.mockito.Mockito;
 import org.mockito.junit.MockitoJUnitRunner;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.concurrent.Executor;
@@ -46,8 +49,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -87,6 +95,82 @@ public class HostReactorTest {
         assertEquals(2.0, actualBeatInfo.getWeight(), 0.0);
     }
     
+    @Test
+    public void testSelectorRemovedWhenServiceChanged() throws NacosException {
+        ServiceInfo serviceInfo = hostReactor.processServiceJson(EXAMPLE);
+        Balancer.SelectorCache selectors = hostReactor.getSelectorCache();
+        assertEquals("1.1.1.1", Balancer.RandomByWeight.selectHost(serviceInfo, selectors).getIp());
+        assertEquals(1, selectors.size());
+        
+        HostReactor otherReactor = new HostReactor(namingProxy, beatReactor, CACHE_DIR);
+        assertEquals(0, otherReactor.getSelectorCache().size());
+        otherReactor.shutdown();
+        
+        hostReactor.processServiceJson(CHANGE_DATA_EXAMPLE);
+        assertEquals(0, selectors.size());
+    }
+    
+    @Test
+    public void testSelectorReusedForUnchangedHosts() throws NacosException {
+        ServiceInfo serviceInfo = hostReactor.processServiceJson(EXAMPLE);
+        Balancer.SelectorCache selectors = hostReactor.getSelectorCache();
+        assertSame(selectors.getSelector(serviceInfo, serviceInfo.getHosts()),
+                selectors.getSelector(serviceInfo, serviceInfo.getHosts()));
+        
+        ServiceInfo refreshed = hostReactor
+                .processServiceJson(EXAMPLE.replace("\"lastRefTime\": 0", "\"lastRefTime\": 1"));
+        assertNotSame(selectors.getSelector(serviceInfo, serviceInfo.getHosts()),
+                selectors.getSelector(refreshed, refreshed.getHosts()));
+    }
+    
+    @Test
+    public void testPollingBacksOffOnlyWithConfirmedLease() throws NacosException {
+        HostReactor reactor = new HostReactor(namingProxy, beatReactor, CACHE_DIR, false, false, 1, true, 0, false);
+        reactor.processServiceJson(EXAMPLE);
+        HostReactor.UpdateTask task = reactor.new UpdateTask("testName", "testClusters");
+        when(namingProxy.queryList(ArgumentMatchers.eq("testName"), ArgumentMatchers.eq("testClusters"), anyInt(),
+                anyBoolean(), anyLong()))
+                .thenReturn(EXAMPLE.replace("\"lastRefTime\": 0", "\"lastRefTime\": 1, \"pushLeaseMillis\": 60000"))
+                .thenThrow(new NacosException(NacosException.SERVER_ERROR, "unreachable"))
+                .thenReturn(EXAMPLE.replace("\"lastRefTime\": 0", "\"lastRefTime\": 2"));
+        try {
+            task.run();
+            assertEquals(1, task.getPollBackoff());
+            assertEquals(2000L, task.nextDelay(1000L));
+            
+            // a failed poll tells nothing about the pushes
+            task.run();
+            assertEquals(0, task.getPollBackoff());
+            
+            // without a confirmed lease the server may drop the push client, so the polling does not slow down
+            task.run();
+            assertEquals(1, task.getPollBackoff());
+            assertEquals(1000L, task.nextDelay(1000L));
+        } finally {
+            reactor.shutdown();
+        }
+    }
+    
+    @Test
+    public void testIsSameInstance() {
+        Instance host = new Instance();
+        host.setIp("1.1.1.1");
+        host.setPort(1234);
+        host.addMetadata("version", "1");
+        Instance oldHost = new Instance();
+        oldHost.setIp("1.1.1.1");
+        oldHost.setPort(1234);
+        oldHost.addMetadata("version", "1");
+        assertTrue(HostReactor.isSameInstance(host, oldHost));
+        
+        oldHost.addMetadata("version", "2");
+        assertFalse(HostReactor.isSameInstance(host, oldHost));
+        
+        oldHost.addMetadata("version", "1");
+        oldHost.setWeight(2.0D);
+        assertFalse(HostReactor.isSameInstance(host, oldHost));
+    }
+    
     @Test
     public void testGetServiceInfoDirectlyFromServer() throws NacosException {
         when(namingProxy.queryList("testName", "testClusters", 0, false)).thenReturn(EXAMPLE);
@@ -94,6 +178,17 @@ public class HostReactorTest {
         assertServiceInfo(actual);
     }
     
+    @Test
+    public void testGetServiceInfosInBatch() throws NacosException {
+        when(namingProxy.queryLists(ArgumentMatchers.<ServiceInfo>anyList(), anyInt(), anyBoolean(), anyLong()))
+                .thenReturn("{\"services\": [" + EXAMPLE + "]}");
+        List<ServiceInfo> actual = hostReactor
+                .getServiceInfos(Collections.singletonList("testName"), "testClusters");
+        assertEquals(1, actual.size());
+        assertServiceInfo(actual.get(0));
+        Mockito.verify(namingProxy, Mockito.never()).queryList("testName", "testClusters", 0, false);
+    }
+    
     @Test
     public void testSubscribe() throws InterruptedException {
         final AtomicInteger count = new AtomicInteger(1);
@@ -0,0 +1,90 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.client.naming.core;
+
+import com.alibaba.nacos.api.naming.pojo.ServiceInfo;
+import com.alibaba.nacos.client.naming.beat.BeatReactor;
+import com.alibaba.nacos.client.naming.net.NamingProxy;
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.junit.MockitoJUnitRunner;
+
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(MockitoJUnitRunner.class)
+public class PushReceiverTest {
+    
+    private static final String CACHE_DIR = PushReceiverTest.class.getResource("/").getPath() + "cache/";
+    
+    @Mock
+    private NamingProxy namingProxy;
+    
+    private HostReactor hostReactor;
+    
+    private PushReceiver pushReceiver;
+    
+    private DatagramSocket server;
+    
+    @Before
+    public void setUp() throws Exception {
+        hostReactor = new HostReactor(namingProxy, new BeatReactor(namingProxy), CACHE_DIR);
+        pushReceiver = new PushReceiver(hostReactor);
+        server = new DatagramSocket(new InetSocketAddress("127.0.0.1", 0));
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        pushReceiver.shutdown();
+        hostReactor.shutdown();
+        server.close();
+    }
+    
+    @Test
+    public void testProcessCoalescesPushesOfSameService() {
+        List<PushReceiver.Frame> frames = new ArrayList<PushReceiver.Frame>();
+        frames.add(buildFrame("testName", 2L));
+        frames.add(buildFrame("testName", 1L));
+        frames.add(buildFrame("otherName", 1L));
+        
+        pushReceiver.process(frames);
+        
+        Assert.assertEquals(1L, pushReceiver.getCoalescedCount());
+        ServiceInfo serviceInfo = hostReactor.getServiceInfoMap().get(ServiceInfo.getKey("testName", ""));
+        Assert.assertEquals(2L, serviceInfo.getLastRefTime());
+        Assert.assertNotNull(hostReactor.getServiceInfoMap().get(ServiceInfo.getKey("otherName", "")));
+    }
+    
+    private PushReceiver.Frame buildFrame(String serviceName, long lastRefTime) {
+        ServiceInfo serviceInfo = new ServiceInfo(serviceName, "");
+        serviceInfo.setLastRefTime(lastRefTime);
+        PushReceiver.PushPacket pushPacket = new PushReceiver.PushPacket();
+        pushPacket.type = "service";
+        pushPacket.lastRefTime = lastRefTime;
+        pushPacket.data = JacksonUtils.toJson(serviceInfo);
+        return new PushReceiver.Frame(JacksonUtils.toJson(pushPacket).getBytes(Charset.forName("UTF-8")),
+                server.getLocalSocketAddress());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.client.naming.utils;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AliasTableTest {
+    
+    @Test
+    public void testSelectByWeight() {
+        List<Pair<String>> itemsWithWeight = new ArrayList<Pair<String>>();
+        itemsWithWeight.add(new Pair<String>("a", 1.0D));
+        itemsWithWeight.add(new Pair<String>("b", 3.0D));
+        itemsWithWeight.add(new Pair<String>("c", 0.0D));
+        AliasTable<String> table = new AliasTable<String>(itemsWithWeight);
+        assertEquals(2, table.size());
+        
+        Map<String, Integer> counts = new HashMap<String, Integer>();
+        int total = 100000;
+        for (int i = 0; i < total; i++) {
+            String item = table.select();
+            Integer count = counts.get(item);
+            counts.put(item, count == null ? 1 : count + 1);
+        }
+        assertNull(counts.get("c"));
+        assertEquals(0.25D, counts.get("a") / (double) total, 0.01D);
+        assertEquals(0.75D, counts.get("b") / (double) total, 0.01D);
+    }
+    
+    @Test
+    public void testSelectFromEmpty() {
+        List<Pair<String>> itemsWithWeight = new ArrayList<Pair<String>>();
+        itemsWithWeight.add(new Pair<String>("a", 0.0D));
+        assertNull(new AliasTable<String>(itemsWithWeight).select());
+    }
+}
@@ -18,6 +18,7 @@ package com.alibaba.nacos.cmdb.memory;
 
 import com.alibaba.nacos.api.cmdb.pojo.Entity;
 import com.alibaba.nacos.api.cmdb.pojo.EntityEvent;
+import com.alibaba.nacos.api.cmdb.pojo.EntityEventType;
 import com.alibaba.nacos.api.cmdb.pojo.Label;
 import com.alibaba.nacos.api.cmdb.spi.CmdbService;
 import com.alibaba.nacos.api.exception.NacosException;
@@ -44,6 +45,10 @@ import java.util.concurrent.TimeUnit;
 /**
  * CMDB provider.
  *
+ * <p>Entities are kept in an immutable {@link CmdbSnapshot}. Queries read the current snapshot without locking, while
+ * dumps and entity events derive a new snapshot and publish it at once, bumping the label version only if some entity
+ * really changed.
+ *
  * @author nkorange
  * @since 0.7.0
  */
@@ -57,7 +62,9 @@ public class CmdbProvider implements CmdbReader, CmdbWriter {
     
     private final ServiceLoader<CmdbService> serviceLoader = ServiceLoader.load(CmdbService.class);
     
-    private Map<String, Map<String, Entity>> entityMap = new ConcurrentHashMap<>();
+    private volatile CmdbSnapshot snapshot = CmdbSnapshot.empty();
+    
+    private final Object writeLock = new Object();
     
     private Map<String, Label> labelMap = new ConcurrentHashMap<>();
     
@@ -103,7 +110,7 @@ public class CmdbProvider implements CmdbReader, CmdbWriter {
         entityTypeSet = cmdbService.getEntityTypes();
         
         // init entity map:
-        entityMap = cmdbService.getAllEntities();
+        refreshEntities(cmdbService.getAllEntities());
     }
     
     /**
@@ -124,10 +131,7 @@ public class CmdbProvider implements CmdbReader, CmdbWriter {
     
     @Override
     public Entity queryEntity(String entityName, String entityType) {
-        if (!entityMap.containsKey(entityType)) {
-            return null;
-        }
-        return entityMap.get(entityType).get(entityName);
+        return snapshot.getEntity(entityType, entityName);
     }
     
     @Override
@@ -144,6 +148,15 @@ public class CmdbProvider implements CmdbReader, CmdbWriter {
         throw new UnsupportedOperationException("Not available now!");
     }
     
+    @Override
+    public long getLabelVersion() {
+        return snapshot.getVersion();
+    }
+    
+    public CmdbSnapshot getSnapshot() {
+        return snapshot;
+    }
+    
     /**
      * Remove CMDB entity.
      *
@@ -151,10 +164,9 @@ public class CmdbProvider implements CmdbReader, CmdbWriter {
      * @param entityType entity type
      */
     public void removeEntity(String entityName, String entityType) {
-        if (!entityMap.containsKey(entityType)) {
-            return;
+        synchronized (writeLock) {
+            snapshot = snapshot.edit().remove(entityType, entityName).commit();
         }
-        entityMap.get(entityType).remove(entityName);
     }
     
     /**
@@ -166,7 +178,66 @@ public class CmdbProvider implements CmdbReader, CmdbWriter {
         if (!entityTypeSet.contains(entity.getType())) {
             return;
         }
-        entityMap.get(entity.getType()).put(entity.getName(), entity);
+        synchronized (writeLock) {
+            snapshot = snapshot.edit().put(entity).commit();
+        }
+    }
+    
+    /**
+     * Apply entity events as one batch, readers see either none or all of them.
+     *
+     * <p>The entities are fetched from the CMDB service before taking the write lock, which is held only to derive and
+     * publish the new snapshot.
+     *
+     * @param events entity events
+     */
+    public void applyEvents(List<EntityEvent> events) {
+        Entity[] entities = new Entity[events.size()];
+        for (int i = 0; i < entities.length; i++) {
+            EntityEvent event = events.get(i);
+            if (event.getType() == EntityEventType.ENTITY_ADD_OR_UPDATE) {
+                entities[i] = cmdbService.getEntity(event.getEntityName(), event.getEntityType());
+            }
+        }
+        synchronized (writeLock) {
+            CmdbSnapshot.Editor editor = snapshot.edit();
+            for (int i = 0; i < entities.length; i++) {
+                EntityEvent event = events.get(i);
+                switch (event.getType()) {
+                    case ENTITY_REMOVE:
+                        editor.remove(event.getEntityType(), event.getEntityName());
+                        break;
+                    case ENTITY_ADD_OR_UPDATE:
+                        if (entities[i] != null && entityTypeSet.contains(entities[i].getType())) {
+                            editor.put(entities[i]);
+                        }
+                        break;
+                    default:
+                        break;
+                }
+            }
+            snapshot = editor.commit();
+        }
+    }
+    
+    /**
+     * Replace all entities with a full dump, unchanged parts of the current snapshot are kept.
+     *
+     * @param entities all entities by type and name
+     */
+    public void refreshEntities(Map<String, Map<String, Entity>> entities) {
+        if (entities == null) {
+            Loggers.MAIN.warn("[LOAD] load entities failed!");
+            return;
+        }
+        synchronized (writeLock) {
+            CmdbSnapshot current = snapshot;
+            snapshot = current.withEntities(entities);
+            if (Loggers.MAIN.isDebugEnabled()) {
+                Loggers.MAIN.debug("DUMP-TASK {}", "label version: " + current.getVersion() + " -> " + snapshot
+                        .getVersion());
+            }
+        }
     }
     
     public class CmdbLabelTask implements Runnable {
@@ -221,7 +292,7 @@ public class CmdbProvider implements CmdbReader, CmdbWriter {
                     return;
                 }
                 // refresh entity map:
-                entityMap = cmdbService.getAllEntities();
+                refreshEntities(cmdbService.getAllEntities());
             } catch (Exception e) {
                 Loggers.MAIN.error("DUMP-TASK {}", "dump failed!", e);
             } finally {
@@ -251,19 +322,7 @@ public class CmdbProvider implements CmdbReader, CmdbWriter {
                 }
                 
                 if (events != null && !events.isEmpty()) {
-                    
-                    for (EntityEvent event : events) {
-                        switch (event.getType()) {
-                            case ENTITY_REMOVE:
-                                removeEntity(event.getEntityName(), event.getEntityType());
-                                break;
-                            case ENTITY_ADD_OR_UPDATE:
-                                updateEntity(cmdbService.getEntity(event.getEntityName(), event.getEntityType()));
-                                break;
-                            default:
-                                break;
-                        }
-                    }
+                    applyEvents(events);
                 }
                 
             } catch (Exception e) {
@@ -0,0 +1,331 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.cmdb.memory;
+
+import com.alibaba.nacos.api.cmdb.pojo.Entity;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Immutable and versioned snapshot of CMDB entities.
+ *
+ * <p>Entities of each type are split into shards by name, the count of shards grows with the count of entities. A
+ * derived snapshot only copies the shards touched by the change and shares all the others, so applying a batch of
+ * entity events, or a dump that changed little, keeps most of the data in place. Readers hold one snapshot and get a
+ * consistent view without any lock.
+ *
+ * @author nacos
+ */
+public final class CmdbSnapshot {
+    
+    private static final int MIN_SHARD_COUNT = 16;
+    
+    private static final int MAX_SHARD_COUNT = 1 << 16;
+    
+    /**
+     * Expected count of entities in one shard, a change copies about this many entities.
+     */
+    private static final int SHARD_SIZE = 256;
+    
+    private static final CmdbSnapshot EMPTY = new CmdbSnapshot(0L,
+            Collections.<String, Map<String, Entity>[]>emptyMap());
+    
+    private final long version;
+    
+    /**
+     * Shards of entities by type, a shard is never modified once the snapshot is built.
+     */
+    private final Map<String, Map<String, Entity>[]> tables;
+    
+    private CmdbSnapshot(long version, Map<String, Map<String, Entity>[]> tables) {
+        this.version = version;
+        this.tables = tables;
+    }
+    
+    public static CmdbSnapshot empty() {
+        return EMPTY;
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public Set<String> getEntityTypes() {
+        return Collections.unmodifiableSet(tables.keySet());
+    }
+    
+    /**
+     * Get entity.
+     *
+     * @param entityType type of entity
+     * @param entityName name of entity
+     * @return entity or null if absent
+     */
+    public Entity getEntity(String entityType, String entityName) {
+        Map<String, Entity>[] shards = tables.get(entityType);
+        if (shards == null || entityName == null) {
+            return null;
+        }
+        return shards[shardOf(entityName, shards.length)].get(entityName);
+    }
+    
+    /**
+     * Get count of entities of the type.
+     *
+     * @param entityType type of entity
+     * @return count of entities
+     */
+    public int size(String entityType) {
+        Map<String, Entity>[] shards = tables.get(entityType);
+        if (shards == null) {
+            return 0;
+        }
+        int size = 0;
+        for (Map<String, Entity> shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+    
+    int shardCount(String entityType) {
+        Map<String, Entity>[] shards = tables.get(entityType);
+        return shards == null ? 0 : shards.length;
+    }
+    
+    /**
+     * Derive a snapshot holding exactly the entities of a full dump.
+     *
+     * <p>The dump is compared with this snapshot shard by shard, and only the shards which changed are built again.
+     * The other shards are taken over from this snapshot, and if nothing changed at all this snapshot itself is
+     * returned, keeping its version. All the shards of a type are built again only if its count of entities left the
+     * range of its count of shards.
+     *
+     * @param entities all entities by type and name
+     * @return derived snapshot
+     */
+    public CmdbSnapshot withEntities(Map<String, Map<String, Entity>> entities) {
+        Map<String, Map<String, Entity>[]> newTables = new HashMap<>(entities.size());
+        boolean changed = entities.size() != tables.size();
+        for (Map.Entry<String, Map<String, Entity>> entry : entities.entrySet()) {
+            Map<String, Entity> typeEntities =
+                    entry.getValue() == null ? Collections.<String, Entity>emptyMap() : entry.getValue();
+            Map<String, Entity>[] oldShards = tables.get(entry.getKey());
+            Map<String, Entity>[] newShards = reconcile(oldShards, typeEntities);
+            changed |= newShards != oldShards;
+            newTables.put(entry.getKey(), newShards);
+        }
+        if (!changed) {
+            return this;
+        }
+        return new CmdbSnapshot(version + 1, Collections.unmodifiableMap(newTables));
+    }
+    
+    /**
+     * Start a batch of changes based on this snapshot.
+     *
+     * @return editor of the batch
+     */
+    public Editor edit() {
+        return new Editor();
+    }
+    
+    /**
+     * Get the shards holding exactly the entities, sharing the shards of the old ones which are unchanged.
+     *
+     * @param oldShards old shards of the type, null if the type is new
+     * @param entities  all entities of the type by name
+     * @return the old shards if nothing changed, otherwise new shards
+     */
+    private static Map<String, Entity>[] reconcile(Map<String, Entity>[] oldShards, Map<String, Entity> entities) {
+        int shardCount = fitShardCount(oldShards, entities.size());
+        boolean[] dirty = new boolean[shardCount];
+        boolean changed = oldShards == null || oldShards.length != shardCount;
+        if (changed) {
+            Arrays.fill(dirty, true);
+        } else {
+            int[] sizes = new int[shardCount];
+            for (Map.Entry<String, Entity> entry : entities.entrySet()) {
+                if (entry.getKey() == null || entry.getValue() == null) {
+                    continue;
+                }
+                int index = shardOf(entry.getKey(), shardCount);
+                sizes[index]++;
+                if (!dirty[index] && !sameEntity(oldShards[index].get(entry.getKey()), entry.getValue())) {
+                    dirty[index] = true;
+                    changed = true;
+                }
+            }
+            for (int i = 0; i < shardCount; i++) {
+                if (!dirty[i] && sizes[i] != oldShards[i].size()) {
+                    dirty[i] = true;
+                    changed = true;
+                }
+            }
+        }
+        if (!changed) {
+            return oldShards;
+        }
+        Map<String, Entity>[] newShards = oldShards == null || oldShards.length != shardCount ? newShards(shardCount)
+                : Arrays.copyOf(oldShards, shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            if (dirty[i]) {
+                newShards[i] = new HashMap<>(16);
+            }
+        }
+        for (Map.Entry<String, Entity> entry : entities.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+            int index = shardOf(entry.getKey(), shardCount);
+            if (dirty[index]) {
+                newShards[index].put(entry.getKey(), entry.getValue());
+            }
+        }
+        return newShards;
+    }
+    
+    /**
+     * Get the count of shards for the entities, the current count is kept until the entities are more than twice or
+     * less than half of what it fits, so a type is not split again whenever its size changes a bit.
+     */
+    private static int fitShardCount(Map<String, Entity>[] oldShards, int entityCount) {
+        int count = MIN_SHARD_COUNT;
+        while (count < MAX_SHARD_COUNT && (long) count * SHARD_SIZE < entityCount) {
+            count <<= 1;
+        }
+        if (oldShards != null && oldShards.length >= count >> 1 && oldShards.length <= count << 1) {
+            return oldShards.length;
+        }
+        return count;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static Map<String, Entity>[] newShards(int shardCount) {
+        Map<String, Entity>[] shards = new Map[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new HashMap<>(16);
+        }
+        return shards;
+    }
+    
+    private static int shardOf(String entityName, int shardCount) {
+        int hash = entityName.hashCode();
+        return (hash ^ (hash >>> 16)) & (shardCount - 1);
+    }
+    
+    private static boolean sameEntity(Entity oldEntity, Entity newEntity) {
+        if (oldEntity == newEntity) {
+            return true;
+        }
+        if (oldEntity == null || newEntity == null) {
+            return false;
+        }
+        return Objects.equals(oldEntity.getType(), newEntity.getType()) && Objects
+                .equals(oldEntity.getName(), newEntity.getName()) && Objects
+                .equals(oldEntity.getLabels(), newEntity.getLabels());
+    }
+    
+    /**
+     * Batch of changes applied to a snapshot, the shards are copied on their first change in the batch.
+     *
+     * <p>An editor is not thread safe and should be committed once.
+     */
+    public final class Editor {
+        
+        private final Map<String, Map<String, Entity>[]> newTables = new HashMap<>(tables);
+        
+        private final Map<String, boolean[]> copiedShards = new HashMap<>(4);
+        
+        private boolean changed;
+        
+        /**
+         * Add or update an entity.
+         *
+         * @param entity entity
+         * @return this editor
+         */
+        public Editor put(Entity entity) {
+            Map<String, Entity>[] shards = newTables.get(entity.getType());
+            if (shards != null && sameEntity(shards[shardOf(entity.getName(), shards.length)].get(entity.getName()),
+                    entity)) {
+                return this;
+            }
+            writableShard(entity.getType(), entity.getName()).put(entity.getName(), entity);
+            changed = true;
+            return this;
+        }
+        
+        /**
+         * Remove an entity.
+         *
+         * @param entityType type of entity
+         * @param entityName name of entity
+         * @return this editor
+         */
+        public Editor remove(String entityType, String entityName) {
+            Map<String, Entity>[] shards = newTables.get(entityType);
+            if (shards == null || entityName == null || !shards[shardOf(entityName, shards.length)]
+                    .containsKey(entityName)) {
+                return this;
+            }
+            writableShard(entityType, entityName).remove(entityName);
+            changed = true;
+            return this;
+        }
+        
+        /**
+         * Build the snapshot of the batch.
+         *
+         * @return new snapshot, or the base snapshot if nothing changed
+         */
+        public CmdbSnapshot commit() {
+            if (!changed) {
+                return CmdbSnapshot.this;
+            }
+            return new CmdbSnapshot(version + 1, Collections.unmodifiableMap(newTables));
+        }
+        
+        private Map<String, Entity> writableShard(String entityType, String entityName) {
+            boolean[] copied = copiedShards.get(entityType);
+            if (copied == null) {
+                Map<String, Entity>[] shards = newTables.get(entityType);
+                if (shards == null) {
+                    shards = newShards(MIN_SHARD_COUNT);
+                    copied = new boolean[shards.length];
+                    Arrays.fill(copied, true);
+                } else {
+                    shards = Arrays.copyOf(shards, shards.length);
+                    copied = new boolean[shards.length];
+                }
+                newTables.put(entityType, shards);
+                copiedShards.put(entityType, copied);
+            }
+            Map<String, Entity>[] shards = newTables.get(entityType);
+            int index = shardOf(entityName, shards.length);
+            if (!copied[index]) {
+                shards[index] = new HashMap<>(shards[index]);
+                copied[index] = true;
+            }
+            return shards[index];
+        }
+    }
+}
@@ -55,4 +55,11 @@ public interface CmdbReader {
      * @return list of entiy
      */
     List<Entity> queryEntitiesByLabel(String labelName, String labelValue);
+    
+    /**
+     * Get version of label data, it increases whenever labels of any entity may have changed.
+     *
+     * @return label version
+     */
+    long getLabelVersion();
 }
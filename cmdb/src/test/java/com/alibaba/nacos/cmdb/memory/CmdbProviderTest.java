@@ -0,0 +1,77 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.cmdb.memory;
+
+import com.alibaba.nacos.api.exception.NacosException;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Collections;
+
+public class CmdbProviderTest {
+    
+    private FakeCmdbService cmdbService;
+    
+    private CmdbProvider cmdbProvider;
+    
+    @Before
+    public void setUp() throws NacosException {
+        cmdbService = new FakeCmdbService();
+        cmdbService.putEntity("10.0.0.1", Collections.singletonMap("site", "site1"));
+        cmdbService.putEntity("10.0.0.2", Collections.singletonMap("site", "site2"));
+        cmdbService.getEntityEvents(0L);
+        
+        cmdbProvider = new CmdbProvider();
+        ReflectionTestUtils.setField(cmdbProvider, "cmdbService", cmdbService);
+        ReflectionTestUtils.setField(cmdbProvider, "entityTypeSet", cmdbService.getEntityTypes());
+        cmdbProvider.refreshEntities(cmdbService.getAllEntities());
+    }
+    
+    @Test
+    public void testRefreshUnchangedKeepsVersion() {
+        long version = cmdbProvider.getLabelVersion();
+        CmdbSnapshot snapshot = cmdbProvider.getSnapshot();
+        cmdbProvider.refreshEntities(cmdbService.getAllEntities());
+        Assert.assertEquals(version, cmdbProvider.getLabelVersion());
+        Assert.assertSame(snapshot, cmdbProvider.getSnapshot());
+        
+        cmdbService.putEntity("10.0.0.2", Collections.singletonMap("site", "site1"));
+        cmdbProvider.refreshEntities(cmdbService.getAllEntities());
+        Assert.assertEquals(version + 1, cmdbProvider.getLabelVersion());
+        Assert.assertEquals("site1", cmdbProvider.queryLabel("10.0.0.2", FakeCmdbService.IP, "site"));
+    }
+    
+    @Test
+    public void testApplyEventsAsOneVersion() {
+        final long version = cmdbProvider.getLabelVersion();
+        final CmdbSnapshot snapshot = cmdbProvider.getSnapshot();
+        cmdbService.putEntity("10.0.0.3", Collections.singletonMap("site", "site3"));
+        cmdbService.removeEntity("10.0.0.1");
+        cmdbProvider.applyEvents(cmdbService.getEntityEvents(0L));
+        
+        Assert.assertEquals(version + 1, cmdbProvider.getLabelVersion());
+        Assert.assertEquals("site3", cmdbProvider.queryLabel("10.0.0.3", FakeCmdbService.IP, "site"));
+        Assert.assertNull(cmdbProvider.queryEntity("10.0.0.1", FakeCmdbService.IP));
+        Assert.assertEquals(2, cmdbProvider.getSnapshot().size(FakeCmdbService.IP));
+        
+        // the old snapshot is left untouched for its readers
+        Assert.assertNotNull(snapshot.getEntity(FakeCmdbService.IP, "10.0.0.1"));
+        Assert.assertNull(snapshot.getEntity(FakeCmdbService.IP, "10.0.0.3"));
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.cmdb.memory;
+
+import com.alibaba.nacos.api.cmdb.pojo.EntityEvent;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compare a full dump with incremental events on a large CMDB, run with {@code main}.
+ *
+ * @author nacos
+ */
+public class CmdbSnapshotBenchmark {
+    
+    private static final int HOSTS = 200000;
+    
+    private static final int EVENTS = 1000;
+    
+    private static final int ROUNDS = 20;
+    
+    /**
+     * Run the benchmark.
+     *
+     * @param args no arguments
+     */
+    public static void main(String[] args) {
+        FakeCmdbService cmdbService = new FakeCmdbService();
+        for (int i = 0; i < HOSTS; i++) {
+            cmdbService.putEntity(ip(i), Collections.singletonMap("site", "site" + (i % 8)));
+        }
+        cmdbService.getEntityEvents(0L);
+        
+        CmdbSnapshot snapshot = CmdbSnapshot.empty().withEntities(cmdbService.getAllEntities());
+        
+        long dumpNanos = 0L;
+        long eventNanos = 0L;
+        for (int round = 0; round < ROUNDS; round++) {
+            for (int i = 0; i < EVENTS; i++) {
+                int host = (round * EVENTS + i) % HOSTS;
+                cmdbService.putEntity(ip(host), Collections.singletonMap("site", "site" + (round % 8)));
+            }
+            
+            long start = System.nanoTime();
+            CmdbSnapshot.Editor editor = snapshot.edit();
+            for (EntityEvent event : cmdbService.getEntityEvents(0L)) {
+                editor.put(cmdbService.getEntity(event.getEntityName(), event.getEntityType()));
+            }
+            final CmdbSnapshot incremental = editor.commit();
+            eventNanos += System.nanoTime() - start;
+            
+            start = System.nanoTime();
+            CmdbSnapshot dumped = snapshot.withEntities(cmdbService.getAllEntities());
+            dumpNanos += System.nanoTime() - start;
+            
+            if (incremental.size(FakeCmdbService.IP) != dumped.size(FakeCmdbService.IP)) {
+                throw new IllegalStateException("snapshots diverged");
+            }
+            snapshot = incremental;
+        }
+        
+        System.out.println(String.format("hosts: %d, events per round: %d, full dump: %d ms/round, events: %d ms/round",
+                HOSTS, EVENTS, TimeUnit.NANOSECONDS.toMillis(dumpNanos / ROUNDS),
+                TimeUnit.NANOSECONDS.toMillis(eventNanos / ROUNDS)));
+    }
+    
+    private static String ip(int index) {
+        return "10." + (index >> 16 & 0xFF) + "." + (index >> 8 & 0xFF) + "." + (index & 0xFF);
+    }
+}
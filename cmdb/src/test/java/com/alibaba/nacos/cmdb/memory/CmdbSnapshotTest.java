@@ -0,0 +1,67 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.cmdb.memory;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+
+public class CmdbSnapshotTest {
+    
+    @Test
+    public void testShardCountGrowsWithEntities() {
+        FakeCmdbService cmdbService = new FakeCmdbService();
+        cmdbService.putEntity("10.0.0.1", Collections.singletonMap("site", "site1"));
+        CmdbSnapshot small = CmdbSnapshot.empty().withEntities(cmdbService.getAllEntities());
+        for (int i = 0; i < 20000; i++) {
+            cmdbService.putEntity("10.1." + (i >> 8) + "." + (i & 0xFF), Collections.singletonMap("site", "site1"));
+        }
+        CmdbSnapshot large = small.withEntities(cmdbService.getAllEntities());
+        
+        Assert.assertEquals(16, small.shardCount(FakeCmdbService.IP));
+        Assert.assertTrue(large.shardCount(FakeCmdbService.IP) > small.shardCount(FakeCmdbService.IP));
+        Assert.assertEquals(20001, large.size(FakeCmdbService.IP));
+        Assert.assertEquals("site1", large.getEntity(FakeCmdbService.IP, "10.0.0.1").getLabels().get("site"));
+    }
+    
+    @Test
+    public void testDumpKeepsUnchangedEntities() {
+        FakeCmdbService cmdbService = new FakeCmdbService();
+        for (int i = 0; i < 1000; i++) {
+            cmdbService.putEntity("10.0." + (i >> 8) + "." + (i & 0xFF), Collections.singletonMap("site", "site1"));
+        }
+        CmdbSnapshot snapshot = CmdbSnapshot.empty().withEntities(cmdbService.getAllEntities());
+        cmdbService.putEntity("10.0.0.1", Collections.singletonMap("site", "site2"));
+        CmdbSnapshot dumped = snapshot.withEntities(cmdbService.getAllEntities());
+        
+        Assert.assertEquals(snapshot.getVersion() + 1, dumped.getVersion());
+        Assert.assertEquals("site2", dumped.getEntity(FakeCmdbService.IP, "10.0.0.1").getLabels().get("site"));
+        Assert.assertEquals(1000, dumped.size(FakeCmdbService.IP));
+        
+        // only the shard of the changed entity is built again from the dump
+        int kept = 0;
+        for (int i = 0; i < 1000; i++) {
+            String ip = "10.0." + (i >> 8) + "." + (i & 0xFF);
+            if (snapshot.getEntity(FakeCmdbService.IP, ip) == dumped.getEntity(FakeCmdbService.IP, ip)) {
+                kept++;
+            }
+        }
+        Assert.assertTrue(kept > 1000 - 1000 / 16 * 2);
+        Assert.assertTrue(kept < 1000);
+    }
+}
@@ -0,0 +1,131 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.cmdb.memory;
+
+import com.alibaba.nacos.api.cmdb.pojo.Entity;
+import com.alibaba.nacos.api.cmdb.pojo.EntityEvent;
+import com.alibaba.nacos.api.cmdb.pojo.EntityEventType;
+import com.alibaba.nacos.api.cmdb.pojo.Label;
+import com.alibaba.nacos.api.cmdb.pojo.PreservedEntityTypes;
+import com.alibaba.nacos.api.cmdb.spi.CmdbService;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * In memory CMDB service holding ip entities, used by tests and benchmarks.
+ *
+ * @author nacos
+ */
+public class FakeCmdbService implements CmdbService {
+    
+    static final String IP = PreservedEntityTypes.ip.name();
+    
+    private final Map<String, Entity> entities = new HashMap<>(16);
+    
+    private final List<EntityEvent> events = new ArrayList<>();
+    
+    /**
+     * Add or update an ip entity and record the event.
+     *
+     * @param ip     ip
+     * @param labels labels of the ip
+     */
+    public void putEntity(String ip, Map<String, String> labels) {
+        Entity entity = new Entity();
+        entity.setType(IP);
+        entity.setName(ip);
+        entity.setLabels(labels);
+        entities.put(ip, entity);
+        events.add(newEvent(EntityEventType.ENTITY_ADD_OR_UPDATE, ip));
+    }
+    
+    /**
+     * Remove an ip entity and record the event.
+     *
+     * @param ip ip
+     */
+    public void removeEntity(String ip) {
+        entities.remove(ip);
+        events.add(newEvent(EntityEventType.ENTITY_REMOVE, ip));
+    }
+    
+    @Override
+    public Set<String> getLabelNames() {
+        return Collections.emptySet();
+    }
+    
+    @Override
+    public Set<String> getEntityTypes() {
+        return Collections.singleton(IP);
+    }
+    
+    @Override
+    public Label getLabel(String labelName) {
+        return null;
+    }
+    
+    @Override
+    public String getLabelValue(String entityName, String entityType, String labelName) {
+        Entity entity = getEntity(entityName, entityType);
+        return entity == null ? null : entity.getLabels().get(labelName);
+    }
+    
+    @Override
+    public Map<String, String> getLabelValues(String entityName, String entityType) {
+        Entity entity = getEntity(entityName, entityType);
+        return entity == null ? null : entity.getLabels();
+    }
+    
+    @Override
+    public Map<String, Map<String, Entity>> getAllEntities() {
+        // a real service builds new objects on every dump
+        Map<String, Entity> copy = new HashMap<>(entities.size());
+        for (Entity entity : entities.values()) {
+            Entity newEntity = new Entity();
+            newEntity.setType(entity.getType());
+            newEntity.setName(entity.getName());
+            newEntity.setLabels(new HashMap<>(entity.getLabels()));
+            copy.put(entity.getName(), newEntity);
+        }
+        return Collections.singletonMap(IP, copy);
+    }
+    
+    @Override
+    public List<EntityEvent> getEntityEvents(long timestamp) {
+        List<EntityEvent> result = new ArrayList<>(events);
+        events.clear();
+        return result;
+    }
+    
+    @Override
+    public Entity getEntity(String entityName, String entityType) {
+        return IP.equals(entityType) ? entities.get(entityName) : null;
+    }
+    
+    private EntityEvent newEvent(EntityEventType type, String ip) {
+        EntityEvent event = new EntityEvent();
+        event.setType(type);
+        event.setEntityType(IP);
+        event.setEntityName(ip);
+        return event;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.config.server.service.repository.embedded;
+
+import com.alibaba.nacos.config.server.utils.LogUtil;
+import com.alibaba.nacos.consistency.entity.WriteRequest;
+import com.alibaba.nacos.sys.utils.DiskUtils;
+import com.google.protobuf.CodedOutputStream;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Append only log of the modify logs applied to the embedded storage since its last full backup.
+ *
+ * <p>Together with the backup it describes the storage exactly, so a snapshot only needs the backup, which is shared
+ * between snapshots, and a prefix of this log. Each record is a length delimited {@link WriteRequest}.
+ *
+ * <p>Appends and {@link #mark()} are called from the raft apply thread, copies may run on any thread while appends go
+ * on, as they only read the prefix up to a mark.
+ *
+ * @author nacos
+ */
+final class DerbyChangeLog {
+    
+    private static final int BUFFER_SIZE = 64 * 1024;
+    
+    private final File file;
+    
+    private OutputStream out;
+    
+    private volatile long size;
+    
+    private volatile boolean broken;
+    
+    DerbyChangeLog(String path) throws IOException {
+        this.file = new File(path);
+        DiskUtils.forceMkdir(this.file.getParentFile());
+        reset();
+    }
+    
+    /**
+     * Append applied modify logs. A failed append breaks the log until the next {@link #reset()}, so the next snapshot
+     * falls back to a full backup.
+     *
+     * @param logs modify logs in apply order
+     */
+    synchronized void append(List<WriteRequest> logs) {
+        for (WriteRequest log : logs) {
+            append(log);
+        }
+    }
+    
+    /**
+     * Append an applied modify log, see {@link #append(List)}.
+     *
+     * @param log modify log
+     */
+    synchronized void append(WriteRequest log) {
+        if (broken) {
+            return;
+        }
+        try {
+            final int length = log.getSerializedSize();
+            log.writeDelimitedTo(out);
+            size += CodedOutputStream.computeUInt32SizeNoTag(length) + length;
+        } catch (IOException e) {
+            LogUtil.FATAL_LOG.error("Fail to append change log {}, the next snapshot will be a full one : {}", file,
+                    e.toString());
+            broken = true;
+        }
+    }
+    
+    /**
+     * Flush the appended logs, the returned length covers exactly the logs applied so far.
+     *
+     * @return length of the log
+     * @throws IOException if the log cannot be flushed
+     */
+    synchronized long mark() throws IOException {
+        out.flush();
+        return size;
+    }
+    
+    long size() {
+        return size;
+    }
+    
+    boolean isBroken() {
+        return broken;
+    }
+    
+    /**
+     * Drop all logs, called once a full backup has been taken or restored.
+     *
+     * @throws IOException if the log cannot be truncated
+     */
+    synchronized void reset() throws IOException {
+        if (out != null) {
+            out.close();
+        }
+        out = new BufferedOutputStream(new FileOutputStream(file, false), BUFFER_SIZE);
+        size = 0L;
+        broken = false;
+    }
+    
+    /**
+     * Close the log.
+     *
+     * @throws IOException if the log cannot be closed
+     */
+    synchronized void close() throws IOException {
+        out.close();
+    }
+    
+    /**
+     * Copy the prefix of the log up to a mark.
+     *
+     * @param length length returned by {@link #mark()}
+     * @param target stream the prefix is copied to
+     * @throws IOException if the log cannot be read or the target cannot be written
+     */
+    void copyTo(long length, OutputStream target) throws IOException {
+        final byte[] buffer = new byte[BUFFER_SIZE];
+        long remaining = length;
+        try (InputStream in = new FileInputStream(file)) {
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) {
+                    throw new IOException("Change log is shorter than the mark " + length);
+                }
+                target.write(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+    }
+    
+    /**
+     * Read the records of a copied log.
+     *
+     * @param in       copied log
+     * @param consumer consumer of each modify log in apply order
+     * @throws IOException if the copy cannot be read
+     */
+    static void replay(InputStream in, Consumer<WriteRequest> consumer) throws IOException {
+        final InputStream buffered = new BufferedInputStream(in, BUFFER_SIZE);
+        WriteRequest log;
+        while ((log = WriteRequest.parseDelimitedFrom(buffered)) != null) {
+            consumer.accept(log);
+        }
+    }
+}
@@ -22,6 +22,7 @@ import com.alibaba.nacos.config.server.service.datasource.DataSourceService;
 import com.alibaba.nacos.config.server.service.datasource.DynamicDataSource;
 import com.alibaba.nacos.config.server.service.datasource.LocalDataSourceServiceImpl;
 import com.alibaba.nacos.config.server.utils.LogUtil;
+import com.alibaba.nacos.consistency.entity.WriteRequest;
 import com.alibaba.nacos.consistency.snapshot.LocalFileMeta;
 import com.alibaba.nacos.consistency.snapshot.Reader;
 import com.alibaba.nacos.consistency.snapshot.SnapshotOperation;
@@ -33,6 +34,10 @@ import com.alibaba.nacos.core.utils.TimerContext;
 import com.alipay.sofa.jraft.util.CRC64;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.sql.CallableStatement;
 import java.sql.Connection;
@@ -41,16 +46,29 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.zip.Checksum;
 import javax.sql.DataSource;
 
 /**
  * Derby Snapshot operation.
  *
+ * <p>A snapshot consists of a full backup of the database, called the base, and the change log of the modify logs
+ * applied since the base was taken. The base is kept under the nacos home and linked into every snapshot until the
+ * change log grows beyond {@link #MAX_CHANGE_LOG_BYTES_PROPERTY}, so most snapshots only write the change log. Taking a
+ * new base holds the storage lock only while derby copies the database, the compression runs afterwards.
+ *
  * @author <a href="mailto:liaochuntao@live.com">liaochuntao</a>
  */
 public class DerbySnapshotOperation implements SnapshotOperation {
     
+    /**
+     * Size of the change log in bytes beyond which the next snapshot takes a new base.
+     */
+    public static final String MAX_CHANGE_LOG_BYTES_PROPERTY = "nacos.config.derby.snapshot.maxChangeLogBytes";
+    
+    private static final long DEFAULT_MAX_CHANGE_LOG_BYTES = 64L * 1024 * 1024;
+    
     private static final String DERBY_SNAPSHOT_SAVE = DerbySnapshotOperation.class.getSimpleName() + ".SAVE";
     
     private static final String DERBY_SNAPSHOT_LOAD = DerbySnapshotOperation.class.getSimpleName() + ".LOAD";
@@ -61,48 +79,109 @@ public class DerbySnapshotOperation implements SnapshotOperation {
     
     private final String snapshotArchive = "derby_data.zip";
     
+    private final String changeLogFile = "derby_changelog";
+    
     private final String derbyBaseDir = Paths.get(EnvUtil.getNacosHome(), "data", "derby-data").toString();
     
+    private final String baseStoreDir = Paths.get(EnvUtil.getNacosHome(), "data", "derby-snapshot").toString();
+    
     private final String restoreDB = "jdbc:derby:" + derbyBaseDir;
     
     private final String checkSumKey = "checkSum";
     
     private final ReentrantReadWriteLock.WriteLock writeLock;
     
-    public DerbySnapshotOperation(ReentrantReadWriteLock.WriteLock writeLock) {
+    private final DerbyChangeLog changeLog;
+    
+    private final Consumer<WriteRequest> replayer;
+    
+    private final long maxChangeLogBytes;
+    
+    private volatile Base base;
+    
+    public DerbySnapshotOperation(ReentrantReadWriteLock.WriteLock writeLock, DerbyChangeLog changeLog,
+            Consumer<WriteRequest> replayer) {
         this.writeLock = writeLock;
+        this.changeLog = changeLog;
+        this.replayer = replayer;
+        this.maxChangeLogBytes = EnvUtil
+                .getProperty(MAX_CHANGE_LOG_BYTES_PROPERTY, Long.class, DEFAULT_MAX_CHANGE_LOG_BYTES);
+        // bases of a previous run are useless, the database is rebuilt from the raft snapshot and log on start
+        DiskUtils.deleteQuietly(new File(baseStoreDir));
     }
     
     @Override
     public void onSnapshotSave(Writer writer, BiConsumer<Boolean, Throwable> callFinally) {
+        // called on the raft apply thread, so the storage and the change log stand exactly at the snapshot index here
+        final Base current = base;
+        if (Objects.isNull(current) || changeLog.isBroken() || changeLog.size() > maxChangeLogBytes) {
+            saveBase(writer, callFinally);
+            return;
+        }
+        final long length;
+        try {
+            length = changeLog.mark();
+        } catch (IOException e) {
+            LogUtil.FATAL_LOG.warn("Fail to mark the change log, take a full snapshot instead : {}", e.toString());
+            saveBase(writer, callFinally);
+            return;
+        }
         RaftExecutor.doSnapshot(() -> {
             TimerContext.start(DERBY_SNAPSHOT_SAVE);
-            
-            final Lock lock = writeLock;
-            lock.lock();
             try {
-                final String writePath = writer.getPath();
-                final String parentPath = Paths.get(writePath, snapshotDir).toString();
-                DiskUtils.deleteDirectory(parentPath);
-                DiskUtils.forceMkdir(parentPath);
-                
-                doDerbyBackup(parentPath);
-                
-                final String outputFile = Paths.get(writePath, snapshotArchive).toString();
+                try (OutputStream out = writer.openFile(changeLogFile, true)) {
+                    changeLog.copyTo(length, out);
+                }
+                callFinally.accept(addBase(writer, current), null);
+            } catch (Throwable t) {
+                LogUtil.FATAL_LOG.error("Fail to save change log snapshot, path={}, file list={}, {}.",
+                        writer.getPath(), writer.listFiles(), t);
+                callFinally.accept(false, t);
+            } finally {
+                TimerContext.end(DERBY_SNAPSHOT_SAVE, LogUtil.FATAL_LOG);
+            }
+        });
+    }
+    
+    private void saveBase(Writer writer, BiConsumer<Boolean, Throwable> callFinally) {
+        TimerContext.start(DERBY_SNAPSHOT_SAVE);
+        // no snapshot may refer to the old base once the change log has been reset
+        final Base previous = base;
+        base = null;
+        final String backupPath = Paths.get(baseStoreDir, snapshotDir).toString();
+        final Lock lock = writeLock;
+        lock.lock();
+        try {
+            DiskUtils.deleteDirectory(backupPath);
+            DiskUtils.forceMkdir(backupPath);
+            doDerbyBackup(backupPath);
+            changeLog.reset();
+        } catch (Throwable t) {
+            LogUtil.FATAL_LOG.error("Fail to backup derby, path={}, {}.", backupPath, t);
+            callFinally.accept(false, t);
+            return;
+        } finally {
+            lock.unlock();
+            TimerContext.end(DERBY_SNAPSHOT_SAVE, LogUtil.FATAL_LOG);
+        }
+        // the backup is consistent on its own, compress it without blocking the storage
+        RaftExecutor.doSnapshot(() -> {
+            TimerContext.start(DERBY_SNAPSHOT_SAVE);
+            try {
+                final File archive = Paths.get(baseStoreDir, System.currentTimeMillis() + "-" + snapshotArchive)
+                        .toFile();
                 final Checksum checksum = new CRC64();
-                DiskUtils.compress(writePath, snapshotDir, outputFile, checksum);
-                DiskUtils.deleteDirectory(parentPath);
-                
-                final LocalFileMeta meta = new LocalFileMeta();
-                meta.append(checkSumKey, Long.toHexString(checksum.getValue()));
-                
-                callFinally.accept(writer.addFile(snapshotArchive, meta), null);
+                DiskUtils.compress(baseStoreDir, snapshotDir, archive.getPath(), checksum);
+                DiskUtils.deleteDirectory(backupPath);
+                final Base taken = new Base(archive, Long.toHexString(checksum.getValue()));
+                base = taken;
+                retireBase(previous);
+                callFinally.accept(addBase(writer, taken), null);
             } catch (Throwable t) {
                 LogUtil.FATAL_LOG.error("Fail to compress snapshot, path={}, file list={}, {}.", writer.getPath(),
                         writer.listFiles(), t);
                 callFinally.accept(false, t);
             } finally {
-                lock.unlock();
                 TimerContext.end(DERBY_SNAPSHOT_SAVE, LogUtil.FATAL_LOG);
             }
         });
@@ -121,8 +200,9 @@ public class DerbySnapshotOperation implements SnapshotOperation {
             
             LocalFileMeta fileMeta = reader.getFileMeta(snapshotArchive);
             
+            final String baseChecksum = Long.toHexString(checksum.getValue());
             if (fileMeta.getFileMeta().containsKey(checkSumKey)) {
-                if (!Objects.equals(Long.toHexString(checksum.getValue()), fileMeta.get(checkSumKey))) {
+                if (!Objects.equals(baseChecksum, fileMeta.get(checkSumKey))) {
                     throw new IllegalArgumentException("Snapshot checksum failed");
                 }
             }
@@ -134,14 +214,30 @@ public class DerbySnapshotOperation implements SnapshotOperation {
                 final File srcDir = new File(loadPath);
                 final File destDir = new File(derbyBaseDir);
                 
-                DiskUtils.copyDirectory(srcDir, destDir);
+                // the extracted files are deleted right after, so the database owns the links alone
+                DiskUtils.linkDirectory(srcDir, destDir, null);
                 LogUtil.FATAL_LOG.info("Complete database recovery");
                 return null;
             });
             DiskUtils.deleteDirectory(loadPath);
+            
+            changeLog.reset();
+            if (Objects.nonNull(reader.getFileMeta(changeLogFile))) {
+                replayChangeLog(reader);
+            }
+            
+            // keep the loaded base, so the following snapshots of this member can refer to it
+            DiskUtils.forceMkdir(baseStoreDir);
+            final File archive = Paths.get(baseStoreDir, System.currentTimeMillis() + "-" + snapshotArchive).toFile();
+            linkOrCopy(new File(sourceFile), archive);
+            final Base previous = base;
+            base = new Base(archive, baseChecksum);
+            retireBase(previous);
+            
             NotifyCenter.publishEvent(DerbyLoadEvent.INSTANCE);
             return true;
         } catch (final Throwable t) {
+            base = null;
             LogUtil.FATAL_LOG
                     .error("Fail to load snapshot, path={}, file list={}, {}.", readerPath, reader.listFiles(), t);
             return false;
@@ -151,6 +247,42 @@ public class DerbySnapshotOperation implements SnapshotOperation {
         }
     }
     
+    private void replayChangeLog(Reader reader) throws IOException {
+        // every chunk is verified before it is replayed, a failure in the middle fails the load, which restores the
+        // base again when it is retried
+        final int[] count = new int[] {0};
+        try (InputStream in = reader.openFile(changeLogFile)) {
+            DerbyChangeLog.replay(in, log -> {
+                replayer.accept(log);
+                changeLog.append(log);
+                count[0]++;
+            });
+        }
+        LogUtil.FATAL_LOG.info("Replayed {} modify logs of the snapshot change log", count[0]);
+    }
+    
+    private boolean addBase(Writer writer, Base base) throws IOException {
+        final LocalFileMeta meta = new LocalFileMeta();
+        meta.append(checkSumKey, base.checksum);
+        return writer.linkFile(snapshotArchive, base.archive, meta);
+    }
+    
+    private static void retireBase(Base previous) {
+        if (Objects.nonNull(previous)) {
+            // the snapshots referring to it keep their own links
+            DiskUtils.deleteQuietly(previous.archive);
+        }
+    }
+    
+    private static void linkOrCopy(File source, File target) throws IOException {
+        Files.deleteIfExists(target.toPath());
+        try {
+            Files.createLink(target.toPath(), source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source.toPath(), target.toPath());
+        }
+    }
+    
     private void doDerbyBackup(String backupDirectory) throws Exception {
         DataSourceService sourceService = DynamicDataSource.getInstance().getDataSource();
         DataSource dataSource = sourceService.getJdbcTemplate().getDataSource();
@@ -167,4 +299,15 @@ public class DerbySnapshotOperation implements SnapshotOperation {
         localDataSourceService.restoreDerby(restoreDB, callable);
     }
     
+    private static final class Base {
+        
+        private final File archive;
+        
+        private final String checksum;
+        
+        Base(File archive, String checksum) {
+            this.archive = archive;
+            this.checksum = checksum;
+        }
+    }
 }
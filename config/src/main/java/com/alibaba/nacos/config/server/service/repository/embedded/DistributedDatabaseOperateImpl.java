@@ -27,7 +27,6 @@ import com.alibaba.nacos.common.notify.listener.Subscriber;
 import com.alibaba.nacos.common.utils.ExceptionUtil;
 import com.alibaba.nacos.common.utils.JacksonUtils;
 import com.alibaba.nacos.common.utils.LoggerUtils;
-import com.alibaba.nacos.common.utils.MD5Utils;
 import com.alibaba.nacos.common.utils.StringUtils;
 import com.alibaba.nacos.config.server.configuration.ConditionDistributedEmbedStorage;
 import com.alibaba.nacos.config.server.constant.Constants;
@@ -41,6 +40,7 @@ import com.alibaba.nacos.config.server.service.dump.DumpConfigHandler;
 import com.alibaba.nacos.config.server.service.repository.RowMapperManager;
 import com.alibaba.nacos.config.server.service.sql.EmbeddedStorageContextUtils;
 import com.alibaba.nacos.config.server.service.sql.ModifyRequest;
+import com.alibaba.nacos.config.server.service.sql.ModifyRequestCodec;
 import com.alibaba.nacos.config.server.service.sql.QueryType;
 import com.alibaba.nacos.config.server.service.sql.SelectRequest;
 import com.alibaba.nacos.config.server.utils.ConfigExecutor;
@@ -57,6 +57,7 @@ import com.alibaba.nacos.consistency.snapshot.SnapshotOperation;
 import com.alibaba.nacos.core.cluster.ServerMemberManager;
 import com.alibaba.nacos.core.distributed.ProtocolManager;
 import com.alibaba.nacos.core.utils.ClassUtils;
+import com.alibaba.nacos.sys.env.EnvUtil;
 import com.alibaba.nacos.sys.utils.DiskUtils;
 import com.alibaba.nacos.core.utils.GenericType;
 import com.google.common.base.Preconditions;
@@ -64,6 +65,7 @@ import com.google.protobuf.ByteString;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.jdbc.BadSqlGrammarException;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.core.RowMapper;
@@ -71,6 +73,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.support.TransactionTemplate;
 
 import java.io.File;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
@@ -83,6 +86,7 @@ import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
+import java.util.zip.CRC32;
 
 /**
  * Distributed Database Operate.
@@ -149,6 +153,12 @@ public class DistributedDatabaseOperateImpl extends RequestProcessor4CP implemen
      */
     private static final String DATA_IMPORT_KEY = "00--0-data_import-0--00";
     
+    /**
+     * Whether modify requests are written to the raft log with {@link ModifyRequestCodec}, disabled by default. Members
+     * without the codec cannot apply such log entries, so every member must be upgraded before it is enabled.
+     */
+    private static final String COMPACT_CODEC_ENABLED = "nacos.config.embedded.compact-codec.enabled";
+    
     private ServerMemberManager memberManager;
     
     private CPProtocol protocol;
@@ -161,6 +171,12 @@ public class DistributedDatabaseOperateImpl extends RequestProcessor4CP implemen
     
     private Serializer serializer = SerializeFactory.getDefault();
     
+    private ModifyApplyPipeline applyPipeline;
+    
+    private boolean compactCodecEnabled;
+    
+    private DerbyChangeLog changeLog;
+    
     private ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
     
     private ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
@@ -184,6 +200,11 @@ public class DistributedDatabaseOperateImpl extends RequestProcessor4CP implemen
         
         this.jdbcTemplate = dataSourceService.getJdbcTemplate();
         this.transactionTemplate = dataSourceService.getTransactionTemplate();
+        this.compactCodecEnabled = EnvUtil.getProperty(COMPACT_CODEC_ENABLED, Boolean.class, false);
+        this.applyPipeline = new ModifyApplyPipeline(ConfigExecutor.getEmbeddedApplyExecutor(),
+                this::decodeModifyRequests, this::applyModifyRequests);
+        this.changeLog = new DerbyChangeLog(
+                Paths.get(EnvUtil.getNacosHome(), "data", "derby-changelog", "changelog").toString());
         
         // Registers a Derby Raft state machine failure event for node degradation processing
         NotifyCenter.registerToSharePublisher(RaftDbErrorEvent.class);
@@ -391,7 +412,8 @@ public class DistributedDatabaseOperateImpl extends RequestProcessor4CP implemen
                         List<ModifyRequest> requests = batchUpdate.stream().map(ModifyRequest::new)
                                 .collect(Collectors.toList());
                         CompletableFuture<Response> future = protocol.writeAsync(WriteRequest.newBuilder().setGroup(group())
-                                .setData(ByteString.copyFrom(serializer.serialize(requests)))
+                                .setData(ByteString.copyFrom(encodeModifyRequests(requests)))
+                                .setType(modifyRequestsType(requests))
                                 .putExtendInfo(DATA_IMPORT_KEY, Boolean.TRUE.toString()).build());
                         futures.add(future);
                         batchUpdate.clear();
@@ -417,20 +439,25 @@ public class DistributedDatabaseOperateImpl extends RequestProcessor4CP implemen
         try {
             
             // Since the SQL parameter is Object[], in order to ensure that the types of
-            // array elements are not lost, the serialization here is done using the java-specific
-            // serialization framework, rather than continuing with the protobuff
+            // array elements are not lost, the arguments are written with their type tags
+            // by ModifyRequestCodec or the Hessian serializer, rather
+            // than continuing with the protobuff
             
             LoggerUtils.printIfDebugEnabled(LogUtil.DEFAULT_LOG, "modifyRequests info : {}", sqlContext);
             
+            final byte[] data = encodeModifyRequests(sqlContext);
+            
             // {timestamp}-{group}-{ip:port}-{signature}
             
+            final CRC32 signature = new CRC32();
+            signature.update(data);
             final String key =
                     System.currentTimeMillis() + "-" + group() + "-" + memberManager.getSelf().getAddress() + "-"
-                            + MD5Utils.md5Hex(sqlContext.toString(), Constants.ENCODE);
+                            + Long.toHexString(signature.getValue());
             WriteRequest request = WriteRequest.newBuilder().setGroup(group()).setKey(key)
-                    .setData(ByteString.copyFrom(serializer.serialize(sqlContext)))
+                    .setData(ByteString.copyFrom(data))
                     .putAllExtendInfo(EmbeddedStorageContextUtils.getCurrentExtendInfo())
-                    .setType(sqlContext.getClass().getCanonicalName()).build();
+                    .setType(modifyRequestsType(sqlContext)).build();
             if (Objects.isNull(consumer)) {
                 Response response = this.protocol.write(request);
                 if (response.getSuccess()) {
@@ -457,7 +484,8 @@ public class DistributedDatabaseOperateImpl extends RequestProcessor4CP implemen
     
     @Override
     public List<SnapshotOperation> loadSnapshotOperate() {
-        return Collections.singletonList(new DerbySnapshotOperation(writeLock));
+        return Collections.singletonList(new DerbySnapshotOperation(writeLock, changeLog,
+                log -> applyModifyRequests(log, decodeModifyRequests(log))));
     }
     
     @SuppressWarnings("all")
@@ -513,11 +541,51 @@ public class DistributedDatabaseOperateImpl extends RequestProcessor4CP implemen
     @Override
     public Response onApply(WriteRequest log) {
         LoggerUtils.printIfDebugEnabled(LogUtil.DEFAULT_LOG, "onApply info : log : {}", log);
-        final ByteString byteString = log.getData();
-        Preconditions.checkArgument(byteString != null, "Log.getData() must not null");
-        List<ModifyRequest> sqlContext = serializer.deserialize(byteString.toByteArray(), List.class);
+        final List<ModifyRequest> sqlContext = decodeModifyRequests(log);
         final Lock lock = readLock;
         lock.lock();
+        try {
+            Response response = applyModifyRequests(log, sqlContext);
+            changeLog.append(log);
+            return response;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    @Override
+    public List<Response> onApply(List<WriteRequest> logs) {
+        if (logs.size() == 1) {
+            return Collections.singletonList(onApply(logs.get(0)));
+        }
+        final Lock lock = readLock;
+        lock.lock();
+        try {
+            List<Response> responses = applyPipeline.apply(logs);
+            changeLog.append(logs);
+            return responses;
+        } finally {
+            lock.unlock();
+        }
+    }
+    
+    private byte[] encodeModifyRequests(List<ModifyRequest> requests) {
+        return compactCodecEnabled ? ModifyRequestCodec.encode(requests) : serializer.serialize(requests);
+    }
+    
+    private String modifyRequestsType(List<ModifyRequest> requests) {
+        return compactCodecEnabled ? ModifyRequestCodec.TYPE : requests.getClass().getCanonicalName();
+    }
+    
+    private List<ModifyRequest> decodeModifyRequests(WriteRequest log) {
+        final ByteString byteString = log.getData();
+        Preconditions.checkArgument(byteString != null, "Log.getData() must not null");
+        // entries are serialized by the default serializer (Hessian) unless written with ModifyRequestCodec enabled
+        return ModifyRequestCodec.TYPE.equals(log.getType()) ? ModifyRequestCodec.decode(byteString.toByteArray())
+                : serializer.deserialize(byteString.toByteArray(), List.class);
+    }
+    
+    private Response applyModifyRequests(WriteRequest log, List<ModifyRequest> sqlContext) {
         try {
             boolean isOk = false;
             if (log.containsExtendInfo(DATA_IMPORT_KEY)) {
@@ -537,12 +605,11 @@ public class DistributedDatabaseOperateImpl extends RequestProcessor4CP implemen
             // should trigger the stop operation of the raft state machine
         } catch (BadSqlGrammarException | DataIntegrityViolationException e) {
             return Response.newBuilder().setSuccess(false).setErrMsg(e.toString()).build();
+        } catch (PessimisticLockingFailureException e) {
+            // the transaction has been rolled back, the apply pipeline retries it
+            throw e;
         } catch (DataAccessException e) {
             throw new ConsistencyException(e.toString());
-        } catch (Throwable t) {
-            throw t;
-        } finally {
-            lock.unlock();
         }
     }
     
@@ -0,0 +1,227 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.config.server.service.repository.embedded;
+
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import com.alibaba.nacos.common.utils.StringUtils;
+import com.alibaba.nacos.config.server.constant.Constants;
+import com.alibaba.nacos.config.server.model.event.ConfigDumpEvent;
+import com.alibaba.nacos.config.server.service.sql.ModifyRequest;
+import com.alibaba.nacos.config.server.utils.GroupKey2;
+import com.alibaba.nacos.config.server.utils.LogUtil;
+import com.alibaba.nacos.consistency.entity.Response;
+import com.alibaba.nacos.consistency.entity.WriteRequest;
+import com.alibaba.nacos.consistency.exception.ConsistencyException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Applies a run of committed modify logs of the embedded storage with a pipeline.
+ *
+ * <p>Every log is decoded on the executor as soon as the run arrives, so decoding overlaps the execution of the logs
+ * in front of it. A log is executed once the logs before it which touch the same keys are done:
+ * <ul>
+ *     <li>A log of a single config conflicts with the earlier logs of the same config.</li>
+ *     <li>An insert which leaves the identity column to the table, e.g. {@code nid} of {@code his_config_info},
+ *     conflicts with the earlier such inserts into the table, so the identity columns are filled in log order on
+ *     every member.</li>
+ *     <li>Any other log, e.g. a data import or a batch delete, is a barrier which waits for all earlier logs and is
+ *     waited for by all later logs.</li>
+ * </ul>
+ * Conflicting logs are thereby applied in log order, which keeps the members identical. A log which meets a lock
+ * held by a concurrent log is retried once no other log is executing, as the serial apply would have run it.
+ *
+ * <p>Nearly every config publish or delete also inserts its history into {@code his_config_info}, so the execution of
+ * config writes stays serialized and only their decoding overlaps. Keying the history insert by config instead would
+ * let the members assign different {@code nid} to the same history.
+ *
+ * @author nacos
+ */
+final class ModifyApplyPipeline {
+    
+    private static final Pattern INSERT_PATTERN = Pattern
+            .compile("^\\s*INSERT\\s+INTO\\s+(\\w+)\\s*(\\(([^)]*)\\))?", Pattern.CASE_INSENSITIVE);
+    
+    private static final String DEFAULT_IDENTITY_COLUMN = "id";
+    
+    /**
+     * Identity columns of the tables whose identity is not the id column, see the schema of the embedded storage.
+     */
+    private static final Map<String, String> IDENTITY_COLUMNS = new HashMap<>(4);
+    
+    static {
+        IDENTITY_COLUMNS.put("his_config_info", "nid");
+        IDENTITY_COLUMNS.put("config_tags_relation", "nid");
+    }
+    
+    private final Executor executor;
+    
+    private final Function<WriteRequest, List<ModifyRequest>> decoder;
+    
+    private final BiFunction<WriteRequest, List<ModifyRequest>, Response> applier;
+    
+    /**
+     * Logs execute under the read lock, a log which met a lock failure is retried under the write lock.
+     */
+    private final ReadWriteLock executeLock = new ReentrantReadWriteLock();
+    
+    ModifyApplyPipeline(Executor executor, Function<WriteRequest, List<ModifyRequest>> decoder,
+            BiFunction<WriteRequest, List<ModifyRequest>, Response> applier) {
+        this.executor = executor;
+        this.decoder = decoder;
+        this.applier = applier;
+    }
+    
+    /**
+     * Apply the logs, the caller must hold the lock which keeps snapshots out.
+     *
+     * @param logs modify logs in log order
+     * @return responses in log order
+     * @throws RuntimeException the first failure in log order, after all other logs have settled
+     */
+    List<Response> apply(List<WriteRequest> logs) {
+        final List<CompletableFuture<List<ModifyRequest>>> decoded = new ArrayList<>(logs.size());
+        for (WriteRequest log : logs) {
+            decoded.add(CompletableFuture.supplyAsync(() -> decoder.apply(log), executor));
+        }
+        
+        final List<CompletableFuture<Response>> applied = new ArrayList<>(logs.size());
+        final Map<String, CompletableFuture<Response>> lastByKey = new HashMap<>(logs.size());
+        CompletableFuture<?> barrier = CompletableFuture.completedFuture(null);
+        for (int i = 0; i < logs.size(); i++) {
+            final WriteRequest log = logs.get(i);
+            final CompletableFuture<List<ModifyRequest>> requests = decoded.get(i);
+            // keys need the decoded statements, waiting here lets the logs in front run meanwhile
+            final Set<String> keys = requests.handle((value, ex) -> ex == null ? conflictKeys(log, value) : null)
+                    .join();
+            
+            final List<CompletableFuture<?>> dependencies = new ArrayList<>();
+            dependencies.add(barrier);
+            dependencies.add(requests);
+            if (keys == null) {
+                dependencies.addAll(applied);
+            } else {
+                for (String key : keys) {
+                    CompletableFuture<Response> last = lastByKey.get(key);
+                    if (last != null) {
+                        dependencies.add(last);
+                    }
+                }
+            }
+            final CompletableFuture<Response> future = CompletableFuture
+                    .allOf(dependencies.toArray(new CompletableFuture[0]))
+                    .thenApplyAsync(ignore -> execute(log, requests.join()), executor);
+            applied.add(future);
+            if (keys == null) {
+                barrier = future;
+                lastByKey.clear();
+            } else {
+                keys.forEach(key -> lastByKey.put(key, future));
+            }
+        }
+        
+        CompletableFuture.allOf(applied.toArray(new CompletableFuture[0])).handle((ignore, ex) -> null).join();
+        final List<Response> responses = new ArrayList<>(logs.size());
+        for (CompletableFuture<Response> future : applied) {
+            try {
+                responses.add(future.join());
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                throw cause instanceof RuntimeException ? (RuntimeException) cause : new ConsistencyException(cause);
+            }
+        }
+        return responses;
+    }
+    
+    private Response execute(WriteRequest log, List<ModifyRequest> requests) {
+        final Lock shared = executeLock.readLock();
+        shared.lock();
+        try {
+            return applier.apply(log, requests);
+        } catch (PessimisticLockingFailureException e) {
+            // a concurrent log of other rows held the lock and the transaction has been rolled back
+            LogUtil.DEFAULT_LOG.warn("Apply log {} met lock failure, retry it alone : {}", log.getKey(), e.toString());
+        } finally {
+            shared.unlock();
+        }
+        final Lock exclusive = executeLock.writeLock();
+        exclusive.lock();
+        try {
+            return applier.apply(log, requests);
+        } finally {
+            exclusive.unlock();
+        }
+    }
+    
+    /**
+     * The keys the log conflicts on, null if the log conflicts with every other log.
+     *
+     * @param log      modify log
+     * @param requests decoded statements of the log
+     * @return conflict keys or null
+     */
+    static Set<String> conflictKeys(WriteRequest log, Collection<ModifyRequest> requests) {
+        final String event = log.getExtendInfoMap().get(Constants.EXTEND_INFO_CONFIG_DUMP_EVENT);
+        if (StringUtils.isBlank(event)) {
+            return null;
+        }
+        final ConfigDumpEvent dumpEvent = JacksonUtils.toObj(event, ConfigDumpEvent.class);
+        if (dumpEvent.getDataId() == null || dumpEvent.getGroup() == null) {
+            return null;
+        }
+        final Set<String> keys = new HashSet<>(4);
+        keys.add("config:" + GroupKey2.getKey(dumpEvent.getDataId(), dumpEvent.getGroup(), dumpEvent.getNamespaceId()));
+        for (ModifyRequest request : requests) {
+            Matcher matcher = INSERT_PATTERN.matcher(request.getSql());
+            if (matcher.find() && !hasIdentityColumn(matcher.group(1).toLowerCase(), matcher.group(3))) {
+                keys.add("table:" + matcher.group(1).toLowerCase());
+            }
+        }
+        return keys;
+    }
+    
+    private static boolean hasIdentityColumn(String table, String columns) {
+        if (columns == null) {
+            return false;
+        }
+        final String identityColumn = IDENTITY_COLUMNS.getOrDefault(table, DEFAULT_IDENTITY_COLUMN);
+        final String[] columnNames = columns.split(",");
+        for (String column : columnNames) {
+            if (identityColumn.equalsIgnoreCase(column.trim())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,418 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.config.server.service.sql;
+
+import com.alibaba.nacos.consistency.SerializeFactory;
+import com.alibaba.nacos.consistency.Serializer;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact codec of the {@link ModifyRequest} lists written into the raft log by the embedded storage.
+ *
+ * <p>Each distinct SQL of a list is written once into a dictionary at the head of the entry and the statements refer to
+ * it by id. Arguments are written with a one byte type tag followed by their value, so their types survive the round
+ * trip without Hessian. Argument types without a tag fall back to the default {@link Serializer}.
+ *
+ * @author nacos
+ */
+public final class ModifyRequestCodec {
+    
+    /**
+     * Type of the write requests encoded by this codec, see WriteRequest#getType.
+     */
+    public static final String TYPE = "nacos.config.modify_requests.v1";
+    
+    private static final byte VERSION = 1;
+    
+    private static final byte NULL = 0;
+    
+    private static final byte STRING = 1;
+    
+    private static final byte INT = 2;
+    
+    private static final byte LONG = 3;
+    
+    private static final byte BOOLEAN = 4;
+    
+    private static final byte SHORT = 5;
+    
+    private static final byte BYTE = 6;
+    
+    private static final byte DOUBLE = 7;
+    
+    private static final byte FLOAT = 8;
+    
+    private static final byte TIMESTAMP = 9;
+    
+    private static final byte DATE = 10;
+    
+    private static final byte BYTES = 11;
+    
+    private static final byte BIG_DECIMAL = 12;
+    
+    private static final byte SERIALIZED = 13;
+    
+    private static final int INITIAL_BUFFER_SIZE = 256;
+    
+    private static final int VARINT_BITS = 7;
+    
+    private static final int VARINT_MASK = 0x7F;
+    
+    private static final int VARINT_MORE = 0x80;
+    
+    private static final int BYTE_MASK = 0xFF;
+    
+    private static final int LONG_BYTES = 8;
+    
+    private static final int INT_BYTES = 4;
+    
+    private static final int BITS_PER_BYTE = 8;
+    
+    private ModifyRequestCodec() {
+    }
+    
+    /**
+     * Encode the modify requests.
+     *
+     * @param requests modify requests
+     * @return encoded bytes
+     */
+    public static byte[] encode(List<ModifyRequest> requests) {
+        final Output out = new Output(INITIAL_BUFFER_SIZE);
+        final Map<String, Integer> dictionary = new HashMap<>(8);
+        final List<String> sqls = new ArrayList<>();
+        final int[] sqlIds = new int[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            String sql = requests.get(i).getSql();
+            Integer id = dictionary.get(sql);
+            if (id == null) {
+                id = sqls.size();
+                dictionary.put(sql, id);
+                sqls.add(sql);
+            }
+            sqlIds[i] = id;
+        }
+        out.write(VERSION);
+        out.writeVarInt(sqls.size());
+        for (String sql : sqls) {
+            out.writeString(sql);
+        }
+        out.writeVarInt(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ModifyRequest request = requests.get(i);
+            out.writeVarInt(zigZag(request.getExecuteNo()));
+            out.writeVarInt(sqlIds[i]);
+            Object[] args = request.getArgs();
+            // zero stands for null arguments
+            out.writeVarInt(args == null ? 0 : args.length + 1);
+            if (args != null) {
+                for (Object arg : args) {
+                    writeArg(out, arg);
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * Decode the modify requests.
+     *
+     * @param data encoded bytes
+     * @return modify requests
+     * @throws IllegalArgumentException if the data is not encoded by this codec
+     */
+    public static List<ModifyRequest> decode(byte[] data) {
+        final Input in = new Input(data);
+        final byte version = in.read();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported modify requests version : " + version);
+        }
+        final String[] sqls = new String[in.readVarInt()];
+        for (int i = 0; i < sqls.length; i++) {
+            sqls[i] = in.readString();
+        }
+        final int size = in.readVarInt();
+        final List<ModifyRequest> requests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            ModifyRequest request = new ModifyRequest();
+            request.setExecuteNo(unZigZag(in.readVarInt()));
+            request.setSql(sqls[in.readVarInt()]);
+            int argCount = in.readVarInt();
+            if (argCount > 0) {
+                Object[] args = new Object[argCount - 1];
+                for (int j = 0; j < args.length; j++) {
+                    args[j] = readArg(in);
+                }
+                request.setArgs(args);
+            }
+            requests.add(request);
+        }
+        return requests;
+    }
+    
+    private static void writeArg(Output out, Object arg) {
+        if (arg == null) {
+            out.write(NULL);
+        } else if (arg instanceof String) {
+            out.write(STRING);
+            out.writeString((String) arg);
+        } else if (arg instanceof Integer) {
+            out.write(INT);
+            out.writeVarInt(zigZag((Integer) arg));
+        } else if (arg instanceof Long) {
+            out.write(LONG);
+            out.writeVarLong(zigZag((Long) arg));
+        } else if (arg instanceof Boolean) {
+            out.write(BOOLEAN);
+            out.write((byte) ((Boolean) arg ? 1 : 0));
+        } else if (arg instanceof Short) {
+            out.write(SHORT);
+            out.writeVarInt(zigZag((Short) arg));
+        } else if (arg instanceof Byte) {
+            out.write(BYTE);
+            out.write((Byte) arg);
+        } else if (arg instanceof Double) {
+            out.write(DOUBLE);
+            out.writeFixedLong(Double.doubleToLongBits((Double) arg));
+        } else if (arg instanceof Float) {
+            out.write(FLOAT);
+            out.writeFixedInt(Float.floatToIntBits((Float) arg));
+        } else if (arg instanceof Timestamp) {
+            Timestamp timestamp = (Timestamp) arg;
+            out.write(TIMESTAMP);
+            out.writeVarLong(zigZag(timestamp.getTime()));
+            out.writeVarInt(timestamp.getNanos());
+        } else if (arg.getClass() == java.util.Date.class) {
+            out.write(DATE);
+            out.writeVarLong(zigZag(((java.util.Date) arg).getTime()));
+        } else if (arg instanceof byte[]) {
+            out.write(BYTES);
+            out.writeBytes((byte[]) arg);
+        } else if (arg instanceof BigDecimal) {
+            BigDecimal decimal = (BigDecimal) arg;
+            out.write(BIG_DECIMAL);
+            out.writeVarInt(zigZag(decimal.scale()));
+            out.writeBytes(decimal.unscaledValue().toByteArray());
+        } else {
+            out.write(SERIALIZED);
+            out.writeBytes(SerializeFactory.getDefault().serialize(arg));
+        }
+    }
+    
+    private static Object readArg(Input in) {
+        final byte tag = in.read();
+        switch (tag) {
+            case NULL:
+                return null;
+            case STRING:
+                return in.readString();
+            case INT:
+                return unZigZag(in.readVarInt());
+            case LONG:
+                return unZigZag(in.readVarLong());
+            case BOOLEAN:
+                return in.read() != 0;
+            case SHORT:
+                return (short) unZigZag(in.readVarInt());
+            case BYTE:
+                return in.read();
+            case DOUBLE:
+                return Double.longBitsToDouble(in.readFixedLong());
+            case FLOAT:
+                return Float.intBitsToFloat(in.readFixedInt());
+            case TIMESTAMP:
+                Timestamp timestamp = new Timestamp(unZigZag(in.readVarLong()));
+                timestamp.setNanos(in.readVarInt());
+                return timestamp;
+            case DATE:
+                return new java.util.Date(unZigZag(in.readVarLong()));
+            case BYTES:
+                return in.readBytes();
+            case BIG_DECIMAL:
+                int scale = unZigZag(in.readVarInt());
+                return new BigDecimal(new BigInteger(in.readBytes()), scale);
+            case SERIALIZED:
+                return SerializeFactory.getDefault().deserialize(in.readBytes());
+            default:
+                throw new IllegalArgumentException("Unsupported modify request argument tag : " + tag);
+        }
+    }
+    
+    private static int zigZag(int value) {
+        return (value << 1) ^ (value >> (Integer.SIZE - 1));
+    }
+    
+    private static long zigZag(long value) {
+        return (value << 1) ^ (value >> (Long.SIZE - 1));
+    }
+    
+    private static int unZigZag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+    
+    private static final class Output extends ByteArrayOutputStream {
+        
+        Output(int size) {
+            super(size);
+        }
+        
+        void write(byte value) {
+            super.write(value);
+        }
+        
+        void writeVarInt(int value) {
+            while ((value & ~VARINT_MASK) != 0) {
+                super.write((value & VARINT_MASK) | VARINT_MORE);
+                value >>>= VARINT_BITS;
+            }
+            super.write(value);
+        }
+        
+        void writeVarLong(long value) {
+            while ((value & ~VARINT_MASK) != 0) {
+                super.write((int) (value & VARINT_MASK) | VARINT_MORE);
+                value >>>= VARINT_BITS;
+            }
+            super.write((int) value);
+        }
+        
+        void writeFixedInt(int value) {
+            for (int i = 0; i < INT_BYTES; i++) {
+                super.write(value >>> (i * BITS_PER_BYTE));
+            }
+        }
+        
+        void writeFixedLong(long value) {
+            for (int i = 0; i < LONG_BYTES; i++) {
+                super.write((int) (value >>> (i * BITS_PER_BYTE)));
+            }
+        }
+        
+        void writeBytes(byte[] value) {
+            writeVarInt(value.length);
+            super.write(value, 0, value.length);
+        }
+        
+        void writeString(String value) {
+            // null strings are written as a zero length, real lengths are shifted by one
+            if (value == null) {
+                writeVarInt(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarInt(bytes.length + 1);
+            super.write(bytes, 0, bytes.length);
+        }
+    }
+    
+    private static final class Input {
+        
+        private final byte[] data;
+        
+        private int position;
+        
+        Input(byte[] data) {
+            this.data = data;
+        }
+        
+        byte read() {
+            if (position >= data.length) {
+                throw new IllegalArgumentException("Truncated modify requests");
+            }
+            return data[position++];
+        }
+        
+        int readVarInt() {
+            int value = 0;
+            for (int shift = 0; shift < Integer.SIZE; shift += VARINT_BITS) {
+                byte b = read();
+                value |= (b & VARINT_MASK) << shift;
+                if ((b & VARINT_MORE) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in modify requests");
+        }
+        
+        long readVarLong() {
+            long value = 0;
+            for (int shift = 0; shift < Long.SIZE; shift += VARINT_BITS) {
+                byte b = read();
+                value |= (long) (b & VARINT_MASK) << shift;
+                if ((b & VARINT_MORE) == 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed varint in modify requests");
+        }
+        
+        int readFixedInt() {
+            int value = 0;
+            for (int i = 0; i < INT_BYTES; i++) {
+                value |= (read() & BYTE_MASK) << (i * BITS_PER_BYTE);
+            }
+            return value;
+        }
+        
+        long readFixedLong() {
+            long value = 0;
+            for (int i = 0; i < LONG_BYTES; i++) {
+                value |= (long) (read() & BYTE_MASK) << (i * BITS_PER_BYTE);
+            }
+            return value;
+        }
+        
+        byte[] readBytes() {
+            int length = readVarInt();
+            checkRemaining(length);
+            byte[] bytes = new byte[length];
+            System.arraycopy(data, position, bytes, 0, length);
+            position += length;
+            return bytes;
+        }
+        
+        String readString() {
+            int length = readVarInt() - 1;
+            if (length < 0) {
+                return null;
+            }
+            checkRemaining(length);
+            String value = new String(data, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+        
+        private void checkRemaining(int length) {
+            if (length < 0 || length > data.length - position) {
+                throw new IllegalArgumentException("Truncated modify requests");
+            }
+        }
+    }
+}
@@ -39,6 +39,10 @@ public final class ConfigExecutor {
             .newSingleExecutorService(ClassUtils.getCanonicalName(Config.class),
                     new NameThreadFactory("com.alibaba.nacos.config.embedded.dump"));
     
+    private static final Executor EMBEDDED_APPLY_EXECUTOR = ExecutorFactory.Managed
+            .newFixedExecutorService(ClassUtils.getCanonicalName(Config.class), ThreadUtils.getSuitableThreadCount(),
+                    new NameThreadFactory("com.alibaba.nacos.config.embedded.apply"));
+    
     private static final ScheduledExecutorService TIMER_EXECUTOR = ExecutorFactory.Managed
             .newScheduledExecutorService(ClassUtils.getCanonicalName(Config.class), 10,
                     new NameThreadFactory("com.alibaba.nacos.config.server.timer"));
@@ -68,6 +72,10 @@ public final class ConfigExecutor {
         DUMP_EXECUTOR.execute(runnable);
     }
     
+    public static Executor getEmbeddedApplyExecutor() {
+        return EMBEDDED_APPLY_EXECUTOR;
+    }
+    
     public static void scheduleCorrectUsageTask(Runnable runnable, long initialDelay, long delay, TimeUnit unit) {
         CAPACITY_MANAGEMENT_EXECUTOR.scheduleWithFixedDelay(runnable, initialDelay, delay, unit);
     }
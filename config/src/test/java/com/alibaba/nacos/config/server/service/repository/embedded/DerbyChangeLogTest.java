@@ -0,0 +1,90 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.config.server.service.repository.embedded;
+
+import com.alibaba.nacos.consistency.entity.WriteRequest;
+import com.google.protobuf.ByteString;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class DerbyChangeLogTest {
+    
+    private File dir;
+    
+    private DerbyChangeLog changeLog;
+    
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("derby_change_log").toFile();
+        changeLog = new DerbyChangeLog(new File(dir, "changelog").getPath());
+    }
+    
+    @After
+    public void tearDown() throws Exception {
+        changeLog.close();
+        for (File file : dir.listFiles()) {
+            Files.delete(file.toPath());
+        }
+        Files.delete(dir.toPath());
+    }
+    
+    @Test
+    public void testCopyPrefixAndReplay() throws Exception {
+        changeLog.append(Arrays.asList(log("a"), log("b")));
+        final long mark = changeLog.mark();
+        Assert.assertEquals(mark, changeLog.size());
+        // appended after the mark, must not show up in the copy
+        changeLog.append(log("c"));
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        changeLog.copyTo(mark, out);
+        Assert.assertEquals(mark, out.size());
+        
+        List<String> keys = new ArrayList<>();
+        DerbyChangeLog.replay(new ByteArrayInputStream(out.toByteArray()), log -> keys.add(log.getKey()));
+        Assert.assertEquals(Arrays.asList("a", "b"), keys);
+    }
+    
+    @Test
+    public void testReset() throws Exception {
+        changeLog.append(log("a"));
+        changeLog.reset();
+        Assert.assertEquals(0L, changeLog.size());
+        changeLog.append(log("b"));
+        
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        changeLog.copyTo(changeLog.mark(), out);
+        List<String> keys = new ArrayList<>();
+        DerbyChangeLog.replay(new ByteArrayInputStream(out.toByteArray()), log -> keys.add(log.getKey()));
+        Assert.assertEquals(Arrays.asList("b"), keys);
+        Assert.assertFalse(changeLog.isBroken());
+    }
+    
+    private static WriteRequest log(String key) {
+        return WriteRequest.newBuilder().setKey(key).setData(ByteString.copyFromUtf8("data of " + key)).build();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.config.server.service.repository.embedded;
+
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import com.alibaba.nacos.config.server.constant.Constants;
+import com.alibaba.nacos.config.server.model.event.ConfigDumpEvent;
+import com.alibaba.nacos.config.server.service.sql.ModifyRequest;
+import com.alibaba.nacos.consistency.entity.Response;
+import com.alibaba.nacos.consistency.entity.WriteRequest;
+import com.google.protobuf.ByteString;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ModifyApplyPipelineTest {
+    
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+    
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+    
+    @Test
+    public void testConflictKeys() {
+        List<ModifyRequest> requests = Arrays
+                .asList(request("INSERT INTO config_info(id,data_id,group_id) VALUES(?,?,?)"),
+                        request("INSERT INTO config_info_beta (data_id,group_id) VALUES(?,?)"),
+                        request("INSERT INTO his_config_info (id,data_id,group_id) VALUES(?,?,?)"),
+                        request("INSERT INTO config_tags_relation(id,tag_name,nid) VALUES(?,?,?)"),
+                        request("UPDATE config_info SET content=? WHERE data_id=?"));
+        Set<String> keys = ModifyApplyPipeline.conflictKeys(configLog("a", "1"), requests);
+        Assert.assertEquals(3, keys.size());
+        Assert.assertTrue(keys.contains("table:config_info_beta"));
+        // the identity of his_config_info is nid, which the insert leaves to the table
+        Assert.assertTrue(keys.contains("table:his_config_info"));
+        Assert.assertNull(ModifyApplyPipeline.conflictKeys(log("import", Collections.emptyMap()), requests));
+    }
+    
+    @Test
+    public void testIndependentLogsRunConcurrently() {
+        final List<String> executed = new CopyOnWriteArrayList<>();
+        final CountDownLatch otherConfigApplied = new CountDownLatch(1);
+        ModifyApplyPipeline pipeline = new ModifyApplyPipeline(executor, log -> Collections.emptyList(),
+                (log, requests) -> {
+                    if ("a-1".equals(log.getKey())) {
+                        // only returns in time if the log of the other config does not wait for this one
+                        await(otherConfigApplied);
+                    }
+                    executed.add(log.getKey());
+                    if (log.getKey().startsWith("b")) {
+                        otherConfigApplied.countDown();
+                    }
+                    return Response.newBuilder().setSuccess(true).setData(log.getData()).build();
+                });
+        
+        List<WriteRequest> logs = Arrays.asList(configLog("a", "1"), configLog("b", "1"), configLog("a", "2"),
+                log("barrier", Collections.emptyMap()), configLog("b", "2"));
+        List<Response> responses = pipeline.apply(logs);
+        
+        Assert.assertEquals(logs.size(), responses.size());
+        for (int i = 0; i < logs.size(); i++) {
+            Assert.assertEquals(logs.get(i).getData(), responses.get(i).getData());
+        }
+        Assert.assertEquals("b-1", executed.get(0));
+        Assert.assertTrue(executed.indexOf("a-1") < executed.indexOf("a-2"));
+        Assert.assertEquals(Arrays.asList("barrier", "b-2"), executed.subList(3, 5));
+    }
+    
+    @Test
+    public void testRetryLockFailureAlone() {
+        final AtomicInteger attempts = new AtomicInteger();
+        final AtomicInteger running = new AtomicInteger();
+        final List<Integer> runningOnRetry = new CopyOnWriteArrayList<>();
+        ModifyApplyPipeline pipeline = new ModifyApplyPipeline(executor, log -> Collections.emptyList(),
+                (log, requests) -> {
+                    running.incrementAndGet();
+                    try {
+                        if ("a-1".equals(log.getKey())) {
+                            if (attempts.incrementAndGet() == 1) {
+                                throw new CannotAcquireLockException("lock");
+                            }
+                            runningOnRetry.add(running.get());
+                        }
+                        return Response.newBuilder().setSuccess(true).build();
+                    } finally {
+                        running.decrementAndGet();
+                    }
+                });
+        List<Response> responses = pipeline
+                .apply(Arrays.asList(configLog("a", "1"), configLog("b", "1"), configLog("c", "1")));
+        Assert.assertEquals(3, responses.size());
+        Assert.assertEquals(2, attempts.get());
+        Assert.assertEquals(Collections.singletonList(1), runningOnRetry);
+    }
+    
+    @Test
+    public void testRethrowFailure() {
+        final AtomicInteger attempts = new AtomicInteger();
+        ModifyApplyPipeline pipeline = new ModifyApplyPipeline(executor, log -> Collections.emptyList(),
+                (log, requests) -> {
+                    if ("a-1".equals(log.getKey())) {
+                        attempts.incrementAndGet();
+                        throw new CannotAcquireLockException("lock");
+                    }
+                    if ("b-1".equals(log.getKey())) {
+                        throw new IllegalStateException("broken");
+                    }
+                    return Response.newBuilder().setSuccess(true).build();
+                });
+        try {
+            pipeline.apply(Arrays.asList(configLog("a", "1"), configLog("b", "1")));
+            Assert.fail();
+        } catch (CannotAcquireLockException e) {
+            // a lock failure of the log running alone fails as in the serial apply
+            Assert.assertEquals(2, attempts.get());
+        }
+        try {
+            pipeline.apply(Arrays.asList(configLog("c", "1"), configLog("b", "1")));
+            Assert.fail();
+        } catch (IllegalStateException e) {
+            Assert.assertEquals("broken", e.getMessage());
+        }
+    }
+    
+    private static void await(CountDownLatch latch) {
+        try {
+            Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private static ModifyRequest request(String sql) {
+        return new ModifyRequest(sql);
+    }
+    
+    private static WriteRequest configLog(String dataId, String version) {
+        ConfigDumpEvent event = ConfigDumpEvent.builder().namespaceId("").group("DEFAULT_GROUP").dataId(dataId)
+                .build();
+        return log(dataId + "-" + version,
+                Collections.singletonMap(Constants.EXTEND_INFO_CONFIG_DUMP_EVENT, JacksonUtils.toJson(event)));
+    }
+    
+    private static WriteRequest log(String key, Map<String, String> extendInfo) {
+        return WriteRequest.newBuilder().setKey(key)
+                .setData(ByteString.copyFromUtf8(key)).putAllExtendInfo(extendInfo).build();
+    }
+}
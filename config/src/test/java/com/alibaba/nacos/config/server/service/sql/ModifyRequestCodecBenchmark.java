@@ -0,0 +1,120 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.config.server.service.sql;
+
+import com.alibaba.nacos.common.utils.MD5Utils;
+import com.alibaba.nacos.consistency.Serializer;
+import com.alibaba.nacos.consistency.serialize.HessianSerializer;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Compares the size and the cost of the raft log entries of a config publish, written by the Hessian serializer with
+ * the md5 signature of the request key and by {@link ModifyRequestCodec} with a crc32 signature.
+ *
+ * @author nacos
+ */
+public class ModifyRequestCodecBenchmark {
+    
+    private static final int ROUNDS = 20000;
+    
+    private static final int WARMUP_ROUNDS = 5000;
+    
+    private static final String INSERT_CONFIG = "INSERT INTO config_info(data_id,group_id,tenant_id,app_name,content,"
+            + "md5,src_ip,src_user,gmt_create,gmt_modified,c_desc,c_use,effect,type,c_schema) "
+            + "VALUES(?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)";
+    
+    private static final String INSERT_TAGS = "INSERT INTO config_tags_relation(id,tag_name,tag_type,data_id,group_id,"
+            + "tenant_id) VALUES(?,?,?,?,?,?)";
+    
+    private static final String INSERT_HISTORY = "INSERT INTO his_config_info (id,data_id,group_id,tenant_id,app_name,"
+            + "content,md5,src_ip,src_user,gmt_modified,op_type) VALUES(?,?,?,?,?,?,?,?,?,?,?)";
+    
+    public static void main(String[] args) throws Exception {
+        for (int contentSize : new int[] {128, 4096, 65536}) {
+            run(contentSize);
+        }
+    }
+    
+    private static void run(int contentSize) throws Exception {
+        final Serializer hessian = new HessianSerializer();
+        final List<ModifyRequest> requests = publish(contentSize);
+        final byte[] hessianData = hessian.serialize(requests);
+        final byte[] codecData = ModifyRequestCodec.encode(requests);
+        
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            hessianRound(hessian, requests);
+            codecRound(requests);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            hessianRound(hessian, requests);
+        }
+        final long hessianNanos = (System.nanoTime() - start) / ROUNDS;
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            codecRound(requests);
+        }
+        final long codecNanos = (System.nanoTime() - start) / ROUNDS;
+        System.out.printf("content %6d bytes: hessian %6d bytes %7d ns/op, codec %6d bytes %7d ns/op%n", contentSize,
+                hessianData.length, hessianNanos, codecData.length, codecNanos);
+    }
+    
+    private static int hessianRound(Serializer hessian, List<ModifyRequest> requests) throws Exception {
+        String signature = MD5Utils.md5Hex(requests.toString(), StandardCharsets.UTF_8.name());
+        byte[] data = hessian.serialize(requests);
+        List<ModifyRequest> decoded = hessian.deserialize(data, List.class);
+        return signature.length() + decoded.size();
+    }
+    
+    private static int codecRound(List<ModifyRequest> requests) {
+        byte[] data = ModifyRequestCodec.encode(requests);
+        CRC32 signature = new CRC32();
+        signature.update(data);
+        List<ModifyRequest> decoded = ModifyRequestCodec.decode(data);
+        return (int) signature.getValue() + decoded.size();
+    }
+    
+    private static List<ModifyRequest> publish(int contentSize) {
+        char[] chars = new char[contentSize];
+        Arrays.fill(chars, 'x');
+        final String content = new String(chars);
+        final Timestamp time = new Timestamp(System.currentTimeMillis());
+        List<ModifyRequest> requests = new ArrayList<>();
+        requests.add(request(0, INSERT_CONFIG, "dataId", "DEFAULT_GROUP", "", "", content,
+                MD5Utils.md5Hex(content, StandardCharsets.UTF_8.name()), "127.0.0.1", "nacos", time, time, "", "", "",
+                "yaml", ""));
+        for (int i = 0; i < 3; i++) {
+            requests.add(request(i + 1, INSERT_TAGS, 1L, "tag" + i, "", "dataId", "DEFAULT_GROUP", ""));
+        }
+        requests.add(request(4, INSERT_HISTORY, 0L, "dataId", "DEFAULT_GROUP", "", "", content,
+                MD5Utils.md5Hex(content, StandardCharsets.UTF_8.name()), "127.0.0.1", "nacos", time, "I"));
+        return requests;
+    }
+    
+    private static ModifyRequest request(int executeNo, String sql, Object... args) {
+        ModifyRequest request = new ModifyRequest(sql);
+        request.setExecuteNo(executeNo);
+        request.setArgs(args);
+        return request;
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.config.server.service.sql;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+public class ModifyRequestCodecTest {
+    
+    @Test
+    public void testEncodeAndDecode() {
+        Timestamp time = new Timestamp(1600000000123L);
+        time.setNanos(123456789);
+        List<ModifyRequest> requests = new ArrayList<>();
+        requests.add(request(0, "INSERT INTO config_info(data_id,content,gmt_create) VALUES(?,?,?)", "dataId",
+                "内容 content", time));
+        requests.add(request(1, "UPDATE config_info SET c_desc=?,effect=? WHERE id=?", null, Boolean.TRUE, 42L));
+        requests.add(request(-2, "INSERT INTO config_info(data_id,content,gmt_create) VALUES(?,?,?)", 7, (short) 3,
+                (byte) -1, 1.5D, 2.5F, new Date(1000L), new byte[] {1, 2, 3}, new BigDecimal("-12.3400"),
+                Long.MIN_VALUE, Integer.MIN_VALUE, new ArrayList<>(Collections.singletonList("serialized"))));
+        ModifyRequest noArgs = new ModifyRequest("DELETE FROM his_config_info");
+        noArgs.setExecuteNo(3);
+        requests.add(noArgs);
+        requests.add(request(4, "DELETE FROM config_info WHERE id=?"));
+        
+        List<ModifyRequest> decoded = ModifyRequestCodec.decode(ModifyRequestCodec.encode(requests));
+        Assert.assertEquals(requests.size(), decoded.size());
+        for (int i = 0; i < requests.size(); i++) {
+            ModifyRequest expected = requests.get(i);
+            ModifyRequest actual = decoded.get(i);
+            Assert.assertEquals(expected.getExecuteNo(), actual.getExecuteNo());
+            Assert.assertEquals(expected.getSql(), actual.getSql());
+            Assert.assertEquals(expected.getArgs() == null, actual.getArgs() == null);
+            if (expected.getArgs() != null) {
+                Assert.assertTrue(Arrays.deepEquals(expected.getArgs(), actual.getArgs()));
+                for (int j = 0; j < expected.getArgs().length; j++) {
+                    if (expected.getArgs()[j] != null) {
+                        Assert.assertEquals(expected.getArgs()[j].getClass(), actual.getArgs()[j].getClass());
+                    }
+                }
+            }
+        }
+        Assert.assertEquals(123456789, ((Timestamp) decoded.get(0).getArgs()[2]).getNanos());
+        // the same sql is shared through the dictionary
+        Assert.assertSame(decoded.get(0).getSql(), decoded.get(2).getSql());
+    }
+    
+    @Test(expected = IllegalArgumentException.class)
+    public void testDecodeTruncated() {
+        byte[] data = ModifyRequestCodec.encode(Collections.singletonList(request(0, "SELECT ?", "value")));
+        ModifyRequestCodec.decode(Arrays.copyOf(data, data.length - 2));
+    }
+    
+    private ModifyRequest request(int executeNo, String sql, Object... args) {
+        ModifyRequest request = new ModifyRequest(sql);
+        request.setExecuteNo(executeNo);
+        request.setArgs(args);
+        return request;
+    }
+}
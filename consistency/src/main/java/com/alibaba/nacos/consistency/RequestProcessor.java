@@ -20,6 +20,9 @@ import com.alibaba.nacos.consistency.entity.ReadRequest;
 import com.alibaba.nacos.consistency.entity.Response;
 import com.alibaba.nacos.consistency.entity.WriteRequest;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Can be discovered through SPI or Spring, This interface is just a function definition interface. Different
  * consistency protocols have their own LogDispatcher. It is not recommended to directly implement this interface.
@@ -45,6 +48,22 @@ public abstract class RequestProcessor {
      */
     public abstract Response onApply(WriteRequest log);
     
+    /**
+     * Process a run of submitted logs which follow each other in the log. The default applies them one by one,
+     * processors which can apply independent logs concurrently may override it, as long as the result is the same as
+     * applying them in order.
+     *
+     * @param logs {@link WriteRequest} in log order
+     * @return responses in the order of the logs
+     */
+    public List<Response> onApply(List<WriteRequest> logs) {
+        List<Response> responses = new ArrayList<>(logs.size());
+        for (WriteRequest log : logs) {
+            responses.add(onApply(log));
+        }
+        return responses;
+    }
+    
     /**
      * Irremediable errors that need to trigger business price cuts.
      *
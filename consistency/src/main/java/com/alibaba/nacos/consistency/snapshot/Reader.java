@@ -16,6 +16,12 @@
 
 package com.alibaba.nacos.consistency.snapshot;
 
+import java.io.BufferedInputStream;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.Map;
 
@@ -46,4 +52,29 @@ public class Reader {
     public LocalFileMeta getFileMeta(String fileName) {
         return allFiles.get(fileName);
     }
+    
+    /**
+     * Opens a snapshot file for reading. A file written through {@link Writer#openFile(String, boolean)} is verified
+     * chunk by chunk and inflated on the fly, any other file is returned as it is.
+     *
+     * @param fileName file name
+     * @return input stream of the file content
+     * @throws IOException if the file is not part of the snapshot or can not be opened
+     */
+    public InputStream openFile(String fileName) throws IOException {
+        final LocalFileMeta meta = allFiles.get(fileName);
+        if (meta == null) {
+            throw new FileNotFoundException("Snapshot file not found: " + fileName);
+        }
+        final InputStream in = new BufferedInputStream(new FileInputStream(Paths.get(path, fileName).toFile()));
+        if (!Writer.FORMAT_CHUNKED.equals(meta.get(Writer.FORMAT_KEY))) {
+            return in;
+        }
+        try {
+            return new SnapshotInputStream(in);
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
 }
@@ -0,0 +1,172 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.consistency.snapshot;
+
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads a snapshot file written by {@link SnapshotOutputStream}, verifying every chunk before its content is returned
+ * and inflating the content on the fly if it was written compressed.
+ *
+ * <p>A chunk failing its checksum and a file ending before its trailer both surface as {@link IOException}, so the
+ * caller never consumes unverified bytes.
+ *
+ * @author nacos
+ */
+public class SnapshotInputStream extends InputStream {
+    
+    private final DataInputStream in;
+    
+    private final ChunkInputStream chunks;
+    
+    private final InputStream content;
+    
+    private final Inflater inflater;
+    
+    private boolean closed;
+    
+    public SnapshotInputStream(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        final int magic = this.in.readInt();
+        if (magic != SnapshotOutputStream.MAGIC) {
+            throw new IOException("Not a snapshot stream, magic: " + Integer.toHexString(magic));
+        }
+        final boolean compressed = (this.in.readByte() & SnapshotOutputStream.FLAG_DEFLATE) != 0;
+        this.chunks = new ChunkInputStream();
+        this.inflater = compressed ? new Inflater() : null;
+        this.content = compressed ? new InflaterInputStream(chunks, inflater, SnapshotOutputStream.CHUNK_SIZE)
+                : chunks;
+    }
+    
+    @Override
+    public int read() throws IOException {
+        final int b = content.read();
+        if (b < 0) {
+            chunks.drain();
+        }
+        return b;
+    }
+    
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        final int n = content.read(b, off, len);
+        if (n < 0) {
+            chunks.drain();
+        }
+        return n;
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        if (inflater != null) {
+            inflater.end();
+        }
+        in.close();
+    }
+    
+    private final class ChunkInputStream extends InputStream {
+        
+        private final byte[] chunk = new byte[SnapshotOutputStream.CHUNK_SIZE];
+        
+        private final CRC32 crc = new CRC32();
+        
+        private int position;
+        
+        private int limit;
+        
+        private long total;
+        
+        private boolean finished;
+        
+        @Override
+        public int read() throws IOException {
+            if (!ensureChunk()) {
+                return -1;
+            }
+            return chunk[position++] & 0xff;
+        }
+        
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!ensureChunk()) {
+                return -1;
+            }
+            final int n = Math.min(len, limit - position);
+            System.arraycopy(chunk, position, b, off, n);
+            position += n;
+            return n;
+        }
+        
+        /**
+         * Reads up to the trailer, the content may end before the chunks do when it is inflated.
+         */
+        void drain() throws IOException {
+            while (ensureChunk()) {
+                position = limit;
+            }
+        }
+        
+        private boolean ensureChunk() throws IOException {
+            if (position < limit) {
+                return true;
+            }
+            if (finished) {
+                return false;
+            }
+            try {
+                final int length = in.readInt();
+                if (length == 0) {
+                    final long expect = in.readLong();
+                    if (expect != total) {
+                        throw new IOException("Snapshot stream length mismatch, expect " + expect + ", read " + total);
+                    }
+                    finished = true;
+                    return false;
+                }
+                if (length < 0 || length > chunk.length) {
+                    throw new IOException("Illegal snapshot chunk length: " + length);
+                }
+                final int checksum = in.readInt();
+                in.readFully(chunk, 0, length);
+                crc.reset();
+                crc.update(chunk, 0, length);
+                if ((int) crc.getValue() != checksum) {
+                    throw new IOException("Snapshot chunk checksum failed at offset " + total);
+                }
+                position = 0;
+                limit = length;
+                total += length;
+                return true;
+            } catch (EOFException e) {
+                throw new IOException("Snapshot stream is truncated at offset " + total, e);
+            }
+        }
+    }
+}
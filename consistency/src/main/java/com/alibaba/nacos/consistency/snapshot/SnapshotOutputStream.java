@@ -0,0 +1,147 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.consistency.snapshot;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Writes a snapshot file as a sequence of checksummed chunks, optionally deflating the content on the fly.
+ *
+ * <p>The file starts with {@link #MAGIC} and a flag byte, followed by chunks of at most {@link #CHUNK_SIZE} bytes,
+ * each prefixed by its length and CRC32. A chunk of length zero carrying the total count of chunk bytes ends the file,
+ * so a reader can verify every chunk before handing it out and recognize a truncated file.
+ *
+ * @author nacos
+ */
+public class SnapshotOutputStream extends OutputStream {
+    
+    static final int MAGIC = 0x4e534e50;
+    
+    static final int CHUNK_SIZE = 64 * 1024;
+    
+    static final byte FLAG_DEFLATE = 1;
+    
+    private final DataOutputStream out;
+    
+    private final OutputStream content;
+    
+    private final Deflater deflater;
+    
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+    
+    private final CRC32 crc = new CRC32();
+    
+    private final Runnable onClose;
+    
+    private int position;
+    
+    private long total;
+    
+    private boolean closed;
+    
+    public SnapshotOutputStream(OutputStream out, boolean compress) throws IOException {
+        this(out, compress, null);
+    }
+    
+    SnapshotOutputStream(OutputStream out, boolean compress, Runnable onClose) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.onClose = onClose;
+        this.out.writeInt(MAGIC);
+        this.out.writeByte(compress ? FLAG_DEFLATE : 0);
+        final OutputStream chunks = new ChunkOutputStream();
+        this.deflater = compress ? new Deflater(Deflater.BEST_SPEED) : null;
+        this.content = compress ? new DeflaterOutputStream(chunks, deflater, CHUNK_SIZE) : chunks;
+    }
+    
+    @Override
+    public void write(int b) throws IOException {
+        content.write(b);
+    }
+    
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        content.write(b, off, len);
+    }
+    
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (deflater != null) {
+                ((DeflaterOutputStream) content).finish();
+            }
+            flushChunk();
+            out.writeInt(0);
+            out.writeLong(total);
+            out.flush();
+        } finally {
+            if (deflater != null) {
+                deflater.end();
+            }
+            out.close();
+        }
+        if (onClose != null) {
+            onClose.run();
+        }
+    }
+    
+    private void flushChunk() throws IOException {
+        if (position == 0) {
+            return;
+        }
+        crc.reset();
+        crc.update(chunk, 0, position);
+        out.writeInt(position);
+        out.writeInt((int) crc.getValue());
+        out.write(chunk, 0, position);
+        total += position;
+        position = 0;
+    }
+    
+    private final class ChunkOutputStream extends OutputStream {
+        
+        @Override
+        public void write(int b) throws IOException {
+            chunk[position++] = (byte) b;
+            if (position == CHUNK_SIZE) {
+                flushChunk();
+            }
+        }
+        
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                final int n = Math.min(len, CHUNK_SIZE - position);
+                System.arraycopy(b, off, chunk, position, n);
+                position += n;
+                off += n;
+                len -= n;
+                if (position == CHUNK_SIZE) {
+                    flushChunk();
+                }
+            }
+        }
+    }
+}
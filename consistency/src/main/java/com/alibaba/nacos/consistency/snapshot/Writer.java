@@ -16,6 +16,13 @@
 
 package com.alibaba.nacos.consistency.snapshot;
 
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
@@ -27,6 +34,13 @@ import java.util.Map;
  */
 public class Writer {
     
+    /**
+     * Meta key of the files written through {@link #openFile(String, boolean)}.
+     */
+    public static final String FORMAT_KEY = "format";
+    
+    public static final String FORMAT_CHUNKED = "chunked";
+    
     private final Map<String, LocalFileMeta> files = new HashMap<>();
     
     private String path;
@@ -61,6 +75,45 @@ public class Writer {
         return true;
     }
     
+    /**
+     * Opens a snapshot file to be written as checksummed chunks, see {@link SnapshotOutputStream}. The file is added
+     * to the snapshot once the stream is closed, read it back with {@link Reader#openFile(String)}.
+     *
+     * @param fileName file name
+     * @param compress whether to deflate the content
+     * @return output stream of the file
+     * @throws IOException if the file can not be created
+     */
+    public SnapshotOutputStream openFile(final String fileName, final boolean compress) throws IOException {
+        final File file = Paths.get(path, fileName).toFile();
+        final LocalFileMeta meta = new LocalFileMeta().append("file-name", fileName)
+                .append(FORMAT_KEY, FORMAT_CHUNKED);
+        return new SnapshotOutputStream(new BufferedOutputStream(new FileOutputStream(file)), compress,
+                () -> addFile(fileName, meta));
+    }
+    
+    /**
+     * Adds an existing file to the snapshot without copying its content, the file is hard linked into the snapshot
+     * directory and only copied if the file system does not support it. The source must not be modified in place
+     * afterwards.
+     *
+     * @param fileName file name
+     * @param source   file to add
+     * @param meta     file metadata, may be null
+     * @return true on success
+     * @throws IOException if neither linking nor copying the file succeeds
+     */
+    public boolean linkFile(final String fileName, final File source, final LocalFileMeta meta) throws IOException {
+        final Path target = Paths.get(path, fileName);
+        Files.deleteIfExists(target);
+        try {
+            Files.createLink(target, source.toPath());
+        } catch (IOException | UnsupportedOperationException e) {
+            Files.copy(source.toPath(), target);
+        }
+        return meta == null ? addFile(fileName) : addFile(fileName, meta);
+    }
+    
     /**
      * Remove a snapshot file.
      *
@@ -0,0 +1,138 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.consistency.snapshot;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Random;
+
+public class SnapshotStreamTest {
+    
+    private File dir;
+    
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("snapshot-stream").toFile();
+    }
+    
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File each : files) {
+                each.delete();
+            }
+        }
+        dir.delete();
+    }
+    
+    @Test
+    public void testRoundTrip() throws IOException {
+        byte[] data = new byte[SnapshotOutputStream.CHUNK_SIZE * 3 + 17];
+        new Random(7).nextBytes(data);
+        for (boolean compress : new boolean[] {false, true}) {
+            String fileName = "data-" + compress;
+            Writer writer = new Writer(dir.getPath());
+            try (OutputStream out = writer.openFile(fileName, compress)) {
+                out.write(data, 0, 10);
+                out.write(data[10]);
+                out.write(data, 11, data.length - 11);
+            }
+            Assert.assertTrue(writer.listFiles().containsKey(fileName));
+            
+            Reader reader = new Reader(dir.getPath(), writer.listFiles());
+            try (InputStream in = reader.openFile(fileName)) {
+                Assert.assertArrayEquals(data, readFully(in));
+            }
+        }
+    }
+    
+    @Test
+    public void testCorruptChunkIsDetected() throws IOException {
+        Writer writer = new Writer(dir.getPath());
+        try (OutputStream out = writer.openFile("data", false)) {
+            out.write(new byte[SnapshotOutputStream.CHUNK_SIZE * 2]);
+        }
+        try (RandomAccessFile file = new RandomAccessFile(new File(dir, "data"), "rw")) {
+            file.seek(SnapshotOutputStream.CHUNK_SIZE / 2);
+            file.write(1);
+        }
+        Reader reader = new Reader(dir.getPath(), writer.listFiles());
+        try (InputStream in = reader.openFile("data")) {
+            readFully(in);
+            Assert.fail("corrupt chunk must not be read");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("checksum"));
+        }
+    }
+    
+    @Test
+    public void testTruncatedFileIsDetected() throws IOException {
+        Writer writer = new Writer(dir.getPath());
+        try (OutputStream out = writer.openFile("data", true)) {
+            out.write("nacos".getBytes(StandardCharsets.UTF_8));
+        }
+        File file = new File(dir, "data");
+        try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+            raf.setLength(raf.length() - 4);
+        }
+        Reader reader = new Reader(dir.getPath(), writer.listFiles());
+        try (InputStream in = reader.openFile("data")) {
+            readFully(in);
+            Assert.fail("truncated file must not be read");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("truncated"));
+        }
+    }
+    
+    @Test
+    public void testLinkFile() throws IOException {
+        File source = new File(dir, "source");
+        Files.write(source.toPath(), "nacos".getBytes(StandardCharsets.UTF_8));
+        File target = new File(dir, "linked");
+        Writer writer = new Writer(dir.getPath());
+        Assert.assertTrue(writer.linkFile("linked", source, null));
+        Assert.assertEquals("nacos", new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+        Assert.assertTrue(writer.listFiles().containsKey("linked"));
+        
+        Reader reader = new Reader(dir.getPath(), writer.listFiles());
+        try (InputStream in = reader.openFile("linked")) {
+            Assert.assertEquals("nacos", new String(readFully(in), StandardCharsets.UTF_8));
+        }
+    }
+    
+    private static byte[] readFully(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int n;
+        while ((n = in.read(buffer)) >= 0) {
+            out.write(buffer, 0, n);
+        }
+        return out.toByteArray();
+    }
+}
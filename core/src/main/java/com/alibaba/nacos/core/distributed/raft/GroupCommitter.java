@@ -0,0 +1,228 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.core.distributed.raft;
+
+import com.alibaba.nacos.consistency.entity.Response;
+import com.alibaba.nacos.consistency.entity.WriteRequest;
+import com.alibaba.nacos.consistency.exception.ConsistencyException;
+import com.alibaba.nacos.core.distributed.raft.utils.RaftExecutor;
+import com.alibaba.nacos.core.utils.Loggers;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit stage of a raft group, which collects concurrent writes into one raft log entry.
+ *
+ * <p>Writes are collected until {@code maxEntries} writes are pending, or the first of them has waited
+ * {@code maxDelayMicros}, and are then committed as one batch {@link WriteRequest}, on the leader directly and on a
+ * follower by one request to the leader. {@link NacosStateMachine} applies the writes of a batch one by one and answers
+ * with the responses of all of them, which are handed back to the caller of each write.
+ *
+ * <p>A batch can only be applied by members knowing about it, so group commit must be enabled only when all members
+ * of the cluster support it.
+ *
+ * @author nacos
+ */
+class GroupCommitter {
+    
+    static final String BATCH_OPERATION = "nacos.raft.group_commit";
+    
+    private final JRaftServer server;
+    
+    private final String group;
+    
+    private final int maxEntries;
+    
+    private final long maxDelayMicros;
+    
+    private final Object lock = new Object();
+    
+    private List<PendingWrite> pending;
+    
+    private long batchId;
+    
+    GroupCommitter(JRaftServer server, String group, int maxEntries, long maxDelayMicros) {
+        this.server = server;
+        this.group = group;
+        this.maxEntries = maxEntries;
+        this.maxDelayMicros = maxDelayMicros;
+        this.pending = new ArrayList<>(maxEntries);
+    }
+    
+    /**
+     * Add a write to the current batch.
+     *
+     * @param request write request
+     * @param future  future completed with the response of this write
+     */
+    void submit(WriteRequest request, CompletableFuture<Response> future) {
+        List<PendingWrite> batch = null;
+        long scheduledBatchId = -1L;
+        synchronized (lock) {
+            pending.add(new PendingWrite(request, future));
+            if (pending.size() >= maxEntries) {
+                batch = takePending();
+            } else if (pending.size() == 1) {
+                scheduledBatchId = batchId;
+            }
+        }
+        if (batch != null) {
+            commit(batch);
+        } else if (scheduledBatchId >= 0) {
+            final long id = scheduledBatchId;
+            RaftExecutor.getRaftCommonExecutor()
+                    .schedule(() -> flush(id), maxDelayMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+    
+    private void flush(long id) {
+        List<PendingWrite> batch;
+        synchronized (lock) {
+            // the batch has been committed for being full in the meantime
+            if (id != batchId || pending.isEmpty()) {
+                return;
+            }
+            batch = takePending();
+        }
+        commit(batch);
+    }
+    
+    private List<PendingWrite> takePending() {
+        List<PendingWrite> batch = pending;
+        pending = new ArrayList<>(maxEntries);
+        batchId++;
+        return batch;
+    }
+    
+    private void commit(final List<PendingWrite> batch) {
+        try {
+            if (batch.size() == 1) {
+                server.doCommit(group, batch.get(0).request, batch.get(0).future);
+                return;
+            }
+            List<WriteRequest> requests = new ArrayList<>(batch.size());
+            for (PendingWrite write : batch) {
+                requests.add(write.request);
+            }
+            CompletableFuture<Response> future = new CompletableFuture<>();
+            future.whenComplete((response, throwable) -> fanOut(batch, response, throwable));
+            server.doCommit(group, encodeRequests(group, requests), future);
+        } catch (Throwable t) {
+            fanOut(batch, null, t);
+        }
+    }
+    
+    private void fanOut(List<PendingWrite> batch, Response response, Throwable throwable) {
+        if (throwable != null) {
+            for (PendingWrite write : batch) {
+                write.future.completeExceptionally(throwable);
+            }
+            return;
+        }
+        if (!response.getSuccess()) {
+            for (PendingWrite write : batch) {
+                write.future.complete(response);
+            }
+            return;
+        }
+        List<Response> responses;
+        try {
+            responses = decodeResponses(response);
+        } catch (Throwable t) {
+            Loggers.RAFT.error("Failed to decode the responses of a group commit of {}", group, t);
+            responses = null;
+        }
+        if (responses == null || responses.size() != batch.size()) {
+            ConsistencyException exception = new ConsistencyException(
+                    "Malformed responses of a group commit of " + group);
+            for (PendingWrite write : batch) {
+                write.future.completeExceptionally(exception);
+            }
+            return;
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).future.complete(responses.get(i));
+        }
+    }
+    
+    static boolean isBatch(Message message) {
+        return message instanceof WriteRequest && BATCH_OPERATION.equals(((WriteRequest) message).getOperation());
+    }
+    
+    /**
+     * Encode writes into one batch request, each write is prefixed with its length.
+     *
+     * @param group    raft group
+     * @param requests writes of the batch
+     * @return batch request
+     */
+    static WriteRequest encodeRequests(String group, List<WriteRequest> requests) throws IOException {
+        ByteString.Output output = ByteString.newOutput();
+        for (WriteRequest request : requests) {
+            request.writeDelimitedTo(output);
+        }
+        return WriteRequest.newBuilder().setGroup(group).setOperation(BATCH_OPERATION).setData(output.toByteString())
+                .build();
+    }
+    
+    static List<WriteRequest> decodeRequests(WriteRequest batch) throws IOException {
+        List<WriteRequest> requests = new ArrayList<>();
+        InputStream input = batch.getData().newInput();
+        WriteRequest request;
+        while ((request = WriteRequest.parseDelimitedFrom(input)) != null) {
+            requests.add(request);
+        }
+        return requests;
+    }
+    
+    static Response encodeResponses(List<Response> responses) throws IOException {
+        ByteString.Output output = ByteString.newOutput();
+        for (Response response : responses) {
+            response.writeDelimitedTo(output);
+        }
+        return Response.newBuilder().setSuccess(true).setData(output.toByteString()).build();
+    }
+    
+    static List<Response> decodeResponses(Response batch) throws IOException {
+        List<Response> responses = new ArrayList<>();
+        InputStream input = batch.getData().newInput();
+        Response response;
+        while ((response = Response.parseDelimitedFrom(input)) != null) {
+            responses.add(response);
+        }
+        return responses;
+    }
+    
+    private static class PendingWrite {
+        
+        private final WriteRequest request;
+        
+        private final CompletableFuture<Response> future;
+        
+        PendingWrite(WriteRequest request, CompletableFuture<Response> future) {
+            this.request = request;
+            this.future = future;
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.alibaba.nacos.consistency.Serializer;
 import com.alibaba.nacos.consistency.cp.RequestProcessor4CP;
 import com.alibaba.nacos.consistency.entity.ReadRequest;
 import com.alibaba.nacos.consistency.entity.Response;
+import com.alibaba.nacos.consistency.entity.WriteRequest;
 import com.alibaba.nacos.consistency.exception.ConsistencyException;
 import com.alibaba.nacos.core.distributed.raft.exception.DuplicateRaftGroupException;
 import com.alibaba.nacos.core.distributed.raft.exception.JRaftException;
@@ -56,6 +57,7 @@ import com.alipay.sofa.jraft.entity.Task;
 import com.alipay.sofa.jraft.error.RaftError;
 import com.alipay.sofa.jraft.option.CliOptions;
 import com.alipay.sofa.jraft.option.NodeOptions;
+import com.alipay.sofa.jraft.option.ReadOnlyOption;
 import com.alipay.sofa.jraft.option.RaftOptions;
 import com.alipay.sofa.jraft.rpc.InvokeCallback;
 import com.alipay.sofa.jraft.rpc.RpcProcessor;
@@ -65,6 +67,8 @@ import com.alipay.sofa.jraft.util.BytesUtil;
 import com.alipay.sofa.jraft.util.Endpoint;
 import com.google.common.base.Joiner;
 import com.google.protobuf.Message;
+import io.micrometer.core.instrument.Timer;
+import org.apache.commons.lang3.StringUtils;
 import org.springframework.util.CollectionUtils;
 
 import java.nio.ByteBuffer;
@@ -124,6 +128,10 @@ public class JRaftServer {
     
     private Map<String, RaftGroupTuple> multiRaftGroup = new ConcurrentHashMap<>();
     
+    private Map<String, GroupCommitter> groupCommitters = new ConcurrentHashMap<>();
+    
+    private Map<String, ReadState> readStates = new ConcurrentHashMap<>();
+    
     private volatile boolean isStarted = false;
     
     private volatile boolean isShutdown = false;
@@ -150,6 +158,16 @@ public class JRaftServer {
     
     private int rpcRequestTimeoutMs;
     
+    private boolean groupCommitEnabled;
+    
+    private int groupCommitMaxEntries;
+    
+    private long groupCommitMaxDelayMicros;
+    
+    private int readMaxLagMs;
+    
+    private String dataPath;
+    
     public JRaftServer() {
         this.conf = new Configuration();
     }
@@ -178,6 +196,16 @@ public class JRaftServer {
         rpcRequestTimeoutMs = ConvertUtils.toInt(raftConfig.getVal(RaftSysConstants.RAFT_RPC_REQUEST_TIMEOUT_MS),
                 RaftSysConstants.DEFAULT_RAFT_RPC_REQUEST_TIMEOUT_MS);
         
+        groupCommitEnabled = ConvertUtils.toBoolean(raftConfig.getVal(RaftSysConstants.GROUP_COMMIT_ENABLED),
+                RaftSysConstants.DEFAULT_GROUP_COMMIT_ENABLED);
+        groupCommitMaxEntries = ConvertUtils.toInt(raftConfig.getVal(RaftSysConstants.GROUP_COMMIT_MAX_ENTRIES),
+                RaftSysConstants.DEFAULT_GROUP_COMMIT_MAX_ENTRIES);
+        groupCommitMaxDelayMicros = ConvertUtils
+                .toLong(raftConfig.getVal(RaftSysConstants.GROUP_COMMIT_MAX_DELAY_MICROS),
+                        RaftSysConstants.DEFAULT_GROUP_COMMIT_MAX_DELAY_MICROS);
+        readMaxLagMs = ConvertUtils.toInt(raftConfig.getVal(RaftSysConstants.READ_MAX_LAG_MS),
+                RaftSysConstants.DEFAULT_READ_MAX_LAG_MS);
+        
         nodeOptions.setSharedElectionTimer(true);
         nodeOptions.setSharedVoteTimer(true);
         nodeOptions.setSharedStepDownTimer(true);
@@ -233,7 +261,8 @@ public class JRaftServer {
             return;
         }
         
-        final String parentPath = Paths.get(EnvUtil.getNacosHome(), "data/protocol/raft").toString();
+        final String parentPath = Objects.nonNull(dataPath) ? dataPath
+                : Paths.get(EnvUtil.getNacosHome(), "data/protocol/raft").toString();
         
         for (RequestProcessor4CP processor : processors) {
             final String groupName = processor.group();
@@ -261,6 +290,13 @@ public class JRaftServer {
             doSnapshotInterval = CollectionUtils.isEmpty(processor.loadSnapshotOperate()) ? 0 : doSnapshotInterval;
             
             copy.setSnapshotIntervalSecs(doSnapshotInterval);
+            
+            final ReadConsistency readConsistency = readConsistency(groupName);
+            if (readConsistency == ReadConsistency.LEADER_LEASE) {
+                RaftOptions raftOptions = copy.getRaftOptions().copy();
+                raftOptions.setReadOnlyOptions(ReadOnlyOption.ReadOnlyLeaseBased);
+                copy.setRaftOptions(raftOptions);
+            }
             Loggers.RAFT.info("create raft group : {}", groupName);
             RaftGroupService raftGroupService = new RaftGroupService(groupName, localPeerId, copy, rpcServer, true);
             
@@ -277,7 +313,21 @@ public class JRaftServer {
             RaftExecutor.scheduleRaftMemberRefreshJob(() -> refreshRouteTable(groupName),
                     nodeOptions.getElectionTimeoutMs(), period, TimeUnit.MILLISECONDS);
             multiRaftGroup.put(groupName, new RaftGroupTuple(node, processor, raftGroupService, machine));
+            readStates.put(groupName, new ReadState(readConsistency, readMaxLagMs));
+            if (groupCommitEnabled) {
+                groupCommitters.put(groupName,
+                        new GroupCommitter(this, groupName, groupCommitMaxEntries, groupCommitMaxDelayMicros));
+            }
+        }
+    }
+    
+    private ReadConsistency readConsistency(String groupName) {
+        String mode = raftConfig.getVal(RaftSysConstants.READ_CONSISTENCY + "." + groupName);
+        if (StringUtils.isBlank(mode)) {
+            mode = raftConfig.getValOfDefault(RaftSysConstants.READ_CONSISTENCY,
+                    RaftSysConstants.DEFAULT_READ_CONSISTENCY);
         }
+        return ReadConsistency.of(mode);
     }
     
     CompletableFuture<Response> get(final ReadRequest request) {
@@ -290,11 +340,32 @@ public class JRaftServer {
         }
         final Node node = tuple.node;
         final RequestProcessor processor = tuple.processor;
+        final ReadState readState = readStates.get(group);
+        final long startNanos = System.nanoTime();
+        if (Objects.nonNull(readState)) {
+            final Timer timer = MetricsMonitor.getRaftReadTimer(readState.getConsistency().getMode());
+            future.whenComplete((response, throwable) -> timer
+                    .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS));
+            // the local state caught up with the leader recently enough, no need to ask the leader again
+            if (readState.canReadLocally(startNanos) && Objects.nonNull(node.getLeaderId())) {
+                try {
+                    future.complete(processor.onRequest(request));
+                } catch (Throwable t) {
+                    future.completeExceptionally(
+                            new ConsistencyException("The conformance protocol is temporarily unavailable for reading",
+                                    t));
+                }
+                return future;
+            }
+        }
         try {
             node.readIndex(BytesUtil.EMPTY_BYTES, new ReadIndexClosure() {
                 @Override
                 public void run(Status status, long index, byte[] reqCtx) {
                     if (status.isOk()) {
+                        if (Objects.nonNull(readState)) {
+                            readState.synced(startNanos);
+                        }
                         try {
                             Response response = processor.onRequest(request);
                             future.complete(response);
@@ -345,6 +416,16 @@ public class JRaftServer {
     
     public CompletableFuture<Response> commit(final String group, final Message data,
             final CompletableFuture<Response> future) {
+        final GroupCommitter committer = groupCommitters.get(group);
+        if (Objects.nonNull(committer) && data instanceof WriteRequest && !GroupCommitter.isBatch(data)) {
+            committer.submit((WriteRequest) data, future);
+            return future;
+        }
+        return doCommit(group, data, future);
+    }
+    
+    CompletableFuture<Response> doCommit(final String group, final Message data,
+            final CompletableFuture<Response> future) {
         LoggerUtils.printIfDebugEnabled(Loggers.RAFT, "data requested this time : {}", data);
         final RaftGroupTuple tuple = findTupleByGroup(group);
         if (tuple == null) {
@@ -534,6 +615,11 @@ public class JRaftServer {
         this.multiRaftGroup = map;
     }
     
+    @JustForTest
+    void setDataPath(String dataPath) {
+        this.dataPath = dataPath;
+    }
+    
     CliService getCliService() {
         return cliService;
     }
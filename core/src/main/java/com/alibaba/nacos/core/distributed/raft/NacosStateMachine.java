@@ -49,7 +49,7 @@ import com.alipay.sofa.jraft.storage.snapshot.SnapshotWriter;
 import com.google.protobuf.Message;
 import org.apache.commons.lang3.BooleanUtils;
 
-import java.nio.ByteBuffer;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
@@ -72,6 +72,11 @@ class NacosStateMachine extends StateMachineAdapter {
     
     protected final RequestProcessor processor;
     
+    /**
+     * The maximum count of consecutive writes handed to the processor at once.
+     */
+    private static final int MAX_PENDING_WRITES = 64;
+    
     private final AtomicBoolean isLeader = new AtomicBoolean(false);
     
     private final String groupId;
@@ -93,54 +98,102 @@ class NacosStateMachine extends StateMachineAdapter {
     
     @Override
     public void onApply(Iterator iter) {
-        int index = 0;
-        int applied = 0;
-        Message message;
+        final List<PendingWrite> pending = new ArrayList<>();
+        // whether the iterator stands on an entry which is neither applied nor pending
+        boolean unprocessed = false;
         NacosClosure closure = null;
         try {
             while (iter.hasNext()) {
-                Status status = Status.OK();
-                try {
-                    if (iter.done() != null) {
-                        closure = (NacosClosure) iter.done();
-                        message = closure.getMessage();
-                    } else {
-                        final ByteBuffer data = iter.getData();
-                        message = ProtoMessageUtil.parse(data.array());
-                    }
-                    
-                    LoggerUtils.printIfDebugEnabled(Loggers.RAFT, "receive log : {}", message);
-                    
-                    if (message instanceof WriteRequest) {
-                        Response response = processor.onApply((WriteRequest) message);
-                        postProcessor(response, closure);
+                unprocessed = true;
+                closure = (NacosClosure) iter.done();
+                final Message message = Objects.nonNull(closure) ? closure.getMessage()
+                        : ProtoMessageUtil.parse(iter.getData().array());
+                
+                LoggerUtils.printIfDebugEnabled(Loggers.RAFT, "receive log : {}", message);
+                
+                if (message instanceof WriteRequest) {
+                    // consecutive writes are handed to the processor together, so it can overlap their work
+                    pending.add(new PendingWrite((WriteRequest) message, closure));
+                    unprocessed = false;
+                    if (pending.size() >= MAX_PENDING_WRITES) {
+                        applyPending(pending);
                     }
-                    
+                } else {
+                    applyPending(pending);
                     if (message instanceof ReadRequest) {
                         Response response = processor.onRequest((ReadRequest) message);
                         postProcessor(response, closure);
                     }
-                } catch (Throwable e) {
-                    index++;
-                    status.setError(RaftError.UNKNOWN, e.toString());
-                    Optional.ofNullable(closure).ifPresent(closure1 -> closure1.setThrowable(e));
-                    throw e;
-                } finally {
-                    Optional.ofNullable(closure).ifPresent(closure1 -> closure1.run(status));
+                    unprocessed = false;
+                    runClosure(closure, Status.OK());
                 }
-                
-                applied++;
-                index++;
                 iter.next();
             }
+            applyPending(pending);
         } catch (Throwable t) {
             Loggers.RAFT.error("processor : {}, stateMachine meet critical error: {}.", processor, t);
-            iter.setErrorAndRollback(index - applied,
+            final Status status = new Status(RaftError.UNKNOWN, t.toString());
+            for (PendingWrite write : pending) {
+                Optional.ofNullable(write.closure).ifPresent(closure1 -> closure1.setThrowable(t));
+                runClosure(write.closure, status);
+            }
+            if (unprocessed) {
+                Optional.ofNullable(closure).ifPresent(closure1 -> closure1.setThrowable(t));
+                runClosure(closure, status);
+            }
+            iter.setErrorAndRollback(Math.max(1, pending.size() + (unprocessed ? 1 : 0)),
                     new Status(RaftError.ESTATEMACHINE, "StateMachine meet critical error: %s.",
                             ExceptionUtil.getStackTrace(t)));
         }
     }
     
+    /**
+     * Apply the pending writes by one call of the processor, the writes of a group commit batch are unfolded into the
+     * same call.
+     */
+    private void applyPending(List<PendingWrite> pending) throws IOException {
+        if (pending.isEmpty()) {
+            return;
+        }
+        final List<WriteRequest> requests = new ArrayList<>(pending.size());
+        for (PendingWrite write : pending) {
+            write.offset = requests.size();
+            if (GroupCommitter.isBatch(write.request)) {
+                write.batch = GroupCommitter.decodeRequests(write.request);
+                requests.addAll(write.batch);
+            } else {
+                requests.add(write.request);
+            }
+        }
+        final List<Response> responses = processor.onApply(requests);
+        int done = 0;
+        try {
+            for (PendingWrite write : pending) {
+                Response response;
+                if (Objects.nonNull(write.batch)) {
+                    List<Response> batchResponses = new ArrayList<>(write.batch.size());
+                    for (int i = 0; i < write.batch.size(); i++) {
+                        Response each = responses.get(write.offset + i);
+                        batchResponses.add(Objects.nonNull(each) ? each : Response.getDefaultInstance());
+                    }
+                    response = GroupCommitter.encodeResponses(batchResponses);
+                } else {
+                    response = responses.get(write.offset);
+                }
+                postProcessor(response, write.closure);
+                done++;
+                runClosure(write.closure, Status.OK());
+            }
+        } finally {
+            // the closures of these writes have run, a failure of a later write must not run them again
+            pending.subList(0, done).clear();
+        }
+    }
+    
+    private void runClosure(NacosClosure closure, Status status) {
+        Optional.ofNullable(closure).ifPresent(closure1 -> closure1.run(status));
+    }
+    
     public void setNode(Node node) {
         this.node = node;
     }
@@ -310,4 +363,19 @@ class NacosStateMachine extends StateMachineAdapter {
         this.operations = Collections.unmodifiableList(tmp);
     }
     
+    private static final class PendingWrite {
+        
+        private final WriteRequest request;
+        
+        private final NacosClosure closure;
+        
+        private int offset;
+        
+        private List<WriteRequest> batch;
+        
+        PendingWrite(WriteRequest request, NacosClosure closure) {
+            this.request = request;
+            this.closure = closure;
+        }
+    }
 }
@@ -126,6 +126,31 @@ public final class RaftSysConstants {
      */
     public static final boolean DEFAULT_ENABLE_LOG_ENTRY_CHECKSUM = false;
     
+    /**
+     * Whether to collect concurrent writes of a raft group into one log entry, disabled by default.
+     */
+    public static final boolean DEFAULT_GROUP_COMMIT_ENABLED = false;
+    
+    /**
+     * The maximum number of writes in one group commit, 64 by default.
+     */
+    public static final int DEFAULT_GROUP_COMMIT_MAX_ENTRIES = 64;
+    
+    /**
+     * The maximum time in microseconds a write waits for other writes to join its group commit, 500 by default.
+     */
+    public static final long DEFAULT_GROUP_COMMIT_MAX_DELAY_MICROS = 500L;
+    
+    /**
+     * {@link RaftSysConstants#READ_CONSISTENCY}
+     */
+    public static final String DEFAULT_READ_CONSISTENCY = "linearizable";
+    
+    /**
+     * {@link RaftSysConstants#READ_MAX_LAG_MS}
+     */
+    public static final int DEFAULT_READ_MAX_LAG_MS = 1000;
+    
     // ========= setting key ========= //
     
     /**
@@ -231,4 +256,31 @@ public final class RaftSysConstants {
      * Whether to enable LogEntry checksum
      */
     public static final String ENABLE_LOG_ENTRY_CHECKSUM = "enable_log_entry_checksum";
+    
+    /**
+     * Whether to collect concurrent writes of a raft group into one log entry. All members must support it before it
+     * is enabled.
+     */
+    public static final String GROUP_COMMIT_ENABLED = "group_commit_enabled";
+    
+    /**
+     * The maximum number of writes in one group commit
+     */
+    public static final String GROUP_COMMIT_MAX_ENTRIES = "group_commit_max_entries";
+    
+    /**
+     * The maximum time in microseconds a write waits for other writes to join its group commit
+     */
+    public static final String GROUP_COMMIT_MAX_DELAY_MICROS = "group_commit_max_delay_micros";
+    
+    /**
+     * Read consistency of the raft groups, one of linearizable, leader_lease and bounded_staleness. A single group is
+     * configured by the key suffixed with its name, e.g. read_consistency.naming_persistent_service
+     */
+    public static final String READ_CONSISTENCY = "read_consistency";
+    
+    /**
+     * The maximum time in milliseconds a bounded staleness read may lag behind the leader
+     */
+    public static final String READ_MAX_LAG_MS = "read_max_lag_ms";
 }
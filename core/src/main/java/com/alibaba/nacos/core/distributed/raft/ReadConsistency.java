@@ -0,0 +1,68 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.core.distributed.raft;
+
+/**
+ * Consistency of the reads of a raft group.
+ *
+ * @author nacos
+ */
+public enum ReadConsistency {
+    
+    /**
+     * Every read confirms the leadership with a quorum by a read index before reading the local state.
+     */
+    LINEARIZABLE("linearizable"),
+    
+    /**
+     * The leader confirms its leadership by its lease instead of a heartbeat round, reads stay linearizable as long as
+     * the clocks of the members do not drift more than the lease allows.
+     */
+    LEADER_LEASE("leader_lease"),
+    
+    /**
+     * Every member reads its local state as long as it has caught up with the leader by a read index within the max lag,
+     * so the result misses at most the writes committed during that time.
+     */
+    BOUNDED_STALENESS("bounded_staleness");
+    
+    private final String mode;
+    
+    ReadConsistency(String mode) {
+        this.mode = mode;
+    }
+    
+    public String getMode() {
+        return mode;
+    }
+    
+    /**
+     * Parse the read consistency from its mode.
+     *
+     * @param mode mode of read consistency, case insensitive
+     * @return read consistency
+     * @throws IllegalArgumentException if the mode is unknown
+     */
+    public static ReadConsistency of(String mode) {
+        for (ReadConsistency each : values()) {
+            if (each.mode.equalsIgnoreCase(mode)) {
+                return each;
+            }
+        }
+        throw new IllegalArgumentException("Illegal Raft system parameters => ReadConsistency : [" + mode + "]");
+    }
+}
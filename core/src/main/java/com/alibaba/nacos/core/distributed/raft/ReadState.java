@@ -0,0 +1,74 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.core.distributed.raft;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Read consistency of a raft group, together with the time the local state last caught up with the leader.
+ *
+ * <p>A successful read index issued at time T guarantees that the local state contains every write committed before T.
+ * Under {@link ReadConsistency#BOUNDED_STALENESS} the local state may therefore be read without another read index
+ * until T plus the max lag, and such a read misses at most the writes committed since T.
+ *
+ * @author nacos
+ */
+final class ReadState {
+    
+    private final ReadConsistency consistency;
+    
+    private final long maxLagNanos;
+    
+    private final AtomicLong syncedNanos;
+    
+    ReadState(ReadConsistency consistency, long maxLagMs) {
+        this.consistency = consistency;
+        this.maxLagNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMs);
+        // never synced, so the first read always goes through a read index
+        this.syncedNanos = new AtomicLong(System.nanoTime() - this.maxLagNanos - 1);
+    }
+    
+    ReadConsistency getConsistency() {
+        return consistency;
+    }
+    
+    /**
+     * Whether the local state may be read without a read index.
+     *
+     * @param nowNanos current {@link System#nanoTime()}
+     * @return true if bounded staleness reads are enabled and the local state is within the max lag
+     */
+    boolean canReadLocally(long nowNanos) {
+        return consistency == ReadConsistency.BOUNDED_STALENESS && nowNanos - syncedNanos.get() <= maxLagNanos;
+    }
+    
+    /**
+     * Record a successful read index.
+     *
+     * @param issuedNanos {@link System#nanoTime()} at which the read index was issued
+     */
+    void synced(long issuedNanos) {
+        long current;
+        do {
+            current = syncedNanos.get();
+            if (issuedNanos - current <= 0) {
+                return;
+            }
+        } while (!syncedNanos.compareAndSet(current, issuedNanos));
+    }
+}
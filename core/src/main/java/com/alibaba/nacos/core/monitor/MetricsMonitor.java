@@ -19,6 +19,9 @@ package com.alibaba.nacos.core.monitor;
 import io.micrometer.core.instrument.DistributionSummary;
 import io.micrometer.core.instrument.Timer;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * The Metrics center.
  *
@@ -34,6 +37,8 @@ public final class MetricsMonitor {
     
     private static final Timer RAFT_APPLY_READ_TIMER;
     
+    private static final Map<String, Timer> RAFT_READ_TIMERS = new ConcurrentHashMap<>(4);
+    
     static {
         RAFT_READ_INDEX_FAILED = NacosMeterRegistry.summary("protocol", "raft_read_index_failed");
         RAFT_FROM_LEADER = NacosMeterRegistry.summary("protocol", "raft_read_from_leader");
@@ -57,4 +62,15 @@ public final class MetricsMonitor {
     public static Timer getRaftApplyReadTimer() {
         return RAFT_APPLY_READ_TIMER;
     }
+    
+    /**
+     * Get the timer of the raft reads of the consistency mode.
+     *
+     * @param mode read consistency mode
+     * @return timer of reads
+     */
+    public static Timer getRaftReadTimer(String mode) {
+        return RAFT_READ_TIMERS
+                .computeIfAbsent(mode, key -> NacosMeterRegistry.timer("protocol", "raft_read_" + key + "_timer"));
+    }
 }
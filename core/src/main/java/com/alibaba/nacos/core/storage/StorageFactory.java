@@ -18,7 +18,9 @@ package com.alibaba.nacos.core.storage;
 
 import com.alibaba.nacos.core.storage.kv.FileKvStorage;
 import com.alibaba.nacos.core.storage.kv.KvStorage;
+import com.alibaba.nacos.core.storage.kv.LogKvStorage;
 import com.alibaba.nacos.core.storage.kv.MemoryKvStorage;
+import com.alibaba.nacos.core.storage.kv.OffHeapKvStorage;
 
 /**
  * Ket-value Storage factory.
@@ -41,8 +43,12 @@ public final class StorageFactory {
         switch (type) {
             case File:
                 return new FileKvStorage(baseDir);
+            case Log:
+                return new LogKvStorage(baseDir);
             case Memory:
                 return new MemoryKvStorage();
+            case OffHeap:
+                return new OffHeapKvStorage();
             case RocksDB:
             default:
                 throw new IllegalArgumentException("this kv type : [" + type.name() + "] not support");
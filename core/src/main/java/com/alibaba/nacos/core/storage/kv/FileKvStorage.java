@@ -22,8 +22,12 @@ import com.alibaba.nacos.core.exception.KvStorageException;
 import com.alibaba.nacos.sys.utils.DiskUtils;
 
 import java.io.File;
+import java.io.FileFilter;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -31,12 +35,19 @@ import java.util.Map;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Kv storage based on file system. // TODO 写文件的方式需要优化
+ * Kv storage based on file system.
+ *
+ * <p>A value is written to a temporary file which then replaces the file of the key, so a file is never modified in
+ * place. This allows snapshots to hard link the files instead of copying them.
  *
  * @author <a href="mailto:liaochuntao@live.com">liaochuntao</a>
  */
 public class FileKvStorage implements KvStorage {
     
+    private static final String TMP_SUFFIX = ".nacos_tmp";
+    
+    private static final FileFilter VALUE_FILTER = file -> !file.getName().endsWith(TMP_SUFFIX);
+    
     private final String baseDir;
     
     /**
@@ -90,11 +101,17 @@ public class FileKvStorage implements KvStorage {
         readLock.lock();
         try {
             final String fileName = new String(key);
-            File file = Paths.get(baseDir, fileName).toFile();
+            final Path file = Paths.get(baseDir, fileName);
+            final File tmpFile = Paths.get(baseDir, fileName + TMP_SUFFIX).toFile();
             try {
-                DiskUtils.touch(file);
-                DiskUtils.writeFile(file, value, false);
+                DiskUtils.touch(tmpFile);
+                if (!DiskUtils.writeFile(tmpFile, value, false)) {
+                    throw new IOException("write file failed : " + tmpFile);
+                }
+                Files.move(tmpFile.toPath(), file, StandardCopyOption.REPLACE_EXISTING,
+                        StandardCopyOption.ATOMIC_MOVE);
             } catch (IOException e) {
+                DiskUtils.deleteQuietly(tmpFile);
                 throw new KvStorageException(ErrorCode.KVStorageWriteError, e);
             }
         } finally {
@@ -148,7 +165,7 @@ public class FileKvStorage implements KvStorage {
         try {
             File srcDir = Paths.get(baseDir).toFile();
             File descDir = Paths.get(backupPath).toFile();
-            DiskUtils.copyDirectory(srcDir, descDir);
+            DiskUtils.linkDirectory(srcDir, descDir, VALUE_FILTER);
         } catch (IOException e) {
             throw new KvStorageException(ErrorCode.IOCopyDirError, e);
         } finally {
@@ -163,10 +180,10 @@ public class FileKvStorage implements KvStorage {
             File srcDir = Paths.get(path).toFile();
             // If snapshot path is non-exist, means snapshot is empty
             if (srcDir.exists()) {
-                // First clean up the local file information, before the file copy
+                // First clean up the local file information, before the file link
                 DiskUtils.deleteDirThenMkdir(baseDir);
                 File descDir = Paths.get(baseDir).toFile();
-                DiskUtils.copyDirectory(srcDir, descDir);
+                DiskUtils.linkDirectory(srcDir, descDir, VALUE_FILTER);
             }
         } catch (IOException e) {
             throw new KvStorageException(ErrorCode.IOCopyDirError, e);
@@ -181,7 +198,7 @@ public class FileKvStorage implements KvStorage {
         File[] files = new File(baseDir).listFiles();
         if (null != files) {
             for (File each : files) {
-                if (each.isFile()) {
+                if (each.isFile() && VALUE_FILTER.accept(each)) {
                     result.add(ByteUtils.toBytes(each.getName()));
                 }
             }
@@ -34,11 +34,21 @@ public interface KvStorage {
          */
         File,
     
+        /**
+         * Local log-structured storage.
+         */
+        Log,
+    
         /**
          * Local memory storage.
          */
         Memory,
     
+        /**
+         * Local direct memory storage.
+         */
+        OffHeap,
+    
         /**
          * RocksDB storage.
          */
@@ -0,0 +1,721 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.core.storage.kv;
+
+import com.alibaba.nacos.common.executor.ExecutorFactory;
+import com.alibaba.nacos.common.executor.NameThreadFactory;
+import com.alibaba.nacos.core.exception.ErrorCode;
+import com.alibaba.nacos.core.exception.KvStorageException;
+import com.alibaba.nacos.core.utils.ClassUtils;
+import com.alibaba.nacos.core.utils.Loggers;
+import com.alibaba.nacos.sys.utils.DiskUtils;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+/**
+ * Log-structured kv storage.
+ *
+ * <p>Every write is appended to the active segment file and the position of the latest value of each key is kept in
+ * an in-memory hash index, so a read costs one positional read. Concurrent writers share one fsync: the first writer
+ * waiting for durability forces the segment for everything appended so far, the others wait for it. A segment is
+ * sealed once it reaches the segment size, and sealed segments are compacted in the background when most of their
+ * bytes have been overwritten or deleted. Sealed segments are never modified, so a snapshot hard links them.
+ *
+ * @author nacos
+ */
+public class LogKvStorage implements KvStorage {
+    
+    private static final long DEFAULT_SEGMENT_BYTES = 64L * 1024 * 1024;
+    
+    private static final String SEGMENT_SUFFIX = ".log";
+    
+    private static final String SEGMENT_NAME_FORMAT = "%020d" + SEGMENT_SUFFIX;
+    
+    /**
+     * Checksum, type, key length and value length.
+     */
+    private static final int HEADER_BYTES = 13;
+    
+    private static final int CHECKSUM_BYTES = 4;
+    
+    private static final byte TYPE_PUT = 1;
+    
+    private static final byte TYPE_DELETE = 2;
+    
+    private static final ExecutorService COMPACTION_EXECUTOR = ExecutorFactory.Managed
+            .newSingleExecutorService(ClassUtils.getCanonicalName(LogKvStorage.class),
+                    new NameThreadFactory("com.alibaba.nacos.core.storage.log-compaction"));
+    
+    private final String baseDir;
+    
+    private final long segmentBytes;
+    
+    private final Map<Key, Location> index = new ConcurrentHashMap<>();
+    
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    
+    /**
+     * Operations on the data hold the read lock, replacing the segments holds the write lock.
+     */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+    
+    private final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+    
+    private final ReentrantLock appendLock = new ReentrantLock();
+    
+    private final Object syncMonitor = new Object();
+    
+    private final AtomicBoolean compacting = new AtomicBoolean(false);
+    
+    private volatile Segment active;
+    
+    /**
+     * Count of bytes ever appended, guarded by the append lock.
+     */
+    private long appendedBytes;
+    
+    /**
+     * Count of bytes known to be durable, guarded by the sync monitor.
+     */
+    private long syncedBytes;
+    
+    private boolean syncing;
+    
+    public LogKvStorage(String baseDir) throws IOException {
+        this(baseDir, DEFAULT_SEGMENT_BYTES);
+    }
+    
+    public LogKvStorage(String baseDir, long segmentBytes) throws IOException {
+        this.baseDir = baseDir;
+        this.segmentBytes = segmentBytes;
+        DiskUtils.forceMkdir(baseDir);
+        open();
+    }
+    
+    @Override
+    public byte[] get(byte[] key) throws KvStorageException {
+        readLock.lock();
+        try {
+            Location location = index.get(new Key(key));
+            return null == location ? null : location.segment.readValue(location);
+        } catch (IOException e) {
+            throw new KvStorageException(ErrorCode.KVStorageReadError, e);
+        } finally {
+            readLock.unlock();
+        }
+    }
+    
+    @Override
+    public Map<byte[], byte[]> batchGet(List<byte[]> keys) throws KvStorageException {
+        readLock.lock();
+        try {
+            Map<byte[], byte[]> result = new HashMap<>(keys.size());
+            for (byte[] key : keys) {
+                byte[] val = get(key);
+                if (val != null) {
+                    result.put(key, val);
+                }
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+    
+    @Override
+    public void put(byte[] key, byte[] value) throws KvStorageException {
+        batchPut(Collections.singletonList(key), Collections.singletonList(value));
+    }
+    
+    @Override
+    public void batchPut(List<byte[]> keys, List<byte[]> values) throws KvStorageException {
+        if (keys.size() != values.size()) {
+            throw new KvStorageException(ErrorCode.KVStorageBatchWriteError,
+                    "key's size must be equal to value's size");
+        }
+        write(TYPE_PUT, keys, values, ErrorCode.KVStorageWriteError);
+    }
+    
+    @Override
+    public void delete(byte[] key) throws KvStorageException {
+        batchDelete(Collections.singletonList(key));
+    }
+    
+    @Override
+    public void batchDelete(List<byte[]> keys) throws KvStorageException {
+        write(TYPE_DELETE, keys, null, ErrorCode.KVStorageDeleteError);
+    }
+    
+    @Override
+    public void doSnapshot(String backupPath) throws KvStorageException {
+        writeLock.lock();
+        try {
+            final Segment current = active;
+            if (current.size > 0) {
+                // seal the active segment, the snapshot must only link files which are never appended again
+                appendLock.lock();
+                try {
+                    roll();
+                } finally {
+                    appendLock.unlock();
+                }
+            }
+            final String activeName = active.path.getFileName().toString();
+            final FileFilter filter = file -> file.getName().endsWith(SEGMENT_SUFFIX) && !file.getName()
+                    .equals(activeName);
+            DiskUtils.linkDirectory(new File(baseDir), new File(backupPath), filter);
+        } catch (IOException e) {
+            throw new KvStorageException(ErrorCode.KVStorageSnapshotSaveError, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public void snapshotLoad(String path) throws KvStorageException {
+        writeLock.lock();
+        try {
+            File srcDir = Paths.get(path).toFile();
+            // If snapshot path is non-exist, means snapshot is empty
+            if (srcDir.exists()) {
+                closeSegments();
+                DiskUtils.deleteDirThenMkdir(baseDir);
+                DiskUtils.linkDirectory(srcDir, new File(baseDir),
+                        file -> file.getName().endsWith(SEGMENT_SUFFIX));
+                open();
+            }
+        } catch (IOException e) {
+            throw new KvStorageException(ErrorCode.KVStorageSnapshotLoadError, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public List<byte[]> allKeys() throws KvStorageException {
+        List<byte[]> result = new LinkedList<>();
+        for (Key each : index.keySet()) {
+            result.add(each.origin);
+        }
+        return result;
+    }
+    
+    @Override
+    public void shutdown() {
+        writeLock.lock();
+        try {
+            closeSegments();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    private void write(byte type, List<byte[]> keys, List<byte[]> values, ErrorCode errorCode)
+            throws KvStorageException {
+        final long appended;
+        readLock.lock();
+        try {
+            appendLock.lock();
+            try {
+                for (int i = 0; i < keys.size(); i++) {
+                    append(type, keys.get(i), null == values ? null : values.get(i));
+                }
+                appended = appendedBytes;
+            } finally {
+                appendLock.unlock();
+            }
+            sync(appended);
+        } catch (IOException e) {
+            throw new KvStorageException(errorCode, e);
+        } finally {
+            readLock.unlock();
+        }
+        maybeCompact();
+    }
+    
+    /**
+     * Append one record and update the index, the caller holds the append lock.
+     */
+    private void append(byte type, byte[] key, byte[] value) throws IOException {
+        final Key indexKey = new Key(key);
+        if (TYPE_DELETE == type && !index.containsKey(indexKey)) {
+            return;
+        }
+        final ByteBuffer record = encode(type, key, value);
+        final int recordBytes = record.remaining();
+        if (active.size > 0 && active.size + recordBytes > segmentBytes) {
+            roll();
+        }
+        final Segment segment = active;
+        final long offset = segment.size;
+        segment.write(record, offset);
+        segment.size += recordBytes;
+        appendedBytes += recordBytes;
+        
+        final Location previous;
+        if (TYPE_PUT == type) {
+            previous = index.put(indexKey, new Location(segment, offset, key.length, value.length));
+        } else {
+            previous = index.remove(indexKey);
+            // a tombstone is only needed until the segments before it are compacted
+            segment.garbage.addAndGet(recordBytes);
+        }
+        if (null != previous) {
+            previous.segment.garbage.addAndGet(previous.recordBytes());
+        }
+    }
+    
+    /**
+     * Wait until everything appended up to the given count of bytes is durable, forcing the active segment if no other
+     * writer is doing so.
+     */
+    private void sync(long appended) throws IOException {
+        while (true) {
+            synchronized (syncMonitor) {
+                while (syncing && syncedBytes < appended) {
+                    try {
+                        syncMonitor.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while waiting for the log to be synced", e);
+                    }
+                }
+                if (syncedBytes >= appended) {
+                    return;
+                }
+                syncing = true;
+            }
+            long target = 0L;
+            boolean success = false;
+            try {
+                final Segment segment;
+                appendLock.lock();
+                try {
+                    target = appendedBytes;
+                    segment = active;
+                } finally {
+                    appendLock.unlock();
+                }
+                // sealed segments have been forced when they were rolled
+                segment.channel.force(false);
+                success = true;
+            } finally {
+                synchronized (syncMonitor) {
+                    syncing = false;
+                    if (success && target > syncedBytes) {
+                        syncedBytes = target;
+                    }
+                    syncMonitor.notifyAll();
+                }
+            }
+        }
+    }
+    
+    /**
+     * Seal the active segment and start a new one, the caller holds the append lock.
+     */
+    private void roll() throws IOException {
+        final Segment current = active;
+        current.channel.force(false);
+        final Segment next = Segment.create(Paths.get(baseDir, segmentName(current.id + 1)), current.id + 1);
+        segments.put(next.id, next);
+        active = next;
+    }
+    
+    private void maybeCompact() {
+        long garbage = 0L;
+        long sealed = 0L;
+        for (Segment each : segments.headMap(active.id).values()) {
+            garbage += each.garbage.get();
+            sealed += each.size;
+        }
+        // compact once at least a segment worth of bytes is garbage and the garbage outweighs the live records
+        if (garbage < segmentBytes || garbage < sealed - garbage) {
+            return;
+        }
+        if (compacting.compareAndSet(false, true)) {
+            COMPACTION_EXECUTOR.execute(() -> {
+                try {
+                    compact();
+                } catch (Throwable t) {
+                    Loggers.CORE.error("Fail to compact log kv storage, dir={}, {}", baseDir, t);
+                } finally {
+                    compacting.set(false);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Move the live records of all sealed segments to the active segment and remove the sealed segments. Tombstones are
+     * dropped, the values they delete only live in the removed segments.
+     */
+    void compact() throws IOException {
+        final List<Segment> victims;
+        readLock.lock();
+        try {
+            victims = new ArrayList<>(segments.headMap(active.id).values());
+            if (victims.isEmpty()) {
+                return;
+            }
+            for (Segment each : victims) {
+                each.scan((offset, type, key, value) -> {
+                    if (TYPE_PUT == type) {
+                        relocate(each, offset, key, value);
+                    }
+                });
+            }
+            final long appended;
+            appendLock.lock();
+            try {
+                appended = appendedBytes;
+            } finally {
+                appendLock.unlock();
+            }
+            sync(appended);
+        } finally {
+            readLock.unlock();
+        }
+        writeLock.lock();
+        try {
+            for (Segment each : victims) {
+                // the segments may have been replaced by a snapshot load in the meantime
+                if (segments.remove(each.id, each)) {
+                    each.close();
+                    Files.deleteIfExists(each.path);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        Loggers.CORE.info("Compacted {} segments of log kv storage, dir={}", victims.size(), baseDir);
+    }
+    
+    private void relocate(Segment segment, long offset, byte[] key, byte[] value) throws IOException {
+        appendLock.lock();
+        try {
+            final Location location = index.get(new Key(key));
+            // skip the record if the key has been written or deleted since
+            if (null != location && location.segment == segment && location.offset == offset) {
+                append(TYPE_PUT, key, value);
+            }
+        } finally {
+            appendLock.unlock();
+        }
+    }
+    
+    /**
+     * Rebuild the index from the segment files and pick the active segment, the caller holds the write lock or owns
+     * the storage exclusively. The last segment stays active if it has room and no snapshot links it, otherwise a new
+     * segment is started. Only the last segment may end with a torn record, which is truncated unless a snapshot links
+     * the segment, a bad record anywhere else fails the open.
+     */
+    private void open() throws IOException {
+        index.clear();
+        segments.clear();
+        final File[] files = new File(baseDir).listFiles(file -> file.getName().endsWith(SEGMENT_SUFFIX));
+        final List<File> sorted = null == files ? Collections.emptyList() : Arrays.asList(files);
+        Collections.sort(sorted);
+        long lastId = 0L;
+        Segment last = null;
+        for (int i = 0; i < sorted.size(); i++) {
+            final File each = sorted.get(i);
+            final long id = Long.parseLong(each.getName().substring(0, each.getName().length() - SEGMENT_SUFFIX
+                    .length()));
+            final Segment segment = Segment.open(each.toPath(), id);
+            segments.put(id, segment);
+            final long valid = segment.scan((offset, type, key, value) -> {
+                final Key indexKey = new Key(key);
+                final Location previous;
+                if (TYPE_PUT == type) {
+                    previous = index.put(indexKey, new Location(segment, offset, key.length, value.length));
+                } else {
+                    previous = index.remove(indexKey);
+                    segment.garbage.addAndGet(HEADER_BYTES + key.length);
+                }
+                if (null != previous) {
+                    previous.segment.garbage.addAndGet(previous.recordBytes());
+                }
+            });
+            if (valid < segment.size) {
+                if (i < sorted.size() - 1 || isLinked(segment.path)) {
+                    closeSegments();
+                    throw new IOException(
+                            "Corrupt record in log kv storage segment " + each + " at offset " + valid + " of "
+                                    + segment.size + " bytes");
+                }
+                Loggers.CORE.warn("Truncate the torn tail of log kv storage segment {} from {} to {} bytes", each,
+                        segment.size, valid);
+                segment.channel.truncate(valid);
+                segment.size = valid;
+            }
+            lastId = id;
+            last = segment;
+        }
+        if (null != last && last.size < segmentBytes && !isLinked(last.path)) {
+            active = last;
+        } else {
+            final Segment next = Segment.create(Paths.get(baseDir, segmentName(lastId + 1)), lastId + 1);
+            segments.put(next.id, next);
+            active = next;
+        }
+        synchronized (syncMonitor) {
+            appendedBytes = 0L;
+            syncedBytes = 0L;
+        }
+    }
+    
+    /**
+     * Whether the file may be shared with a snapshot, true if the file system cannot tell.
+     */
+    private static boolean isLinked(Path path) {
+        try {
+            return ((Number) Files.getAttribute(path, "unix:nlink")).intValue() > 1;
+        } catch (UnsupportedOperationException | IllegalArgumentException | IOException e) {
+            return true;
+        }
+    }
+    
+    private void closeSegments() {
+        for (Segment each : segments.values()) {
+            try {
+                each.close();
+            } catch (IOException e) {
+                Loggers.CORE.warn("Fail to close log kv storage segment {} : {}", each.path, e.toString());
+            }
+        }
+        segments.clear();
+        index.clear();
+    }
+    
+    private static String segmentName(long id) {
+        return String.format(SEGMENT_NAME_FORMAT, id);
+    }
+    
+    private static ByteBuffer encode(byte type, byte[] key, byte[] value) {
+        final int valueLength = null == value ? 0 : value.length;
+        final ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + key.length + valueLength);
+        buffer.putInt(0);
+        buffer.put(type);
+        buffer.putInt(key.length);
+        buffer.putInt(valueLength);
+        buffer.put(key);
+        if (null != value) {
+            buffer.put(value);
+        }
+        final CRC32 crc = new CRC32();
+        crc.update(buffer.array(), CHECKSUM_BYTES, buffer.capacity() - CHECKSUM_BYTES);
+        buffer.putInt(0, (int) crc.getValue());
+        buffer.flip();
+        return buffer;
+    }
+    
+    private interface RecordVisitor {
+        
+        /**
+         * Visit a valid record of a segment.
+         *
+         * @param offset offset of the record in the segment
+         * @param type   record type
+         * @param key    key
+         * @param value  value, empty for a tombstone
+         * @throws IOException io exception
+         */
+        void visit(long offset, byte type, byte[] key, byte[] value) throws IOException;
+    }
+    
+    private static final class Segment {
+        
+        private final long id;
+        
+        private final Path path;
+        
+        private final FileChannel channel;
+        
+        /**
+         * Size in bytes, only changed by the appending thread.
+         */
+        private volatile long size;
+        
+        /**
+         * Bytes of overwritten, deleted and tombstone records.
+         */
+        private final AtomicLong garbage = new AtomicLong();
+        
+        private Segment(long id, Path path, FileChannel channel, long size) {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.size = size;
+        }
+        
+        static Segment create(Path path, long id) throws IOException {
+            return new Segment(id, path, FileChannel
+                    .open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE), 0L);
+        }
+        
+        static Segment open(Path path, long id) throws IOException {
+            final FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            return new Segment(id, path, channel, channel.size());
+        }
+        
+        void write(ByteBuffer buffer, long position) throws IOException {
+            long offset = position;
+            while (buffer.hasRemaining()) {
+                offset += channel.write(buffer, offset);
+            }
+        }
+        
+        byte[] readValue(Location location) throws IOException {
+            final ByteBuffer buffer = ByteBuffer.allocate(location.valueLength);
+            long offset = location.offset + HEADER_BYTES + location.keyLength;
+            while (buffer.hasRemaining()) {
+                final int read = channel.read(buffer, offset);
+                if (read < 0) {
+                    throw new EOFException("Unexpected end of log kv storage segment " + path);
+                }
+                offset += read;
+            }
+            return buffer.array();
+        }
+        
+        /**
+         * Visit the records in order up to the first invalid one.
+         *
+         * @return length of the valid prefix of the segment
+         */
+        long scan(RecordVisitor visitor) throws IOException {
+            final long limit = size;
+            final byte[] header = new byte[HEADER_BYTES];
+            final CRC32 crc = new CRC32();
+            long offset = 0L;
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+                while (offset + HEADER_BYTES <= limit) {
+                    in.readFully(header);
+                    final ByteBuffer buffer = ByteBuffer.wrap(header);
+                    final int checksum = buffer.getInt();
+                    final byte type = buffer.get();
+                    final int keyLength = buffer.getInt();
+                    final int valueLength = buffer.getInt();
+                    if (keyLength < 0 || valueLength < 0
+                            || offset + HEADER_BYTES + keyLength + valueLength > limit) {
+                        break;
+                    }
+                    final byte[] key = new byte[keyLength];
+                    final byte[] value = new byte[valueLength];
+                    in.readFully(key);
+                    in.readFully(value);
+                    crc.reset();
+                    crc.update(header, CHECKSUM_BYTES, HEADER_BYTES - CHECKSUM_BYTES);
+                    crc.update(key);
+                    crc.update(value);
+                    final boolean knownType = TYPE_PUT == type || TYPE_DELETE == type;
+                    if ((int) crc.getValue() != checksum || !knownType) {
+                        break;
+                    }
+                    visitor.visit(offset, type, key, value);
+                    offset += HEADER_BYTES + keyLength + valueLength;
+                }
+            } catch (EOFException ignore) {
+                // the segment ends with a torn record
+            }
+            return offset;
+        }
+        
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+    
+    private static final class Location {
+        
+        private final Segment segment;
+        
+        private final long offset;
+        
+        private final int keyLength;
+        
+        private final int valueLength;
+        
+        Location(Segment segment, long offset, int keyLength, int valueLength) {
+            this.segment = segment;
+            this.offset = offset;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+        }
+        
+        long recordBytes() {
+            return HEADER_BYTES + keyLength + valueLength;
+        }
+    }
+    
+    private static final class Key {
+        
+        private final byte[] origin;
+        
+        private final int hash;
+        
+        private Key(byte[] origin) {
+            this.origin = origin;
+            this.hash = Arrays.hashCode(origin);
+        }
+        
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            return Arrays.equals(origin, ((Key) o).origin);
+        }
+        
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,646 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.core.storage.kv;
+
+import com.alibaba.nacos.core.exception.ErrorCode;
+import com.alibaba.nacos.core.exception.KvStorageException;
+import com.alibaba.nacos.sys.utils.DiskUtils;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Realization of KV storage based on direct memory.
+ *
+ * <p>Entries are appended to direct memory pages and found through an open addressing hash table which lives in
+ * direct memory as well, so the heap only holds a handful of buffers however many entries are stored. Keys are hashed
+ * and compared in place. Overwritten and deleted entries are reclaimed by copying the live entries to new pages once
+ * they outweigh the live ones. A snapshot writes the entries to a single file.
+ *
+ * @author nacos
+ */
+public class OffHeapKvStorage implements KvStorage {
+    
+    private static final int DEFAULT_PAGE_BYTES = 4 * 1024 * 1024;
+    
+    private static final int INITIAL_CAPACITY = 1024;
+    
+    /**
+     * Largest table whose address buffer of {@code capacity * Long.BYTES} bytes still fits into one buffer.
+     */
+    private static final int MAX_CAPACITY = 1 << 27;
+    
+    /**
+     * Key length and value length.
+     */
+    private static final int ENTRY_HEADER_BYTES = 8;
+    
+    private static final int VALUE_LENGTH_OFFSET = 4;
+    
+    private static final long EMPTY = 0L;
+    
+    private static final long TOMBSTONE = -1L;
+    
+    private static final int PAGE_SHIFT = 32;
+    
+    private static final long OFFSET_MASK = 0xFFFFFFFFL;
+    
+    private static final int HASH_MULTIPLIER = 31;
+    
+    private static final int HASH_SPREAD = 0x9E3779B9;
+    
+    private static final int HALF_BITS = 16;
+    
+    private static final int BYTE_MASK = 0xFF;
+    
+    private static final String SNAPSHOT_FILE = "offheap_kv.snapshot";
+    
+    private static final int SNAPSHOT_MAGIC = 0x4e4f4b56;
+    
+    private static final int SNAPSHOT_END = -1;
+    
+    private static final int IO_BUFFER_BYTES = 1024 * 1024;
+    
+    private final int pageBytes;
+    
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    
+    private final ReentrantReadWriteLock.ReadLock readLock = lock.readLock();
+    
+    private final ReentrantReadWriteLock.WriteLock writeLock = lock.writeLock();
+    
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    
+    private IntBuffer hashes;
+    
+    /**
+     * Page index and offset of the entry of each slot, plus one, so that zero marks an empty slot.
+     */
+    private LongBuffer addresses;
+    
+    private int capacity;
+    
+    /**
+     * Count of used and deleted slots beyond which the table is rehashed, three quarters of the capacity.
+     */
+    private int threshold;
+    
+    private int size;
+    
+    private int tombstones;
+    
+    private long liveBytes;
+    
+    private long garbageBytes;
+    
+    public OffHeapKvStorage() {
+        this(DEFAULT_PAGE_BYTES);
+    }
+    
+    public OffHeapKvStorage(int pageBytes) {
+        this.pageBytes = pageBytes;
+        reset();
+    }
+    
+    @Override
+    public byte[] get(byte[] key) throws KvStorageException {
+        readLock.lock();
+        try {
+            final int slot = find(key, hash(key));
+            return slot < 0 ? null : readValue(addresses.get(slot) - 1);
+        } finally {
+            readLock.unlock();
+        }
+    }
+    
+    @Override
+    public Map<byte[], byte[]> batchGet(List<byte[]> keys) throws KvStorageException {
+        readLock.lock();
+        try {
+            Map<byte[], byte[]> result = new HashMap<>(keys.size());
+            for (byte[] key : keys) {
+                final int slot = find(key, hash(key));
+                if (slot >= 0) {
+                    result.put(key, readValue(addresses.get(slot) - 1));
+                }
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+    
+    @Override
+    public void put(byte[] key, byte[] value) throws KvStorageException {
+        writeLock.lock();
+        try {
+            doPut(key, value);
+            maybeCompact();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public void batchPut(List<byte[]> keys, List<byte[]> values) throws KvStorageException {
+        if (keys.size() != values.size()) {
+            throw new KvStorageException(ErrorCode.KVStorageBatchWriteError.getCode(),
+                    "key's size must be equal to value's size");
+        }
+        writeLock.lock();
+        try {
+            int size = keys.size();
+            for (int i = 0; i < size; i++) {
+                doPut(keys.get(i), values.get(i));
+            }
+            maybeCompact();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public void delete(byte[] key) throws KvStorageException {
+        writeLock.lock();
+        try {
+            doDelete(key);
+            maybeCompact();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public void batchDelete(List<byte[]> keys) throws KvStorageException {
+        writeLock.lock();
+        try {
+            for (byte[] key : keys) {
+                doDelete(key);
+            }
+            maybeCompact();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public void doSnapshot(String backupPath) throws KvStorageException {
+        readLock.lock();
+        try {
+            DiskUtils.forceMkdir(backupPath);
+            final File file = Paths.get(backupPath, SNAPSHOT_FILE).toFile();
+            try (FileChannel channel = FileChannel
+                    .open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                            StandardOpenOption.WRITE)) {
+                final ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+                buffer.putInt(SNAPSHOT_MAGIC);
+                final ByteBuffer[] sources = duplicatePages();
+                for (int slot = 0; slot < capacity; slot++) {
+                    final long address = addresses.get(slot);
+                    if (address == EMPTY || address == TOMBSTONE) {
+                        continue;
+                    }
+                    final ByteBuffer source = entry(sources, address - 1);
+                    if (source.remaining() > buffer.remaining()) {
+                        flush(channel, buffer);
+                    }
+                    if (source.remaining() > buffer.remaining()) {
+                        writeFully(channel, source);
+                    } else {
+                        buffer.put(source);
+                    }
+                }
+                if (buffer.remaining() < Integer.BYTES) {
+                    flush(channel, buffer);
+                }
+                buffer.putInt(SNAPSHOT_END);
+                flush(channel, buffer);
+                channel.force(false);
+            }
+        } catch (IOException e) {
+            throw new KvStorageException(ErrorCode.KVStorageSnapshotSaveError, e);
+        } finally {
+            readLock.unlock();
+        }
+    }
+    
+    @Override
+    public void snapshotLoad(String path) throws KvStorageException {
+        writeLock.lock();
+        try {
+            final File file = Paths.get(path, SNAPSHOT_FILE).toFile();
+            // If snapshot file is non-exist, means snapshot is empty
+            if (!file.exists()) {
+                return;
+            }
+            reset();
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(IO_BUFFER_BYTES);
+                buffer.flip();
+                fill(channel, buffer, Integer.BYTES);
+                if (buffer.getInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Not an off-heap kv storage snapshot : " + file);
+                }
+                while (true) {
+                    fill(channel, buffer, Integer.BYTES);
+                    final int keyLength = buffer.getInt(buffer.position());
+                    if (keyLength == SNAPSHOT_END) {
+                        break;
+                    }
+                    fill(channel, buffer, ENTRY_HEADER_BYTES);
+                    final int entryBytes =
+                            ENTRY_HEADER_BYTES + keyLength + buffer.getInt(buffer.position() + VALUE_LENGTH_OFFSET);
+                    if (entryBytes > buffer.capacity()) {
+                        final ByteBuffer larger = ByteBuffer.allocateDirect(entryBytes);
+                        larger.put(buffer);
+                        larger.flip();
+                        buffer = larger;
+                    }
+                    fill(channel, buffer, entryBytes);
+                    final int limit = buffer.limit();
+                    buffer.limit(buffer.position() + entryBytes);
+                    insert(append(buffer), keyLength);
+                    buffer.limit(limit);
+                }
+            }
+        } catch (IOException e) {
+            reset();
+            throw new KvStorageException(ErrorCode.KVStorageSnapshotLoadError, e);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    @Override
+    public List<byte[]> allKeys() throws KvStorageException {
+        readLock.lock();
+        try {
+            List<byte[]> result = new LinkedList<>();
+            for (int slot = 0; slot < capacity; slot++) {
+                final long address = addresses.get(slot);
+                if (address != EMPTY && address != TOMBSTONE) {
+                    result.add(readKey(address - 1));
+                }
+            }
+            return result;
+        } finally {
+            readLock.unlock();
+        }
+    }
+    
+    @Override
+    public void shutdown() {
+        writeLock.lock();
+        try {
+            reset();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+    
+    /**
+     * Get the count of stored entries.
+     *
+     * @return count of entries
+     */
+    public int size() {
+        readLock.lock();
+        try {
+            return size;
+        } finally {
+            readLock.unlock();
+        }
+    }
+    
+    long garbageBytes() {
+        readLock.lock();
+        try {
+            return garbageBytes;
+        } finally {
+            readLock.unlock();
+        }
+    }
+    
+    private void doPut(byte[] key, byte[] value) {
+        final int entryBytes = ENTRY_HEADER_BYTES + key.length + value.length;
+        final ByteBuffer page = reserve(entryBytes);
+        final long address = ((long) (pages.size() - 1) << PAGE_SHIFT) | page.position();
+        page.putInt(key.length);
+        page.putInt(value.length);
+        page.put(key);
+        page.put(value);
+        insert(address, key.length);
+    }
+    
+    private void doDelete(byte[] key) {
+        final int slot = find(key, hash(key));
+        if (slot < 0) {
+            return;
+        }
+        final long address = addresses.get(slot) - 1;
+        addresses.put(slot, TOMBSTONE);
+        size--;
+        tombstones++;
+        final long entryBytes = entryBytes(address);
+        liveBytes -= entryBytes;
+        garbageBytes += entryBytes;
+    }
+    
+    /**
+     * Append the remaining bytes of the buffer as an entry.
+     *
+     * @return address of the entry
+     */
+    private long append(ByteBuffer entry) {
+        final ByteBuffer page = reserve(entry.remaining());
+        final long address = ((long) (pages.size() - 1) << PAGE_SHIFT) | page.position();
+        page.put(entry);
+        return address;
+    }
+    
+    /**
+     * Index an appended entry, replacing the entry of the same key if present.
+     */
+    private void insert(long address, int keyLength) {
+        if (size + tombstones + 1 > threshold) {
+            // grow if the live entries alone fill half of the table, otherwise only clear the tombstones
+            rehash(size + 1 > capacity >>> 1 ? capacity << 1 : capacity);
+        }
+        final int hash = hash(address, keyLength);
+        int slot = hash & (capacity - 1);
+        int firstTombstone = -1;
+        while (true) {
+            final long current = addresses.get(slot);
+            if (current == EMPTY) {
+                break;
+            }
+            if (current == TOMBSTONE) {
+                if (firstTombstone < 0) {
+                    firstTombstone = slot;
+                }
+            } else if (hashes.get(slot) == hash && keyEquals(current - 1, address)) {
+                final long previousBytes = entryBytes(current - 1);
+                liveBytes += entryBytes(address) - previousBytes;
+                garbageBytes += previousBytes;
+                addresses.put(slot, address + 1);
+                return;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+        if (firstTombstone >= 0) {
+            slot = firstTombstone;
+            tombstones--;
+        }
+        hashes.put(slot, hash);
+        addresses.put(slot, address + 1);
+        size++;
+        liveBytes += entryBytes(address);
+    }
+    
+    private int find(byte[] key, int hash) {
+        int slot = hash & (capacity - 1);
+        while (true) {
+            final long current = addresses.get(slot);
+            if (current == EMPTY) {
+                return -1;
+            }
+            if (current != TOMBSTONE && hashes.get(slot) == hash && keyEquals(current - 1, key)) {
+                return slot;
+            }
+            slot = (slot + 1) & (capacity - 1);
+        }
+    }
+    
+    private void rehash(int newCapacity) {
+        if (newCapacity > MAX_CAPACITY) {
+            throw new IllegalStateException("Off-heap kv storage is full, size : " + size);
+        }
+        final IntBuffer oldHashes = hashes;
+        final LongBuffer oldAddresses = addresses;
+        final int oldCapacity = capacity;
+        allocateTable(newCapacity);
+        for (int i = 0; i < oldCapacity; i++) {
+            final long address = oldAddresses.get(i);
+            if (address == EMPTY || address == TOMBSTONE) {
+                continue;
+            }
+            final int hash = oldHashes.get(i);
+            int slot = hash & (capacity - 1);
+            while (addresses.get(slot) != EMPTY) {
+                slot = (slot + 1) & (capacity - 1);
+            }
+            hashes.put(slot, hash);
+            addresses.put(slot, address);
+        }
+        tombstones = 0;
+    }
+    
+    /**
+     * Copy the live entries to new pages once the garbage outweighs them and fills at least one page.
+     */
+    private void maybeCompact() {
+        if (garbageBytes < pageBytes || garbageBytes < liveBytes) {
+            return;
+        }
+        final ByteBuffer[] sources = duplicatePages();
+        pages.clear();
+        for (int slot = 0; slot < capacity; slot++) {
+            final long address = addresses.get(slot);
+            if (address != EMPTY && address != TOMBSTONE) {
+                addresses.put(slot, append(entry(sources, address - 1)) + 1);
+            }
+        }
+        garbageBytes = 0L;
+    }
+    
+    private ByteBuffer reserve(int entryBytes) {
+        ByteBuffer page = pages.isEmpty() ? null : pages.get(pages.size() - 1);
+        if (null == page || page.remaining() < entryBytes) {
+            page = ByteBuffer.allocateDirect(Math.max(pageBytes, entryBytes));
+            pages.add(page);
+        }
+        return page;
+    }
+    
+    private void reset() {
+        pages.clear();
+        allocateTable(INITIAL_CAPACITY);
+        size = 0;
+        tombstones = 0;
+        liveBytes = 0L;
+        garbageBytes = 0L;
+    }
+    
+    private void allocateTable(int newCapacity) {
+        capacity = newCapacity;
+        threshold = newCapacity - (newCapacity >>> 2);
+        hashes = ByteBuffer.allocateDirect(newCapacity * Integer.BYTES).asIntBuffer();
+        addresses = ByteBuffer.allocateDirect(newCapacity * Long.BYTES).asLongBuffer();
+    }
+    
+    private ByteBuffer page(long address) {
+        return pages.get((int) (address >>> PAGE_SHIFT));
+    }
+    
+    private static int offset(long address) {
+        return (int) (address & OFFSET_MASK);
+    }
+    
+    private long entryBytes(long address) {
+        final ByteBuffer page = page(address);
+        final int offset = offset(address);
+        return ENTRY_HEADER_BYTES + page.getInt(offset) + page.getInt(offset + VALUE_LENGTH_OFFSET);
+    }
+    
+    private ByteBuffer[] duplicatePages() {
+        final ByteBuffer[] sources = new ByteBuffer[pages.size()];
+        for (int i = 0; i < sources.length; i++) {
+            sources[i] = pages.get(i).duplicate();
+        }
+        return sources;
+    }
+    
+    /**
+     * Point the page view at the entry of the address.
+     */
+    private static ByteBuffer entry(ByteBuffer[] sources, long address) {
+        final ByteBuffer source = sources[(int) (address >>> PAGE_SHIFT)];
+        // the view may still be limited to the previous entry
+        source.limit(source.capacity());
+        final int offset = offset(address);
+        final int entryBytes = ENTRY_HEADER_BYTES + source.getInt(offset) + source
+                .getInt(offset + VALUE_LENGTH_OFFSET);
+        source.limit(offset + entryBytes);
+        source.position(offset);
+        return source;
+    }
+    
+    private byte[] readKey(long address) {
+        final ByteBuffer page = page(address).duplicate();
+        final int offset = offset(address);
+        final byte[] key = new byte[page.getInt(offset)];
+        page.position(offset + ENTRY_HEADER_BYTES);
+        page.get(key);
+        return key;
+    }
+    
+    private byte[] readValue(long address) {
+        final ByteBuffer page = page(address).duplicate();
+        final int offset = offset(address);
+        final int keyLength = page.getInt(offset);
+        final byte[] value = new byte[page.getInt(offset + VALUE_LENGTH_OFFSET)];
+        page.position(offset + ENTRY_HEADER_BYTES + keyLength);
+        page.get(value);
+        return value;
+    }
+    
+    private boolean keyEquals(long address, byte[] key) {
+        final ByteBuffer page = page(address);
+        final int offset = offset(address);
+        if (page.getInt(offset) != key.length) {
+            return false;
+        }
+        final int start = offset + ENTRY_HEADER_BYTES;
+        for (int i = 0; i < key.length; i++) {
+            if (page.get(start + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private boolean keyEquals(long address, long other) {
+        final ByteBuffer page = page(address);
+        final ByteBuffer otherPage = page(other);
+        final int offset = offset(address);
+        final int otherOffset = offset(other);
+        final int keyLength = page.getInt(offset);
+        if (keyLength != otherPage.getInt(otherOffset)) {
+            return false;
+        }
+        for (int i = 0; i < keyLength; i++) {
+            if (page.get(offset + ENTRY_HEADER_BYTES + i) != otherPage.get(otherOffset + ENTRY_HEADER_BYTES + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    private static int hash(byte[] key) {
+        int hash = 1;
+        for (byte each : key) {
+            hash = HASH_MULTIPLIER * hash + each;
+        }
+        return spread(hash);
+    }
+    
+    private int hash(long address, int keyLength) {
+        final ByteBuffer page = page(address);
+        final int start = offset(address) + ENTRY_HEADER_BYTES;
+        int hash = 1;
+        for (int i = 0; i < keyLength; i++) {
+            hash = HASH_MULTIPLIER * hash + page.get(start + i);
+        }
+        return spread(hash);
+    }
+    
+    private static int spread(int hash) {
+        final int mixed = hash * HASH_SPREAD;
+        return mixed ^ (mixed >>> HALF_BITS);
+    }
+    
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+    
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+    
+    /**
+     * Make at least the given count of bytes readable from the buffer, which is kept in read mode.
+     */
+    private static void fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes) {
+            if (channel.read(buffer) < 0) {
+                throw new EOFException("Off-heap kv storage snapshot is truncated");
+            }
+        }
+        buffer.flip();
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ *  Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.alibaba.nacos.core.distributed.raft;
+
+import com.alibaba.nacos.consistency.entity.Response;
+import com.alibaba.nacos.consistency.entity.WriteRequest;
+import com.alibaba.nacos.core.distributed.raft.utils.RaftExecutor;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Message;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+public class GroupCommitterTest {
+    
+    private static final String GROUP = "test_group";
+    
+    @BeforeClass
+    public static void beforeClass() {
+        RaftExecutor.init(new RaftConfig());
+    }
+    
+    @Test
+    public void testCommitFullBatch() throws Exception {
+        RecordingServer server = new RecordingServer();
+        GroupCommitter committer = new GroupCommitter(server, GROUP, 3, TimeUnit.SECONDS.toMicros(10));
+        List<CompletableFuture<Response>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            CompletableFuture<Response> future = new CompletableFuture<>();
+            committer.submit(write("key" + i), future);
+            futures.add(future);
+        }
+        
+        Assert.assertEquals(1, server.commits.size());
+        Assert.assertTrue(GroupCommitter.isBatch(server.commits.get(0)));
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals("key" + i, futures.get(i).get(1, TimeUnit.SECONDS).getData().toStringUtf8());
+        }
+    }
+    
+    @Test
+    public void testCommitAfterDelay() throws Exception {
+        RecordingServer server = new RecordingServer();
+        GroupCommitter committer = new GroupCommitter(server, GROUP, 64, TimeUnit.MILLISECONDS.toMicros(200));
+        CompletableFuture<Response> first = new CompletableFuture<>();
+        CompletableFuture<Response> second = new CompletableFuture<>();
+        committer.submit(write("key0"), first);
+        committer.submit(write("key1"), second);
+        
+        Assert.assertEquals("key0", first.get(5, TimeUnit.SECONDS).getData().toStringUtf8());
+        Assert.assertEquals("key1", second.get(5, TimeUnit.SECONDS).getData().toStringUtf8());
+        Assert.assertEquals(1, server.commits.size());
+        
+        // a single write is committed as it is
+        CompletableFuture<Response> third = new CompletableFuture<>();
+        committer.submit(write("key2"), third);
+        Assert.assertEquals("key2", third.get(5, TimeUnit.SECONDS).getData().toStringUtf8());
+        Assert.assertFalse(GroupCommitter.isBatch(server.commits.get(1)));
+    }
+    
+    @Test
+    public void testFailedBatch() throws Exception {
+        RecordingServer server = new RecordingServer();
+        server.fail = true;
+        GroupCommitter committer = new GroupCommitter(server, GROUP, 2, TimeUnit.SECONDS.toMicros(10));
+        CompletableFuture<Response> first = new CompletableFuture<>();
+        CompletableFuture<Response> second = new CompletableFuture<>();
+        committer.submit(write("key0"), first);
+        committer.submit(write("key1"), second);
+        
+        Assert.assertFalse(first.get(1, TimeUnit.SECONDS).getSuccess());
+        Assert.assertFalse(second.get(1, TimeUnit.SECONDS).getSuccess());
+    }
+    
+    private static WriteRequest write(String key) {
+        return WriteRequest.newBuilder().setGroup(GROUP).setKey(key).build();
+    }
+    
+    /**
+     * Answers every write with its key, the way {@link NacosStateMachine} applies a batch.
+     */
+    private static class RecordingServer extends JRaftServer {
+        
+        private final List<Message> commits = new CopyOnWriteArrayList<>();
+        
+        private boolean fail;
+        
+        @Override
+        CompletableFuture<Response> doCommit(String group, Message data, CompletableFuture<Response> future) {
+            commits.add(data);
+            if (fail) {
+                future.complete(Response.newBuilder().setSuccess(false).setErrMsg("no leader").build());
+                return future;
+            }
+            try {
+                WriteRequest request = (WriteRequest) data;
+                if (!GroupCommitter.isBatch(request)) {
+                    future.complete(answer(request));
+                    return future;
+                }
+                List<Response> responses = new ArrayList<>();
+                for (WriteRequest each : GroupCommitter.decodeRequests(request)) {
+                    responses.add(answer(each));
+                }
+                future.complete(GroupCommitter.encodeResponses(responses));
+            } catch (Exception e) {
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+        
+        private Response answer(WriteRequest request) {
+            return Response.newBuilder().setSuccess(true).setData(ByteString.copyFromUtf8(request.getKey())).build();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ *  Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.alibaba.nacos.core.distributed.raft;
+
+import com.alibaba.nacos.consistency.cp.RequestProcessor4CP;
+import com.alibaba.nacos.consistency.entity.ReadRequest;
+import com.alibaba.nacos.consistency.entity.Response;
+import com.alibaba.nacos.consistency.entity.WriteRequest;
+import com.alipay.sofa.jraft.Iterator;
+import com.alipay.sofa.jraft.Status;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class NacosStateMachineTest {
+    
+    @Test
+    public void testClosureRunsOnceWhenLaterClosureFails() {
+        final List<WriteRequest> applied = new ArrayList<>();
+        final RequestProcessor4CP processor = new RequestProcessor4CP() {
+            @Override
+            public Response onRequest(ReadRequest request) {
+                return Response.getDefaultInstance();
+            }
+            
+            @Override
+            public Response onApply(WriteRequest log) {
+                applied.add(log);
+                return Response.newBuilder().setSuccess(true).build();
+            }
+            
+            @Override
+            public String group() {
+                return "test";
+            }
+        };
+        final AtomicInteger[] runs = {new AtomicInteger(), new AtomicInteger(), new AtomicInteger()};
+        final Status[] statuses = new Status[runs.length];
+        final NacosClosure[] closures = new NacosClosure[runs.length];
+        for (int i = 0; i < closures.length; i++) {
+            final int index = i;
+            closures[i] = new NacosClosure(WriteRequest.newBuilder().setKey(String.valueOf(i)).build(), status -> {
+                runs[index].incrementAndGet();
+                statuses[index] = status;
+                if (index == 1) {
+                    throw new IllegalStateException("broken closure");
+                }
+            });
+        }
+        Iterator iter = Mockito.mock(Iterator.class);
+        Mockito.when(iter.hasNext()).thenReturn(true, true, true, false);
+        Mockito.when(iter.done()).thenReturn(closures[0], closures[1], closures[2]);
+        
+        new NacosStateMachine(null, processor).onApply(iter);
+        
+        Assert.assertEquals(3, applied.size());
+        for (AtomicInteger each : runs) {
+            Assert.assertEquals(1, each.get());
+        }
+        Assert.assertTrue(statuses[0].isOk());
+        Assert.assertFalse(statuses[2].isOk());
+        // only the write whose closure has not run is rolled back
+        Mockito.verify(iter).setErrorAndRollback(Mockito.eq(1L), Mockito.any(Status.class));
+    }
+}
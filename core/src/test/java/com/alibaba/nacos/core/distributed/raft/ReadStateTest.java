@@ -0,0 +1,60 @@
+/*
+ *  Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ *  Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *       http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *  Unless required by applicable law or agreed to in writing, software
+ *  distributed under the License is distributed on an "AS IS" BASIS,
+ *  WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  See the License for the specific language governing permissions and
+ *  limitations under the License.
+ */
+
+package com.alibaba.nacos.core.distributed.raft;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+public class ReadStateTest {
+    
+    @Test
+    public void testReadConsistencyOf() {
+        Assert.assertEquals(ReadConsistency.LINEARIZABLE, ReadConsistency.of("linearizable"));
+        Assert.assertEquals(ReadConsistency.LEADER_LEASE, ReadConsistency.of("LEADER_LEASE"));
+        Assert.assertEquals(ReadConsistency.BOUNDED_STALENESS, ReadConsistency.of("bounded_staleness"));
+        try {
+            ReadConsistency.of("eventual");
+            Assert.fail();
+        } catch (IllegalArgumentException ignore) {
+        }
+    }
+    
+    @Test
+    public void testBoundedStaleness() {
+        ReadState state = new ReadState(ReadConsistency.BOUNDED_STALENESS, 100L);
+        long now = System.nanoTime();
+        Assert.assertFalse(state.canReadLocally(now));
+        
+        state.synced(now);
+        Assert.assertTrue(state.canReadLocally(now + TimeUnit.MILLISECONDS.toNanos(100L)));
+        Assert.assertFalse(state.canReadLocally(now + TimeUnit.MILLISECONDS.toNanos(101L)));
+        
+        // an older read index must not move the synced time backwards
+        state.synced(now - TimeUnit.MILLISECONDS.toNanos(50L));
+        Assert.assertTrue(state.canReadLocally(now + TimeUnit.MILLISECONDS.toNanos(100L)));
+    }
+    
+    @Test
+    public void testLinearizableNeverReadsLocally() {
+        ReadState state = new ReadState(ReadConsistency.LINEARIZABLE, 100L);
+        long now = System.nanoTime();
+        state.synced(now);
+        Assert.assertFalse(state.canReadLocally(now));
+    }
+}
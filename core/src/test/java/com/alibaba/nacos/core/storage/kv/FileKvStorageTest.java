@@ -0,0 +1,73 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.core.storage.kv;
+
+import com.alibaba.nacos.common.utils.ByteUtils;
+import com.alibaba.nacos.sys.utils.DiskUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+
+public class FileKvStorageTest {
+    
+    private File dir;
+    
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("file-kv-storage").toFile();
+    }
+    
+    @After
+    public void tearDown() {
+        DiskUtils.deleteQuietly(dir);
+    }
+    
+    @Test
+    public void testSnapshotIsNotChangedByLaterWrites() throws Exception {
+        FileKvStorage storage = new FileKvStorage(Paths.get(dir.getPath(), "data").toString());
+        storage.put(ByteUtils.toBytes("key"), ByteUtils.toBytes("v1"));
+        
+        String backupPath = Paths.get(dir.getPath(), "backup").toString();
+        storage.doSnapshot(backupPath);
+        storage.put(ByteUtils.toBytes("key"), ByteUtils.toBytes("v2"));
+        Assert.assertEquals("v2", ByteUtils.toString(storage.get(ByteUtils.toBytes("key"))));
+        
+        storage.snapshotLoad(backupPath);
+        Assert.assertEquals("v1", ByteUtils.toString(storage.get(ByteUtils.toBytes("key"))));
+        Assert.assertEquals(1, storage.allKeys().size());
+    }
+    
+    @Test
+    public void testTemporaryFilesAreNotKeys() throws Exception {
+        String baseDir = Paths.get(dir.getPath(), "data").toString();
+        FileKvStorage storage = new FileKvStorage(baseDir);
+        storage.put(ByteUtils.toBytes("key"), ByteUtils.toBytes("v1"));
+        // left behind by a crash in the middle of a put
+        Files.write(Paths.get(baseDir, "other.nacos_tmp"), ByteUtils.toBytes("v"));
+        Assert.assertEquals(1, storage.allKeys().size());
+        
+        String backupPath = Paths.get(dir.getPath(), "backup").toString();
+        storage.doSnapshot(backupPath);
+        Assert.assertFalse(new File(backupPath, "other.nacos_tmp").exists());
+    }
+}
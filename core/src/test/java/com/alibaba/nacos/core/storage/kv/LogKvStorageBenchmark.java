@@ -0,0 +1,101 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.core.storage.kv;
+
+import com.alibaba.nacos.common.utils.ByteUtils;
+import com.alibaba.nacos.sys.utils.DiskUtils;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Put throughput of {@link FileKvStorage} and {@link LogKvStorage} with concurrent writers, run with {@code main}.
+ *
+ * <p>Keys are drawn from a fixed key space, so the log storage also has to compact.
+ *
+ * @author nacos
+ */
+public class LogKvStorageBenchmark {
+    
+    private static final int KEY_SPACE = 10000;
+    
+    private static final long DURATION_MILLIS = TimeUnit.SECONDS.toMillis(10);
+    
+    private static final byte[] PAYLOAD = new byte[256];
+    
+    /**
+     * Run the benchmark.
+     *
+     * @param args optional count of writer threads, 8 by default
+     * @throws Exception exception
+     */
+    public static void main(String[] args) throws Exception {
+        final int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        File dir = Files.createTempDirectory("kv-storage-benchmark").toFile();
+        try {
+            KvStorage file = new FileKvStorage(Paths.get(dir.getPath(), "file").toString());
+            System.out.printf("FileKvStorage : %d puts/s%n", run(file, threads));
+            KvStorage log = new LogKvStorage(Paths.get(dir.getPath(), "log").toString(), 16L * 1024 * 1024);
+            System.out.printf("LogKvStorage  : %d puts/s%n", run(log, threads));
+            log.shutdown();
+        } finally {
+            DiskUtils.deleteQuietly(dir);
+        }
+        System.exit(0);
+    }
+    
+    private static long run(KvStorage storage, int threads) throws Exception {
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicLong puts = new AtomicLong();
+        final AtomicReference<Exception> failure = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int seed = t;
+            Thread worker = new Thread(() -> {
+                long i = seed;
+                try {
+                    while (running.get()) {
+                        storage.put(ByteUtils.toBytes("key-" + (i % KEY_SPACE)), PAYLOAD);
+                        puts.incrementAndGet();
+                        i += threads;
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                    running.set(false);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        Thread.sleep(DURATION_MILLIS);
+        running.set(false);
+        for (Thread each : workers) {
+            each.join();
+        }
+        if (null != failure.get()) {
+            throw failure.get();
+        }
+        return puts.get() * TimeUnit.SECONDS.toMillis(1) / DURATION_MILLIS;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.core.storage.kv;
+
+import com.alibaba.nacos.common.utils.ByteUtils;
+import com.alibaba.nacos.sys.utils.DiskUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LogKvStorageTest {
+    
+    private File dir;
+    
+    private String baseDir;
+    
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("log-kv-storage").toFile();
+        baseDir = Paths.get(dir.getPath(), "data").toString();
+    }
+    
+    @After
+    public void tearDown() {
+        DiskUtils.deleteQuietly(dir);
+    }
+    
+    @Test
+    public void testReadYourWritesAndRecover() throws Exception {
+        LogKvStorage storage = new LogKvStorage(baseDir);
+        storage.put(bytes("a"), bytes("1"));
+        storage.batchPut(Arrays.asList(bytes("b"), bytes("c")), Arrays.asList(bytes("2"), bytes("3")));
+        storage.put(bytes("a"), bytes("4"));
+        storage.delete(bytes("b"));
+        Assert.assertEquals("4", string(storage.get(bytes("a"))));
+        Assert.assertNull(storage.get(bytes("b")));
+        Assert.assertEquals(2, storage.allKeys().size());
+        storage.shutdown();
+        
+        LogKvStorage reopened = new LogKvStorage(baseDir);
+        Assert.assertEquals("4", string(reopened.get(bytes("a"))));
+        Assert.assertNull(reopened.get(bytes("b")));
+        Assert.assertEquals("3", string(reopened.get(bytes("c"))));
+        Assert.assertEquals(2, reopened.allKeys().size());
+        reopened.shutdown();
+    }
+    
+    @Test
+    public void testTornTailIsTruncated() throws Exception {
+        LogKvStorage storage = new LogKvStorage(baseDir);
+        storage.put(bytes("a"), bytes("1"));
+        storage.put(bytes("b"), bytes("2"));
+        storage.shutdown();
+        
+        File segment = new File(baseDir).listFiles((d, name) -> name.endsWith(".log") && new File(d, name)
+                .length() > 0)[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 1);
+        }
+        LogKvStorage reopened = new LogKvStorage(baseDir);
+        Assert.assertEquals("1", string(reopened.get(bytes("a"))));
+        Assert.assertNull(reopened.get(bytes("b")));
+        reopened.put(bytes("b"), bytes("3"));
+        Assert.assertEquals("3", string(reopened.get(bytes("b"))));
+        reopened.shutdown();
+    }
+    
+    @Test
+    public void testCorruptSealedSegmentFailsOpen() throws Exception {
+        LogKvStorage storage = new LogKvStorage(baseDir, 256);
+        for (int i = 0; i < 40; i++) {
+            storage.put(bytes("key" + i), bytes("value" + i));
+        }
+        storage.shutdown();
+        
+        File[] segments = new File(baseDir).listFiles((d, name) -> name.endsWith(".log"));
+        Arrays.sort(segments);
+        Assert.assertTrue(segments.length > 2);
+        final long length = segments[0].length();
+        try (RandomAccessFile file = new RandomAccessFile(segments[0], "rw")) {
+            file.setLength(length - 1);
+        }
+        try {
+            new LogKvStorage(baseDir, 256);
+            Assert.fail("records in the middle of the log must not be dropped");
+        } catch (IOException expected) {
+            Assert.assertEquals(length - 1, segments[0].length());
+        }
+    }
+    
+    @Test
+    public void testCorruptLinkedSegmentFailsOpen() throws Exception {
+        LogKvStorage storage = new LogKvStorage(baseDir);
+        storage.put(bytes("a"), bytes("1"));
+        storage.put(bytes("b"), bytes("2"));
+        storage.shutdown();
+        
+        File segment = new File(baseDir).listFiles((d, name) -> name.endsWith(".log"))[0];
+        Files.createLink(Paths.get(dir.getPath(), "linked.log"), segment.toPath());
+        final long length = segment.length();
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(length - 1);
+        }
+        try {
+            new LogKvStorage(baseDir);
+            Assert.fail("a segment shared with a snapshot must not be truncated");
+        } catch (IOException expected) {
+            Assert.assertEquals(length - 1, segment.length());
+        }
+    }
+    
+    @Test
+    public void testCompaction() throws Exception {
+        LogKvStorage storage = new LogKvStorage(baseDir, 256);
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 5; i++) {
+                storage.put(bytes("key" + i), bytes("value" + round));
+            }
+        }
+        storage.delete(bytes("key0"));
+        storage.compact();
+        Assert.assertNull(storage.get(bytes("key0")));
+        for (int i = 1; i < 5; i++) {
+            Assert.assertEquals("value19", string(storage.get(bytes("key" + i))));
+        }
+        long bytes = 0L;
+        for (File each : new File(baseDir).listFiles()) {
+            bytes += each.length();
+        }
+        // only the live records of the four keys are left
+        Assert.assertTrue("left " + bytes + " bytes", bytes < 512);
+        storage.shutdown();
+        
+        LogKvStorage reopened = new LogKvStorage(baseDir, 256);
+        Assert.assertNull(reopened.get(bytes("key0")));
+        Assert.assertEquals("value19", string(reopened.get(bytes("key4"))));
+        Assert.assertEquals(4, reopened.allKeys().size());
+        reopened.shutdown();
+    }
+    
+    @Test
+    public void testSnapshotIsNotChangedByLaterWrites() throws Exception {
+        LogKvStorage storage = new LogKvStorage(baseDir, 256);
+        storage.put(bytes("a"), bytes("1"));
+        storage.put(bytes("b"), bytes("1"));
+        String backupPath = Paths.get(dir.getPath(), "backup").toString();
+        storage.doSnapshot(backupPath);
+        
+        storage.put(bytes("a"), bytes("2"));
+        storage.delete(bytes("b"));
+        storage.put(bytes("c"), bytes("2"));
+        storage.compact();
+        
+        storage.snapshotLoad(backupPath);
+        Assert.assertEquals("1", string(storage.get(bytes("a"))));
+        Assert.assertEquals("1", string(storage.get(bytes("b"))));
+        Assert.assertNull(storage.get(bytes("c")));
+        storage.shutdown();
+    }
+    
+    @Test
+    public void testReopenAppendsToLastSegment() throws Exception {
+        LogKvStorage storage = new LogKvStorage(baseDir);
+        storage.put(bytes("a"), bytes("1"));
+        storage.shutdown();
+        for (int i = 0; i < 3; i++) {
+            LogKvStorage reopened = new LogKvStorage(baseDir);
+            reopened.put(bytes("b"), bytes(String.valueOf(i)));
+            reopened.shutdown();
+        }
+        Assert.assertEquals(1, new File(baseDir).listFiles((d, name) -> name.endsWith(".log")).length);
+        LogKvStorage reopened = new LogKvStorage(baseDir);
+        Assert.assertEquals("1", string(reopened.get(bytes("a"))));
+        Assert.assertEquals("2", string(reopened.get(bytes("b"))));
+        reopened.shutdown();
+    }
+    
+    @Test
+    public void testSnapshotIsNotChangedAfterLoadAndReopen() throws Exception {
+        LogKvStorage storage = new LogKvStorage(baseDir);
+        storage.put(bytes("a"), bytes("1"));
+        String backupPath = Paths.get(dir.getPath(), "backup").toString();
+        storage.doSnapshot(backupPath);
+        storage.snapshotLoad(backupPath);
+        storage.shutdown();
+        
+        // the loaded segments are links to the snapshot, appending to them would change the snapshot
+        LogKvStorage reopened = new LogKvStorage(baseDir);
+        reopened.put(bytes("b"), bytes("1"));
+        reopened.snapshotLoad(backupPath);
+        Assert.assertEquals("1", string(reopened.get(bytes("a"))));
+        Assert.assertNull(reopened.get(bytes("b")));
+        reopened.shutdown();
+    }
+    
+    @Test
+    public void testConcurrentWriters() throws Exception {
+        LogKvStorage storage = new LogKvStorage(baseDir, 4096);
+        int threads = 8;
+        int perThread = 200;
+        CountDownLatch latch = new CountDownLatch(threads);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            Thread worker = new Thread(() -> {
+                try {
+                    for (int i = 0; i < perThread; i++) {
+                        storage.put(bytes(id + "-" + i), bytes(String.valueOf(i)));
+                    }
+                } catch (Throwable e) {
+                    error.set(e);
+                } finally {
+                    latch.countDown();
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        latch.await();
+        Assert.assertNull(error.get());
+        Assert.assertEquals(threads * perThread, storage.allKeys().size());
+        storage.shutdown();
+        
+        LogKvStorage reopened = new LogKvStorage(baseDir, 4096);
+        Assert.assertEquals(threads * perThread, reopened.allKeys().size());
+        Assert.assertEquals("199", string(reopened.get(bytes("7-199"))));
+        reopened.shutdown();
+    }
+    
+    private static byte[] bytes(String value) {
+        return ByteUtils.toBytes(value);
+    }
+    
+    private static String string(byte[] value) {
+        return ByteUtils.toString(value);
+    }
+}
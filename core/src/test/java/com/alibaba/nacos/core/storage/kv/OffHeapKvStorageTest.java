@@ -0,0 +1,148 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.core.storage.kv;
+
+import com.alibaba.nacos.common.utils.ByteUtils;
+import com.alibaba.nacos.sys.utils.DiskUtils;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class OffHeapKvStorageTest {
+    
+    private File dir;
+    
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("off-heap-kv-storage").toFile();
+    }
+    
+    @After
+    public void tearDown() {
+        DiskUtils.deleteQuietly(dir);
+    }
+    
+    @Test
+    public void testPutGetDelete() throws Exception {
+        OffHeapKvStorage storage = new OffHeapKvStorage(1024);
+        storage.put(bytes("a"), bytes("1"));
+        storage.batchPut(Arrays.asList(bytes("b"), bytes("c")), Arrays.asList(bytes("2"), bytes("3")));
+        storage.put(bytes("a"), bytes("4"));
+        storage.delete(bytes("b"));
+        Assert.assertEquals("4", string(storage.get(bytes("a"))));
+        Assert.assertNull(storage.get(bytes("b")));
+        Assert.assertEquals(2, storage.size());
+        Assert.assertEquals(2, storage.allKeys().size());
+        
+        Map<byte[], byte[]> values = storage.batchGet(Arrays.asList(bytes("a"), bytes("b"), bytes("c")));
+        Assert.assertEquals(2, values.size());
+        
+        // an empty value is a value
+        storage.put(bytes("b"), new byte[0]);
+        Assert.assertEquals(0, storage.get(bytes("b")).length);
+    }
+    
+    @Test
+    public void testGrowAndCompact() throws Exception {
+        OffHeapKvStorage storage = new OffHeapKvStorage(1024);
+        for (int round = 0; round < 5; round++) {
+            List<byte[]> keys = new ArrayList<>();
+            List<byte[]> values = new ArrayList<>();
+            for (int i = 0; i < 5000; i++) {
+                keys.add(bytes("key" + i));
+                values.add(bytes("value" + round + "-" + i));
+            }
+            storage.batchPut(keys, values);
+            for (int i = 0; i < 5000; i += 2) {
+                storage.delete(bytes("key" + i));
+            }
+        }
+        Assert.assertEquals(2500, storage.size());
+        Assert.assertNull(storage.get(bytes("key10")));
+        Assert.assertEquals("value4-4999", string(storage.get(bytes("key4999"))));
+        // a value larger than a page gets a page of its own
+        byte[] large = new byte[4096];
+        Arrays.fill(large, (byte) 7);
+        storage.put(bytes("large"), large);
+        Assert.assertArrayEquals(large, storage.get(bytes("large")));
+    }
+    
+    @Test
+    public void testDeleteCompacts() throws Exception {
+        OffHeapKvStorage storage = new OffHeapKvStorage(1024);
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            keys.add(bytes("key" + i));
+            storage.put(keys.get(i), bytes("value" + i));
+        }
+        storage.batchDelete(keys.subList(0, 999));
+        Assert.assertEquals(1, storage.size());
+        Assert.assertEquals(0L, storage.garbageBytes());
+        Assert.assertEquals("value999", string(storage.get(bytes("key999"))));
+        
+        for (int i = 0; i < 1000; i++) {
+            storage.put(keys.get(i), bytes("value" + i));
+        }
+        for (int i = 0; i < 999; i++) {
+            storage.delete(keys.get(i));
+        }
+        Assert.assertTrue(storage.garbageBytes() < 1024);
+        Assert.assertEquals("value999", string(storage.get(bytes("key999"))));
+    }
+    
+    @Test
+    public void testSnapshot() throws Exception {
+        OffHeapKvStorage storage = new OffHeapKvStorage(1024);
+        for (int i = 0; i < 1000; i++) {
+            storage.put(bytes("key" + i), bytes("value" + i));
+        }
+        byte[] large = new byte[2 * 1024 * 1024];
+        large[large.length - 1] = 1;
+        storage.put(bytes("large"), large);
+        String backupPath = Paths.get(dir.getPath(), "backup").toString();
+        storage.doSnapshot(backupPath);
+        storage.delete(bytes("key1"));
+        storage.put(bytes("other"), bytes("value"));
+        
+        OffHeapKvStorage loaded = new OffHeapKvStorage(1024);
+        loaded.put(bytes("stale"), bytes("value"));
+        loaded.snapshotLoad(backupPath);
+        Assert.assertEquals(1001, loaded.size());
+        Assert.assertEquals("value1", string(loaded.get(bytes("key1"))));
+        Assert.assertArrayEquals(large, loaded.get(bytes("large")));
+        Assert.assertNull(loaded.get(bytes("stale")));
+        Assert.assertNull(loaded.get(bytes("other")));
+    }
+    
+    private static byte[] bytes(String value) {
+        return ByteUtils.toBytes(value);
+    }
+    
+    private static String string(byte[] value) {
+        return ByteUtils.toString(value);
+    }
+}
@@ -41,6 +41,7 @@ import com.alibaba.nacos.naming.misc.Loggers;
 import com.alibaba.nacos.naming.misc.UtilsAndCommons;
 import com.alibaba.nacos.naming.pojo.Record;
 import com.alibaba.nacos.naming.utils.Constants;
+import com.alibaba.nacos.sys.env.EnvUtil;
 import com.google.protobuf.ByteString;
 import org.apache.commons.lang3.reflect.TypeUtils;
 
@@ -110,7 +111,11 @@ public abstract class BasePersistentServiceProcessor extends RequestProcessor4CP
     
     public BasePersistentServiceProcessor(final ClusterVersionJudgement judgement) throws Exception {
         this.versionJudgement = judgement;
-        this.kvStorage = new NamingKvStorage(Paths.get(UtilsAndCommons.DATA_BASE_DIR, "data").toString());
+        final KvStorage.KvType memoryType =
+                EnvUtil.getProperty(Constants.NACOS_NAMING_PERSISTENT_DATA_OFF_HEAP, Boolean.class, false)
+                        ? KvStorage.KvType.OffHeap : KvStorage.KvType.Memory;
+        this.kvStorage = new NamingKvStorage(Paths.get(UtilsAndCommons.DATA_BASE_DIR, "data").toString(),
+                memoryType);
         this.serializer = SerializeFactory.getSerializer("JSON");
         this.notifier = new PersistentNotifier(key -> {
             try {
@@ -23,7 +23,6 @@ import com.alibaba.nacos.core.exception.ErrorCode;
 import com.alibaba.nacos.core.exception.KvStorageException;
 import com.alibaba.nacos.core.storage.StorageFactory;
 import com.alibaba.nacos.core.storage.kv.KvStorage;
-import com.alibaba.nacos.core.storage.kv.MemoryKvStorage;
 import com.alibaba.nacos.core.utils.TimerContext;
 import com.alibaba.nacos.naming.consistency.KeyBuilder;
 import com.alibaba.nacos.naming.misc.Loggers;
@@ -43,7 +42,7 @@ import java.util.function.Function;
  *
  * @author xiweng.yy
  */
-public class NamingKvStorage extends MemoryKvStorage {
+public class NamingKvStorage implements KvStorage {
     
     private static final String LOAD_SNAPSHOT = NamingKvStorage.class.getSimpleName() + ".snapshotLoad";
     
@@ -51,24 +50,34 @@ public class NamingKvStorage extends MemoryKvStorage {
     
     private final KvStorage baseDirStorage;
     
+    /**
+     * All data in memory, in front of the actual storage.
+     */
+    private final KvStorage memoryStorage;
+    
     private final Map<String, KvStorage> namespaceKvStorage;
     
     public NamingKvStorage(final String baseDir) throws Exception {
+        this(baseDir, KvStorage.KvType.Memory);
+    }
+    
+    public NamingKvStorage(final String baseDir, final KvStorage.KvType memoryType) throws Exception {
         this.baseDir = baseDir;
         this.baseDirStorage = StorageFactory.createKvStorage(KvStorage.KvType.File, "naming-persistent", baseDir);
+        this.memoryStorage = StorageFactory.createKvStorage(memoryType, "naming-persistent-memory", baseDir);
         this.namespaceKvStorage = new ConcurrentHashMap<>(16);
     }
     
     @Override
     public byte[] get(byte[] key) throws KvStorageException {
         // First get the data from the memory Cache
-        byte[] result = super.get(key);
+        byte[] result = memoryStorage.get(key);
         if (null == result) {
             try {
                 KvStorage storage = createActualStorageIfAbsent(key);
                 result = null == storage ? null : storage.get(key);
                 if (null != result) {
-                    super.put(key, result);
+                    memoryStorage.put(key, result);
                 }
             } catch (Exception e) {
                 throw new KvStorageException(ErrorCode.KVStorageWriteError.getCode(),
@@ -100,7 +109,7 @@ public class NamingKvStorage extends MemoryKvStorage {
                     "Put data failed, key: " + new String(key), e);
         }
         // after actual storage put success, put it in memory, memory put should success all the time
-        super.put(key, value);
+        memoryStorage.put(key, value);
     }
     
     @Override
@@ -127,7 +136,7 @@ public class NamingKvStorage extends MemoryKvStorage {
                     "Delete data failed, key: " + new String(key), e);
         }
         // after actual storage delete success, put it in memory, memory delete should success all the time
-        super.delete(key);
+        memoryStorage.delete(key);
     }
     
     @Override
@@ -157,7 +166,7 @@ public class NamingKvStorage extends MemoryKvStorage {
     private void loadSnapshotFromActualStorage(KvStorage actualStorage) throws KvStorageException {
         for (byte[] each : actualStorage.allKeys()) {
             byte[] datum = actualStorage.get(each);
-            super.put(each, datum);
+            memoryStorage.put(each, datum);
         }
     }
     
@@ -188,7 +197,7 @@ public class NamingKvStorage extends MemoryKvStorage {
     
     @Override
     public List<byte[]> allKeys() throws KvStorageException {
-        return super.allKeys();
+        return memoryStorage.allKeys();
     }
     
     @Override
@@ -198,7 +207,7 @@ public class NamingKvStorage extends MemoryKvStorage {
             each.shutdown();
         }
         namespaceKvStorage.clear();
-        super.shutdown();
+        memoryStorage.shutdown();
     }
     
     private KvStorage createActualStorageIfAbsent(byte[] key) throws Exception {
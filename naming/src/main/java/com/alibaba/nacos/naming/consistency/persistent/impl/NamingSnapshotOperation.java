@@ -28,15 +28,28 @@ import com.alibaba.nacos.naming.misc.Loggers;
 import com.alibaba.nacos.sys.utils.DiskUtils;
 import com.alipay.sofa.jraft.util.CRC64;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import java.util.zip.Checksum;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 /**
  * Snapshot processing of persistent service data for accelerated Raft protocol recovery and data synchronization.
  *
+ * <p>The storage links its files into the snapshot directory under the lock, the files are then streamed into a
+ * single checksummed snapshot file without blocking the storage. Loading verifies and unpacks that file on the fly.
+ *
  * @author <a href="mailto:liaochuntao@live.com">liaochuntao</a>
  */
 public class NamingSnapshotOperation implements SnapshotOperation {
@@ -49,6 +62,8 @@ public class NamingSnapshotOperation implements SnapshotOperation {
     
     private final String snapshotArchive = "naming_persistent.zip";
     
+    private final String snapshotStream = "naming_persistent.snapshot";
+    
     private final String checkSumKey = "checkSum";
     
     private final KvStorage storage;
@@ -64,31 +79,30 @@ public class NamingSnapshotOperation implements SnapshotOperation {
     public void onSnapshotSave(Writer writer, BiConsumer<Boolean, Throwable> callFinally) {
         RaftExecutor.doSnapshot(() -> {
             TimerContext.start(NAMING_SNAPSHOT_SAVE);
-            
-            final Lock lock = writeLock;
-            lock.lock();
+            final String parentPath = Paths.get(writer.getPath(), snapshotDir).toString();
             try {
-                final String writePath = writer.getPath();
-                final String parentPath = Paths.get(writePath, snapshotDir).toString();
                 DiskUtils.deleteDirectory(parentPath);
                 DiskUtils.forceMkdir(parentPath);
                 
-                storage.doSnapshot(parentPath);
-                final String outputFile = Paths.get(writePath, snapshotArchive).toString();
-                final Checksum checksum = new CRC64();
-                DiskUtils.compress(writePath, snapshotDir, outputFile, checksum);
+                final Lock lock = writeLock;
+                lock.lock();
+                try {
+                    storage.doSnapshot(parentPath);
+                } finally {
+                    lock.unlock();
+                }
+                // the storage links its files, which are replaced rather than modified, so they stay stable here
+                try (ZipOutputStream out = new ZipOutputStream(writer.openFile(snapshotStream, false))) {
+                    writeEntries(Paths.get(parentPath), out);
+                }
                 DiskUtils.deleteDirectory(parentPath);
-                
-                final LocalFileMeta meta = new LocalFileMeta();
-                meta.append(checkSumKey, Long.toHexString(checksum.getValue()));
-                
-                callFinally.accept(writer.addFile(snapshotArchive, meta), null);
+                callFinally.accept(true, null);
             } catch (Throwable t) {
                 Loggers.RAFT.error("Fail to compress snapshot, path={}, file list={}, {}.", writer.getPath(),
                         writer.listFiles(), t);
+                DiskUtils.deleteQuietly(new File(parentPath));
                 callFinally.accept(false, t);
             } finally {
-                lock.unlock();
                 TimerContext.end(NAMING_SNAPSHOT_SAVE, Loggers.RAFT);
             }
         });
@@ -97,33 +111,72 @@ public class NamingSnapshotOperation implements SnapshotOperation {
     @Override
     public boolean onSnapshotLoad(Reader reader) {
         final String readerPath = reader.getPath();
-        final String sourceFile = Paths.get(readerPath, snapshotArchive).toString();
+        final String loadPath = Paths.get(readerPath, snapshotDir).toString();
         
         TimerContext.start(NAMING_SNAPSHOT_LOAD);
         final Lock lock = writeLock;
         lock.lock();
         try {
-            final Checksum checksum = new CRC64();
-            DiskUtils.decompress(sourceFile, readerPath, checksum);
-            LocalFileMeta fileMeta = reader.getFileMeta(snapshotArchive);
-            if (fileMeta.getFileMeta().containsKey(checkSumKey)) {
-                if (!Objects.equals(Long.toHexString(checksum.getValue()), fileMeta.get(checkSumKey))) {
-                    throw new IllegalArgumentException("Snapshot checksum failed");
+            if (Objects.isNull(reader.getFileMeta(snapshotStream))) {
+                decompressArchive(reader);
+            } else {
+                DiskUtils.deleteDirThenMkdir(loadPath);
+                try (ZipInputStream in = new ZipInputStream(reader.openFile(snapshotStream))) {
+                    readEntries(in, Paths.get(loadPath));
                 }
             }
             
-            final String loadPath = Paths.get(readerPath, snapshotDir).toString();
             storage.snapshotLoad(loadPath);
             Loggers.RAFT.info("snapshot load from : {}", loadPath);
-            DiskUtils.deleteDirectory(loadPath);
             return true;
         } catch (final Throwable t) {
-            Loggers.RAFT.error("Fail to load snapshot, path={}, file list={}, {}.",
-                    Paths.get(readerPath, snapshotDir).toString(), reader.listFiles(), t);
+            Loggers.RAFT.error("Fail to load snapshot, path={}, file list={}, {}.", loadPath, reader.listFiles(), t);
             return false;
         } finally {
+            DiskUtils.deleteQuietly(new File(loadPath));
             lock.unlock();
             TimerContext.end(NAMING_SNAPSHOT_LOAD, Loggers.RAFT);
         }
     }
+    
+    /**
+     * Snapshots taken before the streamed format consist of a zip archive with a checksum in its meta.
+     */
+    private void decompressArchive(Reader reader) throws Exception {
+        final String readerPath = reader.getPath();
+        final String sourceFile = Paths.get(readerPath, snapshotArchive).toString();
+        final Checksum checksum = new CRC64();
+        DiskUtils.decompress(sourceFile, readerPath, checksum);
+        LocalFileMeta fileMeta = reader.getFileMeta(snapshotArchive);
+        if (fileMeta.getFileMeta().containsKey(checkSumKey)) {
+            if (!Objects.equals(Long.toHexString(checksum.getValue()), fileMeta.get(checkSumKey))) {
+                throw new IllegalArgumentException("Snapshot checksum failed");
+            }
+        }
+    }
+    
+    private static void writeEntries(Path root, ZipOutputStream out) throws IOException {
+        final List<Path> files;
+        try (Stream<Path> stream = Files.walk(root)) {
+            files = stream.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        for (Path file : files) {
+            out.putNextEntry(new ZipEntry(root.relativize(file).toString().replace(File.separatorChar, '/')));
+            Files.copy(file, out);
+            out.closeEntry();
+        }
+    }
+    
+    private static void readEntries(ZipInputStream in, Path root) throws IOException {
+        ZipEntry entry;
+        while ((entry = in.getNextEntry()) != null) {
+            final Path file = root.resolve(entry.getName()).normalize();
+            if (!file.startsWith(root)) {
+                throw new IOException("Illegal snapshot entry : " + entry.getName());
+            }
+            Files.createDirectories(file.getParent());
+            Files.copy(in, file);
+            in.closeEntry();
+        }
+    }
 }
@@ -0,0 +1,140 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.consistency.persistent.raft;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Index of the latest change of every datum key, used to build delta heart beats.
+ *
+ * <p>Every put or remove of a key gets the next index, and only the latest change of each key is kept. Removals are
+ * kept as tombstones until every follower has acknowledged them, a follower which misses a pruned tombstone gets the
+ * removal from the next full digest.
+ *
+ * @author nacos
+ */
+public class RaftChangeLog {
+    
+    private final Map<String, Long> keyIndexes = new HashMap<>();
+    
+    private final NavigableMap<Long, String> changes = new TreeMap<>();
+    
+    private final NavigableMap<Long, String> removals = new TreeMap<>();
+    
+    private long index;
+    
+    /**
+     * Record a put of the key.
+     *
+     * @param key datum key
+     */
+    public synchronized void changed(String key) {
+        long current = next(key);
+        changes.put(current, key);
+    }
+    
+    /**
+     * Record a remove of the key.
+     *
+     * @param key datum key
+     */
+    public synchronized void removed(String key) {
+        long current = next(key);
+        removals.put(current, key);
+    }
+    
+    public synchronized long currentIndex() {
+        return index;
+    }
+    
+    /**
+     * Get the keys changed after the index.
+     *
+     * @param fromIndex exclusive index
+     * @return changes after the index
+     */
+    public synchronized Delta since(long fromIndex) {
+        return new Delta(index, new ArrayList<>(changes.tailMap(fromIndex, false).values()),
+                new ArrayList<>(removals.tailMap(fromIndex, false).values()));
+    }
+    
+    /**
+     * Drop the tombstones which every follower has acknowledged.
+     *
+     * @param ackedIndex lowest index acknowledged by the followers
+     */
+    public synchronized void prune(long ackedIndex) {
+        NavigableMap<Long, String> pruned = removals.headMap(ackedIndex, true);
+        for (String key : pruned.values()) {
+            keyIndexes.remove(key);
+        }
+        pruned.clear();
+    }
+    
+    /**
+     * Count of the tracked keys, including tombstones.
+     *
+     * @return count of the tracked keys
+     */
+    public synchronized int size() {
+        return keyIndexes.size();
+    }
+    
+    private long next(String key) {
+        Long previous = keyIndexes.put(key, ++index);
+        if (previous != null) {
+            changes.remove(previous);
+            removals.remove(previous);
+        }
+        return index;
+    }
+    
+    /**
+     * Changes between two indexes.
+     */
+    public static class Delta {
+        
+        private final long index;
+        
+        private final List<String> changedKeys;
+        
+        private final List<String> removedKeys;
+        
+        Delta(long index, List<String> changedKeys, List<String> removedKeys) {
+            this.index = index;
+            this.changedKeys = changedKeys;
+            this.removedKeys = removedKeys;
+        }
+        
+        public long getIndex() {
+            return index;
+        }
+        
+        public List<String> getChangedKeys() {
+            return changedKeys;
+        }
+        
+        public List<String> getRemovedKeys() {
+            return removedKeys;
+        }
+    }
+}
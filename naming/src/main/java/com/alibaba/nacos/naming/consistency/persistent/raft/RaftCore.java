@@ -67,10 +67,11 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
@@ -99,6 +100,8 @@ public class RaftCore implements Closeable {
     
     public static final String API_ON_PUB = UtilsAndCommons.NACOS_NAMING_CONTEXT + "/raft/datum/commit";
     
+    public static final String API_ON_PUB_BATCH = UtilsAndCommons.NACOS_NAMING_CONTEXT + "/raft/datum/commit/batch";
+    
     public static final String API_ON_DEL = UtilsAndCommons.NACOS_NAMING_CONTEXT + "/raft/datum/commit";
     
     public static final String API_GET_PEER = UtilsAndCommons.NACOS_NAMING_CONTEXT + "/raft/peer";
@@ -107,6 +110,13 @@ public class RaftCore implements Closeable {
     
     public static final int PUBLISH_TERM_INCREASE_COUNT = 100;
     
+    /**
+     * A follower gets a full digest of all keys after this count of delta beats.
+     */
+    public static final int FULL_DIGEST_BEATS = 12;
+    
+    private static final long FULL_DIGEST = -1L;
+    
     private volatile ConcurrentMap<String, List<RecordListener>> listeners = new ConcurrentHashMap<>();
     
     private volatile ConcurrentMap<String, Datum> datums = new ConcurrentHashMap<>();
@@ -129,6 +139,22 @@ public class RaftCore implements Closeable {
     
     private final RaftListener raftListener;
     
+    private final RaftPublishPipeline publishPipeline;
+    
+    private final RaftChangeLog changeLog = new RaftChangeLog();
+    
+    private final long beatEpoch = ThreadLocalRandom.current().nextLong(Long.MAX_VALUE);
+    
+    private final Map<String, BeatAck> beatAcks = new ConcurrentHashMap<>();
+    
+    private final Object beatIndexLock = new Object();
+    
+    private long leaderBeatEpoch = FULL_DIGEST;
+    
+    private volatile long leaderBeatIndex = FULL_DIGEST;
+    
+    private BeatTransport beatTransport;
+    
     private boolean initialized = false;
     
     private volatile boolean stopWork = false;
@@ -148,6 +174,27 @@ public class RaftCore implements Closeable {
         this.notifier = new PersistentNotifier(key -> null == getDatum(key) ? null : getDatum(key).value);
         this.publisher = NotifyCenter.registerToPublisher(ValueChangeEvent.class, 16384);
         this.raftListener = raftListener;
+        this.publishPipeline = new RaftPublishPipeline(peers::local, (server, type, key, content, callback) -> {
+            if (type == RaftPublishPipeline.CommitType.DELETE) {
+                HttpClient.asyncHttpDeleteLarge(buildUrl(server, API_ON_DEL), null, content, callback);
+                return;
+            }
+            String url = buildUrl(server, type == RaftPublishPipeline.CommitType.BATCH ? API_ON_PUB_BATCH : API_ON_PUB);
+            HttpClient.asyncHttpPostLarge(url, Arrays.asList("key", key), content, callback);
+        });
+        this.beatTransport = new BeatTransport() {
+            @Override
+            public void beat(String server, byte[] content, Callback<String> callback) throws Exception {
+                HttpClient.asyncHttpPostLarge(buildUrl(server, API_BEAT), null, content, callback);
+            }
+            
+            @Override
+            public void fetch(String server, String keys, Callback<String> callback) throws Exception {
+                Map<String, String> queryParam = new HashMap<>(1);
+                queryParam.put("keys", URLEncoder.encode(keys, "UTF-8"));
+                HttpClient.asyncHttpGet(buildUrl(server, API_GET), null, queryParam, callback);
+            }
+        };
     }
     
     /**
@@ -161,6 +208,9 @@ public class RaftCore implements Closeable {
         final long start = System.currentTimeMillis();
         
         raftStore.loadDatums(notifier, datums);
+        for (String key : datums.keySet()) {
+            changeLog.changed(key);
+        }
         
         setTerm(NumberUtils.toLong(raftStore.loadMeta().getProperty("term"), 0L));
         
@@ -219,9 +269,10 @@ public class RaftCore implements Closeable {
             return;
         }
         
+        final long start = System.currentTimeMillis();
+        final RaftPublishPipeline.Replication replication;
         OPERATE_LOCK.lock();
         try {
-            final long start = System.currentTimeMillis();
             final Datum datum = new Datum();
             datum.key = key;
             datum.value = value;
@@ -231,57 +282,23 @@ public class RaftCore implements Closeable {
                 datum.timestamp.set(getDatum(key).timestamp.incrementAndGet());
             }
             
-            ObjectNode json = JacksonUtils.createEmptyJsonNode();
-            json.replace("datum", JacksonUtils.transferToJsonNode(datum));
-            json.replace("source", JacksonUtils.transferToJsonNode(peers.local()));
-            
             onPublish(datum, peers.local());
             
-            final String content = json.toString();
-            
-            final CountDownLatch latch = new CountDownLatch(peers.majorityCount());
-            for (final String server : peers.allServersIncludeMyself()) {
-                if (isLeader(server)) {
-                    latch.countDown();
-                    continue;
-                }
-                final String url = buildUrl(server, API_ON_PUB);
-                HttpClient.asyncHttpPostLarge(url, Arrays.asList("key", key), content, new Callback<String>() {
-                    @Override
-                    public void onReceive(RestResult<String> result) {
-                        if (!result.ok()) {
-                            Loggers.RAFT
-                                    .warn("[RAFT] failed to publish data to peer, datumId={}, peer={}, http code={}",
-                                            datum.key, server, result.getCode());
-                            return;
-                        }
-                        latch.countDown();
-                    }
-                    
-                    @Override
-                    public void onError(Throwable throwable) {
-                        Loggers.RAFT.error("[RAFT] failed to publish data to peer", throwable);
-                    }
-                    
-                    @Override
-                    public void onCancel() {
-                    
-                    }
-                });
-                
-            }
-            
-            if (!latch.await(UtilsAndCommons.RAFT_PUBLISH_TIMEOUT, TimeUnit.MILLISECONDS)) {
-                // only majority servers return success can we consider this update success
-                Loggers.RAFT.error("data publish failed, caused failed to notify majority, key={}", key);
-                throw new IllegalStateException("data publish failed, caused failed to notify majority, key=" + key);
-            }
-            
-            long end = System.currentTimeMillis();
-            Loggers.RAFT.info("signalPublish cost {} ms, key: {}", (end - start), key);
+            // replicated in publish order, the majority is waited for outside the lock
+            replication = publishPipeline
+                    .replicate(datum, peers.allServersWithoutMySelf(), peers.majorityCount());
         } finally {
             OPERATE_LOCK.unlock();
         }
+        
+        if (!replication.await(UtilsAndCommons.RAFT_PUBLISH_TIMEOUT)) {
+            // only majority servers return success can we consider this update success
+            Loggers.RAFT.error("data publish failed, caused failed to notify majority, key={}", key);
+            throw new IllegalStateException("data publish failed, caused failed to notify majority, key=" + key);
+        }
+        
+        long end = System.currentTimeMillis();
+        Loggers.RAFT.info("signalPublish cost {} ms, key: {}", (end - start), key);
     }
     
     /**
@@ -307,40 +324,11 @@ public class RaftCore implements Closeable {
             // construct datum:
             Datum datum = new Datum();
             datum.key = key;
-            ObjectNode json = JacksonUtils.createEmptyJsonNode();
-            json.replace("datum", JacksonUtils.transferToJsonNode(datum));
-            json.replace("source", JacksonUtils.transferToJsonNode(peers.local()));
             
             onDelete(datum.key, peers.local());
             
-            for (final String server : peers.allServersWithoutMySelf()) {
-                String url = buildUrl(server, API_ON_DEL);
-                HttpClient.asyncHttpDeleteLarge(url, null, json.toString(), new Callback<String>() {
-                    @Override
-                    public void onReceive(RestResult<String> result) {
-                        if (!result.ok()) {
-                            Loggers.RAFT
-                                    .warn("[RAFT] failed to delete data from peer, datumId={}, peer={}, http code={}",
-                                            key, server, result.getCode());
-                            return;
-                        }
-                        
-                        RaftPeer local = peers.local();
-                        
-                        local.resetLeaderDue();
-                    }
-                    
-                    @Override
-                    public void onError(Throwable throwable) {
-                        Loggers.RAFT.error("[RAFT] failed to delete data from peer", throwable);
-                    }
-                    
-                    @Override
-                    public void onCancel() {
-                    
-                    }
-                });
-            }
+            // queued behind the publishes of the key, so a lagging follower can not apply them after the delete
+            publishPipeline.replicateDelete(datum, peers.allServersWithoutMySelf());
         } finally {
             OPERATE_LOCK.unlock();
         }
@@ -385,6 +373,7 @@ public class RaftCore implements Closeable {
         }
         
         datums.put(datum.key, datum);
+        changeLog.changed(datum.key);
         
         if (isLeader()) {
             local.term.addAndGet(PUBLISH_TERM_INCREASE_COUNT);
@@ -623,70 +612,56 @@ public class RaftCore implements Closeable {
             
             local.resetLeaderDue();
             
-            // build data
-            ObjectNode packet = JacksonUtils.createEmptyJsonNode();
-            packet.replace("peer", JacksonUtils.transferToJsonNode(local));
-            
-            ArrayNode array = JacksonUtils.createEmptyArrayNode();
-            
             if (switchDomain.isSendBeatOnly()) {
                 Loggers.RAFT.info("[SEND-BEAT-ONLY] {}", switchDomain.isSendBeatOnly());
             }
             
-            if (!switchDomain.isSendBeatOnly()) {
-                for (Datum datum : datums.values()) {
-                    
-                    ObjectNode element = JacksonUtils.createEmptyJsonNode();
-                    
-                    if (KeyBuilder.matchServiceMetaKey(datum.key)) {
-                        element.put("key", KeyBuilder.briefServiceMetaKey(datum.key));
-                    } else if (KeyBuilder.matchInstanceListKey(datum.key)) {
-                        element.put("key", KeyBuilder.briefInstanceListkey(datum.key));
-                    }
-                    element.put("timestamp", datum.timestamp.get());
-                    
-                    array.add(element);
-                }
-            }
-            
-            packet.replace("datums", array);
-            // broadcast
-            Map<String, String> params = new HashMap<String, String>(1);
-            params.put("beat", JacksonUtils.toJson(packet));
+            final Set<String> servers = peers.allServersWithoutMySelf();
+            beatAcks.keySet().retainAll(servers);
             
-            String content = JacksonUtils.toJson(params);
-            
-            ByteArrayOutputStream out = new ByteArrayOutputStream();
-            GZIPOutputStream gzip = new GZIPOutputStream(out);
-            gzip.write(content.getBytes(StandardCharsets.UTF_8));
-            gzip.close();
-            
-            byte[] compressedBytes = out.toByteArray();
-            String compressedContent = new String(compressedBytes, StandardCharsets.UTF_8);
-            
-            if (Loggers.RAFT.isDebugEnabled()) {
-                Loggers.RAFT.debug("raw beat data size: {}, size of compressed data: {}", content.length(),
-                        compressedContent.length());
+            // tombstones are only needed by the followers which get delta beats
+            long ackedIndex = changeLog.currentIndex();
+            for (BeatAck ack : beatAcks.values()) {
+                ackedIndex = Math.min(ackedIndex, ack.index);
             }
+            changeLog.prune(ackedIndex);
             
-            for (final String server : peers.allServersWithoutMySelf()) {
+            // followers acknowledged at the same index share the beat data
+            Map<Long, byte[]> beats = new HashMap<>(4);
+            for (final String server : servers) {
                 try {
-                    final String url = buildUrl(server, API_BEAT);
+                    final BeatAck ack = beatAcks.get(server);
+                    final boolean full = ack == null || ack.deltaBeats >= FULL_DIGEST_BEATS;
+                    final long fromIndex = full ? FULL_DIGEST : ack.index;
+                    byte[] compressedBytes = beats.get(fromIndex);
+                    if (compressedBytes == null) {
+                        compressedBytes = buildBeat(local, fromIndex);
+                        beats.put(fromIndex, compressedBytes);
+                    }
                     if (Loggers.RAFT.isDebugEnabled()) {
                         Loggers.RAFT.debug("send beat to server " + server);
                     }
-                    HttpClient.asyncHttpPostLarge(url, null, compressedBytes, new Callback<String>() {
+                    beatTransport.beat(server, compressedBytes, new Callback<String>() {
                         @Override
                         public void onReceive(RestResult<String> result) {
                             if (!result.ok()) {
                                 Loggers.RAFT.error("NACOS-RAFT beat failed: {}, peer: {}", result.getCode(), server);
                                 MetricsMonitor.getLeaderSendBeatFailedException().increment();
+                                beatAcks.remove(server);
                                 return;
                             }
                             
+                            JsonNode response = JacksonUtils.toObj(result.getData());
                             peers.update(JacksonUtils.toObj(result.getData(), RaftPeer.class));
+                            JsonNode beatAck = response.get("beatAck");
+                            if (beatAck != null && beatAck.asLong() >= 0) {
+                                beatAcks.put(server, new BeatAck(beatAck.asLong(), full ? 0 : ack.deltaBeats + 1));
+                            } else {
+                                // unknown or broken delta state of the follower, send a full digest next time
+                                beatAcks.remove(server);
+                            }
                             if (Loggers.RAFT.isDebugEnabled()) {
-                                Loggers.RAFT.debug("receive beat response from: {}", url);
+                                Loggers.RAFT.debug("receive beat response from: {}", server);
                             }
                         }
                         
@@ -695,6 +670,7 @@ public class RaftCore implements Closeable {
                             Loggers.RAFT.error("NACOS-RAFT error while sending heart-beat to peer: {} {}", server,
                                     throwable);
                             MetricsMonitor.getLeaderSendBeatFailedException().increment();
+                            beatAcks.remove(server);
                         }
                         
                         @Override
@@ -709,6 +685,82 @@ public class RaftCore implements Closeable {
             }
             
         }
+        
+        /**
+         * Build compressed beat data, with all keys for a full digest or the keys changed after the index.
+         */
+        private byte[] buildBeat(RaftPeer local, long fromIndex) throws IOException {
+            ObjectNode packet = JacksonUtils.createEmptyJsonNode();
+            packet.replace("peer", JacksonUtils.transferToJsonNode(local));
+            
+            ArrayNode array = JacksonUtils.createEmptyArrayNode();
+            
+            if (!switchDomain.isSendBeatOnly()) {
+                packet.put("beatEpoch", beatEpoch);
+                if (fromIndex == FULL_DIGEST) {
+                    // read the index first, changes during the iteration are sent again by the next delta
+                    packet.put("beatIndex", changeLog.currentIndex());
+                    for (Datum datum : datums.values()) {
+                        array.add(buildBeatEntry(datum));
+                    }
+                } else {
+                    RaftChangeLog.Delta delta = changeLog.since(fromIndex);
+                    packet.put("beatIndex", delta.getIndex());
+                    packet.put("fromIndex", fromIndex);
+                    for (String key : delta.getChangedKeys()) {
+                        Datum datum = datums.get(key);
+                        if (datum != null) {
+                            array.add(buildBeatEntry(datum));
+                        }
+                    }
+                    ArrayNode removed = JacksonUtils.createEmptyArrayNode();
+                    for (String key : delta.getRemovedKeys()) {
+                        removed.add(briefKey(key));
+                    }
+                    packet.replace("removed", removed);
+                }
+            }
+            
+            packet.replace("datums", array);
+            // broadcast
+            Map<String, String> params = new HashMap<String, String>(1);
+            params.put("beat", JacksonUtils.toJson(packet));
+            
+            String content = JacksonUtils.toJson(params);
+            
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            GZIPOutputStream gzip = new GZIPOutputStream(out);
+            gzip.write(content.getBytes(StandardCharsets.UTF_8));
+            gzip.close();
+            
+            byte[] compressedBytes = out.toByteArray();
+            
+            if (Loggers.RAFT.isDebugEnabled()) {
+                Loggers.RAFT.debug("raw beat data size: {}, size of compressed data: {}, from index: {}",
+                        content.length(), compressedBytes.length, fromIndex);
+            }
+            return compressedBytes;
+        }
+        
+        private ObjectNode buildBeatEntry(Datum datum) {
+            ObjectNode element = JacksonUtils.createEmptyJsonNode();
+            String key = briefKey(datum.key);
+            if (key != null) {
+                element.put("key", key);
+            }
+            element.put("timestamp", datum.timestamp.get());
+            return element;
+        }
+        
+        private String briefKey(String key) {
+            if (KeyBuilder.matchServiceMetaKey(key)) {
+                return KeyBuilder.briefServiceMetaKey(key);
+            }
+            if (KeyBuilder.matchInstanceListKey(key)) {
+                return KeyBuilder.briefInstanceListkey(key);
+            }
+            return null;
+        }
     }
     
     /**
@@ -760,12 +812,18 @@ public class RaftCore implements Closeable {
         
         peers.makeLeader(remote);
         
+        final boolean delta = beat.has("fromIndex");
+        acceptBeatIndex(beat, delta);
+        
         if (!switchDomain.isSendBeatOnly()) {
             
-            Map<String, Integer> receivedKeysMap = new HashMap<>(datums.size());
+            // a delta beat only lists the changed keys, so missing keys are not dead
+            Map<String, Integer> receivedKeysMap = new HashMap<>(delta ? 0 : datums.size());
             
-            for (Map.Entry<String, Datum> entry : datums.entrySet()) {
-                receivedKeysMap.put(entry.getKey(), 0);
+            if (!delta) {
+                for (Map.Entry<String, Datum> entry : datums.entrySet()) {
+                    receivedKeysMap.put(entry.getKey(), 0);
+                }
             }
             
             // now check datums
@@ -822,19 +880,22 @@ public class RaftCore implements Closeable {
                             processedCount, beatDatums.size(), datums.size());
                     
                     // update datum entry
-                    String url = buildUrl(remote.ip, API_GET);
-                    Map<String, String> queryParam = new HashMap<>(1);
-                    queryParam.put("keys", URLEncoder.encode(keys, "UTF-8"));
-                    HttpClient.asyncHttpGet(url, null, queryParam, new Callback<String>() {
+                    beatTransport.fetch(remote.ip, keys, new Callback<String>() {
                         @Override
                         public void onReceive(RestResult<String> result) {
                             if (!result.ok()) {
+                                missChanges("http code " + result.getCode());
                                 return;
                             }
                             
-                            List<JsonNode> datumList = JacksonUtils
-                                    .toObj(result.getData(), new TypeReference<List<JsonNode>>() {
-                                    });
+                            final List<JsonNode> datumList;
+                            try {
+                                datumList = JacksonUtils.toObj(result.getData(), new TypeReference<List<JsonNode>>() {
+                                });
+                            } catch (Exception e) {
+                                missChanges(e.toString());
+                                return;
+                            }
                             
                             for (JsonNode datumJson : datumList) {
                                 Datum newDatum = null;
@@ -878,6 +939,7 @@ public class RaftCore implements Closeable {
                                     raftStore.write(newDatum);
                                     
                                     datums.put(newDatum.key, newDatum);
+                                    changeLog.changed(newDatum.key);
                                     notifier.notify(newDatum.key, DataOperation.CHANGE, newDatum.value);
                                     
                                     local.resetLeaderDue();
@@ -898,6 +960,7 @@ public class RaftCore implements Closeable {
                                     Loggers.RAFT
                                             .error("[RAFT-BEAT] failed to sync datum from leader, datum: {}", newDatum,
                                                     e);
+                                    missChanges(e.toString());
                                 } finally {
                                     OPERATE_LOCK.unlock();
                                 }
@@ -913,11 +976,12 @@ public class RaftCore implements Closeable {
                         @Override
                         public void onError(Throwable throwable) {
                             Loggers.RAFT.error("[RAFT-BEAT] failed to sync datum from leader", throwable);
+                            missChanges(throwable.toString());
                         }
                         
                         @Override
                         public void onCancel() {
-                        
+                            missChanges("request cancelled");
                         }
                         
                     });
@@ -926,6 +990,7 @@ public class RaftCore implements Closeable {
                     
                 } catch (Exception e) {
                     Loggers.RAFT.error("[NACOS-RAFT] failed to handle beat entry, key: {}", datumKey);
+                    missChanges(e.toString());
                 }
                 
             }
@@ -936,6 +1001,17 @@ public class RaftCore implements Closeable {
                     deadKeys.add(entry.getKey());
                 }
             }
+            if (delta) {
+                JsonNode removedKeys = beat.get("removed");
+                for (JsonNode removed : removedKeys) {
+                    String key = removed.asText();
+                    if (KeyBuilder.matchServiceMetaKey(key)) {
+                        deadKeys.add(KeyBuilder.detailServiceMetaKey(key));
+                    } else if (KeyBuilder.matchInstanceListKey(key)) {
+                        deadKeys.add(KeyBuilder.detailInstanceListkey(key));
+                    }
+                }
+            }
             
             for (String deadKey : deadKeys) {
                 try {
@@ -950,6 +1026,54 @@ public class RaftCore implements Closeable {
         return local;
     }
     
+    /**
+     * Remember the index of the beat from the leader. A delta beat is only accepted if it starts at or before the index
+     * of the last accepted beat of the same leader, otherwise the follower has missed changes and asks for a full
+     * digest.
+     */
+    private void acceptBeatIndex(JsonNode beat, boolean delta) {
+        JsonNode epoch = beat.get("beatEpoch");
+        long fromIndex = delta && epoch != null ? beat.get("fromIndex").asLong() : FULL_DIGEST;
+        // a failed fetch may reset the index concurrently, which must not be overwritten by the check
+        synchronized (beatIndexLock) {
+            if (epoch == null) {
+                leaderBeatIndex = FULL_DIGEST;
+                return;
+            }
+            boolean sameLeader = epoch.asLong() == leaderBeatEpoch && leaderBeatIndex != FULL_DIGEST;
+            boolean continuous = sameLeader && fromIndex <= leaderBeatIndex;
+            if (!delta || continuous) {
+                leaderBeatEpoch = epoch.asLong();
+                leaderBeatIndex = beat.get("beatIndex").asLong();
+            } else {
+                Loggers.RAFT.warn("[RAFT] missed changes before delta beat, from index: {}, local index: {}",
+                        fromIndex, leaderBeatIndex);
+                leaderBeatIndex = FULL_DIGEST;
+            }
+        }
+    }
+    
+    /**
+     * Forget the index of the last accepted beat after the changed datums of a beat could not be fetched. The beat has
+     * been acknowledged before its datums arrived, so the next beat response asks the leader for a full digest, which
+     * lists the missed keys again.
+     */
+    private void missChanges(String reason) {
+        Loggers.RAFT.warn("[RAFT] failed to fetch changed datums from leader, ask for a full digest: {}", reason);
+        synchronized (beatIndexLock) {
+            leaderBeatIndex = FULL_DIGEST;
+        }
+    }
+    
+    /**
+     * Get the index of the last beat accepted from the leader, which is sent back to the leader as acknowledgement.
+     *
+     * @return index of the last accepted beat, or -1 if the next beat should be a full digest
+     */
+    public long getBeatAckIndex() {
+        return leaderBeatIndex;
+    }
+    
     /**
      * Add listener for target key.
      *
@@ -1038,8 +1162,14 @@ public class RaftCore implements Closeable {
         return datums.size();
     }
     
+    /**
+     * Add datum to memory.
+     *
+     * @param datum datum
+     */
     public void addDatum(Datum datum) {
         datums.put(datum.key, datum);
+        changeLog.changed(datum.key);
         NotifyCenter.publishEvent(ValueChangeEvent.builder().key(datum.key).action(DataOperation.CHANGE).build());
     }
     
@@ -1055,6 +1185,7 @@ public class RaftCore implements Closeable {
                 return;
             }
             datums.put(key, datum);
+            changeLog.changed(key);
         } catch (Exception e) {
             Loggers.RAFT.error("load datum failed: " + key, e);
         }
@@ -1066,6 +1197,7 @@ public class RaftCore implements Closeable {
         try {
             deleted = datums.remove(URLDecoder.decode(key, "UTF-8"));
             if (deleted != null) {
+                changeLog.removed(deleted.key);
                 raftStore.delete(deleted);
                 Loggers.RAFT.info("datum deleted, key: {}", key);
             }
@@ -1086,4 +1218,49 @@ public class RaftCore implements Closeable {
         return (int) publisher.currentEventSize();
     }
     
+    void setBeatTransport(BeatTransport beatTransport) {
+        this.beatTransport = beatTransport;
+    }
+    
+    /**
+     * Transport of the heart beats and of the datums fetched by the followers.
+     */
+    interface BeatTransport {
+        
+        /**
+         * Send compressed beat data to a follower asynchronously.
+         *
+         * @param server   follower address
+         * @param content  compressed beat data
+         * @param callback callback of the response
+         * @throws Exception any exception before the request is sent
+         */
+        void beat(String server, byte[] content, Callback<String> callback) throws Exception;
+        
+        /**
+         * Fetch datums from the leader asynchronously.
+         *
+         * @param server   leader address
+         * @param keys     comma separated datum keys
+         * @param callback callback of the response
+         * @throws Exception any exception before the request is sent
+         */
+        void fetch(String server, String keys, Callback<String> callback) throws Exception;
+    }
+    
+    /**
+     * Beat state of a follower acknowledged to the leader.
+     */
+    private static class BeatAck {
+        
+        private final long index;
+        
+        private final int deltaBeats;
+        
+        BeatAck(long index, int deltaBeats) {
+            this.index = index;
+            this.deltaBeats = deltaBeats;
+        }
+    }
+    
 }
@@ -0,0 +1,393 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.consistency.persistent.raft;
+
+import com.alibaba.nacos.common.http.Callback;
+import com.alibaba.nacos.common.model.RestResult;
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import com.alibaba.nacos.naming.consistency.Datum;
+import com.alibaba.nacos.naming.misc.Loggers;
+import com.alibaba.nacos.naming.misc.UtilsAndCommons;
+import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.http.HttpStatus;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Replication pipeline of the leader for published and deleted datums.
+ *
+ * <p>Every follower has its own queue and at most one commit request in flight. Datums published while a request is
+ * in flight are sent together in the next request, so a busy leader sends few large requests instead of one request
+ * per datum, and a slow follower never holds back the others. Datums are sent to each follower in the order they were
+ * replicated, which keeps the order of the updates and deletes of each key. A delete is sent alone through the delete
+ * api, the publishes before and after it are not batched with it.
+ *
+ * <p>A follower which does not know the batch commit api yet receives the datums one by one through the single commit
+ * api.
+ *
+ * <p>Datums a follower did not receive within the publish timeout, or which overflow its bounded queue, are dropped
+ * for that follower. Their publish has failed or succeeded on the majority by then, and the follower catches up with
+ * the keys of the beats of the leader. Followers which left the member list are removed.
+ *
+ * @author nacos
+ */
+public class RaftPublishPipeline {
+    
+    static final int MAX_BATCH_SIZE = 128;
+    
+    static final int MAX_QUEUE_SIZE = 4096;
+    
+    private final Map<String, Follower> followers = new ConcurrentHashMap<>();
+    
+    private final Supplier<RaftPeer> source;
+    
+    private final Transport transport;
+    
+    private final long publishTimeout;
+    
+    public RaftPublishPipeline(Supplier<RaftPeer> source, Transport transport) {
+        this(source, transport, UtilsAndCommons.RAFT_PUBLISH_TIMEOUT);
+    }
+    
+    RaftPublishPipeline(Supplier<RaftPeer> source, Transport transport, long publishTimeout) {
+        this.source = source;
+        this.transport = transport;
+        this.publishTimeout = publishTimeout;
+    }
+    
+    /**
+     * Replicate a datum which has been committed locally. Must be called in the publish order, the datum is serialized
+     * before this method returns so it may be changed afterwards.
+     *
+     * @param datum     datum committed by the leader
+     * @param servers   followers to replicate to
+     * @param majority  count of acknowledgements needed, including the leader itself
+     * @return pending replication of the datum
+     */
+    public Replication replicate(Datum datum, Collection<String> servers, int majority) {
+        Replication replication = new Replication(datum.key, JacksonUtils.toJson(datum), false, majority);
+        // the leader has committed the datum already
+        replication.ack();
+        enqueue(replication, servers);
+        return replication;
+    }
+    
+    /**
+     * Replicate a delete which has been committed locally, in the same order as the publishes.
+     *
+     * @param datum   datum with the key to delete
+     * @param servers followers to replicate to
+     */
+    public void replicateDelete(Datum datum, Collection<String> servers) {
+        enqueue(new Replication(datum.key, JacksonUtils.toJson(datum), true, 1), servers);
+    }
+    
+    private void enqueue(Replication replication, Collection<String> servers) {
+        for (String server : servers) {
+            Follower follower = followers.computeIfAbsent(server, Follower::new);
+            follower.enqueue(replication);
+        }
+        if (followers.size() > servers.size()) {
+            // members have left, their queues would only grow from now on
+            followers.keySet().retainAll(new HashSet<>(servers));
+        }
+    }
+    
+    int followerCount() {
+        return followers.size();
+    }
+    
+    private String buildBatchContent(List<Replication> batch) {
+        StringBuilder content = new StringBuilder("{\"source\":").append(JacksonUtils.toJson(source.get()))
+                .append(",\"datums\":[");
+        for (int i = 0; i < batch.size(); i++) {
+            if (i > 0) {
+                content.append(',');
+            }
+            content.append(batch.get(i).content);
+        }
+        return content.append("]}").toString();
+    }
+    
+    private String buildSingleContent(Replication replication) {
+        return "{\"datum\":" + replication.content + ",\"source\":" + JacksonUtils.toJson(source.get()) + "}";
+    }
+    
+    /**
+     * Type of a commit request.
+     */
+    public enum CommitType {
+        
+        /**
+         * Publish of a single datum.
+         */
+        SINGLE,
+        
+        /**
+         * Publish of a batch of datums, answered with the result of each datum.
+         */
+        BATCH,
+        
+        /**
+         * Delete of a single datum.
+         */
+        DELETE
+    }
+    
+    /**
+     * Transport of the commit requests.
+     */
+    public interface Transport {
+        
+        /**
+         * Send commit request to a follower asynchronously.
+         *
+         * @param server   follower address
+         * @param type     type of the request
+         * @param key      key of the first datum
+         * @param content  request content
+         * @param callback callback of the response
+         * @throws Exception any exception before the request is sent
+         */
+        void send(String server, CommitType type, String key, String content, Callback<String> callback)
+                throws Exception;
+    }
+    
+    /**
+     * Pending replication of one datum.
+     */
+    public static class Replication {
+        
+        private final String key;
+        
+        private final String content;
+        
+        private final boolean delete;
+        
+        private final CountDownLatch latch;
+        
+        private final long createTime = System.currentTimeMillis();
+        
+        Replication(String key, String content, boolean delete, int majority) {
+            this.key = key;
+            this.content = content;
+            this.delete = delete;
+            this.latch = new CountDownLatch(majority);
+        }
+        
+        void ack() {
+            latch.countDown();
+        }
+        
+        /**
+         * Wait until a majority of the servers has committed the datum.
+         *
+         * @param timeout timeout in milliseconds
+         * @return true if a majority has committed the datum before the timeout
+         * @throws InterruptedException if interrupted while waiting
+         */
+        public boolean await(long timeout) throws InterruptedException {
+            return latch.await(timeout, TimeUnit.MILLISECONDS);
+        }
+        
+        public String getKey() {
+            return key;
+        }
+    }
+    
+    private class Follower {
+        
+        private final String server;
+        
+        private final Queue<Replication> queue = new ArrayDeque<>();
+        
+        private boolean inFlight;
+        
+        /**
+         * Whether a thread is in the send loop, the others only leave their work to it.
+         */
+        private boolean sending;
+        
+        private int dropped;
+        
+        private volatile boolean batchSupported = true;
+        
+        Follower(String server) {
+            this.server = server;
+        }
+        
+        void enqueue(Replication replication) {
+            synchronized (this) {
+                if (queue.size() >= MAX_QUEUE_SIZE) {
+                    queue.poll();
+                    dropped++;
+                }
+                queue.add(replication);
+            }
+            sendNext();
+        }
+        
+        /**
+         * Send the queued datums until a request is in flight or the queue is empty. A request which fails at once, or
+         * whose callback runs at once, is followed by the next one in this loop instead of a nested call.
+         */
+        private void sendNext() {
+            synchronized (this) {
+                if (sending) {
+                    return;
+                }
+                sending = true;
+            }
+            while (true) {
+                final boolean useBatch = batchSupported;
+                final List<Replication> batch = takeBatch(useBatch ? MAX_BATCH_SIZE : 1);
+                if (batch == null) {
+                    return;
+                }
+                send(useBatch, batch);
+            }
+        }
+        
+        /**
+         * Take the next datums to send and mark the request in flight, or leave the send loop if there is nothing to
+         * send.
+         */
+        private synchronized List<Replication> takeBatch(int limit) {
+            final long expireTime = System.currentTimeMillis() - publishTimeout;
+            while (!queue.isEmpty() && queue.peek().createTime < expireTime) {
+                queue.poll();
+                dropped++;
+            }
+            if (dropped > 0) {
+                Loggers.RAFT.warn("[RAFT] dropped {} datums not sent to peer {} in time", dropped, server);
+                dropped = 0;
+            }
+            if (inFlight || queue.isEmpty()) {
+                sending = false;
+                return null;
+            }
+            final List<Replication> batch = new ArrayList<>(Math.min(limit, queue.size()));
+            if (queue.peek().delete) {
+                batch.add(queue.poll());
+            } else {
+                while (batch.size() < limit && !queue.isEmpty() && !queue.peek().delete) {
+                    batch.add(queue.poll());
+                }
+            }
+            inFlight = true;
+            return batch;
+        }
+        
+        private void send(boolean useBatch, List<Replication> batch) {
+            final CommitType type;
+            if (batch.get(0).delete) {
+                type = CommitType.DELETE;
+            } else {
+                type = useBatch ? CommitType.BATCH : CommitType.SINGLE;
+            }
+            String content = type == CommitType.BATCH ? buildBatchContent(batch) : buildSingleContent(batch.get(0));
+            try {
+                transport.send(server, type, batch.get(0).key, content, new Callback<String>() {
+                    @Override
+                    public void onReceive(RestResult<String> result) {
+                        if (result.ok() && type == CommitType.BATCH) {
+                            ackApplied(batch, result.getData());
+                        } else if (result.ok()) {
+                            batch.get(0).ack();
+                        } else if (type == CommitType.BATCH && result.getCode() == HttpStatus.NOT_FOUND.value()) {
+                            Loggers.RAFT.warn("[RAFT] peer {} does not support batch publish, fall back", server);
+                            batchSupported = false;
+                            requeue(batch);
+                        } else {
+                            Loggers.RAFT.warn("[RAFT] failed to commit data to peer, type={}, datumId={}, count={}, "
+                                            + "peer={}, http code={}", type, batch.get(0).key, batch.size(), server,
+                                    result.getCode());
+                        }
+                        complete();
+                    }
+                    
+                    @Override
+                    public void onError(Throwable throwable) {
+                        Loggers.RAFT.error("[RAFT] failed to publish data to peer", throwable);
+                        complete();
+                    }
+                    
+                    @Override
+                    public void onCancel() {
+                        complete();
+                    }
+                });
+            } catch (Exception e) {
+                Loggers.RAFT.error("[RAFT] failed to publish data to peer", e);
+                synchronized (this) {
+                    inFlight = false;
+                }
+            }
+        }
+        
+        /**
+         * Ack the datums of a batch the follower has applied, the others are repaired by the beats of the leader.
+         */
+        private void ackApplied(List<Replication> batch, String results) {
+            JsonNode applied;
+            try {
+                applied = JacksonUtils.toObj(results);
+            } catch (Exception e) {
+                Loggers.RAFT.warn("[RAFT] unknown batch publish result from peer {}: {}", server, results);
+                return;
+            }
+            int failed = 0;
+            for (int i = 0; i < batch.size(); i++) {
+                if (applied.path(i).asBoolean(false)) {
+                    batch.get(i).ack();
+                } else {
+                    failed++;
+                }
+            }
+            if (failed > 0) {
+                Loggers.RAFT.warn("[RAFT] peer {} failed to apply {} of {} datums, first datumId={}", server, failed,
+                        batch.size(), batch.get(0).key);
+            }
+        }
+        
+        private void requeue(List<Replication> batch) {
+            synchronized (this) {
+                List<Replication> pending = new ArrayList<>(batch);
+                pending.addAll(queue);
+                queue.clear();
+                queue.addAll(pending);
+            }
+        }
+        
+        private void complete() {
+            synchronized (this) {
+                inFlight = false;
+            }
+            sendNext();
+        }
+    }
+}
@@ -26,11 +26,13 @@ import com.alibaba.nacos.auth.annotation.Secured;
 import com.alibaba.nacos.auth.common.ActionTypes;
 import com.alibaba.nacos.common.utils.JacksonUtils;
 import com.alibaba.nacos.core.utils.WebUtils;
+import com.alibaba.nacos.naming.core.DistroMapper;
 import com.alibaba.nacos.naming.core.Instance;
 import com.alibaba.nacos.naming.core.Service;
 import com.alibaba.nacos.naming.core.ServiceManager;
 import com.alibaba.nacos.naming.healthcheck.RsInfo;
 import com.alibaba.nacos.naming.misc.Loggers;
+import com.alibaba.nacos.naming.misc.NamingProxy;
 import com.alibaba.nacos.naming.misc.SwitchDomain;
 import com.alibaba.nacos.naming.misc.SwitchEntry;
 import com.alibaba.nacos.naming.misc.UtilsAndCommons;
@@ -42,6 +44,7 @@ import com.alibaba.nacos.naming.push.PushService;
 import com.alibaba.nacos.naming.web.CanDistro;
 import com.alibaba.nacos.naming.web.NamingResourceParser;
 import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.commons.collections.CollectionUtils;
@@ -82,6 +85,16 @@ import static com.alibaba.nacos.naming.misc.UtilsAndCommons.UPDATE_INSTANCE_META
 @RequestMapping(UtilsAndCommons.NACOS_NAMING_CONTEXT + "/instance")
 public class InstanceController {
     
+    private static final String BEATS_NOT_FOUND = "notFound";
+    
+    private static final String BATCH_QUERY_SERVICES = "services";
+    
+    private static final String BATCH_QUERY_CLUSTERS = "clusters";
+    
+    private static final String QUERY_METADATA = "metadata";
+    
+    private static final String BATCH_STATUSES_KEYS = "keys";
+    
     @Autowired
     private SwitchDomain switchDomain;
     
@@ -91,6 +104,9 @@ public class InstanceController {
     @Autowired
     private ServiceManager serviceManager;
     
+    @Autowired
+    private DistroMapper distroMapper;
+    
     private DataSource pushDataSource = new DataSource() {
         
         @Override
@@ -100,7 +116,8 @@ public class InstanceController {
             try {
                 result = doSrvIpxt(client.getNamespaceId(), client.getServiceName(), client.getAgent(),
                         client.getClusters(), client.getSocketAddr().getAddress().getHostAddress(), 0,
-                        StringUtils.EMPTY, false, StringUtils.EMPTY, StringUtils.EMPTY, false);
+                        StringUtils.EMPTY, false, StringUtils.EMPTY, StringUtils.EMPTY, false, 0L,
+                        client.getMetadata());
             } catch (Exception e) {
                 Loggers.SRV_LOG.warn("PUSH-SERVICE: service is not modified", e);
             }
@@ -390,8 +407,60 @@ public class InstanceController {
         
         boolean healthyOnly = Boolean.parseBoolean(WebUtils.optional(request, "healthyOnly", "false"));
         
+        long pushLeaseMillis = Long.parseLong(WebUtils.optional(request, "pushLeaseMillis", "0"));
+        
+        String metadata = WebUtils.optional(request, QUERY_METADATA, StringUtils.EMPTY);
+        Map<String, String> metadataPredicates = StringUtils.isBlank(metadata) ? null
+                : JacksonUtils.toObj(metadata, new TypeReference<Map<String, String>>() {
+                });
+        
         return doSrvIpxt(namespaceId, serviceName, agent, clusters, clientIP, udpPort, env, isCheck, app, tenant,
-                healthyOnly);
+                healthyOnly, pushLeaseMillis, metadataPredicates);
+    }
+    
+    /**
+     * Get all instances of several services in one request.
+     *
+     * <p>The services are given as a json array of {"serviceName": "", "clusters": ""}, the other parameters are the
+     * same as {@link #list(HttpServletRequest)} and apply to every service. The results are returned under "services"
+     * in the order of the query.
+     *
+     * @param request http request
+     * @return list of instance for every service
+     * @throws Exception any error during list
+     */
+    @PostMapping("/list/batch")
+    @Secured(parser = NamingResourceParser.class, action = ActionTypes.READ)
+    public ObjectNode batchList(HttpServletRequest request) throws Exception {
+        
+        String namespaceId = WebUtils.optional(request, CommonParams.NAMESPACE_ID, Constants.DEFAULT_NAMESPACE_ID);
+        JsonNode queries = JacksonUtils.toObj(WebUtils.required(request, BATCH_QUERY_SERVICES));
+        
+        String agent = WebUtils.getUserAgent(request);
+        String clientIP = WebUtils.optional(request, "clientIP", StringUtils.EMPTY);
+        int udpPort = Integer.parseInt(WebUtils.optional(request, "udpPort", "0"));
+        String env = WebUtils.optional(request, "env", StringUtils.EMPTY);
+        boolean isCheck = Boolean.parseBoolean(WebUtils.optional(request, "isCheck", "false"));
+        String app = WebUtils.optional(request, "app", StringUtils.EMPTY);
+        String tenant = WebUtils.optional(request, "tid", StringUtils.EMPTY);
+        boolean healthyOnly = Boolean.parseBoolean(WebUtils.optional(request, "healthyOnly", "false"));
+        long pushLeaseMillis = Long.parseLong(WebUtils.optional(request, "pushLeaseMillis", "0"));
+        
+        ArrayNode services = JacksonUtils.createEmptyArrayNode();
+        for (JsonNode query : queries) {
+            String serviceName = query.path(CommonParams.SERVICE_NAME).asText();
+            NamingUtils.checkServiceNameFormat(serviceName);
+            String clusters = query.path(BATCH_QUERY_CLUSTERS).asText(StringUtils.EMPTY);
+            Map<String, String> metadataPredicates = query.has(QUERY_METADATA) ? JacksonUtils
+                    .toObj(query.get(QUERY_METADATA).toString(), new TypeReference<Map<String, String>>() {
+                    }) : null;
+            services.add(doSrvIpxt(namespaceId, serviceName, agent, clusters, clientIP, udpPort, env, isCheck, app,
+                    tenant, healthyOnly, pushLeaseMillis, metadataPredicates));
+        }
+        
+        ObjectNode result = JacksonUtils.createEmptyJsonNode();
+        result.replace(BATCH_QUERY_SERVICES, services);
+        return result;
     }
     
     /**
@@ -460,35 +529,38 @@ public class InstanceController {
         result.put(SwitchEntry.CLIENT_BEAT_INTERVAL, switchDomain.getClientBeatInterval());
         
         String beat = WebUtils.optional(request, "beat", StringUtils.EMPTY);
-        RsInfo clientBeat = null;
-        if (StringUtils.isNotBlank(beat)) {
-            clientBeat = JacksonUtils.toObj(beat, RsInfo.class);
-        }
         String clusterName = WebUtils
                 .optional(request, CommonParams.CLUSTER_NAME, UtilsAndCommons.DEFAULT_CLUSTER_NAME);
         String ip = WebUtils.optional(request, "ip", StringUtils.EMPTY);
         int port = Integer.parseInt(WebUtils.optional(request, "port", "0"));
-        if (clientBeat != null) {
-            if (StringUtils.isNotBlank(clientBeat.getCluster())) {
+        RsInfo clientBeat = null;
+        // clients always send the address of the instance as parameters, the beat body is only needed by old clients
+        // or to register the instance again
+        if (StringUtils.isBlank(ip) || port <= 0) {
+            clientBeat = parseClientBeat(beat, clusterName);
+            if (clientBeat != null) {
                 clusterName = clientBeat.getCluster();
-            } else {
-                // fix #2533
-                clientBeat.setCluster(clusterName);
+                ip = clientBeat.getIp();
+                port = clientBeat.getPort();
             }
-            ip = clientBeat.getIp();
-            port = clientBeat.getPort();
         }
         String namespaceId = WebUtils.optional(request, CommonParams.NAMESPACE_ID, Constants.DEFAULT_NAMESPACE_ID);
         String serviceName = WebUtils.required(request, CommonParams.SERVICE_NAME);
         NamingUtils.checkServiceNameFormat(serviceName);
-        Loggers.SRV_LOG.debug("[CLIENT-BEAT] full arguments: beat: {}, serviceName: {}", clientBeat, serviceName);
+        if (Loggers.SRV_LOG.isDebugEnabled()) {
+            Loggers.SRV_LOG.debug("[CLIENT-BEAT] full arguments: beat: {}, serviceName: {}", beat, serviceName);
+        }
         Instance instance = serviceManager.getInstance(namespaceId, serviceName, clusterName, ip, port);
         
         if (instance == null) {
+            if (clientBeat == null) {
+                clientBeat = parseClientBeat(beat, clusterName);
+            }
             if (clientBeat == null) {
                 result.put(CommonParams.CODE, NamingResponseCode.RESOURCE_NOT_FOUND);
                 return result;
             }
+            clusterName = clientBeat.getCluster();
             
             Loggers.SRV_LOG.warn("[CLIENT-BEAT] The instance has been removed for health mechanism, "
                     + "perform data compensation operations, beat: {}, serviceName: {}", clientBeat, serviceName);
@@ -528,6 +600,108 @@ public class InstanceController {
         return result;
     }
     
+    private RsInfo parseClientBeat(String beat, String clusterName) {
+        if (StringUtils.isBlank(beat)) {
+            return null;
+        }
+        RsInfo clientBeat = JacksonUtils.toObj(beat, RsInfo.class);
+        if (StringUtils.isBlank(clientBeat.getCluster())) {
+            // fix #2533
+            clientBeat.setCluster(clusterName);
+        }
+        return clientBeat;
+    }
+    
+    /**
+     * Create beats for a batch of instances of one namespace.
+     *
+     * <p>Only light beats are accepted, instances which are not found are reported back by their positions in the
+     * batch so that the client can register them again. Beats of services handled by other servers are forwarded to
+     * them in one request per server.
+     *
+     * @param request http request
+     * @return beat interval and positions of the instances not found
+     * @throws Exception any error during handle
+     */
+    @PutMapping("/beat/batch")
+    @Secured(parser = NamingResourceParser.class, action = ActionTypes.WRITE)
+    public ObjectNode batchBeat(HttpServletRequest request) throws Exception {
+        
+        String namespaceId = WebUtils.optional(request, CommonParams.NAMESPACE_ID, Constants.DEFAULT_NAMESPACE_ID);
+        String beats = WebUtils.required(request, "beats");
+        List<RsInfo> clientBeats = JacksonUtils.toObj(beats, new TypeReference<List<RsInfo>>() {
+        });
+        boolean fromPeer = StringUtils
+                .contains(WebUtils.getUserAgent(request), UtilsAndCommons.NACOS_SERVER_HEADER);
+        
+        Map<String, List<Integer>> localIndexes = new HashMap<>(16);
+        Map<String, List<Integer>> forwardIndexes = new HashMap<>(8);
+        ArrayNode notFound = JacksonUtils.createEmptyArrayNode();
+        for (int i = 0; i < clientBeats.size(); i++) {
+            RsInfo clientBeat = clientBeats.get(i);
+            String serviceName = clientBeat.getServiceName();
+            NamingUtils.checkServiceNameFormat(serviceName);
+            if (StringUtils.isBlank(clientBeat.getCluster())) {
+                clientBeat.setCluster(UtilsAndCommons.DEFAULT_CLUSTER_NAME);
+            }
+            if (!fromPeer && !distroMapper.responsible(serviceName)) {
+                forwardIndexes.computeIfAbsent(distroMapper.mapSrv(serviceName), server -> new ArrayList<>()).add(i);
+                continue;
+            }
+            Instance instance = serviceManager
+                    .getInstance(namespaceId, serviceName, clientBeat.getCluster(), clientBeat.getIp(),
+                            clientBeat.getPort());
+            if (instance == null) {
+                notFound.add(i);
+                continue;
+            }
+            localIndexes.computeIfAbsent(serviceName, name -> new ArrayList<>()).add(i);
+        }
+        
+        for (Map.Entry<String, List<Integer>> entry : localIndexes.entrySet()) {
+            Service service = serviceManager.getService(namespaceId, entry.getKey());
+            if (service == null) {
+                // removed in the meantime, let the clients register again
+                for (int index : entry.getValue()) {
+                    notFound.add(index);
+                }
+                continue;
+            }
+            List<RsInfo> serviceBeats = new ArrayList<>(entry.getValue().size());
+            for (int index : entry.getValue()) {
+                serviceBeats.add(clientBeats.get(index));
+            }
+            service.processClientBeats(serviceBeats);
+        }
+        
+        for (Map.Entry<String, List<Integer>> entry : forwardIndexes.entrySet()) {
+            forwardBeats(namespaceId, clientBeats, entry.getKey(), entry.getValue(), notFound);
+        }
+        
+        ObjectNode result = JacksonUtils.createEmptyJsonNode();
+        result.put(CommonParams.CODE, NamingResponseCode.OK);
+        result.put(SwitchEntry.CLIENT_BEAT_INTERVAL, switchDomain.getClientBeatInterval());
+        result.put(SwitchEntry.LIGHT_BEAT_ENABLED, switchDomain.isLightBeatEnabled());
+        result.replace(BEATS_NOT_FOUND, notFound);
+        return result;
+    }
+    
+    private void forwardBeats(String namespaceId, List<RsInfo> clientBeats, String server, List<Integer> indexes,
+            ArrayNode notFound) {
+        List<RsInfo> forwarded = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            forwarded.add(clientBeats.get(index));
+        }
+        String response = NamingProxy.batchBeat(namespaceId, JacksonUtils.toJson(forwarded), server);
+        if (response == null) {
+            // the beats are lost this round, the next round will retry them
+            return;
+        }
+        for (JsonNode each : JacksonUtils.toObj(response).path(BEATS_NOT_FOUND)) {
+            notFound.add(indexes.get(each.asInt()));
+        }
+    }
+    
     /**
      * List all instance with health status.
      *
@@ -538,6 +712,43 @@ public class InstanceController {
     @RequestMapping("/statuses")
     public ObjectNode listWithHealthStatus(@RequestParam String key) throws NacosException {
         
+        Service service = getServiceByStatusKey(key);
+        
+        if (service == null) {
+            throw new NacosException(NacosException.NOT_FOUND, "service: " + key + " not found.");
+        }
+        
+        return healthStatuses(service);
+    }
+    
+    /**
+     * List all instances with health status for several services, used by peers to sync service statuses in one
+     * request.
+     *
+     * @param request http request
+     * @return instances with health status by key, services not found are absent
+     * @throws NacosException any error during handle
+     */
+    @PostMapping("/statuses/batch")
+    public ObjectNode batchListWithHealthStatus(HttpServletRequest request) throws NacosException {
+        
+        JsonNode keys = JacksonUtils.toObj(WebUtils.required(request, BATCH_STATUSES_KEYS));
+        
+        ObjectNode services = JacksonUtils.createEmptyJsonNode();
+        for (JsonNode key : keys) {
+            Service service = getServiceByStatusKey(key.asText());
+            if (service != null) {
+                services.replace(key.asText(), healthStatuses(service));
+            }
+        }
+        
+        ObjectNode result = JacksonUtils.createEmptyJsonNode();
+        result.replace(BATCH_QUERY_SERVICES, services);
+        return result;
+    }
+    
+    private Service getServiceByStatusKey(String key) {
+        
         String serviceName;
         String namespaceId;
         
@@ -549,11 +760,10 @@ public class InstanceController {
             serviceName = key;
         }
         NamingUtils.checkServiceNameFormat(serviceName);
-        Service service = serviceManager.getService(namespaceId, serviceName);
-        
-        if (service == null) {
-            throw new NacosException(NacosException.NOT_FOUND, "service: " + serviceName + " not found.");
-        }
+        return serviceManager.getService(namespaceId, serviceName);
+    }
+    
+    private ObjectNode healthStatuses(Service service) {
         
         List<Instance> ips = service.allIPs();
         
@@ -655,6 +865,33 @@ public class InstanceController {
      */
     public ObjectNode doSrvIpxt(String namespaceId, String serviceName, String agent, String clusters, String clientIP,
             int udpPort, String env, boolean isCheck, String app, String tid, boolean healthyOnly) throws Exception {
+        return doSrvIpxt(namespaceId, serviceName, agent, clusters, clientIP, udpPort, env, isCheck, app, tid,
+                healthyOnly, 0L, null);
+    }
+    
+    /**
+     * Get service full information with the instances matching the metadata, keeping the push client for the lease
+     * it asks for.
+     *
+     * @param namespaceId     namespace id
+     * @param serviceName     service name
+     * @param agent           agent infor string
+     * @param clusters        cluster names
+     * @param clientIP        client ip
+     * @param udpPort         push udp port
+     * @param env             env
+     * @param isCheck         is check request
+     * @param app             app name
+     * @param tid             tenant
+     * @param healthyOnly     whether only for healthy check
+     * @param pushLeaseMillis time to keep the push client after this request, 0 for the push cache millis
+     * @param metadata        metadata predicates the instances are filtered with, null for all instances
+     * @return service full information with instances
+     * @throws Exception any error during handle
+     */
+    public ObjectNode doSrvIpxt(String namespaceId, String serviceName, String agent, String clusters, String clientIP,
+            int udpPort, String env, boolean isCheck, String app, String tid, boolean healthyOnly,
+            long pushLeaseMillis, Map<String, String> metadata) throws Exception {
         
         ClientInfo clientInfo = new ClientInfo(agent);
         ObjectNode result = JacksonUtils.createEmptyJsonNode();
@@ -667,8 +904,12 @@ public class InstanceController {
                 
                 pushService
                         .addClient(namespaceId, serviceName, clusters, agent, new InetSocketAddress(clientIP, udpPort),
-                                pushDataSource, tid, app);
+                                pushDataSource, tid, app, pushLeaseMillis, metadata);
                 cacheMillis = switchDomain.getPushCacheMillis(serviceName);
+                if (pushLeaseMillis > 0) {
+                    // confirms the lease to the client, which then polls less often
+                    result.put("pushLeaseMillis", pushService.getPushLeaseMillis(serviceName, pushLeaseMillis));
+                }
             }
         } catch (Exception e) {
             Loggers.SRV_LOG
@@ -691,7 +932,7 @@ public class InstanceController {
         
         List<Instance> srvedIPs;
         
-        srvedIPs = service.srvIPs(Arrays.asList(StringUtils.split(clusters, ",")));
+        srvedIPs = service.srvIPs(Arrays.asList(StringUtils.split(clusters, ",")), metadata);
         
         // filter ips using selector:
         if (service.getSelector() != null && StringUtils.isNotBlank(clientIP)) {
@@ -31,6 +31,7 @@ import com.alibaba.nacos.naming.consistency.persistent.raft.RaftPeer;
 import com.alibaba.nacos.naming.core.Instances;
 import com.alibaba.nacos.naming.core.Service;
 import com.alibaba.nacos.naming.core.ServiceManager;
+import com.alibaba.nacos.naming.misc.Loggers;
 import com.alibaba.nacos.naming.misc.NetUtils;
 import com.alibaba.nacos.naming.misc.SwitchDomain;
 import com.alibaba.nacos.naming.misc.UtilsAndCommons;
@@ -122,7 +123,9 @@ public class RaftController {
         
         RaftPeer peer = raftCore.receivedBeat(JacksonUtils.toObj(json.get("beat").asText()));
         
-        return JacksonUtils.transferToJsonNode(peer);
+        ObjectNode result = (ObjectNode) JacksonUtils.transferToJsonNode(peer);
+        result.put("beatAck", raftCore.getBeatAckIndex());
+        return result;
     }
     
     /**
@@ -306,27 +309,52 @@ public class RaftController {
         String value = URLDecoder.decode(entity, "UTF-8");
         
         JsonNode jsonObject = JacksonUtils.toObj(value);
-        String key = "key";
         
         RaftPeer source = JacksonUtils.toObj(jsonObject.get("source").toString(), RaftPeer.class);
-        JsonNode datumJson = jsonObject.get("datum");
-        
-        Datum datum = null;
-        if (KeyBuilder.matchInstanceListKey(datumJson.get(key).asText())) {
-            datum = JacksonUtils.toObj(jsonObject.get("datum").toString(), new TypeReference<Datum<Instances>>() {
-            });
-        } else if (KeyBuilder.matchSwitchKey(datumJson.get(key).asText())) {
-            datum = JacksonUtils.toObj(jsonObject.get("datum").toString(), new TypeReference<Datum<SwitchDomain>>() {
-            });
-        } else if (KeyBuilder.matchServiceMetaKey(datumJson.get(key).asText())) {
-            datum = JacksonUtils.toObj(jsonObject.get("datum").toString(), new TypeReference<Datum<Service>>() {
-            });
-        }
+        Datum datum = parseDatum(jsonObject.get("datum"));
         
         raftConsistencyService.onPut(datum, source);
         return "ok";
     }
     
+    /**
+     * Commit a batch of published datums in order.
+     *
+     * @param request  http request
+     * @param response http response
+     * @return json array with whether each datum has been applied
+     * @throws Exception exception
+     */
+    @PostMapping("/datum/commit/batch")
+    public String onPublishBatch(HttpServletRequest request, HttpServletResponse response) throws Exception {
+        if (versionJudgement.allMemberIsNewVersion()) {
+            throw new IllegalStateException("old raft protocol already stop");
+        }
+        response.setHeader("Content-Type", "application/json; charset=" + getAcceptEncoding(request));
+        response.setHeader("Cache-Control", "no-cache");
+        response.setHeader("Content-Encode", "gzip");
+        
+        String entity = IoUtils.toString(request.getInputStream(), "UTF-8");
+        String value = URLDecoder.decode(entity, "UTF-8");
+        
+        JsonNode jsonObject = JacksonUtils.toObj(value);
+        
+        RaftPeer source = JacksonUtils.toObj(jsonObject.get("source").toString(), RaftPeer.class);
+        JsonNode datums = jsonObject.get("datums");
+        ArrayNode results = JacksonUtils.createEmptyArrayNode();
+        for (JsonNode datumJson : datums) {
+            try {
+                raftConsistencyService.onPut(parseDatum(datumJson), source);
+                results.add(true);
+            } catch (Exception e) {
+                // the leader acks only the applied datums, the beats repair the others
+                Loggers.RAFT.warn("[RAFT] failed to apply datum of batch, key={}", datumJson.path("key").asText(), e);
+                results.add(false);
+            }
+        }
+        return results.toString();
+    }
+    
     /**
      * Commit delete datum.
      *
@@ -403,4 +431,21 @@ public class RaftController {
         encode = encode.contains(",") ? encode.substring(0, encode.indexOf(",")) : encode;
         return encode.contains(";") ? encode.substring(0, encode.indexOf(";")) : encode;
     }
+    
+    private Datum parseDatum(JsonNode datumJson) {
+        String key = datumJson.get("key").asText();
+        if (KeyBuilder.matchInstanceListKey(key)) {
+            return JacksonUtils.toObj(datumJson.toString(), new TypeReference<Datum<Instances>>() {
+            });
+        }
+        if (KeyBuilder.matchSwitchKey(key)) {
+            return JacksonUtils.toObj(datumJson.toString(), new TypeReference<Datum<SwitchDomain>>() {
+            });
+        }
+        if (KeyBuilder.matchServiceMetaKey(key)) {
+            return JacksonUtils.toObj(datumJson.toString(), new TypeReference<Datum<Service>>() {
+            });
+        }
+        return null;
+    }
 }
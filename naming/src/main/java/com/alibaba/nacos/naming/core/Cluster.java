@@ -16,6 +16,8 @@
 
 package com.alibaba.nacos.naming.core;
 
+import com.alibaba.nacos.common.utils.IPUtil;
+import com.alibaba.nacos.naming.healthcheck.ClientBeatExpiryIndex;
 import com.alibaba.nacos.naming.healthcheck.HealthCheckReactor;
 import com.alibaba.nacos.naming.healthcheck.HealthCheckStatus;
 import com.alibaba.nacos.naming.healthcheck.HealthCheckTask;
@@ -28,6 +30,7 @@ import org.springframework.util.Assert;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -48,6 +51,8 @@ public class Cluster extends com.alibaba.nacos.api.naming.pojo.Cluster implement
     
     private static final long serialVersionUID = 8940123791150907510L;
     
+    private static final int MAX_INDEXED_METADATA_KEYS = 8;
+    
     /**
      * a addition for same site routing, can group multiple sites into a region, like Hangzhou, Shanghai, etc.
      */
@@ -66,6 +71,18 @@ public class Cluster extends com.alibaba.nacos.api.naming.pojo.Cluster implement
     @JsonIgnore
     private Set<Instance> ephemeralInstances = new HashSet<>();
     
+    @JsonIgnore
+    private volatile Map<String, Instance> persistentInstanceIndex = Collections.emptyMap();
+    
+    @JsonIgnore
+    private volatile Map<String, Instance> ephemeralInstanceIndex = Collections.emptyMap();
+    
+    /**
+     * Instances of both kinds by the value of each metadata key queried since the last update, dropped on update.
+     */
+    @JsonIgnore
+    private volatile Map<String, MetadataIndex> metadataIndex = new ConcurrentHashMap<>(4);
+    
     @JsonIgnore
     private Service service;
     
@@ -137,6 +154,81 @@ public class Cluster extends com.alibaba.nacos.api.naming.pojo.Cluster implement
         return ephemeral ? new ArrayList<>(ephemeralInstances) : new ArrayList<>(persistentInstances);
     }
     
+    /**
+     * Get the instances whose metadata hold all the given values.
+     *
+     * <p>A metadata key is indexed when it is queried, up to {@link #MAX_INDEXED_METADATA_KEYS} keys per cluster, the
+     * least recently queried key is evicted for a new one. {@link #updateIps(List, boolean)} drops all the indexes, so
+     * only the keys queried again are indexed again. Candidates are taken from the smallest slice of the index among
+     * the queried keys, and all the predicates are checked against each candidate.
+     *
+     * @param metadataPredicates expected value of each metadata key
+     * @return matched instances
+     */
+    public List<Instance> selectIPs(Map<String, String> metadataPredicates) {
+        if (metadataPredicates == null || metadataPredicates.isEmpty()) {
+            return allIPs();
+        }
+        Map<String, MetadataIndex> index = metadataIndex;
+        Collection<Instance> candidates = null;
+        for (Map.Entry<String, String> predicate : metadataPredicates.entrySet()) {
+            MetadataIndex valueIndex = index.get(predicate.getKey());
+            if (valueIndex == null) {
+                while (index.size() >= MAX_INDEXED_METADATA_KEYS) {
+                    evictLeastQueried(index);
+                }
+                valueIndex = index.computeIfAbsent(predicate.getKey(), this::buildMetadataIndex);
+            }
+            valueIndex.lastQueried = System.nanoTime();
+            List<Instance> matched = valueIndex.instances.getOrDefault(predicate.getValue(), Collections.emptyList());
+            if (candidates == null || matched.size() < candidates.size()) {
+                candidates = matched;
+            }
+        }
+        
+        List<Instance> result = new ArrayList<>(candidates.size());
+        for (Instance ip : candidates) {
+            if (matches(ip, metadataPredicates)) {
+                result.add(ip);
+            }
+        }
+        return result;
+    }
+    
+    private static boolean matches(Instance ip, Map<String, String> metadataPredicates) {
+        for (Map.Entry<String, String> predicate : metadataPredicates.entrySet()) {
+            if (!Objects.equals(predicate.getValue(), ip.getMetadata().get(predicate.getKey()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * Get instance by ip and port, persistent instances first.
+     *
+     * @param ip   ip of instance
+     * @param port port of instance
+     * @return instance or null if not found
+     */
+    public Instance getInstance(String ip, int port) {
+        String key = buildIndexKey(ip, port);
+        Instance instance = persistentInstanceIndex.get(key);
+        return instance != null ? instance : ephemeralInstanceIndex.get(key);
+    }
+    
+    /**
+     * Get ephemeral or consistence instance by ip and port.
+     *
+     * @param ip        ip of instance
+     * @param port      port of instance
+     * @param ephemeral whether the instance is ephemeral
+     * @return instance or null if not found
+     */
+    public Instance getInstance(String ip, int port, boolean ephemeral) {
+        return (ephemeral ? ephemeralInstanceIndex : persistentInstanceIndex).get(buildIndexKey(ip, port));
+    }
+    
     /**
      * Init cluster.
      */
@@ -157,6 +249,10 @@ public class Cluster extends com.alibaba.nacos.api.naming.pojo.Cluster implement
         if (checkTask != null) {
             checkTask.setCancelled(true);
         }
+        ClientBeatExpiryIndex clientBeatExpiryIndex = HealthCheckReactor.getClientBeatExpiryIndex();
+        for (Instance ip : ephemeralInstances) {
+            clientBeatExpiryIndex.remove(service, ip);
+        }
     }
     
     @JsonIgnore
@@ -294,12 +390,59 @@ public class Cluster extends com.alibaba.nacos.api.naming.pojo.Cluster implement
             }
         }
         
+        if (ephemeral) {
+            ClientBeatExpiryIndex clientBeatExpiryIndex = HealthCheckReactor.getClientBeatExpiryIndex();
+            for (Instance ip : deadIPs) {
+                clientBeatExpiryIndex.remove(getService(), ip);
+            }
+            for (Instance ip : ips) {
+                clientBeatExpiryIndex.refresh(getService(), ip);
+            }
+        }
+        
         toUpdateInstances = new HashSet<>(ips);
         
+        // the index is never modified after being published, readers see either the old or the new one
+        Map<String, Instance> instanceIndex = new HashMap<>(ips.size() * 4 / 3 + 1);
+        for (Instance ip : ips) {
+            instanceIndex.put(buildIndexKey(ip.getIp(), ip.getPort()), ip);
+        }
+        instanceIndex = Collections.unmodifiableMap(instanceIndex);
+        
         if (ephemeral) {
             ephemeralInstances = toUpdateInstances;
+            ephemeralInstanceIndex = instanceIndex;
         } else {
             persistentInstances = toUpdateInstances;
+            persistentInstanceIndex = instanceIndex;
+        }
+        
+        // the instance sets have been replaced above, the next queries index the new ones
+        metadataIndex = new ConcurrentHashMap<>(4);
+    }
+    
+    private MetadataIndex buildMetadataIndex(String key) {
+        Map<String, List<Instance>> valueIndex = new HashMap<>(16);
+        for (Instance ip : allIPs()) {
+            String value = ip.getMetadata().get(key);
+            if (value != null) {
+                valueIndex.computeIfAbsent(value, v -> new ArrayList<>()).add(ip);
+            }
+        }
+        return new MetadataIndex(valueIndex);
+    }
+    
+    private static void evictLeastQueried(Map<String, MetadataIndex> index) {
+        String leastQueried = null;
+        long lastQueried = 0L;
+        for (Map.Entry<String, MetadataIndex> entry : index.entrySet()) {
+            if (leastQueried == null || entry.getValue().lastQueried - lastQueried < 0) {
+                leastQueried = entry.getKey();
+                lastQueried = entry.getValue().lastQueried;
+            }
+        }
+        if (leastQueried != null) {
+            index.remove(leastQueried);
         }
     }
     
@@ -439,8 +582,28 @@ public class Cluster extends com.alibaba.nacos.api.naming.pojo.Cluster implement
         this.sitegroup = sitegroup;
     }
     
+    private static String buildIndexKey(String ip, int port) {
+        return ip + IPUtil.IP_PORT_SPLITER + port;
+    }
+    
+    /**
+     * Whether the cluster contains the instance.
+     *
+     * @param ip instance
+     * @return true if an equal instance exists
+     */
     public boolean contains(Instance ip) {
-        return persistentInstances.contains(ip) || ephemeralInstances.contains(ip);
+        if (ip.getPort() == 0) {
+            // port 0 matches any port of the ip, which can not be looked up in the index
+            return persistentInstances.contains(ip) || ephemeralInstances.contains(ip);
+        }
+        String key = buildIndexKey(ip.getIp(), ip.getPort());
+        Instance instance = persistentInstanceIndex.get(key);
+        if (instance != null && ip.equals(instance)) {
+            return true;
+        }
+        instance = ephemeralInstanceIndex.get(key);
+        return instance != null && ip.equals(instance);
     }
     
     /**
@@ -459,4 +622,19 @@ public class Cluster extends com.alibaba.nacos.api.naming.pojo.Cluster implement
                     "cluster name can only have these characters: 0-9a-zA-Z-, current: " + getName());
         }
     }
+    
+    /**
+     * Instances by the value of one metadata key.
+     */
+    private static class MetadataIndex {
+        
+        private final Map<String, List<Instance>> instances;
+        
+        private volatile long lastQueried;
+        
+        MetadataIndex(Map<String, List<Instance>> instances) {
+            this.instances = instances;
+            this.lastQueried = System.nanoTime();
+        }
+    }
 }
\ No newline at end of file
@@ -22,7 +22,6 @@ import com.alibaba.nacos.common.utils.MD5Utils;
 import com.alibaba.nacos.api.common.Constants;
 import com.alibaba.nacos.naming.consistency.KeyBuilder;
 import com.alibaba.nacos.naming.consistency.RecordListener;
-import com.alibaba.nacos.naming.healthcheck.ClientBeatCheckTask;
 import com.alibaba.nacos.naming.healthcheck.ClientBeatProcessor;
 import com.alibaba.nacos.naming.healthcheck.HealthCheckReactor;
 import com.alibaba.nacos.naming.healthcheck.RsInfo;
@@ -64,9 +63,6 @@ public class Service extends com.alibaba.nacos.api.naming.pojo.Service implement
     
     private static final String SERVICE_NAME_SYNTAX = "[0-9a-zA-Z@\\.:_-]+";
     
-    @JsonIgnore
-    private ClientBeatCheckTask clientBeatCheckTask = new ClientBeatCheckTask(this);
-    
     /**
      * Identify the information used to determine how many isEmpty judgments the service has experienced.
      */
@@ -132,6 +128,18 @@ public class Service extends com.alibaba.nacos.api.naming.pojo.Service implement
         HealthCheckReactor.scheduleNow(clientBeatProcessor);
     }
     
+    /**
+     * Process a batch of client beats of this service in one task.
+     *
+     * @param rsInfos metrics info of servers
+     */
+    public void processClientBeats(final List<RsInfo> rsInfos) {
+        ClientBeatProcessor clientBeatProcessor = new ClientBeatProcessor();
+        clientBeatProcessor.setService(this);
+        clientBeatProcessor.setRsInfos(rsInfos);
+        HealthCheckReactor.scheduleNow(clientBeatProcessor);
+    }
+    
     public Boolean getEnabled() {
         return enabled;
     }
@@ -292,7 +300,6 @@ public class Service extends com.alibaba.nacos.api.naming.pojo.Service implement
      * Init service.
      */
     public void init() {
-        HealthCheckReactor.scheduleCheck(clientBeatCheckTask);
         for (Map.Entry<String, Cluster> entry : clusterMap.entrySet()) {
             entry.getValue().setService(this);
             entry.getValue().init();
@@ -308,7 +315,6 @@ public class Service extends com.alibaba.nacos.api.naming.pojo.Service implement
         for (Map.Entry<String, Cluster> entry : clusterMap.entrySet()) {
             entry.getValue().destroy();
         }
-        HealthCheckReactor.cancelCheck(clientBeatCheckTask);
     }
     
     /**
@@ -326,6 +332,21 @@ public class Service extends com.alibaba.nacos.api.naming.pojo.Service implement
         return true;
     }
     
+    /**
+     * Whether any cluster of the service contains the instance.
+     *
+     * @param instance instance
+     * @return true if an equal instance exists
+     */
+    public boolean containsInstance(Instance instance) {
+        for (Cluster cluster : clusterMap.values()) {
+            if (cluster.contains(instance)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
     /**
      * Get all instance.
      *
@@ -388,6 +409,28 @@ public class Service extends com.alibaba.nacos.api.naming.pojo.Service implement
         return allIPs(clusters);
     }
     
+    /**
+     * Get instances from input clusters whose metadata match all the predicates.
+     *
+     * @param clusters           cluster names, if clusters is empty, use all cluster
+     * @param metadataPredicates expected value of each metadata key, if empty, return all instances of the clusters
+     * @return matched instances from input clusters
+     */
+    public List<Instance> srvIPs(List<String> clusters, Map<String, String> metadataPredicates) {
+        if (metadataPredicates == null || metadataPredicates.isEmpty()) {
+            return srvIPs(clusters);
+        }
+        Collection<String> clusterNames = CollectionUtils.isEmpty(clusters) ? clusterMap.keySet() : clusters;
+        List<Instance> result = new ArrayList<>();
+        for (String cluster : clusterNames) {
+            Cluster clusterObj = clusterMap.get(cluster);
+            if (clusterObj != null) {
+                result.addAll(clusterObj.selectIPs(metadataPredicates));
+            }
+        }
+        return result;
+    }
+    
     public String toJson() {
         return JacksonUtils.toJson(this);
     }
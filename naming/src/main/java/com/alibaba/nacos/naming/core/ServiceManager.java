@@ -54,6 +54,7 @@ import javax.annotation.PostConstruct;
 import javax.annotation.Resource;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -62,10 +63,9 @@ import java.util.Set;
 import java.util.StringJoiner;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
-import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -86,11 +86,21 @@ public class ServiceManager implements RecordListener<Service> {
      */
     private final Map<String, Map<String, Service>> serviceMap = new ConcurrentHashMap<>();
     
-    private final LinkedBlockingDeque<ServiceKey> toBeUpdatedServicesQueue = new LinkedBlockingDeque<>(1024 * 1024);
+    private static final int MAX_UPDATED_SERVICES = 1024 * 1024;
     
-    private final Synchronizer synchronizer = new ServiceStatusSynchronizer();
+    private static final int SERVICE_UPDATE_BATCH_SIZE = 100;
+    
+    private final LinkedBlockingQueue<String> toBeUpdatedServicesQueue = new LinkedBlockingQueue<>(
+            MAX_UPDATED_SERVICES);
+    
+    /**
+     * Latest update request of each service in the queue, a service is queued only once until it is processed.
+     */
+    private final Map<String, ServiceKey> pendingUpdatedServices = new ConcurrentHashMap<>();
+    
+    private final Semaphore serviceUpdatePermits = new Semaphore(GlobalExecutor.SERVICE_UPDATE_THREAD_COUNT);
     
-    private final Lock lock = new ReentrantLock();
+    private final Synchronizer synchronizer = new ServiceStatusSynchronizer();
     
     @Resource(name = "consistencyDelegate")
     private ConsistencyService consistencyService;
@@ -166,25 +176,29 @@ public class ServiceManager implements RecordListener<Service> {
     /**
      * Add a service into queue to update.
      *
+     * <p>If the service is already waiting in the queue, only its server ip and checksum are replaced.
+     *
      * @param namespaceId namespace
      * @param serviceName service name
      * @param serverIP    target server ip
      * @param checksum    checksum of service
      */
     public void addUpdatedServiceToQueue(String namespaceId, String serviceName, String serverIP, String checksum) {
-        lock.lock();
-        try {
-            toBeUpdatedServicesQueue
-                    .offer(new ServiceKey(namespaceId, serviceName, serverIP, checksum), 5, TimeUnit.MILLISECONDS);
-        } catch (Exception e) {
-            toBeUpdatedServicesQueue.poll();
-            toBeUpdatedServicesQueue.add(new ServiceKey(namespaceId, serviceName, serverIP, checksum));
-            Loggers.SRV_LOG.error("[DOMAIN-STATUS] Failed to add service to be updated to queue.", e);
-        } finally {
-            lock.unlock();
+        String key = UtilsAndCommons.assembleFullServiceName(namespaceId, serviceName);
+        ServiceKey serviceKey = new ServiceKey(namespaceId, serviceName, serverIP, checksum);
+        if (pendingUpdatedServices.put(key, serviceKey) != null) {
+            return;
+        }
+        if (!toBeUpdatedServicesQueue.offer(key)) {
+            pendingUpdatedServices.remove(key, serviceKey);
+            Loggers.SRV_LOG.error("[DOMAIN-STATUS] Failed to add service to be updated to queue, queue is full.");
         }
     }
     
+    public int getUpdatedServiceQueueSize() {
+        return toBeUpdatedServicesQueue.size();
+    }
+    
     @Override
     public boolean interests(String key) {
         return KeyBuilder.matchServiceMetaKey(key) && !KeyBuilder.matchSwitchKey(key);
@@ -257,49 +271,74 @@ public class ServiceManager implements RecordListener<Service> {
         //get changed service from other server asynchronously
         @Override
         public void run() {
-            ServiceKey serviceKey = null;
-            
-            try {
-                while (true) {
+            List<String> keys = new ArrayList<>(SERVICE_UPDATE_BATCH_SIZE);
+            while (true) {
+                try {
+                    keys.add(toBeUpdatedServicesQueue.take());
+                    toBeUpdatedServicesQueue.drainTo(keys, MAX_UPDATED_SERVICES);
+                    submitServiceUpdates(keys);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                } catch (Exception e) {
+                    Loggers.EVT_LOG.error("[UPDATE-DOMAIN] Exception while update services: {}", keys, e);
+                } finally {
+                    keys.clear();
+                }
+            }
+        }
+        
+        /**
+         * Group the services by the server to sync from, and fetch at most {@link #SERVICE_UPDATE_BATCH_SIZE}
+         * services in one request. Waits while all updaters are busy, so that services changed again in the meantime
+         * are merged in the queue.
+         */
+        private void submitServiceUpdates(List<String> keys) throws InterruptedException {
+            Map<String, List<ServiceKey>> serverServiceKeys = new HashMap<>(8);
+            for (String key : keys) {
+                ServiceKey serviceKey = pendingUpdatedServices.remove(key);
+                if (serviceKey != null) {
+                    serverServiceKeys.computeIfAbsent(serviceKey.getServerIP(), server -> new ArrayList<>())
+                            .add(serviceKey);
+                }
+            }
+            for (Map.Entry<String, List<ServiceKey>> entry : serverServiceKeys.entrySet()) {
+                List<ServiceKey> serviceKeys = entry.getValue();
+                for (int start = 0; start < serviceKeys.size(); start += SERVICE_UPDATE_BATCH_SIZE) {
+                    int end = Math.min(start + SERVICE_UPDATE_BATCH_SIZE, serviceKeys.size());
+                    serviceUpdatePermits.acquire();
                     try {
-                        serviceKey = toBeUpdatedServicesQueue.take();
+                        GlobalExecutor.submitServiceUpdate(
+                                new ServiceUpdater(entry.getKey(), new ArrayList<>(serviceKeys.subList(start, end))));
                     } catch (Exception e) {
-                        Loggers.EVT_LOG.error("[UPDATE-DOMAIN] Exception while taking item from LinkedBlockingDeque.");
+                        serviceUpdatePermits.release();
+                        throw e;
                     }
-                    
-                    if (serviceKey == null) {
-                        continue;
-                    }
-                    GlobalExecutor.submitServiceUpdate(new ServiceUpdater(serviceKey));
                 }
-            } catch (Exception e) {
-                Loggers.EVT_LOG.error("[UPDATE-DOMAIN] Exception while update service: {}", serviceKey, e);
             }
         }
     }
     
     private class ServiceUpdater implements Runnable {
         
-        String namespaceId;
-        
-        String serviceName;
-        
         String serverIP;
         
-        public ServiceUpdater(ServiceKey serviceKey) {
-            this.namespaceId = serviceKey.getNamespaceId();
-            this.serviceName = serviceKey.getServiceName();
-            this.serverIP = serviceKey.getServerIP();
+        List<ServiceKey> serviceKeys;
+        
+        public ServiceUpdater(String serverIP, List<ServiceKey> serviceKeys) {
+            this.serverIP = serverIP;
+            this.serviceKeys = serviceKeys;
         }
         
         @Override
         public void run() {
             try {
-                updatedHealthStatus(namespaceId, serviceName, serverIP);
+                updatedHealthStatus(serverIP, serviceKeys);
             } catch (Exception e) {
-                Loggers.SRV_LOG
-                        .warn("[DOMAIN-UPDATER] Exception while update service: {} from {}, error: {}", serviceName,
-                                serverIP, e);
+                Loggers.SRV_LOG.warn("[DOMAIN-UPDATER] Exception while update {} services from {}, error: {}",
+                        serviceKeys.size(), serverIP, e);
+            } finally {
+                serviceUpdatePermits.release();
             }
         }
     }
@@ -317,6 +356,31 @@ public class ServiceManager implements RecordListener<Service> {
      */
     public void updatedHealthStatus(String namespaceId, String serviceName, String serverIP) {
         Message msg = synchronizer.get(serverIP, UtilsAndCommons.assembleFullServiceName(namespaceId, serviceName));
+        updatedHealthStatus(namespaceId, serviceName, msg);
+    }
+    
+    private void updatedHealthStatus(String serverIP, List<ServiceKey> serviceKeys) {
+        List<String> keys = new ArrayList<>(serviceKeys.size());
+        for (ServiceKey serviceKey : serviceKeys) {
+            keys.add(UtilsAndCommons.assembleFullServiceName(serviceKey.getNamespaceId(), serviceKey.getServiceName()));
+        }
+        Map<String, Message> messages = synchronizer.batchGet(serverIP, keys);
+        for (int i = 0; i < serviceKeys.size(); i++) {
+            ServiceKey serviceKey = serviceKeys.get(i);
+            Message msg = messages.get(keys.get(i));
+            if (msg == null) {
+                continue;
+            }
+            try {
+                updatedHealthStatus(serviceKey.getNamespaceId(), serviceKey.getServiceName(), msg);
+            } catch (Exception e) {
+                Loggers.SRV_LOG.warn("[DOMAIN-UPDATER] Exception while update service: {} from {}, error: {}",
+                        serviceKey.getServiceName(), serverIP, e);
+            }
+        }
+    }
+    
+    private void updatedHealthStatus(String namespaceId, String serviceName, Message msg) {
         JsonNode serviceJson = JacksonUtils.toObj(msg.getData());
         
         ArrayNode ipList = (ArrayNode) serviceJson.get("ips");
@@ -530,7 +594,7 @@ public class ServiceManager implements RecordListener<Service> {
                     "service not found, namespace: " + namespaceId + ", service: " + serviceName);
         }
         
-        if (!service.allIPs().contains(instance)) {
+        if (!service.containsInstance(instance)) {
             throw new NacosException(NacosException.INVALID_PARAM, "instance not exist: " + instance);
         }
         
@@ -606,9 +670,10 @@ public class ServiceManager implements RecordListener<Service> {
         if (all) {
             locatedInstance = ((Instances) datum.value).getInstanceList();
         } else {
+            Map<String, Instance> sources = buildLocateIndex(((Instances) datum.value).getInstanceList());
             locatedInstance = new ArrayList<>();
             for (Instance instance : waitLocateInstance) {
-                Instance located = locateInstance(((Instances) datum.value).getInstanceList(), instance);
+                Instance located = locateInstance(sources, instance);
                 if (located == null) {
                     continue;
                 }
@@ -619,18 +684,29 @@ public class ServiceManager implements RecordListener<Service> {
         return locatedInstance;
     }
     
-    private Instance locateInstance(List<Instance> sources, Instance target) {
+    private Map<String, Instance> buildLocateIndex(List<Instance> sources) {
         if (CollectionUtils.isEmpty(sources)) {
-            return null;
+            return Collections.emptyMap();
         }
-        
+        Map<String, Instance> index = new HashMap<>(sources.size() * 4 / 3 + 1);
         for (Instance element : sources) {
-            //also need clusterName equals, the same instance maybe exist in two cluster.
-            if (Objects.equals(element, target) && Objects.equals(element.getClusterName(), target.getClusterName())) {
-                return element;
-            }
+            index.putIfAbsent(buildLocateKey(element.getIp(), element.getPort(), element.getClusterName()), element);
+        }
+        return index;
+    }
+    
+    private Instance locateInstance(Map<String, Instance> sources, Instance target) {
+        //also need clusterName equals, the same instance maybe exist in two cluster.
+        Instance element = sources.get(buildLocateKey(target.getIp(), target.getPort(), target.getClusterName()));
+        if (element == null) {
+            // port 0 of the existing instance matches any port
+            element = sources.get(buildLocateKey(target.getIp(), 0, target.getClusterName()));
         }
-        return null;
+        return Objects.equals(element, target) ? element : null;
+    }
+    
+    private String buildLocateKey(String ip, int port, String clusterName) {
+        return ip + IPUtil.IP_PORT_SPLITER + port + IPUtil.IP_PORT_SPLITER + clusterName;
     }
     
     /**
@@ -696,21 +772,12 @@ public class ServiceManager implements RecordListener<Service> {
             return null;
         }
         
-        List<String> clusters = new ArrayList<>();
-        clusters.add(cluster);
-        
-        List<Instance> ips = service.allIPs(clusters);
-        if (ips == null || ips.isEmpty()) {
+        Cluster clusterObj = service.getClusterMap().get(cluster);
+        if (clusterObj == null) {
             return null;
         }
         
-        for (Instance instance : ips) {
-            if (instance.getIp().equals(ip) && instance.getPort() == port) {
-                return instance;
-            }
-        }
-        
-        return null;
+        return clusterObj.getInstance(ip, port);
     }
     
     /**
@@ -0,0 +1,328 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.healthcheck;
+
+import com.alibaba.nacos.common.http.Callback;
+import com.alibaba.nacos.common.model.RestResult;
+import com.alibaba.nacos.common.utils.IPUtil;
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import com.alibaba.nacos.naming.core.DistroMapper;
+import com.alibaba.nacos.naming.core.Instance;
+import com.alibaba.nacos.naming.core.Service;
+import com.alibaba.nacos.naming.healthcheck.events.InstanceHeartbeatTimeoutEvent;
+import com.alibaba.nacos.naming.misc.GlobalConfig;
+import com.alibaba.nacos.naming.misc.HttpClient;
+import com.alibaba.nacos.naming.misc.Loggers;
+import com.alibaba.nacos.naming.misc.NamingProxy;
+import com.alibaba.nacos.naming.misc.SwitchDomain;
+import com.alibaba.nacos.naming.misc.UtilsAndCommons;
+import com.alibaba.nacos.naming.push.PushService;
+import com.alibaba.nacos.sys.env.EnvUtil;
+import com.alibaba.nacos.sys.utils.ApplicationUtils;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Deadline ordered index of ephemeral instances, which checks and updates the statues of the instances and removes
+ * them if they have been expired.
+ *
+ * <p>Every ephemeral instance is put into a timing wheel at the time it would cross the heart beat timeout or the ip
+ * delete timeout. A client beat moves the instance forward, so only the instances really missing their beats are
+ * visited. The index is split into shards to keep the lock contention of concurrent beats low.
+ *
+ * @author nacos
+ */
+public class ClientBeatExpiryIndex implements Runnable {
+    
+    private static final int SHARD_COUNT = 16;
+    
+    private static final int TICKS_PER_WHEEL = 512;
+    
+    private final Shard[] shards = new Shard[SHARD_COUNT];
+    
+    public ClientBeatExpiryIndex(long tickMillis) {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard(new TimeoutWheel<>(tickMillis, TICKS_PER_WHEEL, now));
+        }
+    }
+    
+    @JsonIgnore
+    public PushService getPushService() {
+        return ApplicationUtils.getBean(PushService.class);
+    }
+    
+    @JsonIgnore
+    public DistroMapper getDistroMapper() {
+        return ApplicationUtils.getBean(DistroMapper.class);
+    }
+    
+    public GlobalConfig getGlobalConfig() {
+        return ApplicationUtils.getBean(GlobalConfig.class);
+    }
+    
+    public SwitchDomain getSwitchDomain() {
+        return ApplicationUtils.getBean(SwitchDomain.class);
+    }
+    
+    /**
+     * Add the instance to the index or move it forward according to its last beat.
+     *
+     * @param service  service of the instance
+     * @param instance ephemeral instance
+     */
+    public void refresh(Service service, Instance instance) {
+        String key = buildKey(service, instance);
+        Shard shard = shardOf(key);
+        long deadline = nextDeadline(instance, System.currentTimeMillis());
+        shard.lock.lock();
+        try {
+            Entry entry = shard.entries.get(key);
+            if (entry == null) {
+                entry = new Entry(key, service, instance);
+                shard.entries.put(key, entry);
+            } else {
+                entry.service = service;
+                entry.instance = instance;
+                entry.timeout.cancel();
+            }
+            entry.timeout = shard.wheel.schedule(entry, deadline);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+    
+    /**
+     * Remove the instance from the index.
+     *
+     * @param service  service of the instance
+     * @param instance ephemeral instance
+     */
+    public void remove(Service service, Instance instance) {
+        String key = buildKey(service, instance);
+        Shard shard = shardOf(key);
+        shard.lock.lock();
+        try {
+            Entry entry = shard.entries.remove(key);
+            if (entry != null) {
+                entry.timeout.cancel();
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+    
+    /**
+     * Get count of indexed instances.
+     *
+     * @return count of instances
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.entries.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+    
+    @Override
+    public void run() {
+        List<Entry> expired = new ArrayList<>();
+        for (Shard shard : shards) {
+            long now = System.currentTimeMillis();
+            shard.lock.lock();
+            try {
+                shard.wheel.expire(now, expired::add);
+            } finally {
+                shard.lock.unlock();
+            }
+            for (Entry entry : expired) {
+                try {
+                    check(entry, now);
+                } catch (Exception e) {
+                    Loggers.SRV_LOG.warn("Exception while processing client beat time out.", e);
+                }
+                reschedule(shard, entry, nextDeadline(entry.instance, now));
+            }
+            expired.clear();
+        }
+    }
+    
+    /**
+     * Check an instance whose deadline has passed.
+     *
+     * @param entry expired entry
+     * @param now   current time
+     */
+    void check(Entry entry, long now) {
+        Service service = entry.service;
+        Instance instance = entry.instance;
+        
+        if (!getDistroMapper().responsible(service.getName())) {
+            return;
+        }
+        
+        if (!getSwitchDomain().isHealthCheckEnabled()) {
+            return;
+        }
+        
+        if (instance.isMarked()) {
+            return;
+        }
+        
+        // first set health status of instance:
+        if (now - instance.getLastBeat() > instance.getInstanceHeartBeatTimeOut() && instance.isHealthy()) {
+            instance.setHealthy(false);
+            Loggers.EVT_LOG
+                    .info("{POS} {IP-DISABLED} valid: {}:{}@{}@{}, region: {}, msg: client timeout after {}, last beat: {}",
+                            instance.getIp(), instance.getPort(), instance.getClusterName(), service.getName(),
+                            UtilsAndCommons.LOCALHOST_SITE, instance.getInstanceHeartBeatTimeOut(),
+                            instance.getLastBeat());
+            getPushService().serviceChanged(service);
+            ApplicationUtils.publishEvent(new InstanceHeartbeatTimeoutEvent(this, instance));
+        }
+        
+        if (!getGlobalConfig().isExpireInstance()) {
+            return;
+        }
+        
+        // then remove obsolete instance:
+        if (now - instance.getLastBeat() > instance.getIpDeleteTimeout()) {
+            Loggers.SRV_LOG
+                    .info("[AUTO-DELETE-IP] service: {}, ip: {}", service.getName(), JacksonUtils.toJson(instance));
+            deleteIp(service, instance);
+        }
+    }
+    
+    /**
+     * The next time the instance needs a visit: crossing the heart beat timeout while healthy, crossing the ip delete
+     * timeout while unhealthy. An instance which has already crossed both, is marked, or whose service is handled by
+     * another server, is visited again after a heart beat timeout.
+     */
+    private long nextDeadline(Instance instance, long now) {
+        long lastBeat = instance.getLastBeat();
+        long deadline = instance.isHealthy() ? lastBeat + instance.getInstanceHeartBeatTimeOut()
+                : lastBeat + instance.getIpDeleteTimeout();
+        // deadline is exclusive, see check
+        deadline += 1;
+        return deadline > now ? deadline : now + instance.getInstanceHeartBeatTimeOut();
+    }
+    
+    private void reschedule(Shard shard, Entry entry, long deadline) {
+        shard.lock.lock();
+        try {
+            // skip the entry if it has been removed or replaced in the meantime
+            if (shard.entries.get(entry.key) != entry) {
+                return;
+            }
+            entry.timeout.cancel();
+            entry.timeout = shard.wheel.schedule(entry, deadline);
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+    
+    private Shard shardOf(String key) {
+        return shards[(key.hashCode() & Integer.MAX_VALUE) % SHARD_COUNT];
+    }
+    
+    private String buildKey(Service service, Instance instance) {
+        return service.getNamespaceId() + UtilsAndCommons.NAMESPACE_SERVICE_CONNECTOR + service.getName()
+                + UtilsAndCommons.NAMESPACE_SERVICE_CONNECTOR + instance.getDatumKey();
+    }
+    
+    private void deleteIp(Service service, Instance instance) {
+        
+        try {
+            NamingProxy.Request request = NamingProxy.Request.newRequest();
+            request.appendParam("ip", instance.getIp()).appendParam("port", String.valueOf(instance.getPort()))
+                    .appendParam("ephemeral", "true").appendParam("clusterName", instance.getClusterName())
+                    .appendParam("serviceName", service.getName()).appendParam("namespaceId", service.getNamespaceId());
+            
+            String url = "http://" + IPUtil.localHostIP() + IPUtil.IP_PORT_SPLITER + EnvUtil.getPort() + EnvUtil
+                    .getContextPath() + UtilsAndCommons.NACOS_NAMING_CONTEXT + "/instance?" + request.toUrl();
+            
+            // delete instance asynchronously:
+            HttpClient.asyncHttpDelete(url, null, null, new Callback<String>() {
+                @Override
+                public void onReceive(RestResult<String> result) {
+                    if (!result.ok()) {
+                        Loggers.SRV_LOG
+                                .error("[IP-DEAD] failed to delete ip automatically, ip: {}, caused {}, resp code: {}",
+                                        instance.toJson(), result.getMessage(), result.getCode());
+                    }
+                }
+                
+                @Override
+                public void onError(Throwable throwable) {
+                    Loggers.SRV_LOG
+                            .error("[IP-DEAD] failed to delete ip automatically, ip: {}, error: {}", instance.toJson(),
+                                    throwable);
+                }
+                
+                @Override
+                public void onCancel() {
+                    
+                }
+            });
+            
+        } catch (Exception e) {
+            Loggers.SRV_LOG
+                    .error("[IP-DEAD] failed to delete ip automatically, ip: {}, error: {}", instance.toJson(), e);
+        }
+    }
+    
+    private static class Shard {
+        
+        final ReentrantLock lock = new ReentrantLock();
+        
+        final Map<String, Entry> entries = new HashMap<>();
+        
+        final TimeoutWheel<Entry> wheel;
+        
+        Shard(TimeoutWheel<Entry> wheel) {
+            this.wheel = wheel;
+        }
+    }
+    
+    static class Entry {
+        
+        final String key;
+        
+        volatile Service service;
+        
+        volatile Instance instance;
+        
+        TimeoutWheel.Timeout<Entry> timeout;
+        
+        Entry(String key, Service service, Instance instance) {
+            this.key = key;
+            this.service = service;
+            this.instance = instance;
+        }
+    }
+}
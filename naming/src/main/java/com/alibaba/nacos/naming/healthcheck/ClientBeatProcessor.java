@@ -25,6 +25,7 @@ import com.alibaba.nacos.naming.misc.UtilsAndCommons;
 import com.alibaba.nacos.naming.push.PushService;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 
+import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -37,7 +38,7 @@ public class ClientBeatProcessor implements Runnable {
     
     public static final long CLIENT_BEAT_TIMEOUT = TimeUnit.SECONDS.toMillis(15);
     
-    private RsInfo rsInfo;
+    private List<RsInfo> rsInfos;
     
     private Service service;
     
@@ -47,11 +48,19 @@ public class ClientBeatProcessor implements Runnable {
     }
     
     public RsInfo getRsInfo() {
-        return rsInfo;
+        return rsInfos.get(0);
     }
     
     public void setRsInfo(RsInfo rsInfo) {
-        this.rsInfo = rsInfo;
+        this.rsInfos = Collections.singletonList(rsInfo);
+    }
+    
+    public List<RsInfo> getRsInfos() {
+        return rsInfos;
+    }
+    
+    public void setRsInfos(List<RsInfo> rsInfos) {
+        this.rsInfos = rsInfos;
     }
     
     public Service getService() {
@@ -64,6 +73,16 @@ public class ClientBeatProcessor implements Runnable {
     
     @Override
     public void run() {
+        for (RsInfo rsInfo : rsInfos) {
+            try {
+                processBeat(rsInfo);
+            } catch (Exception e) {
+                Loggers.SRV_LOG.warn("[CLIENT-BEAT] error while processing beat: {}", rsInfo, e);
+            }
+        }
+    }
+    
+    private void processBeat(RsInfo rsInfo) {
         Service service = this.service;
         if (Loggers.EVT_LOG.isDebugEnabled()) {
             Loggers.EVT_LOG.debug("[CLIENT-BEAT] processing beat: {}", rsInfo.toString());
@@ -73,25 +92,26 @@ public class ClientBeatProcessor implements Runnable {
         String clusterName = rsInfo.getCluster();
         int port = rsInfo.getPort();
         Cluster cluster = service.getClusterMap().get(clusterName);
-        List<Instance> instances = cluster.allIPs(true);
+        if (cluster == null) {
+            return;
+        }
+        Instance instance = cluster.getInstance(ip, port, true);
+        if (instance == null) {
+            return;
+        }
         
-        for (Instance instance : instances) {
-            if (instance.getIp().equals(ip) && instance.getPort() == port) {
-                if (Loggers.EVT_LOG.isDebugEnabled()) {
-                    Loggers.EVT_LOG.debug("[CLIENT-BEAT] refresh beat: {}", rsInfo.toString());
-                }
-                instance.setLastBeat(System.currentTimeMillis());
-                if (!instance.isMarked()) {
-                    if (!instance.isHealthy()) {
-                        instance.setHealthy(true);
-                        Loggers.EVT_LOG
-                                .info("service: {} {POS} {IP-ENABLED} valid: {}:{}@{}, region: {}, msg: client beat ok",
-                                        cluster.getService().getName(), ip, port, cluster.getName(),
-                                        UtilsAndCommons.LOCALHOST_SITE);
-                        getPushService().serviceChanged(service);
-                    }
-                }
+        if (Loggers.EVT_LOG.isDebugEnabled()) {
+            Loggers.EVT_LOG.debug("[CLIENT-BEAT] refresh beat: {}", rsInfo.toString());
+        }
+        instance.setLastBeat(System.currentTimeMillis());
+        if (!instance.isMarked()) {
+            if (!instance.isHealthy()) {
+                instance.setHealthy(true);
+                Loggers.EVT_LOG.info("service: {} {POS} {IP-ENABLED} valid: {}:{}@{}, region: {}, msg: client beat ok",
+                        cluster.getService().getName(), ip, port, cluster.getName(), UtilsAndCommons.LOCALHOST_SITE);
+                getPushService().serviceChanged(service);
             }
         }
+        HealthCheckReactor.getClientBeatExpiryIndex().refresh(service, instance);
     }
 }
@@ -17,12 +17,10 @@
 package com.alibaba.nacos.naming.healthcheck;
 
 import com.alibaba.nacos.naming.misc.GlobalExecutor;
-import com.alibaba.nacos.naming.misc.Loggers;
 
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Health check reactor.
@@ -32,7 +30,10 @@ import java.util.concurrent.TimeUnit;
 @SuppressWarnings("PMD.ThreadPoolCreationRule")
 public class HealthCheckReactor {
     
-    private static Map<String, ScheduledFuture> futureMap = new ConcurrentHashMap<>();
+    private static final ClientBeatExpiryIndex CLIENT_BEAT_EXPIRY_INDEX = new ClientBeatExpiryIndex(
+            GlobalExecutor.TICK_PERIOD_MS);
+    
+    private static final AtomicBoolean CLIENT_BEAT_EXPIRY_STARTED = new AtomicBoolean(false);
     
     /**
      * Schedule health check task.
@@ -46,30 +47,16 @@ public class HealthCheckReactor {
     }
     
     /**
-     * Schedule client beat check task with a delay.
+     * Get the client beat expiry index, which is started on first use.
      *
-     * @param task client beat check task
+     * @return client beat expiry index
      */
-    public static void scheduleCheck(ClientBeatCheckTask task) {
-        futureMap.putIfAbsent(task.taskKey(), GlobalExecutor.scheduleNamingHealth(task, 5000, 5000, TimeUnit.MILLISECONDS));
-    }
-    
-    /**
-     * Cancel client beat check task.
-     *
-     * @param task client beat check task
-     */
-    public static void cancelCheck(ClientBeatCheckTask task) {
-        ScheduledFuture scheduledFuture = futureMap.get(task.taskKey());
-        if (scheduledFuture == null) {
-            return;
-        }
-        try {
-            scheduledFuture.cancel(true);
-            futureMap.remove(task.taskKey());
-        } catch (Exception e) {
-            Loggers.EVT_LOG.error("[CANCEL-CHECK] cancel failed!", e);
+    public static ClientBeatExpiryIndex getClientBeatExpiryIndex() {
+        if (!CLIENT_BEAT_EXPIRY_STARTED.get() && CLIENT_BEAT_EXPIRY_STARTED.compareAndSet(false, true)) {
+            GlobalExecutor.scheduleNamingHealth(CLIENT_BEAT_EXPIRY_INDEX, GlobalExecutor.TICK_PERIOD_MS,
+                    GlobalExecutor.TICK_PERIOD_MS, TimeUnit.MILLISECONDS);
         }
+        return CLIENT_BEAT_EXPIRY_INDEX;
     }
     
     /**
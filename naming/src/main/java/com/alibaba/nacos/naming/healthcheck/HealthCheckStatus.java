@@ -39,6 +39,10 @@ public class HealthCheckStatus {
     
     public long checkRt = -1L;
     
+    public volatile long checkInterval = 0L;
+    
+    public volatile long nextCheckTime = 0L;
+    
     private static ConcurrentMap<String, HealthCheckStatus> statusMap = new ConcurrentHashMap<>();
     
     public static void reset(Instance instance) {
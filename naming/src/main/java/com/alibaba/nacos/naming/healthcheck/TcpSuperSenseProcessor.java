@@ -66,6 +66,10 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
     
     public static final int CONNECT_TIMEOUT_MS = 500;
     
+    private static final long TIMEOUT_TICK_MS = 50L;
+    
+    private static final int TIMEOUT_WHEEL_SIZE = 64;
+    
     private Map<String, BeatKey> keyMap = new ConcurrentHashMap<>();
     
     private BlockingQueue<Beat> taskQueue = new LinkedBlockingQueue<Beat>();
@@ -83,6 +87,12 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
     
     private Selector selector;
     
+    /**
+     * connect timeouts of the pending beats, only accessed by the selector loop.
+     */
+    private final TimeoutWheel<SelectionKey> timeoutWheel = new TimeoutWheel<>(TIMEOUT_TICK_MS, TIMEOUT_WHEEL_SIZE,
+            System.currentTimeMillis());
+    
     /**
      * Tcp super sense processor construct.
      *
@@ -107,6 +117,8 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
             return;
         }
         
+        SwitchDomain.TcpHealthParams params = switchDomain.getTcpHealthParams();
+        long now = System.currentTimeMillis();
         for (Instance ip : ips) {
             
             if (ip.isMarked()) {
@@ -116,6 +128,11 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
                 continue;
             }
             
+            if (params.isAdaptiveEnabled() && ip.isHealthy() && HealthCheckStatus.get(ip).nextCheckTime > now) {
+                // stable instance, probed at its own backed-off interval
+                continue;
+            }
+            
             if (!ip.markChecking()) {
                 SRV_LOG.warn("tcp check started before last one finished, service: " + task.getCluster().getService()
                         .getName() + ":" + task.getCluster().getName() + ":" + ip.getIp() + ":" + ip.getPort());
@@ -132,9 +149,11 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
     }
     
     private void processTask() throws Exception {
-        Collection<Callable<Void>> tasks = new LinkedList<>();
+        Collection<Callable<SelectionKey>> tasks = new LinkedList<>();
+        // do not block longer than a tick while there are connect timeouts to fire
+        long waitMillis = timeoutWheel.isEmpty() ? CONNECT_TIMEOUT_MS / 2 : TIMEOUT_TICK_MS;
         do {
-            Beat beat = taskQueue.poll(CONNECT_TIMEOUT_MS / 2, TimeUnit.MILLISECONDS);
+            Beat beat = taskQueue.poll(waitMillis, TimeUnit.MILLISECONDS);
             if (beat == null) {
                 return;
             }
@@ -142,17 +161,28 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
             tasks.add(new TaskProcessor(beat));
         } while (taskQueue.size() > 0 && tasks.size() < NIO_THREAD_COUNT * 64);
         
-        for (Future<?> f : GlobalExecutor.invokeAllTcpSuperSenseTask(tasks)) {
-            f.get();
+        for (Future<SelectionKey> f : GlobalExecutor.invokeAllTcpSuperSenseTask(tasks)) {
+            SelectionKey key = f.get();
+            if (key != null) {
+                Beat beat = (Beat) key.attachment();
+                timeoutWheel.schedule(key, beat.getStartTime() + CONNECT_TIMEOUT_MS);
+            }
         }
     }
     
+    private void processTimeout() {
+        timeoutWheel.expire(System.currentTimeMillis(),
+                key -> GlobalExecutor.executeTcpSuperSense(new TimeOutTask(key)));
+    }
+    
     @Override
     public void run() {
         while (true) {
             try {
                 processTask();
                 
+                processTimeout();
+                
                 int readyCount = selector.selectNow();
                 if (readyCount <= 0) {
                     continue;
@@ -270,6 +300,8 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
         public void finishCheck(boolean success, boolean now, long rt, String msg) {
             ip.setCheckRt(System.currentTimeMillis() - startTime);
             
+            adjustCheckInterval(ip, success);
+            
             if (success) {
                 healthCheckCommon.checkOK(ip, task, msg);
             } else {
@@ -306,6 +338,24 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
         }
     }
     
+    /**
+     * Back off the probe interval of an instance which keeps passing the check, and probe it every round again once
+     * it fails, the interval stays within the configured adaptive bounds.
+     */
+    private void adjustCheckInterval(Instance ip, boolean success) {
+        SwitchDomain.TcpHealthParams params = switchDomain.getTcpHealthParams();
+        HealthCheckStatus status = HealthCheckStatus.get(ip);
+        if (!params.isAdaptiveEnabled() || !success) {
+            status.checkInterval = 0L;
+            status.nextCheckTime = 0L;
+            return;
+        }
+        long interval = status.checkInterval <= 0L ? params.getAdaptiveMinInterval() : status.checkInterval * 2;
+        interval = Math.max(params.getAdaptiveMinInterval(), Math.min(interval, params.getAdaptiveMaxInterval()));
+        status.checkInterval = interval;
+        status.nextCheckTime = System.currentTimeMillis() + interval;
+    }
+    
     private static class BeatKey {
         
         public SelectionKey key;
@@ -351,7 +401,7 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
         }
     }
     
-    private class TaskProcessor implements Callable<Void> {
+    private class TaskProcessor implements Callable<SelectionKey> {
         
         private static final int MAX_WAIT_TIME_MILLISECONDS = 500;
         
@@ -362,7 +412,7 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
         }
         
         @Override
-        public Void call() {
+        public SelectionKey call() {
             long waited = System.currentTimeMillis() - beat.getStartTime();
             if (waited > MAX_WAIT_TIME_MILLISECONDS) {
                 Loggers.SRV_LOG.warn("beat task waited too long: " + waited + "ms");
@@ -401,8 +451,7 @@ public class TcpSuperSenseProcessor implements HealthCheckProcessor, Runnable {
                 
                 beat.setStartTime(System.currentTimeMillis());
                 
-                GlobalExecutor
-                        .scheduleTcpSuperSenseTask(new TimeOutTask(key), CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+                return key;
             } catch (Exception e) {
                 beat.finishCheck(false, false, switchDomain.getTcpHealthParams().getMax(),
                         "tcp:error:" + e.getMessage());
@@ -0,0 +1,187 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.healthcheck;
+
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel for deadlines.
+ *
+ * <p>The wheel is not thread safe and has no thread of its own, the owner is expected to schedule and expire
+ * timeouts from one thread. Scheduling and cancelling are O(1), expiring only visits the buckets of the elapsed ticks.
+ *
+ * @param <T> type of the item attached to each timeout
+ * @author nacos
+ */
+public class TimeoutWheel<T> {
+    
+    private final long tickMillis;
+    
+    private final long startTime;
+    
+    private final int mask;
+    
+    private final Timeout<T>[] buckets;
+    
+    private long currentTick;
+    
+    private int size;
+    
+    @SuppressWarnings("unchecked")
+    public TimeoutWheel(long tickMillis, int ticksPerWheel, long startTime) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be greater than 0: " + tickMillis);
+        }
+        if (ticksPerWheel <= 0) {
+            throw new IllegalArgumentException("ticksPerWheel must be greater than 0: " + ticksPerWheel);
+        }
+        int normalized = 1;
+        while (normalized < ticksPerWheel) {
+            normalized <<= 1;
+        }
+        this.tickMillis = tickMillis;
+        this.startTime = startTime;
+        this.mask = normalized - 1;
+        this.buckets = new Timeout[normalized];
+    }
+    
+    /**
+     * Schedule an item to be expired at the deadline.
+     *
+     * @param item     item attached to the timeout
+     * @param deadline expire time in milliseconds
+     * @return timeout handle which can be used to cancel it
+     */
+    public Timeout<T> schedule(T item, long deadline) {
+        long tick = Math.max((deadline - startTime) / tickMillis, currentTick);
+        Timeout<T> timeout = new Timeout<>(this, item, deadline);
+        timeout.rounds = (tick - currentTick) / buckets.length;
+        timeout.bucket = (int) (tick & mask);
+        Timeout<T> head = buckets[timeout.bucket];
+        timeout.next = head;
+        if (head != null) {
+            head.prev = timeout;
+        }
+        buckets[timeout.bucket] = timeout;
+        size++;
+        return timeout;
+    }
+    
+    /**
+     * Expire all timeouts whose ticks have fully elapsed before now.
+     *
+     * @param now      current time in milliseconds
+     * @param consumer callback for the item of each expired timeout
+     * @return count of expired timeouts
+     */
+    public int expire(long now, Consumer<T> consumer) {
+        long targetTick = (now - startTime) / tickMillis;
+        int expired = 0;
+        while (currentTick < targetTick) {
+            Timeout<T> timeout = buckets[(int) (currentTick & mask)];
+            while (timeout != null) {
+                Timeout<T> next = timeout.next;
+                if (timeout.rounds <= 0) {
+                    unlink(timeout);
+                    consumer.accept(timeout.item);
+                    expired++;
+                } else {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+            currentTick++;
+            if (size == 0) {
+                // nothing left to visit, jump straight to the target tick
+                currentTick = targetTick;
+            }
+        }
+        return expired;
+    }
+    
+    public int size() {
+        return size;
+    }
+    
+    public boolean isEmpty() {
+        return size == 0;
+    }
+    
+    private void unlink(Timeout<T> timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) {
+            timeout.next.prev = timeout.prev;
+        }
+        timeout.prev = null;
+        timeout.next = null;
+        timeout.bucket = -1;
+        size--;
+    }
+    
+    /**
+     * Handle of a scheduled item.
+     *
+     * @param <T> type of the attached item
+     */
+    public static final class Timeout<T> {
+        
+        private final TimeoutWheel<T> wheel;
+        
+        private final T item;
+        
+        private final long deadline;
+        
+        private long rounds;
+        
+        private int bucket;
+        
+        private Timeout<T> prev;
+        
+        private Timeout<T> next;
+        
+        private Timeout(TimeoutWheel<T> wheel, T item, long deadline) {
+            this.wheel = wheel;
+            this.item = item;
+            this.deadline = deadline;
+        }
+        
+        public T getItem() {
+            return item;
+        }
+        
+        public long getDeadline() {
+            return deadline;
+        }
+        
+        /**
+         * Cancel the timeout, must be called from the thread owning the wheel.
+         *
+         * @return true if the timeout was still pending
+         */
+        public boolean cancel() {
+            if (bucket < 0) {
+                return false;
+            }
+            wheel.unlink(this);
+            return true;
+        }
+    }
+}
@@ -64,6 +64,11 @@ public class GlobalExecutor {
             .newSingleScheduledExecutorService(ClassUtils.getCanonicalName(NamingApp.class),
                     new NameThreadFactory("com.alibaba.nacos.naming.service.worker"));
     
+    /**
+     * count of service status updates from other servers running in parallel.
+     */
+    public static final int SERVICE_UPDATE_THREAD_COUNT = 4;
+    
     public static final ScheduledExecutorService SERVICE_UPDATE_MANAGER_EXECUTOR = ExecutorFactory.Managed
             .newSingleScheduledExecutorService(ClassUtils.getCanonicalName(NamingApp.class),
                     new NameThreadFactory("com.alibaba.nacos.naming.service.update.processor"));
@@ -72,7 +77,7 @@ public class GlobalExecutor {
      * thread pool that processes getting service detail from other server asynchronously.
      */
     private static final ExecutorService SERVICE_UPDATE_EXECUTOR = ExecutorFactory.Managed
-            .newFixedExecutorService(ClassUtils.getCanonicalName(NamingApp.class), 2,
+            .newFixedExecutorService(ClassUtils.getCanonicalName(NamingApp.class), SERVICE_UPDATE_THREAD_COUNT,
                     new NameThreadFactory("com.alibaba.nacos.naming.service.update.http.handler"));
     
     private static final ScheduledExecutorService EMPTY_SERVICE_AUTO_CLEAN_EXECUTOR = ExecutorFactory.Managed
@@ -184,10 +189,6 @@ public class GlobalExecutor {
         TCP_SUPER_SENSE_EXECUTOR.execute(runnable);
     }
     
-    public static void scheduleTcpSuperSenseTask(Runnable runnable, long delay, TimeUnit unit) {
-        TCP_SUPER_SENSE_EXECUTOR.schedule(runnable, delay, unit);
-    }
-    
     public static ScheduledFuture<?> scheduleNamingHealth(Runnable command, long delay, TimeUnit unit) {
         return NAMING_HEALTH_EXECUTOR.schedule(command, delay, unit);
     }
@@ -16,8 +16,10 @@
 
 package com.alibaba.nacos.naming.misc;
 
+import com.alibaba.nacos.api.naming.CommonParams;
 import com.alibaba.nacos.common.constant.HttpHeaderConsts;
 import com.alibaba.nacos.common.http.Callback;
+import com.alibaba.nacos.common.http.param.MediaType;
 import com.alibaba.nacos.common.model.RestResult;
 import com.alibaba.nacos.common.utils.IPUtil;
 import com.alibaba.nacos.common.utils.JacksonUtils;
@@ -27,6 +29,8 @@ import org.apache.commons.lang3.StringUtils;
 
 import java.io.IOException;
 import java.net.HttpURLConnection;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -48,6 +52,8 @@ public class NamingProxy {
     
     private static final String TIMESTAMP_SYNC_URL = "/distro/checksum";
     
+    private static final String BATCH_BEAT_URL = "/instance/beat/batch";
+    
     /**
      * Synchronize check sums.
      *
@@ -325,6 +331,40 @@ public class NamingProxy {
         return StringUtils.EMPTY;
     }
     
+    /**
+     * Forward a batch of client beats to the server responsible for them.
+     *
+     * @param namespaceId namespace id of the beats
+     * @param beats       beats in json
+     * @param curServer   target server address
+     * @return content of response if request successfully, otherwise null
+     */
+    public static String batchBeat(String namespaceId, String beats, String curServer) {
+        if (!IPUtil.containsPort(curServer)) {
+            curServer = curServer + IPUtil.IP_PORT_SPLITER + EnvUtil.getPort();
+        }
+        String url = "http://" + curServer + EnvUtil.getContextPath() + UtilsAndCommons.NACOS_NAMING_CONTEXT
+                + BATCH_BEAT_URL;
+        try {
+            Map<String, String> headers = new HashMap<>(4);
+            headers.put(HttpHeaderConsts.CLIENT_VERSION_HEADER, VersionUtils.version);
+            headers.put(HttpHeaderConsts.USER_AGENT_HEADER, UtilsAndCommons.SERVER_VERSION);
+            headers.put(HttpHeaderConsts.CONTENT_TYPE, MediaType.APPLICATION_FORM_URLENCODED);
+            String content = CommonParams.NAMESPACE_ID + "=" + URLEncoder.encode(namespaceId, "UTF-8") + "&beats="
+                    + URLEncoder.encode(beats, "UTF-8");
+            RestResult<String> result = HttpClient
+                    .httpPutLarge(url, headers, content.getBytes(StandardCharsets.UTF_8));
+            if (result.ok()) {
+                return result.getData();
+            }
+            Loggers.SRV_LOG.warn("[CLIENT-BEAT] failed to forward beats to {}, code: {}, msg: {}", curServer,
+                    result.getCode(), result.getMessage());
+        } catch (Exception e) {
+            Loggers.SRV_LOG.warn("[CLIENT-BEAT] failed to forward beats to {}", curServer, e);
+        }
+        return null;
+    }
+    
     public static class Request {
         
         private Map<String, String> params = new HashMap<>(8);
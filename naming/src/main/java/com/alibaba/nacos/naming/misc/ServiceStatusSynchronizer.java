@@ -21,9 +21,13 @@ import com.alibaba.nacos.common.http.Callback;
 import com.alibaba.nacos.common.model.RestResult;
 import com.alibaba.nacos.common.utils.JacksonUtils;
 import com.alibaba.nacos.sys.env.EnvUtil;
+import com.fasterxml.jackson.databind.JsonNode;
 import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpStatus;
 
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -33,6 +37,10 @@ import java.util.Map;
  */
 public class ServiceStatusSynchronizer implements Synchronizer {
     
+    private static final String BATCH_STATUSES_KEYS = "keys";
+    
+    private static final String BATCH_STATUSES_SERVICES = "services";
+    
     @Override
     public void send(final String serverIP, Message msg) {
         if (serverIP == null) {
@@ -111,4 +119,68 @@ public class ServiceStatusSynchronizer implements Synchronizer {
         
         return msg;
     }
+    
+    /**
+     * Get service statuses from server in one request, falls back to one request for each service if the server does
+     * not support it. Any other failure returns no status, and the services are synchronized in the next round.
+     *
+     * @param serverIP source server address
+     * @param keys     (namespace##)?serviceName of services
+     * @return messages by key
+     */
+    @Override
+    public Map<String, Message> batchGet(String serverIP, Collection<String> keys) {
+        if (serverIP == null) {
+            return new HashMap<>(1);
+        }
+        
+        Map<String, String> params = new HashMap<>(1);
+        params.put(BATCH_STATUSES_KEYS, JacksonUtils.toJson(keys));
+        
+        String url = "http://" + (IPUtil.containsPort(serverIP) ? serverIP
+                : serverIP + IPUtil.IP_PORT_SPLITER + EnvUtil.getPort()) + EnvUtil.getContextPath()
+                + UtilsAndCommons.NACOS_NAMING_CONTEXT + "/instance/statuses/batch";
+        
+        if (Loggers.SRV_LOG.isDebugEnabled()) {
+            Loggers.SRV_LOG.debug("[STATUS-SYNCHRONIZE] sync {} service statuses from: {}", keys.size(), serverIP);
+        }
+        RestResult<String> result = HttpClient.httpPost(url, null, params);
+        if (!result.ok()) {
+            if (isBatchUnsupported(result.getCode())) {
+                Loggers.SRV_LOG.warn("[STATUS-SYNCHRONIZE] {} does not support batch get, fall back, code: {}",
+                        serverIP, result.getCode());
+                return Synchronizer.super.batchGet(serverIP, keys);
+            }
+            // the statuses are synchronized again in the next round
+            Loggers.SRV_LOG.warn("[STATUS-SYNCHRONIZE] failed to batch get service statuses from {}, code: {}",
+                    serverIP, result.getCode());
+            return new HashMap<>(1);
+        }
+        
+        Map<String, Message> messages = new HashMap<>(keys.size());
+        try {
+            Iterator<Map.Entry<String, JsonNode>> services = JacksonUtils.toObj(result.getData())
+                    .path(BATCH_STATUSES_SERVICES).fields();
+            while (services.hasNext()) {
+                Map.Entry<String, JsonNode> entry = services.next();
+                Message msg = new Message();
+                msg.setData(entry.getValue().toString());
+                messages.put(entry.getKey(), msg);
+            }
+        } catch (Exception e) {
+            Loggers.SRV_LOG.warn("[STATUS-SYNCHRONIZE] failed to parse service statuses from {}", serverIP, e);
+            return new HashMap<>(1);
+        }
+        return messages;
+    }
+    
+    /**
+     * Whether the response code means the server is older and does not know the batch api.
+     *
+     * @param code http code of the batch request
+     * @return true if the keys should be got one by one
+     */
+    private static boolean isBatchUnsupported(int code) {
+        return code == HttpStatus.NOT_FOUND.value() || code == HttpStatus.METHOD_NOT_ALLOWED.value();
+    }
 }
@@ -44,6 +44,8 @@ public class SwitchDomain implements Record, Cloneable {
     
     private long defaultPushCacheMillis = TimeUnit.SECONDS.toMillis(10);
     
+    private long maxPushLeaseMillis = TimeUnit.SECONDS.toMillis(90);
+    
     private long clientBeatInterval = TimeUnit.SECONDS.toMillis(5);
     
     private long defaultCacheMillis = TimeUnit.SECONDS.toMillis(3);
@@ -197,6 +199,14 @@ public class SwitchDomain implements Record, Cloneable {
         this.defaultPushCacheMillis = defaultPushCacheMillis;
     }
     
+    public long getMaxPushLeaseMillis() {
+        return maxPushLeaseMillis;
+    }
+    
+    public void setMaxPushLeaseMillis(long maxPushLeaseMillis) {
+        this.maxPushLeaseMillis = maxPushLeaseMillis;
+    }
+    
     public long getDefaultCacheMillis() {
         return defaultCacheMillis;
     }
@@ -512,6 +522,15 @@ public class SwitchDomain implements Record, Cloneable {
         
         private float factor = 0.75F;
         
+        /**
+         * whether healthy instances are probed less often than the check task runs.
+         */
+        private boolean adaptiveEnabled = false;
+        
+        private long adaptiveMinInterval = TimeUnit.SECONDS.toMillis(5);
+        
+        private long adaptiveMaxInterval = TimeUnit.SECONDS.toMillis(30);
+        
         @Override
         public int getMax() {
             return max;
@@ -538,5 +557,29 @@ public class SwitchDomain implements Record, Cloneable {
         public void setMin(int min) {
             this.min = min;
         }
+        
+        public boolean isAdaptiveEnabled() {
+            return adaptiveEnabled;
+        }
+        
+        public void setAdaptiveEnabled(boolean adaptiveEnabled) {
+            this.adaptiveEnabled = adaptiveEnabled;
+        }
+        
+        public long getAdaptiveMinInterval() {
+            return adaptiveMinInterval;
+        }
+        
+        public void setAdaptiveMinInterval(long adaptiveMinInterval) {
+            this.adaptiveMinInterval = adaptiveMinInterval;
+        }
+        
+        public long getAdaptiveMaxInterval() {
+            return adaptiveMaxInterval;
+        }
+        
+        public void setAdaptiveMaxInterval(long adaptiveMaxInterval) {
+            this.adaptiveMaxInterval = adaptiveMaxInterval;
+        }
     }
 }
@@ -110,6 +110,13 @@ public class SwitchManager implements RecordListener<SwitchDomain> {
                     throw new IllegalArgumentException("malformed factor");
                 }
                 
+                if (dom.getTcpHealthParams().getAdaptiveMinInterval() <= 0
+                        || dom.getTcpHealthParams().getAdaptiveMinInterval() > dom.getTcpHealthParams()
+                        .getAdaptiveMaxInterval()) {
+                    
+                    throw new IllegalArgumentException("malformed adaptive interval for tcp");
+                }
+                
                 switchDomain = dom;
             }
             
@@ -16,6 +16,10 @@
 
 package com.alibaba.nacos.naming.misc;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  * Synchronizer.
  *
@@ -39,4 +43,22 @@ public interface Synchronizer {
      * @return message
      */
     Message get(String serverIP, String key);
+    
+    /**
+     * Get messages of several keys from server, by default one request for each key.
+     *
+     * @param serverIP source server address
+     * @param keys     message keys
+     * @return messages by key, keys without message are absent
+     */
+    default Map<String, Message> batchGet(String serverIP, Collection<String> keys) {
+        Map<String, Message> result = new HashMap<>(keys.size());
+        for (String key : keys) {
+            Message msg = get(serverIP, key);
+            if (msg != null) {
+                result.put(key, msg);
+            }
+        }
+        return result;
+    }
 }
@@ -46,6 +46,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.Future;
@@ -143,7 +144,7 @@ public class PushService implements ApplicationContextAware, ApplicationListener
                     
                     Receiver.AckEntry ackEntry;
                     Loggers.PUSH.debug("push serviceName: {} to client: {}", serviceName, client.toString());
-                    String key = getPushCacheKey(serviceName, client.getIp(), client.getAgent());
+                    String key = getPushCacheKey(serviceName, client);
                     byte[] compressData = null;
                     Map<String, Object> data = null;
                     if (switchDomain.getDefaultPushCacheMillis() >= 20000 && cache.containsKey(key)) {
@@ -204,9 +205,31 @@ public class PushService implements ApplicationContextAware, ApplicationListener
      */
     public void addClient(String namespaceId, String serviceName, String clusters, String agent,
             InetSocketAddress socketAddr, DataSource dataSource, String tenant, String app) {
+        addClient(namespaceId, serviceName, clusters, agent, socketAddr, dataSource, tenant, app, 0L, null);
+    }
+    
+    /**
+     * Add push target client which asks to be kept for a lease after each refresh.
+     *
+     * @param namespaceId namespace id
+     * @param serviceName service name
+     * @param clusters    cluster
+     * @param agent       agent information
+     * @param socketAddr  client address
+     * @param dataSource  datasource of push data
+     * @param tenant      tenant
+     * @param app         app
+     * @param leaseMillis time to keep the client after a refresh, 0 for the push cache millis of the service
+     * @param metadata    metadata predicates the pushed instances are filtered with, null for all instances
+     */
+    public void addClient(String namespaceId, String serviceName, String clusters, String agent,
+            InetSocketAddress socketAddr, DataSource dataSource, String tenant, String app, long leaseMillis,
+            Map<String, String> metadata) {
         
         PushClient client = new PushClient(namespaceId, serviceName, clusters, agent, socketAddr, dataSource, tenant,
                 app);
+        client.setLeaseMillis(leaseMillis);
+        client.setMetadata(metadata);
         addClient(client);
     }
     
@@ -226,6 +249,8 @@ public class PushService implements ApplicationContextAware, ApplicationListener
         
         PushClient oldClient = clients.get(client.toString());
         if (oldClient != null) {
+            oldClient.setLeaseMillis(client.getLeaseMillis());
+            oldClient.setMetadata(client.getMetadata());
             oldClient.refresh();
         } else {
             PushClient res = clients.putIfAbsent(client.toString(), client);
@@ -236,6 +261,19 @@ public class PushService implements ApplicationContextAware, ApplicationListener
         }
     }
     
+    /**
+     * Get the time a push client of the service is kept without a refresh, clients polling slower than the push cache
+     * millis ask for a longer lease, which is limited by the max push lease.
+     *
+     * @param serviceName service name
+     * @param leaseMillis lease asked by the client, 0 for the push cache millis of the service
+     * @return lease in milliseconds
+     */
+    public long getPushLeaseMillis(String serviceName, long leaseMillis) {
+        return Math.max(switchDomain.getPushCacheMillis(serviceName),
+                Math.min(leaseMillis, switchDomain.getMaxPushLeaseMillis()));
+    }
+    
     /**
      * Get push target client(subscriber).
      *
@@ -365,6 +403,24 @@ public class PushService implements ApplicationContextAware, ApplicationListener
         return serviceName + UtilsAndCommons.CACHE_KEY_SPLITER + agent;
     }
     
+    /**
+     * Get the key of the push data shared by the clients of one change event. The pushed instances depend on the
+     * clusters and the metadata predicates of the client, so they are part of the key.
+     *
+     * @param serviceName service name
+     * @param client      push client
+     * @return push cache key
+     */
+    static String getPushCacheKey(String serviceName, PushClient client) {
+        String key = getPushCacheKey(serviceName, client.getIp(), client.getAgent()) + UtilsAndCommons.CACHE_KEY_SPLITER
+                + client.getClusters();
+        Map<String, String> metadata = client.getMetadata();
+        if (MapUtils.isEmpty(metadata)) {
+            return key;
+        }
+        return key + UtilsAndCommons.CACHE_KEY_SPLITER + JacksonUtils.toJson(new TreeMap<String, String>(metadata));
+    }
+    
     /**
      * Service changed.
      *
@@ -450,6 +506,10 @@ public class PushService implements ApplicationContextAware, ApplicationListener
         
         private Map<String, String[]> params;
         
+        private volatile long leaseMillis;
+        
+        private volatile Map<String, String> metadata;
+        
         public Map<String, String[]> getParams() {
             return params;
         }
@@ -476,8 +536,29 @@ public class PushService implements ApplicationContextAware, ApplicationListener
             return dataSource;
         }
         
+        public Map<String, String> getMetadata() {
+            return metadata;
+        }
+        
+        public void setMetadata(Map<String, String> metadata) {
+            this.metadata = metadata;
+        }
+        
+        public long getLeaseMillis() {
+            return leaseMillis;
+        }
+        
+        public void setLeaseMillis(long leaseMillis) {
+            this.leaseMillis = leaseMillis;
+        }
+        
+        /**
+         * Whether the client has not refreshed for longer than its lease.
+         *
+         * @return true if the client should be removed
+         */
         public boolean zombie() {
-            return System.currentTimeMillis() - lastRefTime > switchDomain.getPushCacheMillis(serviceName);
+            return System.currentTimeMillis() - lastRefTime > getPushLeaseMillis(serviceName, leaseMillis);
         }
         
         @Override
@@ -24,15 +24,19 @@ import com.alibaba.nacos.cmdb.service.CmdbReader;
 import com.alibaba.nacos.common.utils.JacksonUtils;
 import com.alibaba.nacos.sys.utils.ApplicationUtils;
 import com.alibaba.nacos.naming.core.Instance;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonTypeInfo;
 import com.fasterxml.jackson.annotation.JsonTypeInfo.Id;
 
 import org.apache.commons.lang3.StringUtils;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * A selector to implement a so called same-label-prior rule for service discovery.
@@ -52,6 +56,10 @@ import java.util.Set;
  * <p>If no provider has the same label value with the consumer, we fall back to give all providers to the consumer.
  * Note that this fallback strategy may also be abstracted in future to introduce more kinds of behaviors.
  *
+ * <p>The label values of a consumer are compiled into a predicate once, and the result of the predicate is cached per
+ * provider IP. Both are dropped when the label version of the {@link CmdbReader} changes, so a query only costs one
+ * map lookup per provider as long as the CMDB labels stay the same.
+ *
  * @author nkorange
  * @see CmdbReader
  * @since 0.7.0
@@ -66,6 +74,16 @@ public class LabelSelector extends ExpressionSelector implements Selector {
      */
     private Set<String> labels;
     
+    /**
+     * Compiled predicates of consumers, keyed by consumer IP.
+     */
+    @JsonIgnore
+    private final Map<String, ConsumerPredicate> predicates = new ConcurrentHashMap<>();
+    
+    private static final int MAX_CACHED_CONSUMERS = 1024;
+    
+    private static final int MAX_CACHED_PROVIDERS = 4096;
+    
     private static final Set<String> SUPPORTED_INNER_CONNCETORS = new HashSet<>();
     
     private static final Set<String> SUPPORTED_OUTER_CONNCETORS = new HashSet<>();
@@ -90,13 +108,14 @@ public class LabelSelector extends ExpressionSelector implements Selector {
     
     public void setLabels(Set<String> labels) {
         this.labels = labels;
+        predicates.clear();
     }
     
     public LabelSelector() {
         super();
     }
     
-    private CmdbReader getCmdbReader() {
+    CmdbReader getCmdbReader() {
         return ApplicationUtils.getBean(CmdbReader.class);
     }
     
@@ -111,22 +130,12 @@ public class LabelSelector extends ExpressionSelector implements Selector {
             return providers;
         }
         
+        CmdbReader cmdbReader = getCmdbReader();
+        ConsumerPredicate predicate = getPredicate(cmdbReader, consumer);
+        
         List<Instance> instanceList = new ArrayList<>();
         for (Instance instance : providers) {
-            
-            boolean matched = true;
-            for (String labelName : getLabels()) {
-                
-                String consumerLabelValue = getCmdbReader()
-                        .queryLabel(consumer, PreservedEntityTypes.ip.name(), labelName);
-                
-                if (StringUtils.isNotBlank(consumerLabelValue) && !StringUtils.equals(consumerLabelValue,
-                        getCmdbReader().queryLabel(instance.getIp(), PreservedEntityTypes.ip.name(), labelName))) {
-                    matched = false;
-                    break;
-                }
-            }
-            if (matched) {
+            if (predicate.test(cmdbReader, instance.getIp())) {
                 instanceList.add(instance);
             }
         }
@@ -138,6 +147,69 @@ public class LabelSelector extends ExpressionSelector implements Selector {
         return instanceList;
     }
     
+    private ConsumerPredicate getPredicate(CmdbReader cmdbReader, String consumer) {
+        // read the version before the labels, a change in between only causes one more compilation
+        long labelVersion = cmdbReader.getLabelVersion();
+        ConsumerPredicate predicate = predicates.get(consumer);
+        if (predicate != null && predicate.labelVersion == labelVersion) {
+            return predicate;
+        }
+        
+        Map<String, String> consumerLabels = new HashMap<>(labels.size());
+        for (String labelName : labels) {
+            String labelValue = cmdbReader.queryLabel(consumer, PreservedEntityTypes.ip.name(), labelName);
+            if (StringUtils.isNotBlank(labelValue)) {
+                consumerLabels.put(labelName, labelValue);
+            }
+        }
+        predicate = new ConsumerPredicate(labelVersion, consumerLabels);
+        if (predicates.size() >= MAX_CACHED_CONSUMERS) {
+            predicates.clear();
+        }
+        predicates.put(consumer, predicate);
+        return predicate;
+    }
+    
+    /**
+     * Label values a provider must have to match a consumer, together with the results of the providers tested.
+     */
+    private static class ConsumerPredicate {
+        
+        private final long labelVersion;
+        
+        private final Map<String, String> consumerLabels;
+        
+        private final Map<String, Boolean> providerResults = new ConcurrentHashMap<>();
+        
+        ConsumerPredicate(long labelVersion, Map<String, String> consumerLabels) {
+            this.labelVersion = labelVersion;
+            this.consumerLabels = consumerLabels;
+        }
+        
+        boolean test(CmdbReader cmdbReader, String provider) {
+            if (consumerLabels.isEmpty()) {
+                return true;
+            }
+            Boolean result = providerResults.get(provider);
+            if (result != null) {
+                return result.booleanValue();
+            }
+            boolean matched = true;
+            for (Map.Entry<String, String> entry : consumerLabels.entrySet()) {
+                if (!entry.getValue()
+                        .equals(cmdbReader.queryLabel(provider, PreservedEntityTypes.ip.name(), entry.getKey()))) {
+                    matched = false;
+                    break;
+                }
+            }
+            if (providerResults.size() >= MAX_CACHED_PROVIDERS) {
+                providerResults.clear();
+            }
+            providerResults.put(provider, matched);
+            return matched;
+        }
+    }
+    
     /**
      * Expression interpreter for label selector.
      *
@@ -0,0 +1,68 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.consistency.persistent.raft;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class RaftChangeLogTest {
+    
+    @Test
+    public void testDeltaKeepsLatestChangeOfEachKey() {
+        RaftChangeLog changeLog = new RaftChangeLog();
+        changeLog.changed("a");
+        changeLog.changed("b");
+        long acked = changeLog.currentIndex();
+        changeLog.changed("a");
+        changeLog.changed("c");
+        changeLog.changed("a");
+        
+        RaftChangeLog.Delta delta = changeLog.since(acked);
+        Assert.assertEquals(5L, delta.getIndex());
+        Assert.assertEquals(Arrays.asList("c", "a"), delta.getChangedKeys());
+        Assert.assertTrue(delta.getRemovedKeys().isEmpty());
+        Assert.assertTrue(changeLog.since(delta.getIndex()).getChangedKeys().isEmpty());
+        Assert.assertEquals(3, changeLog.size());
+    }
+    
+    @Test
+    public void testRemoveAndPrune() {
+        RaftChangeLog changeLog = new RaftChangeLog();
+        changeLog.changed("a");
+        changeLog.changed("b");
+        changeLog.removed("a");
+        
+        RaftChangeLog.Delta delta = changeLog.since(0L);
+        Assert.assertEquals(Collections.singletonList("b"), delta.getChangedKeys());
+        Assert.assertEquals(Collections.singletonList("a"), delta.getRemovedKeys());
+        
+        // a key put again after its removal is a change
+        changeLog.removed("b");
+        changeLog.changed("a");
+        delta = changeLog.since(2L);
+        Assert.assertEquals(Collections.singletonList("a"), delta.getChangedKeys());
+        Assert.assertEquals(Collections.singletonList("b"), delta.getRemovedKeys());
+        
+        changeLog.prune(changeLog.currentIndex());
+        Assert.assertEquals(1, changeLog.size());
+        Assert.assertTrue(changeLog.since(0L).getRemovedKeys().isEmpty());
+        Assert.assertEquals(Collections.singletonList("a"), changeLog.since(0L).getChangedKeys());
+    }
+}
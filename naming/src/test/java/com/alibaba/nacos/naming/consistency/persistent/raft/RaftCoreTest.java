@@ -0,0 +1,238 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.consistency.persistent.raft;
+
+import com.alibaba.nacos.common.http.Callback;
+import com.alibaba.nacos.common.model.RestResultUtils;
+import com.alibaba.nacos.common.utils.IoUtils;
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import com.alibaba.nacos.naming.consistency.Datum;
+import com.alibaba.nacos.naming.consistency.KeyBuilder;
+import com.alibaba.nacos.naming.consistency.persistent.ClusterVersionJudgement;
+import com.alibaba.nacos.naming.misc.GlobalConfig;
+import com.alibaba.nacos.naming.misc.SwitchDomain;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+public class RaftCoreTest {
+    
+    private static final String FOLLOWER_1 = "127.0.0.2:8848";
+    
+    private static final String FOLLOWER_2 = "127.0.0.3:8848";
+    
+    private static final long EPOCH = 7L;
+    
+    private final Map<String, Callback<String>> beats = new HashMap<>();
+    
+    private final Map<String, JsonNode> beatData = new HashMap<>();
+    
+    private final List<Callback<String>> fetches = new ArrayList<>();
+    
+    private RaftPeerSet peers;
+    
+    private RaftPeer local;
+    
+    private RaftCore raftCore;
+    
+    @Before
+    public void setUp() {
+        local = new RaftPeer();
+        local.ip = "127.0.0.1:8848";
+        peers = Mockito.mock(RaftPeerSet.class);
+        Mockito.when(peers.local()).thenReturn(local);
+        Mockito.when(peers.isReady()).thenReturn(true);
+        Mockito.when(peers.isLeader(ArgumentMatchers.anyString())).thenReturn(true);
+        Mockito.when(peers.allServersWithoutMySelf()).thenReturn(new HashSet<>(Arrays.asList(FOLLOWER_1, FOLLOWER_2)));
+        raftCore = new RaftCore(peers, new SwitchDomain(), Mockito.mock(GlobalConfig.class),
+                Mockito.mock(RaftProxy.class), Mockito.mock(RaftStore.class),
+                Mockito.mock(ClusterVersionJudgement.class), Mockito.mock(RaftListener.class));
+        raftCore.setBeatTransport(new RaftCore.BeatTransport() {
+            @Override
+            public void beat(String server, byte[] content, Callback<String> callback) throws Exception {
+                String entity = new String(IoUtils.tryDecompress(content), StandardCharsets.UTF_8);
+                beatData.put(server, JacksonUtils.toObj(JacksonUtils.toObj(entity).get("beat").asText()));
+                beats.put(server, callback);
+            }
+            
+            @Override
+            public void fetch(String server, String keys, Callback<String> callback) {
+                fetches.add(callback);
+            }
+        });
+    }
+    
+    @Test
+    public void testLeaderChoosesDeltaOrFullPerFollower() {
+        local.state = RaftPeer.State.LEADER;
+        raftCore.addDatum(datum("a"));
+        raftCore.addDatum(datum("b"));
+        
+        sendBeat();
+        for (String follower : Arrays.asList(FOLLOWER_1, FOLLOWER_2)) {
+            Assert.assertFalse(beatData.get(follower).has("fromIndex"));
+            Assert.assertEquals(2L, beatData.get(follower).get("beatIndex").asLong());
+            Assert.assertEquals(2, beatData.get(follower).get("datums").size());
+        }
+        ack(FOLLOWER_1, 2L);
+        ack(FOLLOWER_2, -1L);
+        
+        raftCore.addDatum(datum("c"));
+        sendBeat();
+        Assert.assertEquals(2L, beatData.get(FOLLOWER_1).get("fromIndex").asLong());
+        Assert.assertEquals(1, beatData.get(FOLLOWER_1).get("datums").size());
+        Assert.assertFalse(beatData.get(FOLLOWER_2).has("fromIndex"));
+        Assert.assertEquals(3, beatData.get(FOLLOWER_2).get("datums").size());
+        
+        // a follower which keeps acknowledging delta beats still gets a full digest now and then
+        ack(FOLLOWER_1, 3L);
+        for (int i = 1; i < RaftCore.FULL_DIGEST_BEATS; i++) {
+            sendBeat();
+            Assert.assertTrue(beatData.get(FOLLOWER_1).has("fromIndex"));
+            ack(FOLLOWER_1, 3L);
+        }
+        sendBeat();
+        Assert.assertFalse(beatData.get(FOLLOWER_1).has("fromIndex"));
+        Assert.assertEquals(3, beatData.get(FOLLOWER_1).get("datums").size());
+    }
+    
+    @Test
+    public void testTombstoneKeptUntilEveryFollowerAcked() throws Exception {
+        local.state = RaftPeer.State.LEADER;
+        raftCore.addDatum(datum("a"));
+        sendBeat();
+        ack(FOLLOWER_1, 1L);
+        ack(FOLLOWER_2, 1L);
+        
+        raftCore.onDelete(key("a"), local);
+        sendBeat();
+        for (String follower : Arrays.asList(FOLLOWER_1, FOLLOWER_2)) {
+            Assert.assertEquals(1, beatData.get(follower).get("removed").size());
+        }
+        ack(FOLLOWER_1, 2L);
+        
+        // the second follower has not acknowledged the removal yet
+        sendBeat();
+        Assert.assertEquals(0, beatData.get(FOLLOWER_1).get("removed").size());
+        Assert.assertEquals(1, beatData.get(FOLLOWER_2).get("removed").size());
+        Assert.assertEquals(1, changeLog().size());
+        ack(FOLLOWER_2, 2L);
+        
+        sendBeat();
+        Assert.assertEquals(0, changeLog().size());
+    }
+    
+    @Test
+    public void testFollowerRejectsDiscontinuousDelta() throws Exception {
+        raftCore.receivedBeat(beat(EPOCH, -1L, 5L));
+        Assert.assertEquals(5L, raftCore.getBeatAckIndex());
+        raftCore.receivedBeat(beat(EPOCH, 5L, 8L));
+        Assert.assertEquals(8L, raftCore.getBeatAckIndex());
+        
+        // changes between 8 and 10 are missing
+        raftCore.receivedBeat(beat(EPOCH, 10L, 12L));
+        Assert.assertEquals(-1L, raftCore.getBeatAckIndex());
+        raftCore.receivedBeat(beat(EPOCH, 8L, 12L));
+        Assert.assertEquals(-1L, raftCore.getBeatAckIndex());
+        
+        raftCore.receivedBeat(beat(EPOCH, -1L, 12L));
+        Assert.assertEquals(12L, raftCore.getBeatAckIndex());
+        // a new leader counts from its own index
+        raftCore.receivedBeat(beat(EPOCH + 1, 12L, 13L));
+        Assert.assertEquals(-1L, raftCore.getBeatAckIndex());
+    }
+    
+    @Test
+    public void testFailedFetchResetsAck() throws Exception {
+        Mockito.when(peers.getLeader()).thenReturn(local);
+        JsonNode beat = beat(EPOCH, -1L, 5L);
+        ObjectNode entry = JacksonUtils.createEmptyJsonNode();
+        entry.put("key", KeyBuilder.briefInstanceListkey(key("a")));
+        entry.put("timestamp", 1L);
+        ((ArrayNode) beat.get("datums")).add(entry);
+        
+        raftCore.receivedBeat(beat);
+        Assert.assertEquals(1, fetches.size());
+        Assert.assertEquals(5L, raftCore.getBeatAckIndex());
+        
+        fetches.get(0).onError(new IllegalStateException("connection refused"));
+        Assert.assertEquals(-1L, raftCore.getBeatAckIndex());
+        // the next delta beat does not list the missed key again
+        raftCore.receivedBeat(beat(EPOCH, 5L, 6L));
+        Assert.assertEquals(-1L, raftCore.getBeatAckIndex());
+    }
+    
+    private void sendBeat() {
+        local.heartbeatDueMs = 0;
+        beats.clear();
+        beatData.clear();
+        raftCore.new HeartBeat().run();
+        Assert.assertEquals(2, beats.size());
+    }
+    
+    private void ack(String follower, long index) {
+        ObjectNode response = (ObjectNode) JacksonUtils.transferToJsonNode(new RaftPeer());
+        response.put("beatAck", index);
+        beats.get(follower).onReceive(RestResultUtils.success(response.toString()));
+    }
+    
+    private RaftChangeLog changeLog() {
+        return (RaftChangeLog) ReflectionTestUtils.getField(raftCore, "changeLog");
+    }
+    
+    private JsonNode beat(long epoch, long fromIndex, long beatIndex) {
+        RaftPeer leader = new RaftPeer();
+        leader.ip = "127.0.0.4:8848";
+        leader.state = RaftPeer.State.LEADER;
+        leader.voteFor = leader.ip;
+        ObjectNode beat = JacksonUtils.createEmptyJsonNode();
+        beat.replace("peer", JacksonUtils.transferToJsonNode(leader));
+        beat.put("beatEpoch", epoch);
+        beat.put("beatIndex", beatIndex);
+        if (fromIndex >= 0) {
+            beat.put("fromIndex", fromIndex);
+            beat.replace("removed", JacksonUtils.createEmptyArrayNode());
+        }
+        beat.replace("datums", JacksonUtils.createEmptyArrayNode());
+        return beat;
+    }
+    
+    private static String key(String serviceName) {
+        return KeyBuilder.buildInstanceListKey("public", "DEFAULT_GROUP@@" + serviceName, false);
+    }
+    
+    private static Datum datum(String serviceName) {
+        Datum datum = new Datum();
+        datum.key = key(serviceName);
+        datum.timestamp.set(1L);
+        return datum;
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.consistency.persistent.raft;
+
+import com.alibaba.nacos.common.http.Callback;
+import com.alibaba.nacos.common.model.RestResultUtils;
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import com.alibaba.nacos.naming.consistency.Datum;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Publish throughput of the legacy raft with an in-process leader and followers, run with {@code main}.
+ *
+ * <p>The followers apply the commit requests after a simulated network round trip and check that the updates of every
+ * key arrive in order. The locked mode waits for the majority while holding the publish lock, as the publish did
+ * before the pipeline, so every request carries one datum.
+ *
+ * @author nacos
+ */
+public class RaftPublishBenchmark {
+    
+    private static final int FOLLOWER_COUNT = 4;
+    
+    private static final int PUBLISHER_COUNT = 64;
+    
+    private static final int KEY_COUNT = 256;
+    
+    private static final long ROUND_TRIP_MICROS = 2000L;
+    
+    private static final long DURATION_MILLIS = TimeUnit.SECONDS.toMillis(5);
+    
+    /**
+     * Run the benchmark.
+     *
+     * @param args no arguments
+     * @throws Exception any error during benchmark
+     */
+    public static void main(String[] args) throws Exception {
+        System.out.println("locked:    " + run(false) + " publishes/s");
+        System.out.println("pipelined: " + run(true) + " publishes/s");
+        System.exit(0);
+    }
+    
+    private static long run(boolean pipelined) throws Exception {
+        ScheduledExecutorService network = Executors.newScheduledThreadPool(FOLLOWER_COUNT);
+        List<String> servers = new ArrayList<>();
+        Map<String, Map<String, Long>> followers = new ConcurrentHashMap<>();
+        AtomicLong requests = new AtomicLong();
+        AtomicLong outOfOrder = new AtomicLong();
+        for (int i = 0; i < FOLLOWER_COUNT; i++) {
+            String server = "127.0.0." + (i + 2) + ":8848";
+            servers.add(server);
+            followers.put(server, new ConcurrentHashMap<>());
+        }
+        RaftPeer leader = new RaftPeer();
+        leader.ip = "127.0.0.1:8848";
+        RaftPublishPipeline pipeline = new RaftPublishPipeline(() -> leader,
+                (server, type, key, content, callback) -> {
+                    if (network.isShutdown()) {
+                        return;
+                    }
+                    requests.incrementAndGet();
+                    network.schedule(() -> apply(followers.get(server), content, callback, outOfOrder),
+                            ROUND_TRIP_MICROS, TimeUnit.MICROSECONDS);
+                });
+        
+        Lock lock = new ReentrantLock();
+        Map<String, Long> timestamps = new ConcurrentHashMap<>();
+        int majority = (FOLLOWER_COUNT + 1) / 2 + 1;
+        long deadline = System.currentTimeMillis() + DURATION_MILLIS;
+        AtomicLong published = new AtomicLong();
+        AtomicReference<Exception> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(PUBLISHER_COUNT);
+        for (int i = 0; i < PUBLISHER_COUNT; i++) {
+            final int publisher = i;
+            new Thread(() -> {
+                try {
+                    long round = 0;
+                    while (System.currentTimeMillis() < deadline) {
+                        String key = "key-" + ((publisher + round++ * PUBLISHER_COUNT) % KEY_COUNT);
+                        RaftPublishPipeline.Replication replication;
+                        lock.lock();
+                        try {
+                            Datum datum = new Datum();
+                            datum.key = key;
+                            datum.timestamp.set(timestamps.merge(key, 1L, Long::sum));
+                            replication = pipeline.replicate(datum, servers, majority);
+                            if (!pipelined && !replication.await(TimeUnit.SECONDS.toMillis(5))) {
+                                throw new IllegalStateException("publish timeout");
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                        if (pipelined && !replication.await(TimeUnit.SECONDS.toMillis(5))) {
+                            throw new IllegalStateException("publish timeout");
+                        }
+                        published.incrementAndGet();
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        network.shutdown();
+        network.awaitTermination(1, TimeUnit.SECONDS);
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        System.out.println("  requests: " + requests.get() + ", out of order updates: " + outOfOrder.get());
+        return published.get() * TimeUnit.SECONDS.toMillis(1) / DURATION_MILLIS;
+    }
+    
+    private static void apply(Map<String, Long> store, String content, Callback<String> callback,
+            AtomicLong outOfOrder) {
+        ArrayNode results = JacksonUtils.createEmptyArrayNode();
+        for (JsonNode datum : JacksonUtils.toObj(content).get("datums")) {
+            String key = datum.get("key").asText();
+            long timestamp = datum.get("timestamp").asLong();
+            Long previous = store.put(key, timestamp);
+            if (previous != null && previous >= timestamp) {
+                outOfOrder.incrementAndGet();
+            }
+            results.add(true);
+        }
+        callback.onReceive(RestResultUtils.success(results.toString()));
+    }
+}
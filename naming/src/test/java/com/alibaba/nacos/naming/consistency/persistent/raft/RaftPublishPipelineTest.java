@@ -0,0 +1,253 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.consistency.persistent.raft;
+
+import com.alibaba.nacos.common.http.Callback;
+import com.alibaba.nacos.common.model.RestResultUtils;
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import com.alibaba.nacos.naming.consistency.Datum;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+public class RaftPublishPipelineTest {
+    
+    private static final List<String> FOLLOWERS = Arrays.asList("127.0.0.2:8848", "127.0.0.3:8848");
+    
+    private final List<Request> requests = Collections.synchronizedList(new ArrayList<>());
+    
+    private RaftPublishPipeline pipeline;
+    
+    @Before
+    public void setUp() {
+        RaftPeer leader = new RaftPeer();
+        leader.ip = "127.0.0.1:8848";
+        pipeline = new RaftPublishPipeline(() -> leader,
+                (server, type, key, content, callback) -> requests.add(new Request(server, type, content, callback)));
+    }
+    
+    @Test
+    public void testBatchWhileInFlight() throws Exception {
+        final RaftPublishPipeline.Replication first = pipeline.replicate(datum("a", 1L), FOLLOWERS, 2);
+        Assert.assertEquals(2, requests.size());
+        
+        List<RaftPublishPipeline.Replication> pending = new ArrayList<>();
+        pending.add(pipeline.replicate(datum("b", 1L), FOLLOWERS, 2));
+        pending.add(pipeline.replicate(datum("a", 2L), FOLLOWERS, 2));
+        pending.add(pipeline.replicate(datum("a", 3L), FOLLOWERS, 2));
+        // one request in flight per follower
+        Assert.assertEquals(2, requests.size());
+        Assert.assertFalse(first.await(0L));
+        
+        requests.get(0).ok();
+        Assert.assertTrue(first.await(0L));
+        Assert.assertEquals(3, requests.size());
+        Request batch = requests.get(2);
+        Assert.assertEquals(requests.get(0).server, batch.server);
+        Assert.assertEquals(RaftPublishPipeline.CommitType.BATCH, batch.type);
+        
+        JsonNode datums = JacksonUtils.toObj(batch.content).get("datums");
+        Assert.assertEquals(3, datums.size());
+        Assert.assertEquals("b", datums.get(0).get("key").asText());
+        Assert.assertEquals(2L, datums.get(1).get("timestamp").asLong());
+        Assert.assertEquals(3L, datums.get(2).get("timestamp").asLong());
+        
+        batch.ok();
+        for (RaftPublishPipeline.Replication replication : pending) {
+            Assert.assertTrue(replication.await(0L));
+        }
+    }
+    
+    @Test
+    public void testSlowFollowerDoesNotBlockMajority() throws Exception {
+        pipeline.replicate(datum("a", 1L), FOLLOWERS, 2);
+        final RaftPublishPipeline.Replication second = pipeline.replicate(datum("a", 2L), FOLLOWERS, 2);
+        String fast = requests.get(0).server;
+        requests.get(0).ok();
+        Request next = requests.get(requests.size() - 1);
+        Assert.assertEquals(fast, next.server);
+        next.ok();
+        Assert.assertTrue(second.await(0L));
+    }
+    
+    @Test
+    public void testFallbackToSingleCommit() throws Exception {
+        final RaftPublishPipeline.Replication first = pipeline.replicate(datum("a", 1L), FOLLOWERS.subList(0, 1), 2);
+        final RaftPublishPipeline.Replication second = pipeline.replicate(datum("b", 1L), FOLLOWERS.subList(0, 1), 2);
+        requests.get(0).callback.onReceive(RestResultUtils.failed(404, null));
+        
+        Request single = requests.get(1);
+        Assert.assertEquals(RaftPublishPipeline.CommitType.SINGLE, single.type);
+        Assert.assertEquals("a", JacksonUtils.toObj(single.content).get("datum").get("key").asText());
+        single.ok();
+        Assert.assertTrue(first.await(0L));
+        Assert.assertFalse(second.await(0L));
+        
+        single = requests.get(2);
+        Assert.assertEquals(RaftPublishPipeline.CommitType.SINGLE, single.type);
+        single.ok();
+        Assert.assertTrue(second.await(0L));
+    }
+    
+    @Test
+    public void testExpiredDatumsAreDropped() throws Exception {
+        RaftPeer leader = new RaftPeer();
+        leader.ip = "127.0.0.1:8848";
+        pipeline = new RaftPublishPipeline(() -> leader,
+                (server, type, key, content, callback) -> requests.add(new Request(server, type, content, callback)),
+                50L);
+        pipeline.replicate(datum("a", 1L), FOLLOWERS.subList(0, 1), 2);
+        pipeline.replicate(datum("b", 1L), FOLLOWERS.subList(0, 1), 2);
+        Thread.sleep(100L);
+        final RaftPublishPipeline.Replication fresh = pipeline.replicate(datum("c", 1L), FOLLOWERS.subList(0, 1), 2);
+        requests.get(0).ok();
+        
+        Assert.assertEquals(2, requests.size());
+        JsonNode datums = JacksonUtils.toObj(requests.get(1).content).get("datums");
+        Assert.assertEquals(1, datums.size());
+        Assert.assertEquals("c", datums.get(0).get("key").asText());
+        requests.get(1).ok();
+        Assert.assertTrue(fresh.await(0L));
+    }
+    
+    @Test
+    public void testQueueIsBounded() {
+        pipeline.replicate(datum("in-flight", 1L), FOLLOWERS.subList(0, 1), 2);
+        for (int i = 0; i < RaftPublishPipeline.MAX_QUEUE_SIZE + 10; i++) {
+            pipeline.replicate(datum("key" + i, 1L), FOLLOWERS.subList(0, 1), 2);
+        }
+        requests.get(0).ok();
+        JsonNode datums = JacksonUtils.toObj(requests.get(1).content).get("datums");
+        Assert.assertEquals("key10", datums.get(0).get("key").asText());
+    }
+    
+    @Test
+    public void testRemovedFollowersAreEvicted() {
+        pipeline.replicate(datum("a", 1L), FOLLOWERS, 2);
+        Assert.assertEquals(2, pipeline.followerCount());
+        pipeline.replicate(datum("a", 2L), FOLLOWERS.subList(1, 2), 2);
+        Assert.assertEquals(1, pipeline.followerCount());
+    }
+    
+    @Test
+    public void testSynchronousResultsAreSentInLoop() throws Exception {
+        final List<String> sent = new ArrayList<>();
+        final int[] calls = new int[1];
+        pipeline = new RaftPublishPipeline(RaftPeer::new, (server, type, key, content, callback) -> {
+            if (calls[0]++ % 2 == 0) {
+                throw new IllegalStateException("connection refused");
+            }
+            sent.add(key);
+            // every request carries the one datum queued meanwhile
+            callback.onReceive(RestResultUtils.success("[true]"));
+        });
+        final List<RaftPublishPipeline.Replication> replications = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            replications.add(pipeline.replicate(datum("key" + i, 1L), FOLLOWERS.subList(0, 1), 2));
+        }
+        Assert.assertEquals(5, sent.size());
+        Assert.assertTrue(replications.get(1).await(0L));
+        Assert.assertFalse(replications.get(0).await(0L));
+    }
+    
+    @Test
+    public void testDeleteIsOrderedWithPublishes() throws Exception {
+        final List<String> follower = FOLLOWERS.subList(0, 1);
+        pipeline.replicate(datum("a", 1L), follower, 2);
+        final RaftPublishPipeline.Replication stale = pipeline.replicate(datum("a", 2L), follower, 2);
+        pipeline.replicateDelete(datum("a", 0L), follower);
+        final RaftPublishPipeline.Replication fresh = pipeline.replicate(datum("a", 3L), follower, 2);
+        Assert.assertEquals(1, requests.size());
+        
+        requests.get(0).ok();
+        Assert.assertEquals(RaftPublishPipeline.CommitType.BATCH, requests.get(1).type);
+        Assert.assertEquals(1, JacksonUtils.toObj(requests.get(1).content).get("datums").size());
+        requests.get(1).ok();
+        Assert.assertTrue(stale.await(0L));
+        
+        Request delete = requests.get(2);
+        Assert.assertEquals(RaftPublishPipeline.CommitType.DELETE, delete.type);
+        Assert.assertEquals("a", JacksonUtils.toObj(delete.content).get("datum").get("key").asText());
+        Assert.assertEquals(3, requests.size());
+        delete.ok();
+        
+        Assert.assertEquals(3L, JacksonUtils.toObj(requests.get(3).content).get("datums").get(0).get("timestamp")
+                .asLong());
+        requests.get(3).ok();
+        Assert.assertTrue(fresh.await(0L));
+    }
+    
+    @Test
+    public void testOnlyAppliedDatumsOfBatchAreAcked() throws Exception {
+        final List<String> follower = FOLLOWERS.subList(0, 1);
+        pipeline.replicate(datum("a", 1L), follower, 2);
+        final RaftPublishPipeline.Replication failed = pipeline.replicate(datum("b", 1L), follower, 2);
+        final RaftPublishPipeline.Replication applied = pipeline.replicate(datum("c", 1L), follower, 2);
+        requests.get(0).ok();
+        
+        ArrayNode results = JacksonUtils.createEmptyArrayNode();
+        results.add(false);
+        results.add(true);
+        requests.get(1).callback.onReceive(RestResultUtils.success(results.toString()));
+        Assert.assertFalse(failed.await(0L));
+        Assert.assertTrue(applied.await(0L));
+    }
+    
+    private static Datum datum(String key, long timestamp) {
+        Datum datum = new Datum();
+        datum.key = key;
+        datum.timestamp.set(timestamp);
+        return datum;
+    }
+    
+    private static class Request {
+        
+        final String server;
+        
+        final RaftPublishPipeline.CommitType type;
+        
+        final String content;
+        
+        final Callback<String> callback;
+        
+        Request(String server, RaftPublishPipeline.CommitType type, String content, Callback<String> callback) {
+            this.server = server;
+            this.type = type;
+            this.content = content;
+            this.callback = callback;
+        }
+        
+        void ok() {
+            if (type != RaftPublishPipeline.CommitType.BATCH) {
+                callback.onReceive(RestResultUtils.success("ok"));
+                return;
+            }
+            ArrayNode results = JacksonUtils.createEmptyArrayNode();
+            for (int i = 0; i < JacksonUtils.toObj(content).get("datums").size(); i++) {
+                results.add(true);
+            }
+            callback.onReceive(RestResultUtils.success(results.toString()));
+        }
+    }
+}
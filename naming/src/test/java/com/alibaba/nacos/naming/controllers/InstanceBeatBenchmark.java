@@ -0,0 +1,142 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.controllers;
+
+import com.alibaba.nacos.api.common.Constants;
+import com.alibaba.nacos.api.naming.CommonParams;
+import com.alibaba.nacos.api.naming.NamingResponseCode;
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import com.alibaba.nacos.naming.core.Cluster;
+import com.alibaba.nacos.naming.core.Instance;
+import com.alibaba.nacos.naming.core.Service;
+import com.alibaba.nacos.naming.core.ServiceManager;
+import com.alibaba.nacos.naming.healthcheck.RsInfo;
+import com.alibaba.nacos.naming.misc.SwitchDomain;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Handling of client beats by {@link InstanceController#beat}, run with {@code main}.
+ *
+ * <p>Light beats carry the address of the instance as parameters, the other beats only carry the beat JSON as old
+ * clients send it, which is bound to {@link RsInfo} before the lookup. The processing of the beat by the service is
+ * left out, it runs on the health check executor after the request.
+ *
+ * @author nacos
+ */
+public class InstanceBeatBenchmark {
+    
+    private static final int[] INSTANCE_COUNTS = {100, 1000, 10000};
+    
+    private static final String SERVICE_NAME = Constants.DEFAULT_GROUP + Constants.SERVICE_INFO_SPLITER + "benchmark";
+    
+    private static final String CLUSTER_NAME = "benchmark-cluster";
+    
+    private static final long DURATION_NANOS = TimeUnit.SECONDS.toNanos(2);
+    
+    /**
+     * Run the benchmark.
+     *
+     * @param args no arguments
+     * @throws Exception any error of the beat handler
+     */
+    public static void main(String[] args) throws Exception {
+        for (int count : INSTANCE_COUNTS) {
+            Service service = new Service(SERVICE_NAME) {
+                @Override
+                public void processClientBeat(RsInfo rsInfo) {
+                }
+            };
+            service.setNamespaceId(Constants.DEFAULT_NAMESPACE_ID);
+            Cluster cluster = new Cluster(CLUSTER_NAME, service);
+            service.addCluster(cluster);
+            List<Instance> instances = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                Instance instance = new Instance("10.0." + (i / 250) + "." + (i % 250), 8080 + i % 7);
+                instance.setClusterName(CLUSTER_NAME);
+                instances.add(instance);
+            }
+            cluster.updateIps(instances, false);
+            
+            SwitchDomain switchDomain = new SwitchDomain();
+            ServiceManager serviceManager = new ServiceManager(switchDomain, null, null, null, null);
+            serviceManager.putService(service);
+            InstanceController controller = new InstanceController();
+            ReflectionTestUtils.setField(controller, "switchDomain", switchDomain);
+            ReflectionTestUtils.setField(controller, "serviceManager", serviceManager);
+            
+            List<MockHttpServletRequest> lightBeats = new ArrayList<>(count);
+            List<MockHttpServletRequest> jsonBeats = new ArrayList<>(count);
+            for (Instance instance : instances) {
+                lightBeats.add(lightBeat(instance));
+                jsonBeats.add(jsonBeat(instance));
+            }
+            // warm up both paths before measuring
+            run(controller, lightBeats);
+            run(controller, jsonBeats);
+            System.out.printf("%6d instances, light beat: %8.1f ns/beat, json beat: %8.1f ns/beat%n", count,
+                    run(controller, lightBeats), run(controller, jsonBeats));
+        }
+    }
+    
+    private static MockHttpServletRequest lightBeat(Instance instance) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(CommonParams.SERVICE_NAME, SERVICE_NAME);
+        request.addParameter(CommonParams.CLUSTER_NAME, CLUSTER_NAME);
+        request.addParameter("ip", instance.getIp());
+        request.addParameter("port", String.valueOf(instance.getPort()));
+        return request;
+    }
+    
+    private static MockHttpServletRequest jsonBeat(Instance instance) {
+        RsInfo rsInfo = new RsInfo();
+        rsInfo.setServiceName(SERVICE_NAME);
+        rsInfo.setCluster(CLUSTER_NAME);
+        rsInfo.setIp(instance.getIp());
+        rsInfo.setPort(instance.getPort());
+        rsInfo.setWeight(1.0D);
+        rsInfo.setEphemeral(true);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addParameter(CommonParams.SERVICE_NAME, SERVICE_NAME);
+        request.addParameter("beat", JacksonUtils.toJson(rsInfo));
+        return request;
+    }
+    
+    private static double run(InstanceController controller, List<MockHttpServletRequest> beats) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long handled = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            for (int i = 0; i < 1000; i++) {
+                ObjectNode result = controller.beat(beats.get(random.nextInt(beats.size())));
+                if (result.get(CommonParams.CODE).asInt() != NamingResponseCode.OK) {
+                    throw new IllegalStateException("instance not found: " + result);
+                }
+            }
+            handled += 1000;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < DURATION_NANOS);
+        return (double) elapsed / handled;
+    }
+}
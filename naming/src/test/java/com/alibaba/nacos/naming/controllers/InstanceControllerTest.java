@@ -45,6 +45,7 @@ import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
@@ -148,6 +149,67 @@ public class InstanceControllerTest extends BaseTest {
         Assert.assertEquals(2.0, host.get("weight").asDouble(), 0.001);
     }
     
+    @Test
+    public void batchGetInstances() throws Exception {
+        
+        Service service = new Service();
+        service.setName(TEST_SERVICE_NAME);
+        
+        Cluster cluster = new Cluster(UtilsAndCommons.DEFAULT_CLUSTER_NAME, service);
+        service.addCluster(cluster);
+        
+        Instance instance = new Instance();
+        instance.setIp("10.10.10.10");
+        instance.setPort(8888);
+        instance.setServiceName(TEST_SERVICE_NAME);
+        service.updateIPs(Collections.singletonList(instance), false);
+        
+        Mockito.when(serviceManager.getService(Constants.DEFAULT_NAMESPACE_ID, TEST_SERVICE_NAME)).thenReturn(service);
+        
+        String otherServiceName = "DEFAULT_GROUP@@other-service";
+        String services = "[{\"serviceName\":\"" + TEST_SERVICE_NAME + "\",\"clusters\":\"\"},"
+                + "{\"serviceName\":\"" + otherServiceName + "\"}]";
+        MockHttpServletRequestBuilder builder = MockMvcRequestBuilders
+                .post(UtilsAndCommons.NACOS_NAMING_CONTEXT + "/instance/list/batch").param("services", services);
+        
+        MockHttpServletResponse response = mockmvc.perform(builder).andReturn().getResponse();
+        JsonNode result = JacksonUtils.toObj(response.getContentAsString()).get("services");
+        
+        Assert.assertEquals(2, result.size());
+        Assert.assertEquals(TEST_SERVICE_NAME, result.get(0).get("name").asText());
+        Assert.assertEquals(1, result.get(0).get("hosts").size());
+        Assert.assertEquals(otherServiceName, result.get(1).get("name").asText());
+        Assert.assertEquals(0, result.get(1).get("hosts").size());
+    }
+    
+    @Test
+    public void batchListWithHealthStatus() throws Exception {
+        
+        Service service = new Service();
+        service.setName(TEST_SERVICE_NAME);
+        
+        Cluster cluster = new Cluster(UtilsAndCommons.DEFAULT_CLUSTER_NAME, service);
+        service.addCluster(cluster);
+        
+        Instance instance = new Instance();
+        instance.setIp("10.10.10.10");
+        instance.setPort(8888);
+        instance.setServiceName(TEST_SERVICE_NAME);
+        service.updateIPs(Collections.singletonList(instance), false);
+        
+        Mockito.when(serviceManager.getService(Constants.DEFAULT_NAMESPACE_ID, TEST_SERVICE_NAME)).thenReturn(service);
+        
+        String keys = "[\"" + TEST_SERVICE_NAME + "\",\"DEFAULT_GROUP@@other-service\"]";
+        MockHttpServletRequestBuilder builder = MockMvcRequestBuilders
+                .post(UtilsAndCommons.NACOS_NAMING_CONTEXT + "/instance/statuses/batch").param("keys", keys);
+        
+        MockHttpServletResponse response = mockmvc.perform(builder).andReturn().getResponse();
+        JsonNode result = JacksonUtils.toObj(response.getContentAsString()).get("services");
+        
+        Assert.assertEquals(1, result.size());
+        Assert.assertEquals("10.10.10.10:8888_true", result.get(TEST_SERVICE_NAME).get("ips").get(0).asText());
+    }
+    
     @Test
     public void getNullServiceInstances() throws Exception {
         Mockito.when(serviceManager.getService(Constants.DEFAULT_NAMESPACE_ID, TEST_SERVICE_NAME)).thenReturn(null);
@@ -252,4 +314,29 @@ public class InstanceControllerTest extends BaseTest {
         Assert.assertTrue(updated.get(1).asText().contains(TEST_CLUSTER_NAME));
         Assert.assertTrue(updated.get(1).asText().contains("ephemeral"));
     }
+    
+    @Test
+    public void batchBeat() throws Exception {
+        Instance instance = new Instance("1.1.1.1", 8080, TEST_CLUSTER_NAME);
+        Service service = Mockito.mock(Service.class);
+        Mockito.when(distroMapper.responsible(TEST_SERVICE_NAME)).thenReturn(true);
+        Mockito.when(serviceManager
+                .getInstance(Constants.DEFAULT_NAMESPACE_ID, TEST_SERVICE_NAME, TEST_CLUSTER_NAME, "1.1.1.1", 8080))
+                .thenReturn(instance);
+        Mockito.when(serviceManager.getService(Constants.DEFAULT_NAMESPACE_ID, TEST_SERVICE_NAME)).thenReturn(service);
+        
+        MockHttpServletRequestBuilder builder = MockMvcRequestBuilders
+                .put(UtilsAndCommons.NACOS_NAMING_CONTEXT + "/instance/beat/batch").param("beats",
+                        "[{\"serviceName\":\"" + TEST_SERVICE_NAME + "\",\"cluster\":\"test-cluster\","
+                                + "\"ip\":\"1.1.1.1\",\"port\":8080},{\"serviceName\":\"" + TEST_SERVICE_NAME
+                                + "\",\"cluster\":\"test-cluster\",\"ip\":\"2.2.2.2\",\"port\":8080}]");
+        
+        String actualValue = mockmvc.perform(builder).andReturn().getResponse().getContentAsString();
+        
+        JsonNode result = JacksonUtils.toObj(actualValue);
+        JsonNode notFound = result.get("notFound");
+        Assert.assertEquals(1, notFound.size());
+        Assert.assertEquals(1, notFound.get(0).asInt());
+        Mockito.verify(service).processClientBeats(ArgumentMatchers.argThat(beats -> beats.size() == 1));
+    }
 }
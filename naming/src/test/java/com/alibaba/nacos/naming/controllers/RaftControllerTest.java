@@ -0,0 +1,122 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.controllers;
+
+import com.alibaba.nacos.common.utils.JacksonUtils;
+import com.alibaba.nacos.naming.consistency.Datum;
+import com.alibaba.nacos.naming.consistency.KeyBuilder;
+import com.alibaba.nacos.naming.consistency.persistent.ClusterVersionJudgement;
+import com.alibaba.nacos.naming.consistency.persistent.raft.RaftConsistencyServiceImpl;
+import com.alibaba.nacos.naming.consistency.persistent.raft.RaftCore;
+import com.alibaba.nacos.naming.consistency.persistent.raft.RaftPeer;
+import com.alibaba.nacos.naming.core.Instances;
+import com.alibaba.nacos.naming.core.ServiceManager;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.MockitoJUnitRunner;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RaftControllerTest {
+    
+    @Mock
+    private RaftConsistencyServiceImpl raftConsistencyService;
+    
+    @Mock
+    private ServiceManager serviceManager;
+    
+    @Mock
+    private RaftCore raftCore;
+    
+    @Mock
+    private ClusterVersionJudgement versionJudgement;
+    
+    private RaftController raftController;
+    
+    @Before
+    public void setUp() {
+        raftController = new RaftController(raftConsistencyService, serviceManager, raftCore, versionJudgement);
+    }
+    
+    @Test
+    public void testPublishBatchReportsEachDatum() throws Exception {
+        final String failedKey = KeyBuilder.buildInstanceListKey("public", "DEFAULT_GROUP@@b", false);
+        Mockito.doThrow(new IllegalStateException("out of date publish")).when(raftConsistencyService)
+                .onPut(ArgumentMatchers.argThat(datum -> failedKey.equals(datum.key)), ArgumentMatchers.any());
+        
+        ArrayNode datums = JacksonUtils.createEmptyArrayNode();
+        datums.add(datum(KeyBuilder.buildInstanceListKey("public", "DEFAULT_GROUP@@a", false)));
+        datums.add(datum(failedKey));
+        datums.add(datum(KeyBuilder.buildInstanceListKey("public", "DEFAULT_GROUP@@c", false)));
+        ObjectNode body = JacksonUtils.createEmptyJsonNode();
+        body.replace("source", JacksonUtils.transferToJsonNode(new RaftPeer()));
+        body.replace("datums", datums);
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(body.toString().getBytes(StandardCharsets.UTF_8));
+        
+        JsonNode results = JacksonUtils
+                .toObj(raftController.onPublishBatch(request, new MockHttpServletResponse()));
+        Assert.assertEquals(3, results.size());
+        Assert.assertTrue(results.get(0).asBoolean());
+        Assert.assertFalse(results.get(1).asBoolean());
+        Assert.assertTrue(results.get(2).asBoolean());
+        Mockito.verify(raftConsistencyService, Mockito.times(3)).onPut(ArgumentMatchers.any(), ArgumentMatchers.any());
+    }
+    
+    @Test
+    public void testBeatReturnsAckIndex() throws Exception {
+        Mockito.when(raftCore.receivedBeat(ArgumentMatchers.any())).thenReturn(new RaftPeer());
+        Mockito.when(raftCore.getBeatAckIndex()).thenReturn(5L);
+        ObjectNode beat = JacksonUtils.createEmptyJsonNode();
+        beat.put("beatEpoch", 7L);
+        beat.put("beatIndex", 5L);
+        ObjectNode body = JacksonUtils.createEmptyJsonNode();
+        body.put("beat", beat.toString());
+        // beats are always sent compressed
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body.toString().getBytes(StandardCharsets.UTF_8));
+        }
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setContent(out.toByteArray());
+        
+        JsonNode result = raftController.beat(request, new MockHttpServletResponse());
+        Assert.assertEquals(5L, result.get("beatAck").asLong());
+        Mockito.verify(raftCore).receivedBeat(ArgumentMatchers.argThat(json -> json.get("beatIndex").asLong() == 5L));
+    }
+    
+    private static JsonNode datum(String key) {
+        Datum<Instances> datum = new Datum<>();
+        datum.key = key;
+        datum.value = new Instances();
+        datum.timestamp.set(1L);
+        return JacksonUtils.transferToJsonNode(datum);
+    }
+}
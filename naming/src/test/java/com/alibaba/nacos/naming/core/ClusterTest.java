@@ -28,9 +28,13 @@ import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -115,6 +119,91 @@ public class ClusterTest {
         assertEquals(2345, ips.get(1).getPort());
     }
     
+    @Test
+    public void getInstance() {
+        Instance instance1 = new Instance("1.1.1.1", 1234);
+        Instance instance2 = new Instance("1.1.1.1", 2345);
+        List<Instance> list = new ArrayList<>();
+        list.add(instance1);
+        list.add(instance2);
+        cluster.updateIps(list, false);
+        
+        assertEquals(instance2, cluster.getInstance("1.1.1.1", 2345));
+        assertEquals(instance2, cluster.getInstance("1.1.1.1", 2345, false));
+        assertNull(cluster.getInstance("1.1.1.1", 2345, true));
+        assertNull(cluster.getInstance("1.1.1.1", 3456));
+        assertTrue(cluster.contains(new Instance("1.1.1.1", 2345)));
+        assertTrue(cluster.contains(new Instance("1.1.1.1", 0)));
+        assertFalse(cluster.contains(new Instance("1.1.1.1", 3456)));
+        
+        list.remove(instance2);
+        cluster.updateIps(list, false);
+        assertNull(cluster.getInstance("1.1.1.1", 2345));
+        assertEquals(instance1, cluster.getInstance("1.1.1.1", 1234));
+    }
+    
+    @Test
+    public void selectIPs() {
+        Instance instance1 = new Instance("1.1.1.1", 1234);
+        instance1.getMetadata().put("version", "1.0");
+        instance1.getMetadata().put("zone", "a");
+        Instance instance2 = new Instance("1.1.1.1", 2345);
+        instance2.getMetadata().put("version", "1.0");
+        instance2.getMetadata().put("zone", "b");
+        Instance instance3 = new Instance("1.1.1.2", 1234);
+        instance3.getMetadata().put("version", "2.0");
+        instance3.getMetadata().put("zone", "a");
+        List<Instance> list = new ArrayList<>();
+        list.add(instance1);
+        list.add(instance2);
+        list.add(instance3);
+        cluster.updateIps(list, false);
+        
+        Map<String, String> predicates = new HashMap<>(4);
+        predicates.put("version", "1.0");
+        assertEquals(2, cluster.selectIPs(predicates).size());
+        
+        // the index of a queried key is maintained on update
+        instance3.getMetadata().put("version", "1.0");
+        cluster.updateIps(list, false);
+        assertEquals(3, cluster.selectIPs(predicates).size());
+        instance3.getMetadata().put("version", "2.0");
+        cluster.updateIps(list, false);
+        assertEquals(2, cluster.selectIPs(predicates).size());
+        
+        predicates.put("zone", "a");
+        assertEquals(Collections.singletonList(instance1), cluster.selectIPs(predicates));
+        predicates.put("version", "3.0");
+        assertTrue(cluster.selectIPs(predicates).isEmpty());
+        predicates.remove("version");
+        assertEquals(2, cluster.selectIPs(predicates).size());
+        assertEquals(3, cluster.selectIPs(Collections.emptyMap()).size());
+    }
+    
+    @Test
+    public void selectIPsIndexesRecentlyQueriedKeys() {
+        Instance instance = new Instance("1.1.1.1", 1234);
+        instance.getMetadata().put("version", "1.0");
+        cluster.updateIps(Collections.singletonList(instance), false);
+        
+        Map<String, String> predicates = new HashMap<>(4);
+        predicates.put("version", "1.0");
+        assertEquals(1, cluster.selectIPs(predicates).size());
+        for (int i = 0; i < 16; i++) {
+            assertTrue(cluster.selectIPs(Collections.singletonMap("junk" + i, "1.0")).isEmpty());
+            assertEquals(1, cluster.selectIPs(predicates).size());
+        }
+        // the junk keys evict each other, but not the key queried all along
+        Map<?, ?> metadataIndex = (Map<?, ?>) ReflectionTestUtils.getField(cluster, "metadataIndex");
+        assertEquals(8, metadataIndex.size());
+        assertTrue(metadataIndex.containsKey("version"));
+        assertFalse(metadataIndex.containsKey("junk0"));
+        
+        cluster.updateIps(Collections.singletonList(instance), false);
+        assertTrue(((Map<?, ?>) ReflectionTestUtils.getField(cluster, "metadataIndex")).isEmpty());
+        assertEquals(1, cluster.selectIPs(predicates).size());
+    }
+    
     @Test
     public void testValidate() {
         Service service = new Service("nacos.service.2");
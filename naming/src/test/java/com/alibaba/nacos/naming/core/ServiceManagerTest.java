@@ -262,7 +262,7 @@ public class ServiceManagerTest extends BaseTest {
         serviceManager.createEmptyService(TEST_NAMESPACE, TEST_SERVICE_NAME, true);
         Service service = serviceManager.getService(TEST_NAMESPACE, TEST_SERVICE_NAME);
         service.addCluster(cluster);
-        ((Set<Instance>) ReflectionTestUtils.getField(cluster, "ephemeralInstances")).add(instance);
+        cluster.updateIps(Collections.singletonList(instance), true);
         serviceManager.updateInstance(TEST_NAMESPACE, TEST_SERVICE_NAME, instance);
         String instanceListKey = KeyBuilder.buildInstanceListKey(TEST_NAMESPACE, TEST_SERVICE_NAME, true);
         verify(consistencyService).put(eq(instanceListKey), any(Instances.class));
@@ -353,7 +353,7 @@ public class ServiceManagerTest extends BaseTest {
         assertNull(serviceManager.getInstance(TEST_NAMESPACE, TEST_SERVICE_NAME, TEST_CLUSTER_NAME, "1.1.1.1", 1));
         Service service = serviceManager.getService(TEST_NAMESPACE, TEST_SERVICE_NAME);
         service.addCluster(cluster);
-        ((Set<Instance>) ReflectionTestUtils.getField(cluster, "ephemeralInstances")).add(instance);
+        cluster.updateIps(Collections.singletonList(instance), true);
         assertEquals(instance,
                 serviceManager.getInstance(TEST_NAMESPACE, TEST_SERVICE_NAME, TEST_CLUSTER_NAME, "1.1.1.1", 1));
         assertNull(serviceManager.getInstance(TEST_NAMESPACE, TEST_SERVICE_NAME, TEST_CLUSTER_NAME, "2.2.2.2", 2));
@@ -449,6 +449,15 @@ public class ServiceManagerTest extends BaseTest {
         serviceManager.updatedHealthStatus(namespaceId, serviceName, serverIp);
     }
     
+    @Test
+    public void testAddUpdatedServiceToQueueMerged() {
+        serviceManager.addUpdatedServiceToQueue(TEST_NAMESPACE, TEST_SERVICE_NAME, "127.0.0.1", "checksum1");
+        serviceManager.addUpdatedServiceToQueue(TEST_NAMESPACE, TEST_SERVICE_NAME, "127.0.0.1", "checksum2");
+        assertEquals(1, serviceManager.getUpdatedServiceQueueSize());
+        serviceManager.addUpdatedServiceToQueue(TEST_NAMESPACE, "otherService", "127.0.0.1", "checksum1");
+        assertEquals(2, serviceManager.getUpdatedServiceQueueSize());
+    }
+    
     @Test
     public void testSerializeServiceChecksum() {
         ServiceChecksum checksum = new ServiceChecksum();
@@ -21,29 +21,25 @@ import com.alibaba.nacos.naming.core.DistroMapper;
 import com.alibaba.nacos.naming.core.Instance;
 import com.alibaba.nacos.naming.core.Service;
 import com.alibaba.nacos.naming.misc.GlobalConfig;
+import com.alibaba.nacos.naming.misc.SwitchDomain;
 import com.alibaba.nacos.naming.push.PushService;
+import com.alibaba.nacos.sys.utils.ApplicationUtils;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
-import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.context.ConfigurableApplicationContext;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 
 @RunWith(MockitoJUnitRunner.Silent.class)
-public class ClientBeatCheckTaskTest {
+public class ClientBeatExpiryIndexTest {
     
-    @InjectMocks
-    @Spy
-    private ClientBeatCheckTask clientBeatCheckTask;
+    private ClientBeatExpiryIndex clientBeatExpiryIndex;
     
     @Mock
     private DistroMapper distroMapperSpy;
@@ -54,90 +50,130 @@ public class ClientBeatCheckTaskTest {
     @Mock
     private GlobalConfig globalConfig;
     
+    @Mock
+    private SwitchDomain switchDomain;
+    
     @Mock
     private PushService pushService;
     
+    @Mock
+    private ConfigurableApplicationContext context;
+    
     @Before
     public void init() {
-        ReflectionTestUtils.setField(clientBeatCheckTask, "service", serviceSpy);
-        Mockito.doReturn(distroMapperSpy).when(clientBeatCheckTask).getDistroMapper();
-        Mockito.doReturn(globalConfig).when(clientBeatCheckTask).getGlobalConfig();
-        Mockito.doReturn(pushService).when(clientBeatCheckTask).getPushService();
+        ApplicationUtils.injectContext(context);
+        clientBeatExpiryIndex = Mockito.spy(new ClientBeatExpiryIndex(10L));
+        Mockito.doReturn(distroMapperSpy).when(clientBeatExpiryIndex).getDistroMapper();
+        Mockito.doReturn(globalConfig).when(clientBeatExpiryIndex).getGlobalConfig();
+        Mockito.doReturn(switchDomain).when(clientBeatExpiryIndex).getSwitchDomain();
+        Mockito.doReturn(pushService).when(clientBeatExpiryIndex).getPushService();
+        Mockito.doReturn(true).when(switchDomain).isHealthCheckEnabled();
+        Mockito.doReturn("test").when(serviceSpy).getName();
+        Mockito.doReturn("public").when(serviceSpy).getNamespaceId();
     }
     
     @Test
     public void testHeartBeatNotTimeout() {
-        Instance instance = new Instance();
+        Instance instance = new Instance("1.1.1.1", 8080);
         instance.setLastBeat(System.currentTimeMillis());
         instance.setMarked(false);
         instance.setHealthy(true);
         Map<String, String> metadata = new HashMap<>();
         metadata.put(PreservedMetadataKeys.HEART_BEAT_TIMEOUT, "1000000000");
         instance.setMetadata(metadata);
-        List<Instance> instances = new ArrayList<>();
-        instances.add(instance);
-        Mockito.when(serviceSpy.allIPs(true)).thenReturn(instances);
         
-        Mockito.doReturn("test").when(serviceSpy).getName();
         Mockito.doReturn(true).when(distroMapperSpy).responsible(Mockito.anyString());
-        clientBeatCheckTask.run();
+        check(instance);
         Assert.assertTrue(instance.isHealthy());
     }
     
     @Test
     public void testHeartBeatTimeout() {
-        Instance instance = new Instance();
+        Instance instance = new Instance("1.1.1.1", 8080);
         instance.setLastBeat(System.currentTimeMillis() - 1000);
         instance.setMarked(false);
         instance.setHealthy(true);
         Map<String, String> metadata = new HashMap<>();
         metadata.put(PreservedMetadataKeys.HEART_BEAT_TIMEOUT, "10");
         instance.setMetadata(metadata);
-        List<Instance> instances = new ArrayList<>();
-        instances.add(instance);
-        Mockito.doReturn("test").when(serviceSpy).getName();
         Mockito.doReturn(true).when(distroMapperSpy).responsible(Mockito.anyString());
         
-        Mockito.when(serviceSpy.allIPs(true)).thenReturn(instances);
-        
-        clientBeatCheckTask.run();
+        check(instance);
         Assert.assertFalse(instance.isHealthy());
     }
     
+    @Test
+    public void testHeartBeatTimeoutNotResponsible() {
+        Instance instance = new Instance("1.1.1.1", 8080);
+        instance.setLastBeat(System.currentTimeMillis() - 1000);
+        instance.setHealthy(true);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(PreservedMetadataKeys.HEART_BEAT_TIMEOUT, "10");
+        instance.setMetadata(metadata);
+        Mockito.doReturn(false).when(distroMapperSpy).responsible(Mockito.anyString());
+        
+        check(instance);
+        Assert.assertTrue(instance.isHealthy());
+    }
+    
     @Test
     public void testIpDeleteTimeOut() {
-        Instance instance = new Instance();
+        Instance instance = new Instance("1.1.1.1", 8080);
         instance.setLastBeat(System.currentTimeMillis());
-        instance.setMarked(true);
-        instance.setHealthy(true);
+        instance.setMarked(false);
+        instance.setHealthy(false);
         Map<String, String> metadata = new HashMap<>();
         metadata.put(PreservedMetadataKeys.IP_DELETE_TIMEOUT, "10");
         instance.setMetadata(metadata);
-        List<Instance> instances = new ArrayList<>();
-        instances.add(instance);
-        Mockito.doReturn(true).when(distroMapperSpy).responsible(null);
+        Mockito.doReturn(true).when(distroMapperSpy).responsible(Mockito.anyString());
         Mockito.doReturn(true).when(globalConfig).isExpireInstance();
-        Mockito.when(serviceSpy.allIPs(true)).thenReturn(instances);
         
-        clientBeatCheckTask.run();
+        check(instance);
     }
     
     @Test
     public void testIpDeleteNotTimeOut() {
-        Instance instance = new Instance();
+        Instance instance = new Instance("1.1.1.1", 8080);
         instance.setLastBeat(System.currentTimeMillis());
-        instance.setMarked(true);
-        instance.setHealthy(true);
+        instance.setMarked(false);
+        instance.setHealthy(false);
         Map<String, String> metadata = new HashMap<>();
         metadata.put(PreservedMetadataKeys.IP_DELETE_TIMEOUT, "10000");
         instance.setMetadata(metadata);
-        List<Instance> instances = new ArrayList<>();
-        instances.add(instance);
         
-        Mockito.doReturn(true).when(distroMapperSpy).responsible(null);
+        Mockito.doReturn(true).when(distroMapperSpy).responsible(Mockito.anyString());
         Mockito.doReturn(true).when(globalConfig).isExpireInstance();
-        Mockito.when(serviceSpy.allIPs(true)).thenReturn(instances);
         
-        clientBeatCheckTask.run();
+        check(instance);
+    }
+    
+    @Test
+    public void testOnlyExpiredInstancesVisited() throws InterruptedException {
+        Instance beating = new Instance("1.1.1.1", 8080);
+        beating.setHealthy(true);
+        beating.setLastBeat(System.currentTimeMillis());
+        Instance silent = new Instance("1.1.1.2", 8080);
+        silent.setHealthy(true);
+        silent.setLastBeat(System.currentTimeMillis() - 1000);
+        Map<String, String> metadata = new HashMap<>();
+        metadata.put(PreservedMetadataKeys.HEART_BEAT_TIMEOUT, "50");
+        silent.setMetadata(metadata);
+        
+        clientBeatExpiryIndex.refresh(serviceSpy, beating);
+        clientBeatExpiryIndex.refresh(serviceSpy, silent);
+        Assert.assertEquals(2, clientBeatExpiryIndex.size());
+        
+        Thread.sleep(100L);
+        clientBeatExpiryIndex.run();
+        Mockito.verify(clientBeatExpiryIndex, Mockito.times(1))
+                .check(Mockito.argThat(entry -> entry.instance == silent), Mockito.anyLong());
+        
+        clientBeatExpiryIndex.remove(serviceSpy, silent);
+        Assert.assertEquals(1, clientBeatExpiryIndex.size());
+    }
+    
+    private void check(Instance instance) {
+        ClientBeatExpiryIndex.Entry entry = new ClientBeatExpiryIndex.Entry("test", serviceSpy, instance);
+        clientBeatExpiryIndex.check(entry, System.currentTimeMillis());
     }
 }
@@ -0,0 +1,72 @@
+/*
+ * Copyright 1999-2018 Alibaba Group Holding Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.nacos.naming.healthcheck;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimeoutWheelTest {
+    
+    @Test
+    public void testExpireInDeadlineOrder() {
+        TimeoutWheel<String> wheel = new TimeoutWheel<>(10L, 8, 0L);
+        wheel.schedule("a", 25L);
+        wheel.schedule("b", 55L);
+        wheel.schedule("c", 500L);
+        Assert.assertEquals(3, wheel.size());
+        
+        List<String> expired = new ArrayList<>();
+        Assert.assertEquals(0, wheel.expire(20L, expired::add));
+        Assert.assertEquals(1, wheel.expire(30L, expired::add));
+        Assert.assertEquals(1, wheel.expire(60L, expired::add));
+        Assert.assertEquals(2, expired.size());
+        
+        // "c" lies several rounds away and must not expire when its bucket is passed
+        Assert.assertEquals(0, wheel.expire(490L, expired::add));
+        Assert.assertEquals(1, wheel.expire(510L, expired::add));
+        Assert.assertEquals("c", expired.get(2));
+        Assert.assertTrue(wheel.isEmpty());
+    }
+    
+    @Test
+    public void testCancel() {
+        TimeoutWheel<String> wheel = new TimeoutWheel<>(10L, 8, 0L);
+        TimeoutWheel.Timeout<String> timeout = wheel.schedule("a", 25L);
+        wheel.schedule("b", 25L);
+        Assert.assertTrue(timeout.cancel());
+        Assert.assertFalse(timeout.cancel());
+        
+        List<String> expired = new ArrayList<>();
+        wheel.expire(100L, expired::add);
+        Assert.assertEquals(1, expired.size());
+        Assert.assertEquals("b", expired.get(0));
+    }
+    
+    @Test
+    public void testScheduleInThePast() {
+        TimeoutWheel<String> wheel = new TimeoutWheel<>(10L, 8, 0L);
+        wheel.expire(100L, item -> { });
+        wheel.schedule("a", 50L);
+        
+        List<String> expired = new ArrayList<>();
+        wheel.expire(110L, expired::add);
+        Assert.assertEquals(1, expired.size());
+    }
+}
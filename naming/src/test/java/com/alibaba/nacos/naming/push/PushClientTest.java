@@ -17,9 +17,13 @@
 package com.alibaba.nacos.naming.push;
 
 import com.alibaba.nacos.naming.BaseTest;
+import com.alibaba.nacos.naming.misc.SwitchDomain;
+import org.junit.Assert;
 import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.net.InetSocketAddress;
+import java.util.Collections;
 
 public class PushClientTest extends BaseTest {
     
@@ -37,4 +41,48 @@ public class PushClientTest extends BaseTest {
         pushService.addClient(namespaceId, serviceName, clusters, agent, new InetSocketAddress(clientIp, udpPort), null,
                 namespaceId, app);
     }
+    
+    @Test
+    public void testZombieWithLease() {
+        SwitchDomain switchDomain = new SwitchDomain();
+        PushService service = new PushService();
+        ReflectionTestUtils.setField(service, "switchDomain", switchDomain);
+        PushService.PushClient client = service.new PushClient("public", "test.1", "DEFAULT",
+                "Nacos-Java-Client:v1.1.4", new InetSocketAddress("127.0.0.1", 10000), null, "public", "nacos");
+        client.lastRefTime = System.currentTimeMillis() - switchDomain.getDefaultPushCacheMillis() - 1000L;
+        Assert.assertTrue(client.zombie());
+        
+        client.setLeaseMillis(switchDomain.getDefaultPushCacheMillis() * 3);
+        Assert.assertFalse(client.zombie());
+        
+        // lease is limited by the max push lease
+        client.lastRefTime = System.currentTimeMillis() - switchDomain.getMaxPushLeaseMillis() - 1000L;
+        client.setLeaseMillis(switchDomain.getMaxPushLeaseMillis() * 2);
+        Assert.assertTrue(client.zombie());
+    }
+    
+    @Test
+    public void testPushCacheKeyWithMetadata() {
+        PushService service = new PushService();
+        PushService.PushClient client = service.new PushClient("public", "test.1", "DEFAULT",
+                "Nacos-Java-Client:v1.1.4", new InetSocketAddress("127.0.0.1", 10000), null, "public", "nacos");
+        PushService.PushClient other = service.new PushClient("public", "test.1", "DEFAULT",
+                "Nacos-Java-Client:v1.1.4", new InetSocketAddress("127.0.0.1", 10001), null, "public", "nacos");
+        Assert.assertEquals(PushService.getPushCacheKey("test.1", client),
+                PushService.getPushCacheKey("test.1", other));
+        
+        other.setMetadata(Collections.singletonMap("version", "2"));
+        Assert.assertNotEquals(PushService.getPushCacheKey("test.1", client),
+                PushService.getPushCacheKey("test.1", other));
+        
+        client.setMetadata(Collections.singletonMap("version", "2"));
+        Assert.assertEquals(PushService.getPushCacheKey("test.1", client),
+                PushService.getPushCacheKey("test.1", other));
+        
+        PushService.PushClient otherCluster = service.new PushClient("public", "test.1", "c2",
+                "Nacos-Java-Client:v1.1.4", new InetSocketAddress("127.0.0.1", 10002), null, "public", "nacos");
+        otherCluster.setMetadata(Collections.singletonMap("version", "2"));
+        Assert.assertNotEquals(PushService.getPushCacheKey("test.1", client),
+                PushService.getPushCacheKey("test.1", otherCluster));
+    }
 }
@@ -16,12 +16,18 @@
 
 package com.alibaba.nacos.naming.selector;
 
+import com.alibaba.nacos.api.cmdb.pojo.Entity;
 import com.alibaba.nacos.api.exception.NacosException;
+import com.alibaba.nacos.cmdb.service.CmdbReader;
+import com.alibaba.nacos.naming.core.Instance;
 import org.apache.commons.lang3.StringUtils;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 public class LabelSelectorTest {
@@ -40,4 +46,68 @@ public class LabelSelectorTest {
         Assert.assertEquals("B", labs[1]);
     }
     
+    @Test
+    public void selectWithCachedLabels() throws NacosException {
+        final FakeCmdbReader cmdbReader = new FakeCmdbReader();
+        cmdbReader.labels.put("10.0.0.1", "site1");
+        cmdbReader.labels.put("10.0.0.2", "site1");
+        cmdbReader.labels.put("10.0.0.3", "site2");
+        LabelSelector selector = new LabelSelector() {
+            @Override
+            CmdbReader getCmdbReader() {
+                return cmdbReader;
+            }
+        };
+        selector.setLabels(LabelSelector.parseExpression("CONSUMER.label.site=PROVIDER.label.site"));
+        
+        List<Instance> providers = Arrays
+                .asList(new Instance("10.0.0.2", 8080), new Instance("10.0.0.3", 8080), new Instance("10.0.0.2", 8081));
+        List<Instance> selected = selector.select("10.0.0.1", providers);
+        Assert.assertEquals(2, selected.size());
+        Assert.assertEquals("10.0.0.2", selected.get(0).getIp());
+        Assert.assertEquals(3, cmdbReader.queryCount);
+        
+        // labels unchanged, served from the compiled predicate
+        Assert.assertEquals(2, selector.select("10.0.0.1", providers).size());
+        Assert.assertEquals(3, cmdbReader.queryCount);
+        
+        cmdbReader.labels.put("10.0.0.3", "site1");
+        cmdbReader.version++;
+        Assert.assertEquals(3, selector.select("10.0.0.1", providers).size());
+        
+        // no provider matches, fall back to all providers
+        cmdbReader.labels.put("10.0.0.1", "site3");
+        cmdbReader.version++;
+        Assert.assertEquals(3, selector.select("10.0.0.1", providers).size());
+    }
+    
+    private static class FakeCmdbReader implements CmdbReader {
+        
+        private final Map<String, String> labels = new HashMap<>();
+        
+        private long version;
+        
+        private int queryCount;
+        
+        @Override
+        public Entity queryEntity(String entityName, String entityType) {
+            return null;
+        }
+        
+        @Override
+        public String queryLabel(String entityName, String entityType, String labelName) {
+            queryCount++;
+            return labels.get(entityName);
+        }
+        
+        @Override
+        public List<Entity> queryEntitiesByLabel(String labelName, String labelValue) {
+            return null;
+        }
+        
+        @Override
+        public long getLabelVersion() {
+            return version;
+        }
+    }
 }
@@ -28,6 +28,7 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileFilter;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
@@ -39,9 +40,12 @@ import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.function.Consumer;
 import java.util.zip.CheckedInputStream;
 import java.util.zip.CheckedOutputStream;
@@ -292,6 +296,42 @@ public final class DiskUtils {
         FileUtils.copyDirectory(srcDir, destDir);
     }
     
+    /**
+     * Hard link the files of the source directory into the destination directory, keeping the directory structure. A
+     * file is copied instead if the file system can not link it. Linked files share their content with the source, so
+     * the source files must be replaced rather than modified in place afterwards.
+     *
+     * @param srcDir  source directory
+     * @param destDir destination directory
+     * @param filter  accepts the files to link, null to link all files
+     * @throws IOException if a file can neither be linked nor copied
+     */
+    public static void linkDirectory(File srcDir, File destDir, FileFilter filter) throws IOException {
+        final Path source = srcDir.toPath();
+        final Path target = destDir.toPath();
+        Files.walkFileTree(source, new SimpleFileVisitor<Path>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                Files.createDirectories(target.resolve(source.relativize(dir)));
+                return FileVisitResult.CONTINUE;
+            }
+            
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (filter == null || filter.accept(file.toFile())) {
+                    final Path link = target.resolve(source.relativize(file));
+                    Files.deleteIfExists(link);
+                    try {
+                        Files.createLink(link, file);
+                    } catch (IOException | UnsupportedOperationException e) {
+                        Files.copy(file, link);
+                    }
+                }
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+    
     public static void copyFile(File src, File target) throws IOException {
         FileUtils.copyFile(src, target);
     }